@@ -0,0 +1,92 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.alert.AlertManager;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.log.ViolationEvent;
+import fi.tj88888.quantumAC.log.ViolationRing;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of queueing a violation, with and without rendering an alert message from it,
+ * for the regular and the verbose format
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AlertFormatBenchmark {
+
+    private static final MethodHandle FORMAT_ALERT_MESSAGE;
+
+    static {
+        try {
+            FORMAT_ALERT_MESSAGE = MethodHandles.privateLookupIn(AlertManager.class, MethodHandles.lookup())
+                    .findVirtual(AlertManager.class, "formatAlertMessage",
+                            MethodType.methodType(String.class, ViolationEvent.class, boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"regular", "verbose"})
+    public String format;
+
+    private AlertManager alertManager;
+    private ViolationRing ring;
+    private PlayerData playerData;
+    private SyntheticCheck check;
+    private boolean verbose;
+    private String message;
+    private final Consumer<ViolationEvent> render = this::render;
+    private final Consumer<ViolationEvent> discard = event -> { };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        QuantumAC plugin = BenchmarkPlugin.create();
+        alertManager = plugin.getAlertManager();
+        ring = new ViolationRing(16);
+        playerData = new PlayerData(UUID.randomUUID(), "Benchmark");
+        check = new SyntheticCheck(plugin, playerData);
+        verbose = "verbose".equals(format);
+    }
+
+    @Benchmark
+    public int publish() {
+        publishViolation();
+        return ring.drain(discard, 1);
+    }
+
+    @Benchmark
+    public String publishAndFormat() {
+        publishViolation();
+        ring.drain(render, 1);
+        return message;
+    }
+
+    private void publishViolation() {
+        long sequence = ring.claim();
+        ring.set(sequence, check, playerData, 4.5, 1.0, System.currentTimeMillis());
+        ring.setLocation(sequence, "world", 128.5, 72.0, -64.25, 50, 19.8);
+        ring.setDetails(sequence, "gravity: dy=%.2f, expected=%.2f, air-ticks=%.0f", 3,
+                0.42, -0.08, 12, 0, 0, 0);
+        ring.publish(sequence);
+    }
+
+    private void render(ViolationEvent event) {
+        try {
+            message = (String) FORMAT_ALERT_MESSAGE.invokeExact(alertManager, event, verbose);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
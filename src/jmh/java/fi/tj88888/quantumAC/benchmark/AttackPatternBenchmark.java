@@ -0,0 +1,45 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.check.combat.killaura.components.AttackPatternComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link AttackPatternComponent#checkAttackPattern} for a human-like and a perfectly regular clicker
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AttackPatternBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"human", "macro"})
+    public String pattern;
+
+    private AttackPatternComponent component;
+    private final long[] intervals = new long[SAMPLES];
+    private long time;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        component = new AttackPatternComponent();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SAMPLES; i++) {
+            intervals[i] = "macro".equals(pattern) ? 100 : 80 + random.nextLong(160);
+        }
+        time = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public String checkAttackPattern() {
+        time += intervals[index++ & (SAMPLES - 1)];
+        return component.checkAttackPattern(time);
+    }
+}
@@ -0,0 +1,133 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.alert.AlertManager;
+import fi.tj88888.quantumAC.check.CheckManager;
+import fi.tj88888.quantumAC.config.ConfigManager;
+import fi.tj88888.quantumAC.data.BlockStateCache;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerDataManager;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.database.MongoManager;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wires a {@link QuantumAC} instance for benchmarks without a running server.
+ *
+ * JavaPlugin refuses to be constructed outside a plugin class loader, so the plugin and
+ * the managers that would touch the server on construction are allocated without running
+ * their constructors and have their fields filled in directly. Configuration comes from the
+ * bundled default config files; MongoDB stays disconnected.
+ */
+final class BenchmarkPlugin {
+
+    private BenchmarkPlugin() {
+    }
+
+    static QuantumAC create() {
+        BukkitStubs.install();
+        try {
+            QuantumAC plugin = allocate(QuantumAC.class);
+            setLogger(plugin);
+
+            ConfigManager configManager = allocate(ConfigManager.class);
+            set(configManager, "plugin", plugin);
+            set(configManager, "config", loadResource("config.yml"));
+            set(configManager, "checksConfig", loadResource("checks.yml"));
+            set(configManager, "messagesConfig", loadResource("messages.yml"));
+            set(configManager, "currentTPS", 20.0);
+            set(plugin, "configManager", configManager);
+
+            set(plugin, "storage", allocate(MongoManager.class));
+            set(plugin, "blockStateCache", new BlockStateCache());
+            set(plugin, "playerDataManager", new PlayerDataManager(plugin));
+            set(plugin, "alertManager", new AlertManager(plugin));
+            set(plugin, "checkManager", new CheckManager(plugin));
+            return plugin;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to set up the benchmark plugin", e);
+        }
+    }
+
+    /**
+     * Adds a player the way a join would, without the database load
+     */
+    @SuppressWarnings("unchecked")
+    static PlayerData join(QuantumAC plugin, Player player) {
+        PlayerData data = new PlayerData(player.getUniqueId(), player.getName());
+        data.setStateSnapshot(PlayerStateSnapshot.capture(player));
+        try {
+            Map<UUID, PlayerData> players = (Map<UUID, PlayerData>) get(plugin.getPlayerDataManager(), "playerDataMap");
+            players.put(player.getUniqueId(), data);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to register benchmark player", e);
+        }
+        return data;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T allocate(Class<T> type) throws ReflectiveOperationException {
+        Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        Object unsafe = field.get(null);
+        return (T) unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+    }
+
+    static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = findField(target.getClass(), name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    static Object get(Object target, String name) throws ReflectiveOperationException {
+        Field field = findField(target.getClass(), name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+                // Keep looking in the superclass
+            }
+        }
+        throw new NoSuchFieldException(type.getName() + "." + name);
+    }
+
+    /**
+     * Gives the plugin a quiet logger; flags are logged at INFO and would swamp the benchmark output
+     */
+    private static void setLogger(JavaPlugin plugin) throws IllegalAccessException {
+        Logger logger = Logger.getLogger("QuantumAC");
+        logger.setLevel(Level.WARNING);
+        for (Field field : JavaPlugin.class.getDeclaredFields()) {
+            if (field.getType().isAssignableFrom(Logger.class)) {
+                field.setAccessible(true);
+                field.set(plugin, logger);
+                return;
+            }
+        }
+        throw new IllegalStateException("JavaPlugin has no logger field");
+    }
+
+    private static YamlConfiguration loadResource(String name) {
+        InputStream stream = BenchmarkPlugin.class.getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw new IllegalStateException("Missing resource " + name);
+        }
+        return YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,142 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.util.Vector;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Proxy-backed stand-ins for the Bukkit types the checks touch.
+ * Unanswered methods return zero, false, empty strings or empty collections, so a
+ * check that reaches an unexpected part of the API keeps running instead of failing.
+ *
+ * The world is flat: every block below {@link #GROUND_Y} is stone, everything above is air.
+ */
+final class BukkitStubs {
+
+    static final int GROUND_Y = 64;
+    static final World WORLD = createWorld();
+
+    private static final Map<UUID, Player> PLAYERS = new ConcurrentHashMap<>();
+
+    private BukkitStubs() {
+    }
+
+    /**
+     * Installs the stub server; safe to call from every benchmark setup
+     */
+    static synchronized void install() {
+        if (Bukkit.getServer() != null) return;
+
+        Logger logger = Logger.getLogger("QuantumAC-Benchmark");
+        BukkitScheduler scheduler = stub(BukkitScheduler.class, Map.of());
+        ConsoleCommandSender console = stub(ConsoleCommandSender.class, Map.of());
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getLogger", args -> logger);
+        answers.put("getScheduler", args -> scheduler);
+        answers.put("getConsoleSender", args -> console);
+        answers.put("getOnlinePlayers", args -> Collections.unmodifiableCollection(PLAYERS.values()));
+        answers.put("getPlayer", args -> args[0] instanceof UUID ? PLAYERS.get(args[0]) : null);
+        answers.put("getWorlds", args -> List.of(WORLD));
+        Bukkit.setServer(stub(Server.class, answers));
+    }
+
+    /**
+     * Creates an online survival player standing on the ground at the origin
+     */
+    static Player createPlayer(String name) {
+        UUID id = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        Location location = new Location(WORLD, 0.5, GROUND_Y, 0.5);
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getUniqueId", args -> id);
+        answers.put("getName", args -> name);
+        answers.put("getWorld", args -> WORLD);
+        answers.put("getLocation", args -> location.clone());
+        answers.put("isOnline", args -> true);
+        answers.put("isOnGround", args -> true);
+        answers.put("getPing", args -> 50);
+
+        Player player = stub(Player.class, answers);
+        PLAYERS.put(id, player);
+        return player;
+    }
+
+    private static World createWorld() {
+        UUID id = UUID.nameUUIDFromBytes("world".getBytes(StandardCharsets.UTF_8));
+        Block stone = createBlock(Material.STONE, false);
+        Block air = createBlock(Material.AIR, true);
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getName", args -> "world");
+        answers.put("getUID", args -> id);
+        answers.put("getMinHeight", args -> -64);
+        answers.put("getMaxHeight", args -> 320);
+        answers.put("isChunkLoaded", args -> true);
+        answers.put("getBlockAt", args -> {
+            double y = args.length == 1 ? ((Location) args[0]).getY() : ((Number) args[1]).doubleValue();
+            return y < GROUND_Y ? stone : air;
+        });
+        return stub(World.class, answers);
+    }
+
+    private static Block createBlock(Material type, boolean passable) {
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getType", args -> type);
+        answers.put("isPassable", args -> passable);
+        answers.put("isEmpty", args -> type == Material.AIR);
+        answers.put("getWorld", args -> WORLD);
+        return stub(Block.class, answers);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args != null ? args : new Object[0]);
+            }
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0.0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return (char) 0;
+        if (type == String.class) return "";
+        if (type == Vector.class) return new Vector();
+        if (type == Set.class) return Collections.emptySet();
+        if (type == Map.class) return Collections.emptyMap();
+        if (type == List.class || type == Collection.class) return Collections.emptyList();
+        return null;
+    }
+}
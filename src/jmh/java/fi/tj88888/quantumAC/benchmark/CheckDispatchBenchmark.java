@@ -0,0 +1,69 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.check.CheckManager;
+import fi.tj88888.quantumAC.packet.BenchmarkPackets;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching one packet through {@link CheckManager#processPacket} to every
+ * shipped check plus a configurable number of synthetic ones.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckDispatchBenchmark {
+
+    private static final int PACKETS = 1024;
+
+    @Param({"0", "8", "32"})
+    public int extraChecks;
+
+    private CheckManager checkManager;
+    private Player player;
+    private PacketSnapshot[] movement;
+    private PacketSnapshot[] attacks;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        QuantumAC plugin = BenchmarkPlugin.create();
+        checkManager = plugin.getCheckManager();
+        for (int i = 0; i < extraChecks; i++) {
+            checkManager.registerCheck(SyntheticCheck.class, PacketKind.MOVEMENT);
+        }
+
+        player = BukkitStubs.createPlayer("Dispatch");
+        BenchmarkPlugin.join(plugin, player);
+        checkManager.initializeChecks(player);
+
+        // A player walking forward on flat ground at 20 packets per second, attacking every 10 ticks
+        long start = System.currentTimeMillis();
+        movement = new PacketSnapshot[PACKETS];
+        attacks = new PacketSnapshot[PACKETS];
+        for (int i = 0; i < PACKETS; i++) {
+            long time = start + i * 50L;
+            movement[i] = BenchmarkPackets.positionLook(player, time, 0.5, BukkitStubs.GROUND_Y, 0.5 + i * 0.21,
+                    (i * 7) % 360, 0.0f, true);
+            attacks[i] = BenchmarkPackets.attack(player, start + i * 500L, 42);
+        }
+    }
+
+    @Benchmark
+    public void movementPacket() {
+        checkManager.processPacket(player, movement[index++ & (PACKETS - 1)]);
+    }
+
+    @Benchmark
+    public void attackPacket() {
+        checkManager.processPacket(player, attacks[index++ & (PACKETS - 1)]);
+    }
+}
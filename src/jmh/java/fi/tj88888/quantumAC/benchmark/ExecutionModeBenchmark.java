@@ -0,0 +1,86 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.util.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking I/O and CPU-bound work sharing the I/O executor of each {@link ExecutionMode}.
+ * One thread submits batches of blocking tasks standing in for database round-trips and waits for each
+ * batch; the other submits short CPU-bound tasks at the same time. The platform pool has a thread per
+ * processor, so a batch runs in waves and the CPU tasks queue behind it; virtual threads park while
+ * blocked, so a batch takes about one round-trip and the CPU tasks only compete with each other.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ExecutionModeBenchmark {
+
+    private static final int CPU_ITERATIONS = 20_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionMode mode;
+
+    @Param({"32"})
+    public int blockingTasks;
+
+    @Param({"2"})
+    public long blockingMillis;
+
+    private ExecutorService executor;
+    private Future<?>[] batch;
+    private Callable<Void> blocking;
+    private final Callable<Long> cpuBound = ExecutionModeBenchmark::spin;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = mode.createExecutor("QuantumAC-Benchmark-IO");
+        batch = new Future<?>[blockingTasks];
+        blocking = () -> {
+            Thread.sleep(blockingMillis);
+            return null;
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void blockingBatch() throws Exception {
+        for (int i = 0; i < blockingTasks; i++) {
+            batch[i] = executor.submit(blocking);
+        }
+        for (int i = 0; i < blockingTasks; i++) {
+            batch[i].get();
+            batch[i] = null;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public long cpuTask() throws Exception {
+        return executor.submit(cpuBound).get();
+    }
+
+    private static long spin() {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < CPU_ITERATIONS; i++) {
+            hash = (hash ^ i) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+}
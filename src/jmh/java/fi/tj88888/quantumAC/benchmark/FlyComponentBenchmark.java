@@ -0,0 +1,74 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.check.ViolationData;
+import fi.tj88888.quantumAC.check.movement.fly.components.AlgorithmicPatternComponent;
+import fi.tj88888.quantumAC.check.movement.fly.components.PhaseDetectionComponent;
+import fi.tj88888.quantumAC.data.BlockStateCache;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the expensive fly components: trajectory pattern matching and phase detection.
+ * Pattern matching runs over several window lengths; its cost should not grow with the window.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlyComponentBenchmark {
+
+    private static final int SAMPLES = 256;
+
+    @Param({"40", "80", "160"})
+    public int window;
+
+    private Player player;
+    private AlgorithmicPatternComponent algorithmicPattern;
+    private PhaseDetectionComponent phaseDetection;
+
+    private final Location[] trajectory = new Location[SAMPLES];
+    private final double[] deltaY = new double[SAMPLES];
+    private Location phaseFrom;
+    private Location phaseTo;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BukkitStubs.install();
+        player = BukkitStubs.createPlayer("Fly");
+        algorithmicPattern = new AlgorithmicPatternComponent(window);
+        phaseDetection = new PhaseDetectionComponent(new BlockStateCache());
+
+        // A smooth sine-wave flight path, the kind of movement the pattern matcher looks for
+        double y = BukkitStubs.GROUND_Y + 5;
+        for (int i = 0; i < SAMPLES; i++) {
+            double nextY = BukkitStubs.GROUND_Y + 5 + Math.sin(i * 0.3) * 0.5;
+            deltaY[i] = nextY - y;
+            y = nextY;
+            trajectory[i] = new Location(BukkitStubs.WORLD, 0.5 + i * 0.3, y, 0.5);
+        }
+
+        // A one-tick move from above ground down through the stone layer
+        phaseFrom = new Location(BukkitStubs.WORLD, 0.5, BukkitStubs.GROUND_Y + 0.5, 0.5);
+        phaseTo = new Location(BukkitStubs.WORLD, 0.5, BukkitStubs.GROUND_Y - 1.5, 1.5);
+    }
+
+    @Benchmark
+    public ViolationData checkAlgorithmicPattern() {
+        int i = index++ & (SAMPLES - 1);
+        double dy = deltaY[i];
+        double distance3D = Math.sqrt(0.09 + dy * dy);
+        return algorithmicPattern.checkAlgorithmicPattern(player, trajectory[i],
+                0.3, dy, 0.0, 0.3, distance3D, 20, 0.0);
+    }
+
+    @Benchmark
+    public ViolationData checkPhasing() {
+        return phaseDetection.checkPhasing(player, phaseFrom, phaseTo, phaseFrom.distance(phaseTo), 0.0);
+    }
+}
@@ -0,0 +1,57 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.util.MovementData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-packet cost of {@link MovementData#updatePosition} and {@link MovementData#updateRotation}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MovementDataBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private MovementData movementData;
+    private final double[] positions = new double[SAMPLES * 3];
+    private final float[] rotations = new float[SAMPLES * 2];
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        movementData = new MovementData();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double x = 0, z = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            x += random.nextDouble(-0.3, 0.3);
+            z += random.nextDouble(-0.3, 0.3);
+            positions[i * 3] = x;
+            positions[i * 3 + 1] = 64 + random.nextDouble(0, 1.25);
+            positions[i * 3 + 2] = z;
+            rotations[i * 2] = random.nextFloat() * 720 - 360;
+            rotations[i * 2 + 1] = random.nextFloat() * 180 - 90;
+        }
+    }
+
+    @Benchmark
+    public void updatePosition(Blackhole blackhole) {
+        int i = (index++ & (SAMPLES - 1)) * 3;
+        movementData.updatePosition(positions[i], positions[i + 1], positions[i + 2]);
+        blackhole.consume(movementData.getAcceleration());
+    }
+
+    @Benchmark
+    public void updateRotation(Blackhole blackhole) {
+        int i = (index++ & (SAMPLES - 1)) * 2;
+        movementData.updateRotation(rotations[i], rotations[i + 1]);
+        blackhole.consume(movementData.getDeltaYaw());
+    }
+}
@@ -0,0 +1,27 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+
+/**
+ * Minimal movement check used to scale the number of checks behind a packet.
+ * Does a small amount of arithmetic on the packet so the call cannot be optimized away.
+ */
+public class SyntheticCheck extends Check {
+
+    private double lastY;
+    private double accumulated;
+
+    public SyntheticCheck(QuantumAC plugin, PlayerData playerData) {
+        super(plugin, playerData, "SyntheticCheck", "Benchmark");
+    }
+
+    @Override
+    public void processPacket(PacketSnapshot packet) {
+        double dy = packet.getY() - lastY;
+        lastY = packet.getY();
+        accumulated = accumulated * 0.98 + Math.abs(dy);
+    }
+}
@@ -0,0 +1,74 @@
+package fi.tj88888.quantumAC.benchmark;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.check.packet.TimerA;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of TimerA's packet consistency analysis over a full sample window.
+ * The analysis is private, so it is reached through a method handle; the handle is
+ * a static final constant, which lets the JIT inline the call like a direct one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerABenchmark {
+
+    private static final MethodHandle ANALYZE_PACKET_CONSISTENCY;
+
+    static {
+        try {
+            ANALYZE_PACKET_CONSISTENCY = MethodHandles.privateLookupIn(TimerA.class, MethodHandles.lookup())
+                    .findVirtual(TimerA.class, "analyzePacketConsistency", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"60"})
+    public int packets;
+
+    private TimerA timerA;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        QuantumAC plugin = BenchmarkPlugin.create();
+        Player player = BukkitStubs.createPlayer("Timer");
+        PlayerData data = BenchmarkPlugin.join(plugin, player);
+        timerA = new TimerA(plugin, data);
+
+        // Fill the window the way a client at 20 packets per second with some jitter would
+        LongRingBuffer timestamps = (LongRingBuffer) BenchmarkPlugin.get(timerA, "packetTimestamps");
+        SlidingWindowStats intervals = (SlidingWindowStats) BenchmarkPlugin.get(timerA, "packetIntervals");
+        LongRingBuffer intervalStarts = (LongRingBuffer) BenchmarkPlugin.get(timerA, "intervalStarts");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < packets; i++) {
+            long diff = 45 + random.nextLong(11);
+            if (i > 0) {
+                intervals.add(diff);
+                intervalStarts.add(time);
+            }
+            time += diff;
+            timestamps.add(time);
+        }
+    }
+
+    @Benchmark
+    public void analyzePacketConsistency() throws Throwable {
+        ANALYZE_PACKET_CONSISTENCY.invokeExact(timerA);
+    }
+}
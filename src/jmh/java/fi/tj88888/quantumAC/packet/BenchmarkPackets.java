@@ -0,0 +1,36 @@
+package fi.tj88888.quantumAC.packet;
+
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import org.bukkit.entity.Player;
+
+/**
+ * Builds packet snapshots for benchmarks without going through ProtocolLib.
+ * Lives in the packet package to reach the package-private snapshot constructor.
+ */
+public final class BenchmarkPackets {
+
+    private BenchmarkPackets() {
+    }
+
+    public static PacketSnapshot position(Player player, long timestamp,
+                                          double x, double y, double z, boolean onGround) {
+        return new PacketSnapshot(PacketKind.POSITION, player, timestamp, timestamp * 1_000_000L,
+                x, y, z, 0.0f, 0.0f, onGround, PacketSnapshot.NO_ENTITY, PacketSnapshot.NO_ACTION);
+    }
+
+    public static PacketSnapshot positionLook(Player player, long timestamp, double x, double y, double z,
+                                              float yaw, float pitch, boolean onGround) {
+        return new PacketSnapshot(PacketKind.POSITION_LOOK, player, timestamp, timestamp * 1_000_000L,
+                x, y, z, yaw, pitch, onGround, PacketSnapshot.NO_ENTITY, PacketSnapshot.NO_ACTION);
+    }
+
+    public static PacketSnapshot flying(Player player, long timestamp, boolean onGround) {
+        return new PacketSnapshot(PacketKind.FLYING, player, timestamp, timestamp * 1_000_000L,
+                0.0, 0.0, 0.0, 0.0f, 0.0f, onGround, PacketSnapshot.NO_ENTITY, PacketSnapshot.NO_ACTION);
+    }
+
+    public static PacketSnapshot attack(Player player, long timestamp, int entityId) {
+        return new PacketSnapshot(PacketKind.USE_ENTITY, player, timestamp, timestamp * 1_000_000L,
+                0.0, 0.0, 0.0, 0.0f, 0.0f, false, entityId, EnumWrappers.EntityUseAction.ATTACK.ordinal());
+    }
+}
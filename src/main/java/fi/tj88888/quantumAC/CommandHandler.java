@@ -1,9 +1,23 @@
 package fi.tj88888.quantumAC;
 
+import fi.tj88888.quantumAC.check.CheckMetrics;
+import fi.tj88888.quantumAC.check.CheckPriority;
+import fi.tj88888.quantumAC.check.CheckProfiler;
+import fi.tj88888.quantumAC.check.LoadShedder;
 import fi.tj88888.quantumAC.check.movement.rotation.RotationA;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.database.LocalStorage;
+import fi.tj88888.quantumAC.database.MongoManager;
+import fi.tj88888.quantumAC.database.PlayerDataWriter;
+import fi.tj88888.quantumAC.database.StorageBackend;
+import fi.tj88888.quantumAC.database.ViolationJournal;
+import fi.tj88888.quantumAC.database.ViolationWriter;
 import fi.tj88888.quantumAC.log.ViolationLog;
+import fi.tj88888.quantumAC.packet.AdmissionController;
+import fi.tj88888.quantumAC.packet.PacketKind;
 import fi.tj88888.quantumAC.util.ChatUtil;
+import fi.tj88888.quantumAC.util.LogLinearHistogram;
+import fi.tj88888.quantumAC.util.MovementFrame;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -50,6 +64,7 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 }
 
                 plugin.getConfigManager().reloadConfigs();
+                plugin.getLogManager().reload();
                 sender.sendMessage(ChatUtil.colorize("&aQuantumAC configurations reloaded successfully."));
                 break;
 
@@ -128,6 +143,23 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 showPlayerStats(sender, targetPlayer);
                 break;
 
+            case "perf":
+                if (!sender.hasPermission("quantumac.perf")) {
+                    sender.sendMessage(ChatUtil.colorize("&cYou don't have permission to use this command."));
+                    return true;
+                }
+
+                CheckProfiler profiler = plugin.getCheckManager().getProfiler();
+                if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+                    profiler.reset();
+                    sender.sendMessage(ChatUtil.colorize("&aCheck performance counters reset."));
+                } else if (args.length >= 2) {
+                    showCheckPerformance(sender, profiler, args[1]);
+                } else {
+                    showPerformance(sender, profiler);
+                }
+                break;
+
             case "verbose":
                 if (!(sender instanceof Player)) {
                     sender.sendMessage(ChatUtil.colorize("&cOnly players can toggle verbose mode."));
@@ -244,6 +276,57 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatUtil.colorize("&bDeveloped by: &7tj88888"));
         sender.sendMessage(ChatUtil.colorize("&bActive players: &7" + plugin.getPlayerDataManager().getActivePlayerCount()));
         sender.sendMessage(ChatUtil.colorize("&bTPS: &7" + String.format("%.1f", plugin.getConfigManager().getCurrentTPS())));
+
+        AdmissionController admission = plugin.getPacketDispatcher().getAdmissionController();
+        sender.sendMessage(ChatUtil.colorize("&bPacket queue: &7" + admission.getQueueDepth() + "/" + admission.getEffectiveLimit()
+                + " &8(" + admission.getPolicy().name().toLowerCase() + ")"));
+        sender.sendMessage(ChatUtil.colorize("&bDropped: &7" + admission.getDroppedCount()
+                + " &bCoalesced: &7" + admission.getCoalescedCount()
+                + " &bInline: &7" + admission.getInlinedCount()));
+        sender.sendMessage(ChatUtil.colorize("&bI/O threads: &7" + plugin.getExecutionMode().name().toLowerCase()));
+
+        StorageBackend storage = plugin.getStorage();
+        sender.sendMessage(ChatUtil.colorize("&bStorage: &7" + storage.getName()
+                + (storage.isConnected() ? "" : " &c(disconnected)")));
+
+        ViolationJournal journal = plugin.getViolationJournal();
+        if (journal != null) {
+            sender.sendMessage(ChatUtil.colorize("&bViolation journal: &7" + journal.getPendingCount() + " unshipped &8| &7"
+                    + journal.getShippedCount() + " shipped &8| &7dropped " + journal.getDroppedCount()
+                    + ", corrupt " + journal.getCorruptCount() + ", retries " + journal.getRetryCount()));
+        }
+
+        if (storage instanceof LocalStorage) {
+            LocalStorage local = (LocalStorage) storage;
+            sender.sendMessage(ChatUtil.colorize("&bLocal storage: &7" + local.getQueueDepth() + " queued &8| &7"
+                    + local.getPlayerCount() + " players &8| &7dropped " + local.getDroppedCount()));
+        }
+
+        ViolationWriter writer = storage instanceof MongoManager ? ((MongoManager) storage).getViolationWriter() : null;
+        if (writer != null) {
+            sender.sendMessage(ChatUtil.colorize("&bViolation writer: &7" + writer.getQueueDepth() + "/" + writer.getQueueCapacity()
+                    + " queued &8| &7" + writer.getWrittenCount() + " written in " + writer.getBatchCount() + " batches"
+                    + " &8(p99 " + formatNanos(writer.getBatchLatency().getPercentile(0.99)) + ")"
+                    + " &8| &7dropped " + writer.getDroppedCount() + ", failed " + writer.getFailedCount()
+                    + ", retries " + writer.getRetryCount()));
+        }
+
+        PlayerDataWriter playerWriter = storage instanceof MongoManager ? ((MongoManager) storage).getPlayerDataWriter() : null;
+        if (playerWriter != null) {
+            sender.sendMessage(ChatUtil.colorize("&bPlayer saves: &7" + playerWriter.getStagedCount() + " staged &8| &7"
+                    + playerWriter.getWrittenCount() + " written in " + playerWriter.getFlushCount() + " flushes"
+                    + " &8| &7coalesced " + playerWriter.getCoalescedCount()
+                    + ", failed flushes " + playerWriter.getFailedFlushCount()));
+        }
+
+        LoadShedder shedder = plugin.getCheckManager().getLoadShedder();
+        StringBuilder tiers = new StringBuilder();
+        for (CheckPriority priority : CheckPriority.values()) {
+            tiers.append(" &b").append(priority.name().toLowerCase()).append(": &7")
+                    .append(shedder.getTierState(priority))
+                    .append(" &8(").append(shedder.getSkippedCount(priority)).append(" skipped)");
+        }
+        sender.sendMessage(ChatUtil.colorize("&bLoad: &7" + shedder.getLevel().name().toLowerCase() + tiers));
         sender.sendMessage(ChatUtil.colorize("&7Use &b/quantumac help &7for commands."));
     }
 
@@ -262,13 +345,83 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             sender.sendMessage(ChatUtil.colorize("&b/quantumac debug packets &7- Toggle real-time packet display"));
             sender.sendMessage(ChatUtil.colorize("&b/quantumac debug packetstats &7- Show packet statistics summary"));
         }
+
+        if (sender.hasPermission("quantumac.perf")) {
+            sender.sendMessage(ChatUtil.colorize("&b/quantumac perf [check|reset] &7- Show per-check performance"));
+        }
+    }
+
+    private void showPerformance(CommandSender sender, CheckProfiler profiler) {
+        if (!profiler.isEnabled()) {
+            sender.sendMessage(ChatUtil.colorize("&cProfiling is disabled in the config."));
+            return;
+        }
+
+        double seconds = Math.max(1, (System.currentTimeMillis() - profiler.getSince()) / 1000.0);
+        sender.sendMessage(ChatUtil.colorize("&7=== &bQuantumAC Performance &7==="));
+        sender.sendMessage(ChatUtil.colorize("&7Last " + (long) seconds + "s, 1 in "
+                + profiler.getSampleRate() + " invocations timed"));
+
+        List<CheckMetrics> metrics = new ArrayList<>(profiler.getMetrics());
+        metrics.sort(Comparator.comparingLong(CheckMetrics::getEstimatedNanos).reversed());
+        long totalNanos = 0;
+        for (CheckMetrics checkMetrics : metrics) {
+            totalNanos += checkMetrics.getEstimatedNanos();
+        }
+
+        for (CheckMetrics checkMetrics : metrics) {
+            LogLinearHistogram latency = checkMetrics.getLatency();
+            double share = totalNanos == 0 ? 0 : 100.0 * checkMetrics.getEstimatedNanos() / totalNanos;
+            sender.sendMessage(ChatUtil.colorize(String.format(
+                    "&b%s &7%.0f/s &8| &7p50 &b%s &7p99 &b%s &7max &b%s &8| &7cpu &b%.1f%% &8| &7flags %d, errors %d",
+                    checkMetrics.getCheckName(), checkMetrics.getInvocations() / seconds,
+                    formatNanos(latency.getPercentile(0.5)), formatNanos(latency.getPercentile(0.99)),
+                    formatNanos(latency.getMax()), share,
+                    checkMetrics.getFlags(), checkMetrics.getExceptions())));
+        }
+        sender.sendMessage(ChatUtil.colorize("&7Use &b/quantumac perf <check> &7for a per-packet breakdown."));
+    }
+
+    private void showCheckPerformance(CommandSender sender, CheckProfiler profiler, String checkName) {
+        CheckMetrics checkMetrics = null;
+        for (CheckMetrics candidate : profiler.getMetrics()) {
+            if (candidate.getCheckName().equalsIgnoreCase(checkName)) {
+                checkMetrics = candidate;
+                break;
+            }
+        }
+        if (checkMetrics == null) {
+            sender.sendMessage(ChatUtil.colorize("&cUnknown check: " + checkName));
+            return;
+        }
+
+        sender.sendMessage(ChatUtil.colorize("&7=== &b" + checkMetrics.getCheckName() + " Performance &7==="));
+        sender.sendMessage(ChatUtil.colorize("&bInvocations: &7" + checkMetrics.getInvocations()
+                + " &bFlags: &7" + checkMetrics.getFlags()
+                + " &bErrors: &7" + checkMetrics.getExceptions()));
+        for (PacketKind kind : PacketKind.values()) {
+            LogLinearHistogram latency = checkMetrics.getLatency(kind);
+            if (latency == null || latency.getCount() == 0) continue;
+
+            sender.sendMessage(ChatUtil.colorize(String.format(
+                    "&b%s &7timed %d &8| &7p50 &b%s &7p99 &b%s &7max &b%s",
+                    kind.name().toLowerCase(), latency.getCount(),
+                    formatNanos(latency.getPercentile(0.5)), formatNanos(latency.getPercentile(0.99)),
+                    formatNanos(latency.getMax()))));
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format("%.1fµs", nanos / 1_000.0);
+        return String.format("%.2fms", nanos / 1_000_000.0);
     }
 
     private void showViolationHistory(CommandSender sender, Player target, int limit) {
         sender.sendMessage(ChatUtil.colorize("&7=== &b" + target.getName() + "'s Violation History &7==="));
         sender.sendMessage(ChatUtil.colorize("&7Loading history..."));
 
-        plugin.getMongoManager().getPlayerViolations(target.getUniqueId(), limit)
+        plugin.getStorage().getPlayerViolations(target.getUniqueId(), limit)
                 .thenAccept(violations -> {
                     if (violations.isEmpty()) {
                         sender.sendMessage(ChatUtil.colorize("&7No violations found."));
@@ -300,15 +453,14 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatUtil.colorize("&bTotal Violations: &7" + data.getTotalViolations()));
 
         // Add movement stats if available
-        if (data.getMovementData() != null) {
-            sender.sendMessage(ChatUtil.colorize("&7--- &bMovement Stats &7---"));
-            sender.sendMessage(ChatUtil.colorize("&bSpeed: &7" +
-                    String.format("%.2f", data.getMovementData().getDeltaXZ()) + " blocks/tick"));
-            sender.sendMessage(ChatUtil.colorize("&bYaw: &7" +
-                    String.format("%.1f", data.getMovementData().getYaw()) + "°"));
-            sender.sendMessage(ChatUtil.colorize("&bPitch: &7" +
-                    String.format("%.1f", data.getMovementData().getPitch()) + "°"));
-        }
+        MovementFrame movement = data.getMovementFrame();
+        sender.sendMessage(ChatUtil.colorize("&7--- &bMovement Stats &7---"));
+        sender.sendMessage(ChatUtil.colorize("&bSpeed: &7" +
+                String.format("%.2f", movement.getDeltaXZ()) + " blocks/tick"));
+        sender.sendMessage(ChatUtil.colorize("&bYaw: &7" +
+                String.format("%.1f", movement.getYaw()) + "°"));
+        sender.sendMessage(ChatUtil.colorize("&bPitch: &7" +
+                String.format("%.1f", movement.getPitch()) + "°"));
     }
 
     @Override
@@ -324,6 +476,9 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("quantumac.debug")) {
                 commands.add("debug");
             }
+            if (sender.hasPermission("quantumac.perf")) {
+                commands.add("perf");
+            }
 
             return commands.stream()
                     .filter(s -> s.toLowerCase().startsWith(args[0].toLowerCase()))
@@ -341,6 +496,15 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
                 return Arrays.asList("rotations", "packets", "packetstats").stream()
                         .filter(s -> s.toLowerCase().startsWith(args[1].toLowerCase()))
                         .collect(Collectors.toList());
+            } else if (args[0].equalsIgnoreCase("perf")) {
+                List<String> options = new ArrayList<>();
+                options.add("reset");
+                for (CheckMetrics checkMetrics : plugin.getCheckManager().getProfiler().getMetrics()) {
+                    options.add(checkMetrics.getCheckName());
+                }
+                return options.stream()
+                        .filter(s -> s.toLowerCase().startsWith(args[1].toLowerCase()))
+                        .collect(Collectors.toList());
             }
         }
 
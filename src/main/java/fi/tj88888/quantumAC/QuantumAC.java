@@ -9,54 +9,71 @@ import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.api.APIManager;
 import fi.tj88888.quantumAC.check.CheckManager;
 import fi.tj88888.quantumAC.config.ConfigManager;
+import fi.tj88888.quantumAC.data.BlockStateCache;
 import fi.tj88888.quantumAC.data.PlayerDataManager;
-import fi.tj88888.quantumAC.database.MongoManager;
+import fi.tj88888.quantumAC.database.StorageBackend;
+import fi.tj88888.quantumAC.database.StorageType;
+import fi.tj88888.quantumAC.database.ViolationJournal;
+import fi.tj88888.quantumAC.listener.BlockCacheListener;
 import fi.tj88888.quantumAC.listener.ConnectionListener;
 import fi.tj88888.quantumAC.listener.PacketListener;
 import fi.tj88888.quantumAC.log.LogManager;
 import fi.tj88888.quantumAC.alert.AlertManager;
+import fi.tj88888.quantumAC.packet.AdmissionController;
+import fi.tj88888.quantumAC.packet.PacketDispatcher;
+import fi.tj88888.quantumAC.util.ExecutionMode;
 import fi.tj88888.quantumAC.util.UpdateChecker;
 import org.bukkit.ChatColor;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.concurrent.CompletableFuture;
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public class QuantumAC extends JavaPlugin {
 
+    private static final long JOURNAL_CLOSE_TIMEOUT = 5000; // ms
+
     private static QuantumAC instance;
     private ProtocolManager protocolManager;
-    private MongoManager mongoManager;
+    private StorageBackend storage;
+    private ViolationJournal violationJournal;
     private PlayerDataManager playerDataManager;
     private CheckManager checkManager;
     private LogManager logManager;
     private AlertManager alertManager;
     private ConfigManager configManager;
     private APIManager apiManager;
-    private ExecutorService packetExecutor;
+    private ExecutorService ioExecutor;
+    private ExecutionMode executionMode;
+    private PacketDispatcher packetDispatcher;
+    private BlockStateCache blockStateCache;
 
     @Override
     public void onEnable() {
         instance = this;
         saveDefaultConfig();
 
-        // Initialize executors for async processing
-        this.packetExecutor = Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors()
-        );
-
         // Load configuration first
         this.configManager = new ConfigManager(this);
         this.configManager.loadConfig();
 
+        // Blocking database work gets its own executor so it never holds a packet worker
+        this.executionMode = ExecutionMode.fromString(configManager.getExecutionMode(), ExecutionMode.PLATFORM);
+        this.ioExecutor = executionMode.createExecutor("QuantumAC-IO");
+
         // Initialize ProtocolLib
         this.protocolManager = ProtocolLibrary.getProtocolManager();
 
         // Initialize other managers
-        this.mongoManager = new MongoManager(this);
+        this.storage = StorageType.fromString(configManager.getStorageType(), StorageType.AUTO).create(this);
+        if (configManager.isViolationJournalEnabled()) {
+            openViolationJournal();
+        }
         this.playerDataManager = new PlayerDataManager(this);
+        this.blockStateCache = new BlockStateCache();
         this.checkManager = new CheckManager(this);
         this.logManager = new LogManager(this);
         this.alertManager = new AlertManager(this);
@@ -64,6 +81,7 @@ public class QuantumAC extends JavaPlugin {
 
         // Register listeners
         getServer().getPluginManager().registerEvents(new ConnectionListener(this), this);
+        getServer().getPluginManager().registerEvents(new BlockCacheListener(blockStateCache), this);
 
         // Register packet listeners
         registerPacketListeners();
@@ -78,28 +96,84 @@ public class QuantumAC extends JavaPlugin {
         getLogger().info(ChatColor.GREEN + "Async packet-based anticheat core loaded successfully.");
         getServer().getScheduler().runTaskTimer(this,
                 () -> playerDataManager.updatePlayerCachedData(), 1L, 5L);
+
+        // Publish player state for the packet workers every tick
+        getServer().getScheduler().runTaskTimer(this,
+                () -> playerDataManager.publishStateSnapshots(), 1L, 1L);
+
+        // Re-apply block cache invalidations once the block changes behind them have landed
+        getServer().getScheduler().runTaskTimer(this,
+                () -> blockStateCache.flushDeferred(), 1L, 1L);
+
+        // Render packet debug captures for the staff watching them
+        getServer().getScheduler().runTaskTimer(this,
+                () -> playerDataManager.flushPacketDebug(), 1L, 1L);
+
+        // Report violations flagged by the packet workers
+        getServer().getScheduler().runTaskTimer(this,
+                () -> alertManager.drainViolations(), 1L, 1L);
     }
 
     @Override
     public void onDisable() {
+        // Stop packet processing before the data it works on is saved
+        if (packetDispatcher != null) {
+            packetDispatcher.shutdown();
+        }
+
+        // Report what the checks flagged before stopping
+        if (alertManager != null) {
+            alertManager.flushViolations();
+        }
+
         // Save all player data and logs
         playerDataManager.saveAllPlayerData();
+        if (logManager != null) {
+            logManager.shutdown();
+        }
+
+        // Shutdown executors gracefully, letting the final saves reach the database
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                getLogger().warning("Timed out waiting for pending database operations");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-        // Shutdown executors gracefully
-        packetExecutor.shutdown();
+        // Ship what the journal can before the backend goes away; the rest is shipped on the next start
+        if (violationJournal != null && !violationJournal.close(JOURNAL_CLOSE_TIMEOUT)) {
+            getLogger().warning(violationJournal.getPendingCount() + " violations left in the journal for the next start");
+        }
 
-        // Close MongoDB connection
-        if (mongoManager != null) {
-            mongoManager.closeConnection();
+        // Write what the storage backend still holds and close it
+        if (storage != null) {
+            storage.close();
         }
 
         getLogger().info(ChatColor.RED + "QuantumAC has been disabled!");
     }
 
+    private void openViolationJournal() {
+        try {
+            this.violationJournal = new ViolationJournal(
+                    new File(getDataFolder(), configManager.getViolationJournalDirectory()), storage, getLogger(),
+                    configManager.getViolationJournalMaxRecords(), configManager.getViolationBatchSize(),
+                    configManager.getViolationFlushInterval());
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Could not open the violation journal, writing violations directly", e);
+        }
+    }
+
     private void registerPacketListeners() {
         // Register packet listening through ProtocolLib
         PacketListener packetListener = new PacketListener(this);
 
+        // Each player gets an ordered lane; players are sharded across performance.max-threads workers
+        this.packetDispatcher = new PacketDispatcher(this, packetListener,
+                new AdmissionController(configManager), configManager.getMaxThreads());
+
         // Register for specific packets - expand this list as needed
         protocolManager.addPacketListener(
                 new PacketAdapter(this, ListenerPriority.NORMAL,
@@ -132,13 +206,8 @@ public class QuantumAC extends JavaPlugin {
 
                     @Override
                     public void onPacketReceiving(PacketEvent event) {
-                        // Process all packets asynchronously to prevent server lag
-                        CompletableFuture.runAsync(() -> {
-                            packetListener.onPacketReceive(event);
-                        }, packetExecutor).exceptionally(ex -> {
-                            getLogger().log(Level.SEVERE, "Error processing packet", ex);
-                            return null;
-                        });
+                        // Hand the packet to the player's lane to keep it off the Netty thread
+                        packetDispatcher.dispatch(event);
                     }
                 });
     }
@@ -152,8 +221,15 @@ public class QuantumAC extends JavaPlugin {
         return protocolManager;
     }
 
-    public MongoManager getMongoManager() {
-        return mongoManager;
+    public StorageBackend getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return The journal violations are written through, or null when it is disabled
+     */
+    public ViolationJournal getViolationJournal() {
+        return violationJournal;
     }
 
     public PlayerDataManager getPlayerDataManager() {
@@ -180,7 +256,19 @@ public class QuantumAC extends JavaPlugin {
         return apiManager;
     }
 
-    public ExecutorService getPacketExecutor() {
-        return packetExecutor;
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public BlockStateCache getBlockStateCache() {
+        return blockStateCache;
+    }
+
+    public PacketDispatcher getPacketDispatcher() {
+        return packetDispatcher;
     }
 }
\ No newline at end of file
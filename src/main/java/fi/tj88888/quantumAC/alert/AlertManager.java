@@ -1,109 +1,156 @@
 package fi.tj88888.quantumAC.alert;
 
 import fi.tj88888.quantumAC.QuantumAC;
-import fi.tj88888.quantumAC.log.ViolationLog;
-import fi.tj88888.quantumAC.util.ChatUtil;
+import fi.tj88888.quantumAC.database.ViolationJournal;
+import fi.tj88888.quantumAC.log.LogManager;
+import fi.tj88888.quantumAC.log.ViolationEvent;
+import fi.tj88888.quantumAC.log.ViolationRing;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
 /**
- * Handles alert notifications to staff members and logging violations
+ * Handles alert notifications to staff members and logging violations.
+ *
+ * Checks only publish violations into a {@link ViolationRing}; the main thread drains it every tick and
+ * renders alert text, console lines and database entries from there, and only for the consumers present.
  */
 public class AlertManager {
 
+    private static final int RING_CAPACITY = 4096;
+    private static final int MAX_REPORTS_PER_TICK = 512;
+
     private final QuantumAC plugin;
     private final Set<UUID> alertSubscribers = new HashSet<>();
     private final Set<UUID> verboseSubscribers = new HashSet<>();
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private final ViolationRing violations = new ViolationRing(RING_CAPACITY);
+    private AlertTemplate alertTemplate;
+    private AlertTemplate verboseTemplate;
 
     public AlertManager(QuantumAC plugin) {
         this.plugin = plugin;
     }
 
+    /**
+     * Queue checks publish their violations into; reported by {@link #drainViolations()}
+     */
+    public ViolationRing getViolationRing() {
+        return violations;
+    }
+
+    /**
+     * Reports a bounded number of queued violations; called on the main thread every tick
+     */
+    public void drainViolations() {
+        violations.drain(this::report, MAX_REPORTS_PER_TICK);
+    }
+
+    /**
+     * Reports every queued violation, used on shutdown once checks have stopped
+     */
+    public void flushViolations() {
+        violations.drain(this::report, Integer.MAX_VALUE);
+    }
+
+    private void report(ViolationEvent event) {
+        // Log to console with detailed info
+        plugin.getLogger().info(String.format(
+                "[%s] %s failed %s check (VL: %.1f): %s",
+                event.getCheckType(), event.getPlayerName(), event.getCheckName(), event.getVl(), event.getDetails()
+        ));
+
+        sendAlert(event);
+    }
+
     /**
      * Sends an alert to all subscribed staff members and logs the violation
      *
-     * @param violationLog The violation log to send
+     * @param event The violation to send
      */
-    public void sendAlert(ViolationLog violationLog) {
+    private void sendAlert(ViolationEvent event) {
         if (!plugin.getConfigManager().isAlertsEnabled()) {
             return;
         }
 
         // Send regular alerts
-        sendAlertToSubscribers(violationLog, false);
+        sendAlertToSubscribers(event, false);
 
         // Send verbose alerts to those with verbose mode enabled
-        sendAlertToSubscribers(violationLog, true);
+        sendAlertToSubscribers(event, true);
+
+        // Log violation to file
+        LogManager logManager = plugin.getLogManager();
+        if (logManager.isEnabled()) {
+            logManager.logViolation(event.toViolationLog());
+        }
 
-        // Log violation to database
-        if (plugin.getMongoManager().isConnected()) {
-            plugin.getMongoManager().logViolation(violationLog);
+        // Log violation to storage, through the journal when there is one
+        ViolationJournal journal = plugin.getViolationJournal();
+        if (journal != null) {
+            journal.append(event);
+        } else if (plugin.getStorage().isConnected()) {
+            plugin.getStorage().logViolation(event.toViolationLog());
         }
     }
 
     /**
-     * Send alerts to subscribers based on verbose mode
+     * Send alerts to subscribers based on verbose mode. The message is only rendered once someone receives it.
      *
-     * @param violationLog The violation log
+     * @param event The violation
      * @param verbose Whether to send verbose alerts
      */
-    private void sendAlertToSubscribers(ViolationLog violationLog, boolean verbose) {
-        // Get appropriate format
-        String format = verbose ?
-                plugin.getConfigManager().getVerboseAlertFormat() :
-                plugin.getConfigManager().getAlertFormat();
-
-        // Format message
-        String message = formatAlertMessage(violationLog, format);
+    private void sendAlertToSubscribers(ViolationEvent event, boolean verbose) {
+        String message = null;
 
         // Send to appropriate subscribers
         Set<UUID> subscribers = verbose ? verboseSubscribers : alertSubscribers;
+        String permission = verbose ? "quantumac.verbose" : "quantumac.alerts";
 
         for (UUID uuid : subscribers) {
             Player player = Bukkit.getPlayer(uuid);
-            if (player != null && player.isOnline()) {
-                String permission = verbose ? "quantumac.verbose" : "quantumac.alerts";
-                if (player.hasPermission(permission)) {
-                    player.sendMessage(message);
+            if (player != null && player.isOnline() && player.hasPermission(permission)) {
+                if (message == null) {
+                    message = formatAlertMessage(event, verbose);
                 }
+                player.sendMessage(message);
             }
         }
 
         // Log to console if it's a regular alert
         if (!verbose) {
-            Bukkit.getConsoleSender().sendMessage(message);
+            Bukkit.getConsoleSender().sendMessage(message != null ? message : formatAlertMessage(event, false));
         }
     }
 
     /**
      * Format the alert message with placeholders
      *
-     * @param log The violation log
-     * @param format The message format
+     * @param event The violation
+     * @param verbose Whether to use the verbose format
      * @return Formatted message
      */
-    private String formatAlertMessage(ViolationLog log, String format) {
-        return ChatUtil.colorize(format
-                .replace("%prefix%", plugin.getConfigManager().getAlertPrefix())
-                .replace("%player%", log.getPlayerName())
-                .replace("%check%", log.getCheckName())
-                .replace("%type%", log.getCheckType())
-                .replace("%vl%", String.format("%.1f", log.getVl()))
-                .replace("%details%", log.getDetails())
-                .replace("%world%", log.getWorld())
-                .replace("%x%", String.format("%.1f", log.getX()))
-                .replace("%y%", String.format("%.1f", log.getY()))
-                .replace("%z%", String.format("%.1f", log.getZ()))
-                .replace("%ping%", String.valueOf(log.getPing()))
-                .replace("%tps%", String.format("%.1f", log.getTps()))
-                .replace("%time%", timeFormat.format(new Date(log.getTimestamp()))));
+    private String formatAlertMessage(ViolationEvent event, boolean verbose) {
+        // Get appropriate format, recompiling the cached template if the config changed
+        String format = verbose ?
+                plugin.getConfigManager().getVerboseAlertFormat() :
+                plugin.getConfigManager().getAlertFormat();
+        String prefix = plugin.getConfigManager().getAlertPrefix();
+
+        AlertTemplate template = verbose ? verboseTemplate : alertTemplate;
+        if (template == null || !template.isCompiledFrom(format, prefix)) {
+            template = AlertTemplate.compile(format, prefix);
+            if (verbose) {
+                verboseTemplate = template;
+            } else {
+                alertTemplate = template;
+            }
+        }
+        return template.render(event, timeFormat);
     }
 
     /**
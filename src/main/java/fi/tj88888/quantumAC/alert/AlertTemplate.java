@@ -0,0 +1,111 @@
+package fi.tj88888.quantumAC.alert;
+
+import fi.tj88888.quantumAC.log.ViolationEvent;
+import fi.tj88888.quantumAC.util.ChatUtil;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An alert format split once into literal text and placeholders, so rendering an alert is a single
+ * pass over the pieces instead of a string replace per placeholder. Unknown placeholders stay as text.
+ */
+final class AlertTemplate {
+
+    private enum Placeholder {
+        PLAYER, CHECK, TYPE, VL, DETAILS, WORLD, X, Y, Z, PING, TPS, TIME;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+
+        static Placeholder of(String name) {
+            for (Placeholder placeholder : values()) {
+                if (placeholder.key.equals(name)) {
+                    return placeholder;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String format;
+    private final String prefix;
+    // literals[i] precedes placeholders[i]; the last literal ends the message
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+
+    private AlertTemplate(String format, String prefix, String[] literals, Placeholder[] placeholders) {
+        this.format = format;
+        this.prefix = prefix;
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * @param format Alert format from the config
+     * @param prefix Alert prefix substituted for %prefix%
+     */
+    static AlertTemplate compile(String format, String prefix) {
+        String source = format.replace("%prefix%", prefix);
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf('%', position);
+            int end = start < 0 ? -1 : source.indexOf('%', start + 1);
+            if (end < 0) {
+                literal.append(source, position, source.length());
+                break;
+            }
+
+            Placeholder placeholder = Placeholder.of(source.substring(start + 1, end));
+            if (placeholder == null) {
+                // Keep the first '%' and try again from the second, which may open a placeholder
+                literal.append(source, position, end);
+                position = end;
+                continue;
+            }
+
+            literal.append(source, position, start);
+            literals.add(literal.toString());
+            placeholders.add(placeholder);
+            literal.setLength(0);
+            position = end + 1;
+        }
+        literals.add(literal.toString());
+
+        return new AlertTemplate(format, prefix, literals.toArray(new String[0]),
+                placeholders.toArray(new Placeholder[0]));
+    }
+
+    boolean isCompiledFrom(String format, String prefix) {
+        return this.format.equals(format) && this.prefix.equals(prefix);
+    }
+
+    String render(ViolationEvent event, SimpleDateFormat timeFormat) {
+        StringBuilder message = new StringBuilder(128);
+        for (int i = 0; i < placeholders.length; i++) {
+            message.append(literals[i]);
+            switch (placeholders[i]) {
+                case PLAYER -> message.append(event.getPlayerName());
+                case CHECK -> message.append(event.getCheckName());
+                case TYPE -> message.append(event.getCheckType());
+                case VL -> message.append(String.format("%.1f", event.getVl()));
+                case DETAILS -> message.append(event.getDetails());
+                case WORLD -> message.append(event.getWorld());
+                case X -> message.append(String.format("%.1f", event.getX()));
+                case Y -> message.append(String.format("%.1f", event.getY()));
+                case Z -> message.append(String.format("%.1f", event.getZ()));
+                case PING -> message.append(event.getPing());
+                case TPS -> message.append(String.format("%.1f", event.getTps()));
+                case TIME -> message.append(timeFormat.format(new Date(event.getTimestamp())));
+            }
+        }
+        message.append(literals[placeholders.length]);
+        return ChatUtil.colorize(message.toString());
+    }
+}
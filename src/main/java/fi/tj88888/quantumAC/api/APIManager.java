@@ -93,11 +93,11 @@ public class APIManager {
      *
      * @param uuid Player UUID
      * @param checkClass Check class
-     * @return Violation level
+     * @return Violation level, 0 if the player is offline or the check is not registered
      */
     public double getViolationLevel(UUID uuid, Class<? extends Check> checkClass) {
         PlayerData data = getPlayerData(uuid);
-        return data != null ? data.getViolationLevel(checkClass) : 0.0;
+        return data != null ? data.getViolationLevel(plugin.getCheckManager().getCheckId(checkClass)) : 0.0;
     }
 
     /**
@@ -110,7 +110,7 @@ public class APIManager {
     public void setViolationLevel(UUID uuid, Class<? extends Check> checkClass, double violationLevel) {
         PlayerData data = getPlayerData(uuid);
         if (data != null) {
-            data.setViolationLevel(checkClass, violationLevel);
+            data.setViolationLevel(plugin.getCheckManager().getCheckId(checkClass), violationLevel);
         }
     }
 
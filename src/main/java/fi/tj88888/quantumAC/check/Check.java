@@ -1,11 +1,13 @@
 package fi.tj88888.quantumAC.check;
 
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.data.PlayerData;
-import fi.tj88888.quantumAC.log.ViolationLog;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.log.ViolationRing;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 import java.util.UUID;
@@ -23,6 +25,10 @@ public abstract class Check {
     protected boolean enabled;
     protected int maxVL;
     protected String punishCommand;
+    protected CheckPriority priority = CheckPriority.NORMAL;
+    protected CheckCost cost = CheckCost.MODERATE;
+    private int checkId = -1;
+    private CheckMetrics metrics;
 
     public Check(QuantumAC plugin, PlayerData playerData, String checkName, String checkType) {
         this.plugin = plugin;
@@ -37,8 +43,74 @@ public abstract class Check {
         this.punishCommand = plugin.getConfigManager().getPunishCommand(checkName);
     }
 
-    // Abstract method for processing packet events
-    public abstract void processPacket(PacketEvent event);
+    // Abstract method for processing decoded packets
+    public abstract void processPacket(PacketSnapshot packet);
+
+    void assignId(int checkId) {
+        this.checkId = checkId;
+    }
+
+    /**
+     * Id this check's violation level is stored under. Checks created outside the check manager
+     * fall back to the id their class was registered with, if any.
+     */
+    public int getCheckId() {
+        if (checkId < 0) {
+            checkId = plugin.getCheckManager().getCheckId(getClass());
+        }
+        return checkId;
+    }
+
+    /**
+     * Applies the tier this check was registered with
+     */
+    void assignTier(CheckPriority priority, CheckCost cost) {
+        this.priority = priority;
+        this.cost = cost;
+    }
+
+    void attachMetrics(CheckMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Shared metrics of this check, or null if it was created outside the check manager
+     */
+    CheckMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CheckPriority getPriority() {
+        return priority;
+    }
+
+    public CheckCost getCost() {
+        return cost;
+    }
+
+    /**
+     * Whether a component of the given cost should run for this packet under the current server load
+     *
+     * @param componentCost Cost of the component about to run
+     * @return true if the component should run
+     */
+    protected boolean canAfford(CheckCost componentCost) {
+        return plugin.getCheckManager().getLoadShedder().allows(priority, componentCost);
+    }
+
+    /**
+     * Block type at the given coordinates, served from the shared block cache
+     */
+    protected Material getBlockType(World world, double x, double y, double z) {
+        return plugin.getBlockStateCache().getType(world, x, y, z);
+    }
+
+    /**
+     * Whether a player can move through the block at the given coordinates, judged from its cached type
+     */
+    protected boolean isPassable(World world, double x, double y, double z) {
+        return !getBlockType(world, x, y, z).isSolid();
+    }
 
     /**
      * Flags a player for a violation with a specified violation amount
@@ -47,43 +119,87 @@ public abstract class Check {
      * @param details Technical details about the violation
      */
     protected void flag(double violationAmount, String details) {
+        publishViolation(violationAmount, details, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Flags a player with details given as a {@link String#format} pattern and numeric arguments.
+     * The text is only rendered if an alert, log or database entry actually uses it, so checks flagging
+     * on every packet do not build a string per flag. Integral values need a pattern like {@code %.0f}.
+     *
+     * @param violationAmount The amount to increase the violation level by
+     * @param format Pattern for the details
+     * @param arg0 Value for the pattern
+     */
+    protected void flag(double violationAmount, String format, double arg0) {
+        publishViolation(violationAmount, format, 1, arg0, 0, 0, 0, 0, 0);
+    }
+
+    protected void flag(double violationAmount, String format, double arg0, double arg1) {
+        publishViolation(violationAmount, format, 2, arg0, arg1, 0, 0, 0, 0);
+    }
+
+    protected void flag(double violationAmount, String format, double arg0, double arg1, double arg2) {
+        publishViolation(violationAmount, format, 3, arg0, arg1, arg2, 0, 0, 0);
+    }
+
+    protected void flag(double violationAmount, String format, double arg0, double arg1, double arg2,
+                        double arg3) {
+        publishViolation(violationAmount, format, 4, arg0, arg1, arg2, arg3, 0, 0);
+    }
+
+    protected void flag(double violationAmount, String format, double arg0, double arg1, double arg2,
+                        double arg3, double arg4) {
+        publishViolation(violationAmount, format, 5, arg0, arg1, arg2, arg3, arg4, 0);
+    }
+
+    protected void flag(double violationAmount, String format, double arg0, double arg1, double arg2,
+                        double arg3, double arg4, double arg5) {
+        publishViolation(violationAmount, format, 6, arg0, arg1, arg2, arg3, arg4, arg5);
+    }
+
+    private void publishViolation(double violationAmount, String format, int argCount,
+                                  double arg0, double arg1, double arg2, double arg3, double arg4, double arg5) {
         if (!enabled) return;
 
-        Player player = Bukkit.getPlayer(uuid);
-        if (player == null) return;
+        // Location and ping come from the last state the main thread published; this may run off the main
+        // thread, so the live player is never touched. No state means the player has not been seen yet.
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (state == null) return;
 
         // Increment the player's violation level
-        playerData.incrementViolationLevel(this.getClass(), violationAmount);
-        double vl = playerData.getViolationLevel(this.getClass());
-
-        // Create a violation log
-        Location loc = player.getLocation();
-        ViolationLog violationLog = new ViolationLog(
-                player.getName(),
-                checkName,
-                checkType,
-                vl,
-                details,
-                loc.getWorld().getName(),
-                loc.getX(),
-                loc.getY(),
-                loc.getZ(),
-                player.getPing(),
-                plugin.getConfigManager().getCurrentTPS()
-        );
-
-        // Send to alert manager
-        plugin.getAlertManager().sendAlert(violationLog);
-
-        // Log to console with detailed info
-        plugin.getLogger().info(String.format(
-                "[%s] %s failed %s check (VL: %.1f): %s",
-                checkType, player.getName(), checkName, vl, details
-        ));
+        double vl = playerData.incrementViolationLevel(getCheckId(), violationAmount);
+        if (metrics != null) {
+            metrics.recordFlag();
+        }
+
+        // Everything is gathered before claiming, since a claimed slot must be published
+        long timestamp = System.currentTimeMillis();
+        double tps = plugin.getConfigManager().getCurrentTPS();
+
+        // Queue the violation for the alert manager, which renders it on the main thread
+        ViolationRing violations = plugin.getAlertManager().getViolationRing();
+        long sequence = violations.claim();
+        if (sequence >= 0) {
+            boolean filled = false;
+            try {
+                violations.set(sequence, this, playerData, vl, violationAmount, timestamp);
+                violations.setLocation(sequence, state.getWorldName(), state.getX(), state.getY(), state.getZ(),
+                        state.getPing(), tps);
+                violations.setDetails(sequence, format, argCount, arg0, arg1, arg2, arg3, arg4, arg5);
+                filled = true;
+            } finally {
+                if (filled) {
+                    violations.publish(sequence);
+                } else {
+                    violations.discard(sequence);
+                }
+            }
+        }
 
         // Check if maximum violation level is reached for punishment
         if (vl >= maxVL && maxVL > 0 && !punishCommand.isEmpty()) {
-            executePunishment(player);
+            executePunishment();
         }
     }
 
@@ -102,14 +218,12 @@ public abstract class Check {
 
     /**
      * Executes a punishment command on the player when they reach the max violation level.
-     *
-     * @param player The player to punish.
      */
-    private void executePunishment(Player player) {
+    private void executePunishment() {
         // Replace placeholders in the punishment command
-        String command = punishCommand.replace("%player%", player.getName())
+        String command = punishCommand.replace("%player%", playerData.getPlayerName())
                 .replace("%check%", checkName)
-                .replace("%vl%", String.valueOf((int) playerData.getViolationLevel(this.getClass())));
+                .replace("%vl%", String.valueOf((int) playerData.getViolationLevel(getCheckId())));
 
         // Execute the command on the main server thread
         Bukkit.getScheduler().runTask(plugin, () -> {
@@ -118,7 +232,7 @@ public abstract class Check {
         });
 
         // Reset violation level after punishment
-        playerData.setViolationLevel(this.getClass(), 0.0);
+        playerData.setViolationLevel(getCheckId(), 0.0);
     }
 
     /**
@@ -0,0 +1,22 @@
+package fi.tj88888.quantumAC.check;
+
+/**
+ * Rough CPU cost of running a check, or one of a check's components, for a single packet
+ */
+public enum CheckCost {
+
+    /**
+     * Arithmetic on already tracked movement or combat data
+     */
+    CHEAP,
+
+    /**
+     * A handful of block or entity lookups
+     */
+    MODERATE,
+
+    /**
+     * History scans, pattern fitting or ray walks through the world
+     */
+    EXPENSIVE
+}
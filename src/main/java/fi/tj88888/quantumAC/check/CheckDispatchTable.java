@@ -0,0 +1,52 @@
+package fi.tj88888.quantumAC.check;
+
+import fi.tj88888.quantumAC.packet.PacketKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-player checks indexed by packet kind.
+ * Built once when the player's checks are initialized, so dispatching a packet
+ * is a single array lookup and only touches the checks that declared its kind.
+ */
+final class CheckDispatchTable {
+
+    private static final Check[] NO_CHECKS = new Check[0];
+
+    private final Set<Check> checks;
+    private final Check[][] byKind;
+
+    CheckDispatchTable(List<RegisteredCheck> registrations, List<Check> instances) {
+        Set<Check> initialized = new LinkedHashSet<>();
+        for (Check check : instances) {
+            if (check != null) {
+                initialized.add(check);
+            }
+        }
+        this.checks = Collections.unmodifiableSet(initialized);
+        this.byKind = new Check[PacketKind.count()][];
+
+        for (PacketKind kind : PacketKind.values()) {
+            List<Check> targets = new ArrayList<>();
+            for (int i = 0; i < registrations.size(); i++) {
+                Check check = instances.get(i);
+                if (check != null && check.isEnabled() && registrations.get(i).handles(kind)) {
+                    targets.add(check);
+                }
+            }
+            byKind[kind.ordinal()] = targets.isEmpty() ? NO_CHECKS : targets.toArray(new Check[0]);
+        }
+    }
+
+    Check[] get(PacketKind kind) {
+        return byKind[kind.ordinal()];
+    }
+
+    Set<Check> getChecks() {
+        return checks;
+    }
+}
@@ -8,21 +8,30 @@ import fi.tj88888.quantumAC.check.movement.fly.*;
 import fi.tj88888.quantumAC.check.movement.rotation.RotationA;
 import fi.tj88888.quantumAC.check.packet.*;
 import fi.tj88888.quantumAC.data.PlayerData;
-import com.comphenix.protocol.events.PacketEvent;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 public class CheckManager {
 
     private final QuantumAC plugin;
-    private final List<Class<? extends Check>> checkClasses;
-    private final Map<UUID, Set<Check>> activeChecks;
+    private final List<RegisteredCheck> registeredChecks;
+    private final Map<Class<? extends Check>, Integer> checkIds;
+    private final Map<UUID, CheckDispatchTable> activeChecks;
+    private final LoadShedder loadShedder;
+    private final CheckProfiler profiler;
 
     public CheckManager(QuantumAC plugin) {
         this.plugin = plugin;
-        this.checkClasses = new ArrayList<>();
-        this.activeChecks = new HashMap<>();
+        this.registeredChecks = new ArrayList<>();
+        this.checkIds = new ConcurrentHashMap<>();
+        this.activeChecks = new ConcurrentHashMap<>();
+        this.loadShedder = new LoadShedder(plugin.getConfigManager(), plugin.getLogger());
+        this.profiler = new CheckProfiler(plugin.getConfigManager());
 
         // Register all checks here
         registerChecks();
@@ -30,38 +39,70 @@ public class CheckManager {
 
     private void registerChecks() {
         // Speed Checks
-        //registerCheck(SpeedA.class); // Finished apart from speed pot calculations
-        //registerCheck(SpeedB.class);
+        //registerCheck(SpeedA.class, PacketKind.POSITION_UPDATES, CheckPriority.NORMAL, CheckCost.MODERATE); // Finished apart from speed pot calculations
+        //registerCheck(SpeedB.class, PacketKind.POSITION_UPDATES, CheckPriority.NORMAL, CheckCost.MODERATE);
 
         // Rotation Checks
-        //registerCheck(RotationA.class); // Finished
+        //registerCheck(RotationA.class, PacketKind.ROTATION_UPDATES, CheckPriority.LOW, CheckCost.MODERATE); // Finished
         
         // Fly Checks
-        registerCheck(FlyA.class); // Refactored with components
-        registerCheck(FlyB.class); // Refactored with components
-        registerCheck(FlyC.class); // Refactored with components
+        registerCheck(FlyA.class, PacketKind.POSITION_UPDATES, CheckPriority.CRITICAL, CheckCost.CHEAP); // Refactored with components
+        registerCheck(FlyB.class, PacketKind.MOVEMENT, CheckPriority.NORMAL, CheckCost.MODERATE); // Refactored with components
+        registerCheck(FlyC.class, PacketKind.MOVEMENT, CheckPriority.NORMAL, CheckCost.MODERATE); // Refactored with components
         
         // Packet Checks
-        //registerCheck(TimerA.class); // Look into false flags
+        //registerCheck(TimerA.class, PacketKind.MOVEMENT, CheckPriority.CRITICAL, CheckCost.CHEAP); // Look into false flags
         
         // Combat Checks
 
         // KillAura Checks
-        registerCheck(KillAuraA.class); // Refactored with LateAttackComponent
-        registerCheck(KillAuraB.class); // Refactored with EarlyAttackComponent
-        registerCheck(KillAuraC.class); // Refactored with AttackRateComponent and AttackPatternComponent
-        registerCheck(KillAuraD.class); // Refactored with SprintSpeedComponent
-        registerCheck(KillAuraE.class); // Refactored with DeadPlayerActionComponent
-        //registerCheck(KillAuraP.class);
+        registerCheck(KillAuraA.class, PacketKind.COMBAT, CheckPriority.CRITICAL, CheckCost.CHEAP); // Refactored with LateAttackComponent
+        registerCheck(KillAuraB.class, PacketKind.COMBAT, CheckPriority.CRITICAL, CheckCost.CHEAP); // Refactored with EarlyAttackComponent
+        registerCheck(KillAuraC.class, PacketKind.COMBAT, CheckPriority.NORMAL, CheckCost.MODERATE); // Refactored with AttackRateComponent and AttackPatternComponent
+        registerCheck(KillAuraD.class, union(PacketKind.COMBAT, PacketKind.MOVEMENT), CheckPriority.NORMAL, CheckCost.MODERATE); // Refactored with SprintSpeedComponent
+        registerCheck(KillAuraE.class, PacketKind.COMBAT, CheckPriority.CRITICAL, CheckCost.CHEAP); // Refactored with DeadPlayerActionComponent
+        //registerCheck(KillAuraP.class, union(PacketKind.ROTATION_UPDATES, EnumSet.of(PacketKind.USE_ENTITY)), CheckPriority.LOW, CheckCost.CHEAP);
     }
 
     /**
-     * Registers a check to be initialized for players
+     * Registers a check to be initialized for players.
+     * The check is given the next dense id, which indexes its violation level in every PlayerData.
      *
      * @param checkClass Check class to register
+     * @param packetKinds Packet kinds the check should receive; other packets never reach it
+     * @param priority How long the check keeps running as TPS drops
+     * @param cost Per-packet cost of the check
      */
-    public void registerCheck(Class<? extends Check> checkClass) {
-        checkClasses.add(checkClass);
+    public void registerCheck(Class<? extends Check> checkClass, Set<PacketKind> packetKinds,
+                              CheckPriority priority, CheckCost cost) {
+        int id = registeredChecks.size();
+        CheckMetrics metrics = profiler.register(id, checkClass.getSimpleName(), packetKinds);
+        registeredChecks.add(new RegisteredCheck(checkClass, packetKinds, priority, cost, metrics));
+        checkIds.putIfAbsent(checkClass, id);
+    }
+
+    /**
+     * Registers a check with the default normal priority and moderate cost
+     */
+    public void registerCheck(Class<? extends Check> checkClass, Set<PacketKind> packetKinds) {
+        registerCheck(checkClass, packetKinds, CheckPriority.NORMAL, CheckCost.MODERATE);
+    }
+
+    /**
+     * Id of a registered check class
+     *
+     * @param checkClass Check class
+     * @return The id given at its first registration, or -1 if it was never registered
+     */
+    public int getCheckId(Class<? extends Check> checkClass) {
+        Integer id = checkIds.get(checkClass);
+        return id != null ? id : -1;
+    }
+
+    private static Set<PacketKind> union(Set<PacketKind> first, Set<PacketKind> second) {
+        EnumSet<PacketKind> kinds = EnumSet.copyOf(first);
+        kinds.addAll(second);
+        return kinds;
     }
 
     public void initializeChecks(Player player) {
@@ -72,20 +113,27 @@ public class CheckManager {
             return;
         }
 
-        Set<Check> checks = new HashSet<>();
+        // Kept index-aligned with the registrations; a check that fails to initialize stays null
+        List<RegisteredCheck> registrations = new ArrayList<>(registeredChecks);
+        List<Check> checks = new ArrayList<>(registrations.size());
 
-        for (Class<? extends Check> checkClass : checkClasses) {
+        for (RegisteredCheck registration : registrations) {
+            Class<? extends Check> checkClass = registration.getCheckClass();
+            Check check = null;
             try {
-                Check check = checkClass.getDeclaredConstructor(QuantumAC.class, PlayerData.class)
+                check = checkClass.getDeclaredConstructor(QuantumAC.class, PlayerData.class)
                         .newInstance(plugin, data);
-                checks.add(check);
+                check.assignId(registration.getId());
+                check.assignTier(registration.getPriority(), registration.getCost());
+                check.attachMetrics(registration.getMetrics());
             } catch (Exception e) {
                 plugin.getLogger().severe("Failed to initialize check " + checkClass.getSimpleName() + ": " + e.getMessage());
                 e.printStackTrace();
             }
+            checks.add(check);
         }
 
-        activeChecks.put(uuid, checks);
+        activeChecks.put(uuid, new CheckDispatchTable(registrations, checks));
     }
 
     public void removeChecks(UUID uuid) {
@@ -93,26 +141,69 @@ public class CheckManager {
     }
 
     public Set<Check> getChecks(UUID uuid) {
-        return activeChecks.getOrDefault(uuid, new HashSet<>());
+        CheckDispatchTable table = activeChecks.get(uuid);
+        return table != null ? table.getChecks() : Collections.emptySet();
     }
 
-    public void processPacket(Player player, PacketEvent event) {
+    public LoadShedder getLoadShedder() {
+        return loadShedder;
+    }
+
+    public CheckProfiler getProfiler() {
+        return profiler;
+    }
+
+    public List<RegisteredCheck> getRegisteredChecks() {
+        return Collections.unmodifiableList(registeredChecks);
+    }
+
+    public void processPacket(Player player, PacketSnapshot packet) {
         UUID uuid = player.getUniqueId();
-        Set<Check> checks = getChecks(uuid);
+        CheckDispatchTable table = activeChecks.get(uuid);
+        if (table == null) return;
+
+        // Only the checks that declared this packet kind are touched
+        Check[] checks = table.get(packet.getKind());
+        if (checks.length == 0) return;
 
         PlayerData data = plugin.getPlayerDataManager().getPlayerData(uuid);
         if (data == null) {
             plugin.getLogger().severe("PlayerData is null for player: " + player.getName());
             return;
         }
-        if (data.getMovementData() == null) {
-            plugin.getLogger().severe("MovementData is null for player: " + player.getName());
+
+        for (Check check : checks) {
+            // Lower tiers are skipped or sampled while the server is lagging
+            if (!loadShedder.allows(check.getPriority(), check.getCost())) {
+                continue;
+            }
+            runCheck(check, packet);
+        }
+    }
+
+    /**
+     * Runs a single check, timing a sample of invocations. A failing check is counted
+     * and logged without stopping the remaining checks for the packet.
+     */
+    private void runCheck(Check check, PacketSnapshot packet) {
+        CheckMetrics metrics = check.getMetrics();
+        if (metrics == null) {
+            check.processPacket(packet);
             return;
         }
 
-        for (Check check : checks) {
-            if (check.isEnabled()) {
-                check.processPacket(event);
+        metrics.recordInvocation();
+        boolean timed = profiler.shouldSample();
+        long start = timed ? System.nanoTime() : 0L;
+        try {
+            check.processPacket(packet);
+        } catch (Exception e) {
+            metrics.recordException();
+            plugin.getLogger().log(Level.WARNING, "Error in check " + check.getCheckName()
+                    + " for " + packet.getPlayer().getName(), e);
+        } finally {
+            if (timed) {
+                metrics.recordLatency(packet.getKind(), System.nanoTime() - start);
             }
         }
     }
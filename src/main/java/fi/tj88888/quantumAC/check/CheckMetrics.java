@@ -0,0 +1,111 @@
+package fi.tj88888.quantumAC.check;
+
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.util.LogLinearHistogram;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters for one registered check, shared by every player's instance of it.
+ * Latency is only measured on sampled invocations; counts cover every invocation.
+ */
+public class CheckMetrics {
+
+    private final int id;
+    private final String checkName;
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder flags = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+
+    private final LogLinearHistogram latency = new LogLinearHistogram();
+    // Indexed by packet kind ordinal; null for kinds the check never receives
+    private final LogLinearHistogram[] latencyByKind = new LogLinearHistogram[PacketKind.values().length];
+
+    CheckMetrics(int id, String checkName, Set<PacketKind> packetKinds) {
+        this.id = id;
+        this.checkName = checkName;
+        for (PacketKind kind : packetKinds) {
+            latencyByKind[kind.ordinal()] = new LogLinearHistogram();
+        }
+    }
+
+    void recordInvocation() {
+        invocations.increment();
+    }
+
+    void recordLatency(PacketKind kind, long nanos) {
+        latency.record(nanos);
+        LogLinearHistogram byKind = latencyByKind[kind.ordinal()];
+        if (byKind != null) {
+            byKind.record(nanos);
+        }
+    }
+
+    void recordFlag() {
+        flags.increment();
+    }
+
+    void recordException() {
+        exceptions.increment();
+    }
+
+    void reset() {
+        invocations.reset();
+        flags.reset();
+        exceptions.reset();
+        latency.reset();
+        for (LogLinearHistogram byKind : latencyByKind) {
+            if (byKind != null) {
+                byKind.reset();
+            }
+        }
+    }
+
+    /**
+     * Dense index of the check in registration order
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getCheckName() {
+        return checkName;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getFlags() {
+        return flags.sum();
+    }
+
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    /**
+     * Latency of sampled invocations across all packet kinds
+     */
+    public LogLinearHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Latency of sampled invocations for one packet kind, or null if the check does not receive it
+     */
+    public LogLinearHistogram getLatency(PacketKind kind) {
+        return latencyByKind[kind.ordinal()];
+    }
+
+    /**
+     * Estimated total time spent in the check, extrapolated from the sampled invocations
+     */
+    public long getEstimatedNanos() {
+        long sampled = latency.getCount();
+        if (sampled == 0) return 0;
+        return (long) (latency.getSum() * ((double) invocations.sum() / sampled));
+    }
+}
@@ -0,0 +1,23 @@
+package fi.tj88888.quantumAC.check;
+
+/**
+ * How important a check is to keep running while the server is under load.
+ * Lower tiers are shed first by the {@link LoadShedder}.
+ */
+public enum CheckPriority {
+
+    /**
+     * Cheap, high-confidence checks that always run
+     */
+    CRITICAL,
+
+    /**
+     * Regular detection; keeps running but loses its expensive analysis under load
+     */
+    NORMAL,
+
+    /**
+     * Experimental or heuristic checks; sampled first and skipped once TPS drops below min-tps
+     */
+    LOW
+}
@@ -0,0 +1,72 @@
+package fi.tj88888.quantumAC.check;
+
+import fi.tj88888.quantumAC.config.ConfigManager;
+import fi.tj88888.quantumAC.packet.PacketKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Owns the {@link CheckMetrics} of all registered checks and decides which invocations are timed.
+ * Timing one in sample-rate invocations keeps the two nanoTime calls off most packets.
+ */
+public class CheckProfiler {
+
+    private final boolean enabled;
+    private final int sampleRate;
+    private final List<CheckMetrics> metrics = new ArrayList<>();
+    private volatile long since = System.currentTimeMillis();
+
+    public CheckProfiler(ConfigManager configManager) {
+        this.enabled = configManager.isProfilingEnabled();
+        this.sampleRate = configManager.getProfilingSampleRate();
+    }
+
+    /**
+     * @param id Dense id the check was registered with; ids are handed out in registration order
+     */
+    CheckMetrics register(int id, String checkName, Set<PacketKind> packetKinds) {
+        CheckMetrics checkMetrics = new CheckMetrics(id, checkName, packetKinds);
+        metrics.add(checkMetrics);
+        return checkMetrics;
+    }
+
+    /**
+     * Whether the current invocation should be timed
+     */
+    boolean shouldSample() {
+        return enabled && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Metrics of all registered checks, in registration order
+     */
+    public List<CheckMetrics> getMetrics() {
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Start of the current measurement window
+     */
+    public long getSince() {
+        return since;
+    }
+
+    public void reset() {
+        for (CheckMetrics checkMetrics : metrics) {
+            checkMetrics.reset();
+        }
+        since = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,135 @@
+package fi.tj88888.quantumAC.check;
+
+import fi.tj88888.quantumAC.config.ConfigManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Decides which checks, and which expensive parts of checks, still run while the server is lagging.
+ * The level follows the TPS measured by {@link ConfigManager}; each step down sheds another tier
+ * so the anticheat costs less exactly when the server can least afford it.
+ */
+public class LoadShedder {
+
+    /**
+     * Load levels, from healthy to overloaded
+     */
+    public enum Level {
+        /** Everything runs */
+        NONE,
+        /** Expensive work and low-priority checks run on a sample of packets */
+        SAMPLE,
+        /** Expensive work and low-priority checks are skipped */
+        SHED,
+        /** Only critical checks run */
+        CRITICAL_ONLY
+    }
+
+    private final Logger logger;
+    private final ConfigManager configManager;
+    private final boolean enabled;
+    private final double sampleBelowTPS;
+    private final double shedBelowTPS;
+    private final double criticalOnlyBelowTPS;
+    private final int sampleRate;
+
+    private final AtomicReference<Level> level = new AtomicReference<>(Level.NONE);
+    private final LongAdder[] skipped = new LongAdder[CheckPriority.values().length];
+
+    public LoadShedder(ConfigManager configManager, Logger logger) {
+        this.logger = logger;
+        this.configManager = configManager;
+        this.enabled = configManager.isLoadSheddingEnabled();
+        this.sampleBelowTPS = configManager.getSampleBelowTPS();
+        this.shedBelowTPS = configManager.getMinTPS();
+        this.criticalOnlyBelowTPS = configManager.getCriticalOnlyBelowTPS();
+        this.sampleRate = configManager.getShedSampleRate();
+
+        for (int i = 0; i < skipped.length; i++) {
+            skipped[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Whether work of the given tier should run for the current packet.
+     * Skipped work is counted against the priority tier it belongs to.
+     *
+     * @param priority Priority of the check doing the work
+     * @param cost Cost of the check, or of the component about to run
+     * @return true if the work should run
+     */
+    public boolean allows(CheckPriority priority, CheckCost cost) {
+        Level current = getLevel();
+        if (current == Level.NONE || priority == CheckPriority.CRITICAL) {
+            return true;
+        }
+
+        boolean sheddable = priority == CheckPriority.LOW || cost == CheckCost.EXPENSIVE;
+        boolean run;
+        switch (current) {
+            case SAMPLE:
+                run = !sheddable || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+                break;
+            case SHED:
+                run = !sheddable;
+                break;
+            default:
+                run = false;
+                break;
+        }
+
+        if (!run) {
+            skipped[priority.ordinal()].increment();
+        }
+        return run;
+    }
+
+    /**
+     * Current load level; logs whenever the level changes
+     */
+    public Level getLevel() {
+        Level next = computeLevel(configManager.getCurrentTPS());
+        Level previous = level.get();
+        if (next != previous && level.compareAndSet(previous, next)) {
+            logger.info(String.format("Load shedding level changed from %s to %s (TPS: %.1f)",
+                    previous, next, configManager.getCurrentTPS()));
+        }
+        return next;
+    }
+
+    private Level computeLevel(double tps) {
+        if (!enabled) return Level.NONE;
+        if (tps < criticalOnlyBelowTPS) return Level.CRITICAL_ONLY;
+        if (tps < shedBelowTPS) return Level.SHED;
+        if (tps < sampleBelowTPS) return Level.SAMPLE;
+        return Level.NONE;
+    }
+
+    /**
+     * Short state of a priority tier at the current level: running, partial, sampled or shed
+     */
+    public String getTierState(CheckPriority priority) {
+        Level current = getLevel();
+        if (current == Level.NONE || priority == CheckPriority.CRITICAL) {
+            return "running";
+        }
+        if (current == Level.CRITICAL_ONLY) {
+            return "shed";
+        }
+        if (priority == CheckPriority.LOW) {
+            return current == Level.SAMPLE ? "sampled" : "shed";
+        }
+        // Normal checks keep running but lose their expensive components
+        return "partial";
+    }
+
+    /**
+     * Number of check or component runs skipped for a priority tier since startup
+     */
+    public long getSkippedCount(CheckPriority priority) {
+        return skipped[priority.ordinal()].sum();
+    }
+}
@@ -0,0 +1,61 @@
+package fi.tj88888.quantumAC.check;
+
+import fi.tj88888.quantumAC.packet.PacketKind;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A check class together with the packet kinds it wants to receive,
+ * the tier the load shedder treats it as and its runtime metrics
+ */
+public final class RegisteredCheck {
+
+    private final Class<? extends Check> checkClass;
+    private final Set<PacketKind> packetKinds;
+    private final CheckPriority priority;
+    private final CheckCost cost;
+    private final CheckMetrics metrics;
+
+    RegisteredCheck(Class<? extends Check> checkClass, Set<PacketKind> packetKinds,
+                    CheckPriority priority, CheckCost cost, CheckMetrics metrics) {
+        this.checkClass = checkClass;
+        this.packetKinds = Collections.unmodifiableSet(
+                packetKinds.isEmpty() ? EnumSet.noneOf(PacketKind.class) : EnumSet.copyOf(packetKinds));
+        this.priority = priority;
+        this.cost = cost;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Dense index of the check in registration order, also used to index violation levels
+     */
+    public int getId() {
+        return metrics.getId();
+    }
+
+    public Class<? extends Check> getCheckClass() {
+        return checkClass;
+    }
+
+    public Set<PacketKind> getPacketKinds() {
+        return packetKinds;
+    }
+
+    public CheckPriority getPriority() {
+        return priority;
+    }
+
+    public CheckCost getCost() {
+        return cost;
+    }
+
+    public CheckMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean handles(PacketKind kind) {
+        return packetKinds.contains(kind);
+    }
+}
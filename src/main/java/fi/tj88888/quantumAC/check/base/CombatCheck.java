@@ -1,16 +1,12 @@
 package fi.tj88888.quantumAC.check.base;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.wrappers.EnumWrappers;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
-import org.bukkit.entity.Entity;
-import org.bukkit.entity.Player;
-
-import java.util.ArrayDeque;
-import java.util.Deque;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
 
 /**
  * Base class for all combat-related checks
@@ -26,9 +22,10 @@ public abstract class CombatCheck extends Check {
     protected long lastAttackTime = 0;
     protected long lastArmAnimationTime = 0;
     protected Integer lastAttackedEntityId = null;
-    protected final Deque<Long> recentAttackTimes = new ArrayDeque<>();
-    protected final Deque<Long> recentArmAnimations = new ArrayDeque<>();
     protected final int MAX_SAMPLES = 20;
+    protected final LongRingBuffer recentAttackTimes = new LongRingBuffer(MAX_SAMPLES);
+    protected final LongRingBuffer recentArmAnimations = new LongRingBuffer(MAX_SAMPLES);
+    protected final SlidingWindowStats attackIntervals = new SlidingWindowStats(MAX_SAMPLES - 1);
 
     public CombatCheck(QuantumAC plugin, PlayerData playerData, String checkName, String checkType) {
         super(plugin, playerData, checkName, checkType);
@@ -37,55 +34,43 @@ public abstract class CombatCheck extends Check {
     /**
      * Processes common combat packet handling
      * 
-     * @param event The packet event
+     * @param packet The decoded packet
      * @return True if the packet was a combat-related packet
      */
-    protected boolean processCombatPacket(PacketEvent event) {
-        if (event == null || event.getPacketType() == null) return false;
+    protected boolean processCombatPacket(PacketSnapshot packet) {
+        if (packet == null) return false;
 
-        long now = System.currentTimeMillis();
-        PacketType packetType = event.getPacketType();
+        long now = packet.getTimestamp();
         boolean processed = false;
 
         try {
             // Handle arm animation packets
-            if (packetType == PacketType.Play.Client.ARM_ANIMATION) {
+            if (packet.getKind() == PacketKind.ARM_ANIMATION) {
                 lastArmAnimationTime = now;
                 playerData.setLastArmAnimation(now);
                 
                 // Update history
-                recentArmAnimations.addLast(now);
-                if (recentArmAnimations.size() > MAX_SAMPLES) {
-                    recentArmAnimations.removeFirst();
-                }
+                recentArmAnimations.add(now);
                 
                 processed = true;
             }
-            // Handle USE_ENTITY (attack) packets
-            else if (packetType == PacketType.Play.Client.USE_ENTITY &&
-                    event.getPacket().getEnumEntityUseActions().size() > 0) {
-
-                EnumWrappers.EntityUseAction action =
-                        event.getPacket().getEnumEntityUseActions().read(0).getAction();
-
-                // Only process attack actions
-                if (action == EnumWrappers.EntityUseAction.ATTACK) {
-                    if (event.getPacket().getIntegers().size() > 0) {
-                        lastAttackedEntityId = event.getPacket().getIntegers().read(0);
-                        playerData.setLastAttackedEntity(lastAttackedEntityId);
-                    }
+            // Handle USE_ENTITY (attack) packets; only attack actions count
+            else if (packet.isAttack()) {
+                if (packet.getEntityId() != PacketSnapshot.NO_ENTITY) {
+                    lastAttackedEntityId = packet.getEntityId();
+                    playerData.setLastAttackedEntity(lastAttackedEntityId);
+                }
 
-                    lastAttackTime = now;
-                    playerData.setLastAttack(now);
-                    
-                    // Update history
-                    recentAttackTimes.addLast(now);
-                    if (recentAttackTimes.size() > MAX_SAMPLES) {
-                        recentAttackTimes.removeFirst();
-                    }
-                    
-                    processed = true;
+                lastAttackTime = now;
+                playerData.setLastAttack(now);
+                
+                // Update history; the interval window covers the same attacks as the timestamps
+                if (!recentAttackTimes.isEmpty()) {
+                    attackIntervals.add(now - recentAttackTimes.getLast());
                 }
+                recentAttackTimes.add(now);
+                
+                processed = true;
             }
         } catch (Exception e) {
             plugin.getLogger().warning("Error in CombatCheck processing: " + e.getMessage());
@@ -111,8 +96,7 @@ public abstract class CombatCheck extends Check {
     protected long getTimeBetweenAttacks() {
         if (recentAttackTimes.size() < 2) return -1;
         
-        Long[] attacks = recentAttackTimes.toArray(new Long[0]);
-        return attacks[attacks.length - 1] - attacks[attacks.length - 2];
+        return recentAttackTimes.delta(recentAttackTimes.size() - 1);
     }
 
     /**
@@ -121,18 +105,9 @@ public abstract class CombatCheck extends Check {
      * @return Average time in milliseconds, or -1 if not enough data
      */
     protected double getAverageTimeBetweenAttacks() {
-        if (recentAttackTimes.size() < 2) return -1;
-        
-        Long[] attacks = recentAttackTimes.toArray(new Long[0]);
-        double sum = 0;
-        int count = 0;
-        
-        for (int i = 1; i < attacks.length; i++) {
-            sum += attacks[i] - attacks[i - 1];
-            count++;
-        }
+        if (attackIntervals.isEmpty()) return -1;
         
-        return sum / count;
+        return attackIntervals.getMean();
     }
 
     /**
@@ -141,50 +116,18 @@ public abstract class CombatCheck extends Check {
      * @return Standard deviation in milliseconds, or -1 if not enough data
      */
     protected double getStdDevTimeBetweenAttacks() {
-        if (recentAttackTimes.size() < 3) return -1;
-        
-        Long[] attacks = recentAttackTimes.toArray(new Long[0]);
-        double avg = getAverageTimeBetweenAttacks();
-        double sum = 0;
-        int count = 0;
-        
-        for (int i = 1; i < attacks.length; i++) {
-            double diff = attacks[i] - attacks[i - 1] - avg;
-            sum += diff * diff;
-            count++;
-        }
-        
-        return Math.sqrt(sum / count);
-    }
-
-    /**
-     * Gets the attacked entity if it exists in the world
-     * 
-     * @param player The attacking player
-     * @return The attacked entity, or null if not found
-     */
-    protected Entity getAttackedEntity(Player player) {
-        if (lastAttackedEntityId == null) return null;
-        
-        for (Entity entity : player.getWorld().getEntities()) {
-            if (entity.getEntityId() == lastAttackedEntityId) {
-                return entity;
-            }
-        }
+        if (attackIntervals.size() < 2) return -1;
         
-        return null;
+        return attackIntervals.getStdDev();
     }
 
     /**
      * Checks if the packet is a movement packet
      * 
-     * @param type The packet type
+     * @param kind The packet kind
      * @return True if it's a movement packet
      */
-    protected boolean isMovementPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-               type == PacketType.Play.Client.POSITION_LOOK ||
-               type == PacketType.Play.Client.LOOK ||
-               type == PacketType.Play.Client.FLYING;
+    protected boolean isMovementPacket(PacketKind kind) {
+        return kind.isMovement();
     }
 } 
\ No newline at end of file
@@ -1,17 +1,13 @@
 package fi.tj88888.quantumAC.check.base;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketKind;
 import fi.tj88888.quantumAC.util.MovementData;
-import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.util.Vector;
 
@@ -84,68 +80,59 @@ public abstract class MovementCheck extends Check {
     /**
      * Checks if the packet is a movement packet
      * 
-     * @param type The packet type
+     * @param kind The packet kind
      * @return True if it's a movement packet
      */
-    protected boolean isMovementPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-               type == PacketType.Play.Client.POSITION_LOOK ||
-               type == PacketType.Play.Client.LOOK ||
-               type == PacketType.Play.Client.FLYING;
+    protected boolean isMovementPacket(PacketKind kind) {
+        return kind.isMovement();
     }
 
     /**
      * Checks if the player is in a liquid (water or lava)
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is in a liquid
      */
-    protected boolean isInLiquid(Player player) {
-        Block block = player.getLocation().getBlock();
-        return LIQUID_MATERIALS.contains(block.getType());
+    protected boolean isInLiquid(PlayerStateSnapshot state) {
+        return LIQUID_MATERIALS.contains(getBlockType(state.getWorld(), state.getX(), state.getY(), state.getZ()));
     }
 
     /**
      * Checks if the player is on a climbable block
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is on a climbable block
      */
-    protected boolean isOnClimbable(Player player) {
-        Location loc = player.getLocation();
-        Block block = loc.getBlock();
-        
-        if (CLIMBABLE_MATERIALS.contains(block.getType())) {
+    protected boolean isOnClimbable(PlayerStateSnapshot state) {
+        World world = state.getWorld();
+        if (CLIMBABLE_MATERIALS.contains(getBlockType(world, state.getX(), state.getY(), state.getZ()))) {
             return true;
         }
         
         // Check block below for scaffolding
-        Block blockBelow = loc.clone().subtract(0, 0.1, 0).getBlock();
-        return blockBelow.getType() == Material.SCAFFOLDING;
+        return getBlockType(world, state.getX(), state.getY() - 0.1, state.getZ()) == Material.SCAFFOLDING;
     }
 
     /**
      * Checks if the player is in a web
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is in a web
      */
-    protected boolean isInWeb(Player player) {
-        Block block = player.getLocation().getBlock();
-        return block.getType() == Material.COBWEB;
+    protected boolean isInWeb(PlayerStateSnapshot state) {
+        return getBlockType(state.getWorld(), state.getX(), state.getY(), state.getZ()) == Material.COBWEB;
     }
 
     /**
      * Checks if the player is on a special block that affects movement
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is on a special block
      */
-    protected boolean isOnSpecialBlock(Player player) {
-        Location loc = player.getLocation();
-        Block block = loc.clone().subtract(0, 0.1, 0).getBlock();
+    protected boolean isOnSpecialBlock(PlayerStateSnapshot state) {
+        Material below = getBlockType(state.getWorld(), state.getX(), state.getY() - 0.1, state.getZ());
         
-        if (SPECIAL_BLOCKS.contains(block.getType())) {
+        if (SPECIAL_BLOCKS.contains(below)) {
             lastSpecialBlockTime = System.currentTimeMillis();
             return true;
         }
@@ -156,14 +143,13 @@ public abstract class MovementCheck extends Check {
     /**
      * Checks if the player is on a bounce block
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is on a bounce block
      */
-    protected boolean isOnBounceBlock(Player player) {
-        Location loc = player.getLocation();
-        Block block = loc.clone().subtract(0, 0.1, 0).getBlock();
+    protected boolean isOnBounceBlock(PlayerStateSnapshot state) {
+        Material below = getBlockType(state.getWorld(), state.getX(), state.getY() - 0.1, state.getZ());
         
-        if (BOUNCE_BLOCKS.contains(block.getType()) || block.getType().name().endsWith("_BED")) {
+        if (BOUNCE_BLOCKS.contains(below) || below.name().endsWith("_BED")) {
             lastBounceTime = System.currentTimeMillis();
             return true;
         }
@@ -174,19 +160,18 @@ public abstract class MovementCheck extends Check {
     /**
      * Checks if the player is near the ground
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is near the ground
      */
-    protected boolean isNearGround(Player player) {
-        Location loc = player.getLocation();
-        double y = loc.getY();
-        World world = loc.getWorld();
+    protected boolean isNearGround(PlayerStateSnapshot state) {
+        double y = state.getY();
+        World world = state.getWorld();
         
         // Check a few blocks below the player
         for (double i = 0; i <= 2; i += 0.5) {
-            Block block = new Location(world, loc.getX(), y - i, loc.getZ()).getBlock();
-            if (!NON_SOLID_MATERIALS.contains(block.getType()) && 
-                !LIQUID_MATERIALS.contains(block.getType())) {
+            Material type = getBlockType(world, state.getX(), y - i, state.getZ());
+            if (!NON_SOLID_MATERIALS.contains(type) && 
+                !LIQUID_MATERIALS.contains(type)) {
                 return true;
             }
         }
@@ -197,18 +182,16 @@ public abstract class MovementCheck extends Check {
     /**
      * Checks if the player is near a ceiling
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is near a ceiling
      */
-    protected boolean isNearCeiling(Player player) {
-        Location loc = player.getLocation();
-        double y = loc.getY() + 2; // Player height is ~1.8
-        World world = loc.getWorld();
+    protected boolean isNearCeiling(PlayerStateSnapshot state) {
+        double y = state.getY() + 2; // Player height is ~1.8
+        World world = state.getWorld();
         
         // Check a few blocks above the player
         for (double i = 0; i <= 0.5; i += 0.1) {
-            Block block = new Location(world, loc.getX(), y + i, loc.getZ()).getBlock();
-            if (!NON_SOLID_MATERIALS.contains(block.getType())) {
+            if (!NON_SOLID_MATERIALS.contains(getBlockType(world, state.getX(), y + i, state.getZ()))) {
                 return true;
             }
         }
@@ -296,44 +279,39 @@ public abstract class MovementCheck extends Check {
     /**
      * Gets the jump boost level of a player
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return The jump boost level (0 if none)
      */
-    protected int getJumpBoostLevel(Player player) {
-        for (PotionEffect effect : player.getActivePotionEffects()) {
-            if (effect.getType().equals(PotionEffectType.JUMP_BOOST)) {
-                return effect.getAmplifier() + 1;
-            }
-        }
-        return 0;
+    protected int getJumpBoostLevel(PlayerStateSnapshot state) {
+        return state.getEffectLevel(PotionEffectType.JUMP_BOOST);
     }
 
     /**
      * Gets the slow falling effect status
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player has slow falling
      */
-    protected boolean hasSlowFalling(Player player) {
-        return player.hasPotionEffect(PotionEffectType.SLOW_FALLING);
+    protected boolean hasSlowFalling(PlayerStateSnapshot state) {
+        return state.hasPotionEffect(PotionEffectType.SLOW_FALLING);
     }
 
     /**
      * Checks if the player is exempt from movement checks
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @return True if the player is exempt
      */
-    protected boolean isExempt(Player player) {
-        return player.getAllowFlight() || 
-               player.isInsideVehicle() || 
+    protected boolean isExempt(PlayerStateSnapshot state) {
+        return state.getAllowFlight() || 
+               state.isInsideVehicle() || 
                isRecentlyTeleported() || 
                isRecentlyDamaged() || 
                isRecentlyVelocity() || 
                isRecentlyOnSpecialBlock() ||
                isRecentlyBounced() ||
-               isInLiquid(player) ||
-               isInWeb(player) ||
-               isOnClimbable(player);
+               isInLiquid(state) ||
+               isInWeb(state) ||
+               isOnClimbable(state);
     }
 } 
\ No newline at end of file
@@ -1,15 +1,15 @@
 package fi.tj88888.quantumAC.check.base;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
@@ -23,12 +23,13 @@ public abstract class PacketCheck extends Check {
     protected static final long MIN_PACKET_INTERVAL = 5;   // 5 milliseconds
     
     // Common state tracking
-    protected final Map<PacketType, Long> lastPacketTimes = new HashMap<>();
-    protected final Map<PacketType, Deque<Long>> packetTimingHistory = new HashMap<>();
+    protected final Map<PacketKind, Long> lastPacketTimes = new EnumMap<>(PacketKind.class);
+    protected final Map<PacketKind, LongRingBuffer> packetTimingHistory = new EnumMap<>(PacketKind.class);
+    protected final Map<PacketKind, SlidingWindowStats> packetIntervalStats = new EnumMap<>(PacketKind.class);
     protected final int MAX_SAMPLES = 40;
     
     // Packet count tracking
-    protected final Map<PacketType, Integer> packetCounts = new HashMap<>();
+    protected final Map<PacketKind, Integer> packetCounts = new EnumMap<>(PacketKind.class);
     protected long packetCountStartTime = System.currentTimeMillis();
     protected static final long PACKET_COUNT_INTERVAL = 1000; // 1 second
 
@@ -39,25 +40,27 @@ public abstract class PacketCheck extends Check {
     /**
      * Tracks packet timing for a specific packet type
      * 
-     * @param event The packet event
-     * @param type The packet type to track
+     * @param packet The decoded packet
+     * @param type The packet kind to track
      */
-    protected void trackPacketTiming(PacketEvent event, PacketType type) {
-        if (event.getPacketType() != type) return;
-        
-        long now = System.currentTimeMillis();
-        
-        // Initialize history queue if needed
-        if (!packetTimingHistory.containsKey(type)) {
-            packetTimingHistory.put(type, new ArrayDeque<>());
+    protected void trackPacketTiming(PacketSnapshot packet, PacketKind type) {
+        if (packet.getKind() != type) return;
+        
+        long now = packet.getTimestamp();
+        
+        // Record packet time, creating the history on first use
+        LongRingBuffer history = packetTimingHistory.get(type);
+        SlidingWindowStats intervals = packetIntervalStats.get(type);
+        if (history == null) {
+            history = new LongRingBuffer(MAX_SAMPLES);
+            intervals = new SlidingWindowStats(MAX_SAMPLES - 1);
+            packetTimingHistory.put(type, history);
+            packetIntervalStats.put(type, intervals);
         }
-        
-        // Record packet time
-        Deque<Long> history = packetTimingHistory.get(type);
-        history.addLast(now);
-        if (history.size() > MAX_SAMPLES) {
-            history.removeFirst();
+        if (!history.isEmpty()) {
+            intervals.add(now - history.getLast());
         }
+        history.add(now);
         
         // Update last packet time
         lastPacketTimes.put(type, now);
@@ -78,10 +81,10 @@ public abstract class PacketCheck extends Check {
     /**
      * Gets the time since the last packet of a specific type
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @return Time in milliseconds, or -1 if no packet of that type has been received
      */
-    protected long getTimeSinceLastPacket(PacketType type) {
+    protected long getTimeSinceLastPacket(PacketKind type) {
         if (!lastPacketTimes.containsKey(type)) return -1;
         return System.currentTimeMillis() - lastPacketTimes.get(type);
     }
@@ -89,76 +92,49 @@ public abstract class PacketCheck extends Check {
     /**
      * Gets the time between the last two packets of a specific type
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @return Time in milliseconds, or -1 if not enough data
      */
-    protected long getTimeBetweenLastPackets(PacketType type) {
-        if (!packetTimingHistory.containsKey(type)) return -1;
+    protected long getTimeBetweenLastPackets(PacketKind type) {
+        LongRingBuffer history = packetTimingHistory.get(type);
+        if (history == null || history.size() < 2) return -1;
         
-        Deque<Long> history = packetTimingHistory.get(type);
-        if (history.size() < 2) return -1;
-        
-        Long[] times = history.toArray(new Long[0]);
-        return times[times.length - 1] - times[times.length - 2];
+        return history.delta(history.size() - 1);
     }
 
     /**
      * Gets the average time between packets of a specific type
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @return Average time in milliseconds, or -1 if not enough data
      */
-    protected double getAverageTimeBetweenPackets(PacketType type) {
-        if (!packetTimingHistory.containsKey(type)) return -1;
-        
-        Deque<Long> history = packetTimingHistory.get(type);
-        if (history.size() < 2) return -1;
-        
-        Long[] times = history.toArray(new Long[0]);
-        double sum = 0;
-        int count = 0;
+    protected double getAverageTimeBetweenPackets(PacketKind type) {
+        SlidingWindowStats intervals = packetIntervalStats.get(type);
+        if (intervals == null || intervals.isEmpty()) return -1;
         
-        for (int i = 1; i < times.length; i++) {
-            sum += times[i] - times[i - 1];
-            count++;
-        }
-        
-        return sum / count;
+        return intervals.getMean();
     }
 
     /**
      * Gets the standard deviation of time between packets of a specific type
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @return Standard deviation in milliseconds, or -1 if not enough data
      */
-    protected double getStdDevTimeBetweenPackets(PacketType type) {
-        if (!packetTimingHistory.containsKey(type)) return -1;
-        
-        Deque<Long> history = packetTimingHistory.get(type);
-        if (history.size() < 3) return -1;
-        
-        Long[] times = history.toArray(new Long[0]);
-        double avg = getAverageTimeBetweenPackets(type);
-        double sum = 0;
-        int count = 0;
-        
-        for (int i = 1; i < times.length; i++) {
-            double diff = times[i] - times[i - 1] - avg;
-            sum += diff * diff;
-            count++;
-        }
+    protected double getStdDevTimeBetweenPackets(PacketKind type) {
+        SlidingWindowStats intervals = packetIntervalStats.get(type);
+        if (intervals == null || intervals.size() < 2) return -1;
         
-        return Math.sqrt(sum / count);
+        return intervals.getStdDev();
     }
 
     /**
      * Gets the packet rate (packets per second) for a specific type
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @return Packets per second, or 0 if no packets of that type have been received
      */
-    protected double getPacketRate(PacketType type) {
+    protected double getPacketRate(PacketKind type) {
         if (!packetCounts.containsKey(type)) return 0;
         
         long now = System.currentTimeMillis();
@@ -172,22 +148,22 @@ public abstract class PacketCheck extends Check {
     /**
      * Checks if the packet rate exceeds a threshold
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @param threshold The threshold in packets per second
      * @return True if the rate exceeds the threshold
      */
-    protected boolean isPacketRateExceeded(PacketType type, double threshold) {
+    protected boolean isPacketRateExceeded(PacketKind type, double threshold) {
         return getPacketRate(type) > threshold;
     }
 
     /**
      * Checks if the packet timing is too consistent (potential timer hack)
      * 
-     * @param type The packet type
+     * @param type The packet kind
      * @param maxDeviation Maximum allowed standard deviation as a percentage of the average
      * @return True if the timing is too consistent
      */
-    protected boolean isPacketTimingTooConsistent(PacketType type, double maxDeviation) {
+    protected boolean isPacketTimingTooConsistent(PacketKind type, double maxDeviation) {
         double avg = getAverageTimeBetweenPackets(type);
         double stdDev = getStdDevTimeBetweenPackets(type);
         
@@ -1,12 +1,10 @@
 package fi.tj88888.quantumAC.check.combat;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.wrappers.EnumWrappers;
-
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 
 import org.bukkit.entity.Player;
 
@@ -27,10 +25,10 @@ public class KillAuraP extends Check {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        Player player = packet.getPlayer();
         UUID playerId = player.getUniqueId();
-        PacketType packetType = event.getPacketType();
+        PacketKind packetType = packet.getKind();
 
         // Ensure we have a tracker for this player
         PacketSequence sequence = playerPacketSequences.computeIfAbsent(
@@ -38,16 +36,15 @@ public class KillAuraP extends Check {
         );
 
         // Track packet types
-        if (packetType == PacketType.Play.Client.LOOK ||
-                packetType == PacketType.Play.Client.POSITION_LOOK) {
+        if (packetType == PacketKind.LOOK ||
+                packetType == PacketKind.POSITION_LOOK) {
             sequence.recordRotationPacket();
         }
 
         // Check for attack packet
-        if (packetType == PacketType.Play.Client.USE_ENTITY) {
+        if (packetType == PacketKind.USE_ENTITY) {
             // Verify it's an attack packet
-            if (event.getPacket().getEnumEntityUseActions().read(0)
-                    .getAction() == EnumWrappers.EntityUseAction.ATTACK) {
+            if (packet.isAttack()) {
 
                 // Check for packet order violation
                 if (sequence.checkAttackPacketOrder()) {
@@ -1,9 +1,9 @@
 package fi.tj88888.quantumAC.check.combat.killaura;
 
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.combat.killaura.components.EarlyAttackComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 
 /**
  * KillAuraB - Detects if a player attacks before swinging their arm
@@ -20,15 +20,14 @@ public class KillAuraB extends KillAuraCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (event == null || event.getPacketType() == null) return;
+    public void processPacket(PacketSnapshot packet) {
+        if (packet == null) return;
 
         // Process the packet using the base handler
-        boolean processed = processKillAuraPacket(event);
+        boolean processed = processKillAuraPacket(packet);
         if (!processed) return;
 
         // Get the most recent arm animation and attack times
-        long now = System.currentTimeMillis();
         long attackTime = playerData.getLastAttack();
         long armAnimTime = playerData.getLastArmAnimation();
         
@@ -36,7 +35,7 @@ public class KillAuraB extends KillAuraCheck {
         if (attackTime == 0 || armAnimTime == 0) return;
         
         // Only check if this was an attack packet
-        if (attackTime == now) {
+        if (packet.isAttack()) {
             // Check for early attack using the component
             String violation = earlyAttackComponent.checkEarlyAttack(
                 attackTime, armAnimTime, playerData.getAveragePing());
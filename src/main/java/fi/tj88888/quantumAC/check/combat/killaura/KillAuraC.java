@@ -1,10 +1,10 @@
 package fi.tj88888.quantumAC.check.combat.killaura;
 
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.combat.killaura.components.AttackRateComponent;
 import fi.tj88888.quantumAC.check.combat.killaura.components.AttackPatternComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 
 /**
  * KillAuraC - Detects suspicious attack rates and patterns
@@ -23,19 +23,18 @@ public class KillAuraC extends KillAuraCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (event == null || event.getPacketType() == null) return;
+    public void processPacket(PacketSnapshot packet) {
+        if (packet == null) return;
 
         // Process the packet using the base handler
-        boolean processed = processKillAuraPacket(event);
+        boolean processed = processKillAuraPacket(packet);
         if (!processed) return;
 
         // Get the most recent attack time
-        long now = System.currentTimeMillis();
         long attackTime = playerData.getLastAttack();
         
         // Only check if this was an attack packet
-        if (attackTime == now) {
+        if (packet.isAttack()) {
             // Check for suspicious attack rate
             String rateViolation = attackRateComponent.checkAttackRate(attackTime);
             if (rateViolation != null) {
@@ -1,11 +1,9 @@
 package fi.tj88888.quantumAC.check.combat.killaura;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.wrappers.EnumWrappers;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.base.CombatCheck;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
@@ -31,12 +29,12 @@ public abstract class KillAuraCheck extends CombatCheck {
     /**
      * Processes common KillAura packet handling
      * 
-     * @param event The packet event
+     * @param packet The decoded packet
      * @return True if the packet was processed
      */
-    protected boolean processKillAuraPacket(PacketEvent event) {
+    protected boolean processKillAuraPacket(PacketSnapshot packet) {
         // Use the base combat packet processing
-        boolean processed = processCombatPacket(event);
+        boolean processed = processCombatPacket(packet);
         
         // Additional KillAura-specific processing can be added here
         
@@ -1,13 +1,13 @@
 package fi.tj88888.quantumAC.check.combat.killaura;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.ViolationData;
 import fi.tj88888.quantumAC.check.combat.killaura.components.SprintSpeedComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.Location;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
 /**
@@ -17,6 +17,9 @@ import org.bukkit.potion.PotionEffectType;
  */
 public class KillAuraD extends KillAuraCheck {
 
+    private static final String KEEP_SPRINT_DETAILS =
+            "keepSprint detected: very low slowdown=%.5f, expected=%.3f [ping=%.0f, threshold=%.1f]";
+
     // Component for detecting sprint speed violations
     private final SprintSpeedComponent sprintSpeedComponent;
     
@@ -31,31 +34,31 @@ public class KillAuraD extends KillAuraCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
+    public void processPacket(PacketSnapshot packet) {
         try {
             // Call the parent class method to process common KillAura checks
-            super.processKillAuraPacket(event);
+            super.processKillAuraPacket(packet);
             
-            Player player = event.getPlayer();
-            PacketType packetType = event.getPacketType();
+            PlayerStateSnapshot state = playerData.getStateSnapshot();
+            PacketKind packetType = packet.getKind();
             
             // Skip if player is exempt or in invalid state
-            if (isExempt(player)) {
+            if (state == null || isExempt(state)) {
                 return;
             }
             
             // Handle movement packets to track player speed
             if (isMovementPacket(packetType)) {
-                processMovement(player);
+                processMovement(state);
             }
             
             // Handle attack packets
-            else if (packetType == PacketType.Play.Client.USE_ENTITY) {
-                processAttack(player);
+            else if (packetType == PacketKind.USE_ENTITY) {
+                processAttack(state);
             }
             
         } catch (Exception e) {
-            plugin.getLogger().warning("Error in KillAuraD for player " + event.getPlayer().getName() + ": " + e.getMessage());
+            plugin.getLogger().warning("Error in KillAuraD for player " + packet.getPlayer().getName() + ": " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -63,14 +66,14 @@ public class KillAuraD extends KillAuraCheck {
     /**
      * Process movement packets to track player speed
      */
-    private void processMovement(Player player) {
+    private void processMovement(PlayerStateSnapshot state) {
         // Skip for new players
         long timeSinceJoin = System.currentTimeMillis() - playerData.getJoinTime();
         if (timeSinceJoin < 3000) { // 3 seconds after joining
             return;
         }
         
-        Location currentLocation = player.getLocation();
+        Location currentLocation = state.getLocation();
         
         // Skip if location hasn't been initialized
         if (lastLocation == null || !lastLocation.getWorld().equals(currentLocation.getWorld())) {
@@ -84,28 +87,28 @@ public class KillAuraD extends KillAuraCheck {
         double currentSpeed = Math.sqrt(dx * dx + dz * dz);
         
         // Calculate base speed based on player attributes
-        double baseSpeed = calculateBaseSpeed(player);
+        double baseSpeed = calculateBaseSpeed(state);
         
         // Get player status
-        boolean sprinting = player.isSprinting();
+        boolean sprinting = state.isSprinting();
         
         // Calculate tolerance based on ping and potion effects
-        double tolerance = calculateTolerance(player);
+        double tolerance = calculateTolerance(state);
         
         // Check for keep sprint violations using the component
         ViolationData violationData = sprintSpeedComponent.checkSprintSpeed(
-            player, currentSpeed, baseSpeed, sprinting, lastAttackTime, tolerance
+            state, currentSpeed, baseSpeed, sprinting, lastAttackTime, tolerance
         );
         
         // Flag if violation detected
         if (violationData != null) {
-            String details = String.format("%s [ping=%d, threshold=%.1f]", 
-                violationData.getDetails(), 
+            // Details are only rendered if an alert or log uses them
+            flag((double) violationData.getViolationLevel(),
+                KEEP_SPRINT_DETAILS,
+                sprintSpeedComponent.getLastActualSlowdown(),
+                sprintSpeedComponent.getLastExpectedSlowdown(),
                 playerData.getPing(),
                 sprintSpeedComponent.getThreshold());
-                
-            // Use the correct flag method with violation level as a double
-            flag((double) violationData.getViolationLevel(), details);
             onViolation();
         }
         
@@ -117,7 +120,7 @@ public class KillAuraD extends KillAuraCheck {
     /**
      * Process attack packets to check for keep sprint violations
      */
-    private void processAttack(Player player) {
+    private void processAttack(PlayerStateSnapshot state) {
         // Update attack time
         lastAttackTime = System.currentTimeMillis();
     }
@@ -125,23 +128,23 @@ public class KillAuraD extends KillAuraCheck {
     /**
      * Calculate player's base speed based on effects and attributes
      */
-    private double calculateBaseSpeed(Player player) {
+    private double calculateBaseSpeed(PlayerStateSnapshot state) {
         double baseSpeed = 0.13; // Base walk speed
         
         // Apply sprinting multiplier
-        if (player.isSprinting()) {
+        if (state.isSprinting()) {
             baseSpeed *= 1.3; // 30% increase when sprinting
         }
         
         // Apply speed effect
-        if (player.hasPotionEffect(PotionEffectType.SPEED)) {
-            int amplifier = player.getPotionEffect(PotionEffectType.SPEED).getAmplifier() + 1;
+        if (state.hasPotionEffect(PotionEffectType.SPEED)) {
+            int amplifier = state.getEffectLevel(PotionEffectType.SPEED);
             baseSpeed *= 1.0 + (0.2 * amplifier); // 20% increase per level
         }
         
         // Apply slowness effect
-        if (player.hasPotionEffect(PotionEffectType.SLOWNESS)) {
-            int amplifier = player.getPotionEffect(PotionEffectType.SLOWNESS).getAmplifier() + 1;
+        if (state.hasPotionEffect(PotionEffectType.SLOWNESS)) {
+            int amplifier = state.getEffectLevel(PotionEffectType.SLOWNESS);
             baseSpeed *= 1.0 - (0.15 * amplifier); // 15% decrease per level
         }
         
@@ -151,7 +154,7 @@ public class KillAuraD extends KillAuraCheck {
     /**
      * Calculate tolerance based on ping and other factors
      */
-    private double calculateTolerance(Player player) {
+    private double calculateTolerance(PlayerStateSnapshot state) {
         // Base tolerance
         double tolerance = 0.01;
         
@@ -167,22 +170,12 @@ public class KillAuraD extends KillAuraCheck {
     /**
      * Check if player is in an exempt state
      */
-    private boolean isExempt(Player player) {
-        return player.isFlying() || 
-               player.isInsideVehicle() || 
-               player.isDead() || 
-               player.getGameMode().name().contains("SPECTATOR") ||
-               player.getGameMode().name().contains("CREATIVE");
-    }
-    
-    /**
-     * Check if a packet is a movement packet
-     */
-    protected boolean isMovementPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION || 
-               type == PacketType.Play.Client.POSITION_LOOK || 
-               type == PacketType.Play.Client.LOOK ||
-               type == PacketType.Play.Client.FLYING;
+    private boolean isExempt(PlayerStateSnapshot state) {
+        return state.isFlying() || 
+               state.isInsideVehicle() || 
+               state.isDead() || 
+               state.getGameMode().name().contains("SPECTATOR") ||
+               state.getGameMode().name().contains("CREATIVE");
     }
     
     public void onViolation() {
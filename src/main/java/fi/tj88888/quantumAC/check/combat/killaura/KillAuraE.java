@@ -1,12 +1,12 @@
 package fi.tj88888.quantumAC.check.combat.killaura;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.wrappers.EnumWrappers;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.ViolationData;
 import fi.tj88888.quantumAC.check.combat.killaura.components.DeadPlayerActionComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.entity.Player;
 
 /**
@@ -25,29 +25,30 @@ public class KillAuraE extends KillAuraCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
+    public void processPacket(PacketSnapshot packet) {
         try {
             // Call the parent class method to process common KillAura checks
-            super.processKillAuraPacket(event);
+            super.processKillAuraPacket(packet);
             
-            Player player = event.getPlayer();
-            PacketType packetType = event.getPacketType();
+            Player player = packet.getPlayer();
+            PacketKind packetType = packet.getKind();
             
-            // Check if player is dead
-            boolean isDead = player.isDead();
+            // Check if player is dead, as of the last published tick
+            PlayerStateSnapshot state = playerData.getStateSnapshot();
+            boolean isDead = state != null && state.isDead();
             
             // Process USE_ENTITY packets (attacks)
-            if (packetType == PacketType.Play.Client.USE_ENTITY) {
-                processUseEntityPacket(player, event, isDead);
+            if (packetType == PacketKind.USE_ENTITY) {
+                processUseEntityPacket(player, packet, isDead);
             }
             
             // Process ARM_ANIMATION packets (swing)
-            else if (packetType == PacketType.Play.Client.ARM_ANIMATION) {
+            else if (packetType == PacketKind.ARM_ANIMATION) {
                 processArmAnimationPacket(player, isDead);
             }
             
         } catch (Exception e) {
-            plugin.getLogger().warning("Error in KillAuraE for player " + event.getPlayer().getName() + ": " + e.getMessage());
+            plugin.getLogger().warning("Error in KillAuraE for player " + packet.getPlayer().getName() + ": " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -55,16 +56,9 @@ public class KillAuraE extends KillAuraCheck {
     /**
      * Process USE_ENTITY packets to check for dead player attacks
      */
-    private void processUseEntityPacket(Player player, PacketEvent event, boolean isDead) {
-        // Extract attack action from packet
-        boolean isAttackAction = false;
-        
-        if (event.getPacket().getEnumEntityUseActions().size() > 0) {
-            EnumWrappers.EntityUseAction action = 
-                event.getPacket().getEnumEntityUseActions().read(0).getAction();
-                
-            isAttackAction = (action == EnumWrappers.EntityUseAction.ATTACK);
-        }
+    private void processUseEntityPacket(Player player, PacketSnapshot packet, boolean isDead) {
+        // Attack action was already decoded with the packet
+        boolean isAttackAction = packet.isAttack();
         
         // Check for dead player USE_ENTITY violation using the component
         ViolationData violationData = deadPlayerActionComponent.checkDeadUseEntity(
@@ -1,7 +1,7 @@
 package fi.tj88888.quantumAC.check.combat.killaura.components;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
 
 /**
  * AttackPatternComponent - Detects if a player's attack pattern is suspiciously consistent
@@ -17,8 +17,8 @@ public class AttackPatternComponent {
     private static final int VL_THRESHOLD = 2;
 
     // State tracking
-    private final Queue<Long> attackTimes = new LinkedList<>();
-    private final Queue<Long> attackIntervals = new LinkedList<>();
+    private final LongRingBuffer attackTimes = new LongRingBuffer(SAMPLE_SIZE + 1);
+    private final SlidingWindowStats attackIntervals = new SlidingWindowStats(SAMPLE_SIZE);
     private int patternVL = 0;
     private long lastFlag = 0;
     private int consecutiveDetections = 0;
@@ -38,41 +38,26 @@ public class AttackPatternComponent {
 
         // Add the current attack time to our samples
         if (!attackTimes.isEmpty()) {
-            Long lastAttack = attackTimes.peek();
-            if (lastAttack == null) {
-                attackTimes.add(attackTime);
-                return null;
-            }
-            
+            long lastAttack = attackTimes.getFirst();
             long interval = attackTime - lastAttack;
             
             // Only consider reasonable intervals (between 50ms and 2000ms)
             if (interval >= 50 && interval <= 2000) {
+                // The buffer only keeps the most recent intervals
                 attackIntervals.add(interval);
-                
-                // Keep only the most recent intervals
-                while (attackIntervals.size() > SAMPLE_SIZE) {
-                    attackIntervals.poll();
-                }
             }
         }
         
         attackTimes.add(attackTime);
         
-        // Keep only the most recent attack times
-        while (attackTimes.size() > SAMPLE_SIZE + 1) {
-            attackTimes.poll();
-        }
-        
         // Need at least 10 intervals to analyze pattern
         if (attackIntervals.size() < 10) {
             return null;
         }
         
-        // Calculate standard deviation and average of attack intervals
-        double[] stats = calculateStats(attackIntervals);
-        double stdDev = stats[0];
-        double avg = stats[1];
+        // Standard deviation and average of attack intervals, kept up to date as intervals arrive
+        double stdDev = attackIntervals.getStdDev();
+        double avg = attackIntervals.getMean();
         
         // Check if the attack pattern is too consistent
         if (stdDev < MIN_STANDARD_DEVIATION) {
@@ -99,29 +84,6 @@ public class AttackPatternComponent {
         return null;
     }
     
-    /**
-     * Calculate standard deviation and average of attack intervals
-     * 
-     * @param intervals Queue of attack intervals
-     * @return Array with [standardDeviation, average]
-     */
-    private double[] calculateStats(Queue<Long> intervals) {
-        double sum = 0;
-        double sumSquared = 0;
-        int count = intervals.size();
-        
-        for (long interval : intervals) {
-            sum += interval;
-            sumSquared += interval * interval;
-        }
-        
-        double avg = sum / count;
-        double variance = (sumSquared / count) - (avg * avg);
-        double stdDev = Math.sqrt(variance);
-        
-        return new double[] { stdDev, avg };
-    }
-    
     /**
      * Checks if enough time has passed since the last flag to reset violations
      */
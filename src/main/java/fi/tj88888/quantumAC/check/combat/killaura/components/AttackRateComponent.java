@@ -1,7 +1,6 @@
 package fi.tj88888.quantumAC.check.combat.killaura.components;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
 
 /**
  * AttackRateComponent - Detects if a player is attacking too quickly
@@ -17,7 +16,7 @@ public class AttackRateComponent {
     private static final int VL_THRESHOLD = 2;
 
     // State tracking
-    private final Queue<Long> attackTimes = new LinkedList<>();
+    private final LongRingBuffer attackTimes = new LongRingBuffer(SAMPLE_SIZE);
     private int attackRateVL = 0;
     private long lastFlag = 0;
     private int consecutiveDetections = 0;
@@ -35,25 +34,16 @@ public class AttackRateComponent {
             consecutiveDetections = 0;
         }
 
-        // Add the current attack time to our samples
+        // Add the current attack time to our samples, dropping the oldest once full
         attackTimes.add(attackTime);
         
-        // Keep only the most recent samples
-        while (attackTimes.size() > SAMPLE_SIZE) {
-            attackTimes.poll();
-        }
-        
         // Need at least 5 samples to calculate a rate
         if (attackTimes.size() < 5) {
             return null;
         }
         
         // Calculate attacks per second
-        Long oldestTime = attackTimes.peek();
-        if (oldestTime == null) {
-            return null;
-        }
-        long timeSpan = attackTime - oldestTime;
+        long timeSpan = attackTime - attackTimes.getFirst();
         
         // Avoid division by zero
         if (timeSpan <= 0) {
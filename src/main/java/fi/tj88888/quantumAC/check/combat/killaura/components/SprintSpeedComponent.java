@@ -1,7 +1,7 @@
 package fi.tj88888.quantumAC.check.combat.killaura.components;
 
-import org.bukkit.entity.Player;
 import fi.tj88888.quantumAC.check.ViolationData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
 
 /**
  * Component to detect KillAura "keep sprint" cheats by checking if players maintain almost full sprint speed when attacking.
@@ -33,7 +33,7 @@ public class SprintSpeedComponent {
     /**
      * Checks for keep sprint violations when a player attacks
      * 
-     * @param player The player to check
+     * @param state The player's state snapshot
      * @param currentSpeed The current horizontal movement speed
      * @param baseSpeed The expected base movement speed
      * @param sprinting Whether the player is sprinting
@@ -41,7 +41,7 @@ public class SprintSpeedComponent {
      * @param tolerance Allowed tolerance for speed variations
      * @return ViolationData if a violation was detected, null otherwise
      */
-    public ViolationData checkSprintSpeed(Player player, double currentSpeed, double baseSpeed, 
+    public ViolationData checkSprintSpeed(PlayerStateSnapshot state, double currentSpeed, double baseSpeed, 
                                         boolean sprinting, long attackTime, double tolerance) {
         long now = System.currentTimeMillis();
         
@@ -61,7 +61,7 @@ public class SprintSpeedComponent {
             // Only check for a limited number of hits after attack
             if (hits > 0 && hits <= 3) {
                 // Only check if player is sprinting and on ground (assumed from caller)
-                if (sprinting && player.isOnGround()) {
+                if (sprinting && state.isOnGround()) {
                     // Calculate expected and actual slowdown
                     double expectedSlowdown = baseSpeed * ATTACK_SLOWDOWN_THRESHOLD;
                     double actualSlowdown = getSpeedDifference();
@@ -87,14 +87,8 @@ public class SprintSpeedComponent {
                             threshold = Math.max(0, threshold - 2);
                             lastFlagTime = now;
                             
-                            // Create violation data with detailed information
-                            return new ViolationData(
-                                String.format(
-                                    "keepSprint detected: very low slowdown=%.5f, expected=%.3f, threshold=%.1f",
-                                    actualSlowdown, expectedSlowdown, threshold
-                                ),
-                                (int)vlIncrement
-                            );
+                            // The numbers stay available through the getters, so the caller renders them lazily
+                            return new ViolationData("keepSprint detected: very low slowdown", (int)vlIncrement);
                         }
                     } else {
                         // Normal slowdown, decrease threshold
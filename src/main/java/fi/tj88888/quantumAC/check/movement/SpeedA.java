@@ -1,13 +1,12 @@
 package fi.tj88888.quantumAC.check.movement;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketContainer;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.BlockStateCache;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import fi.tj88888.quantumAC.util.CheckUtil;
-import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -92,32 +91,29 @@ public class SpeedA extends Check {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (!isPositionPacket(event.getPacketType())) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (state == null) return;
 
         // Decay violations over time
         decayViolations();
 
         // Skip if the player is exempt from checks
-        if (isExempt(player)) {
+        if (isExempt(state)) {
             return;
         }
 
         // Check for world change
-        if (!player.getWorld().getName().equals(lastWorldName)) {
-            lastWorldName = player.getWorld().getName();
+        if (!state.getWorldName().equals(lastWorldName)) {
+            lastWorldName = state.getWorldName();
             lastWorldChangeTime = System.currentTimeMillis();
             return;
         }
 
-        PacketContainer packet = event.getPacket();
-        double x = packet.getDoubles().read(0);
-        double y = packet.getDoubles().read(1);
-        double z = packet.getDoubles().read(2);
+        double x = packet.getX();
+        double y = packet.getY();
+        double z = packet.getZ();
 
         MovementData lastMovement = (MovementData) movementBuffer.getLast();
 
@@ -146,15 +142,15 @@ public class SpeedA extends Check {
                     isRecentlyBlockChange() ||
                     isRecentlyJoined() ||
                     isRecentlyWorldChanged() ||
-                    isInLiquid(player) ||
-                    isOnIce(player) ||
-                    isOnSlime(player) ||
-                    isOnStairs(player) ||
-                    isOnSlab(player) ||
-                    isCloseToClimbable(player) ||
-                    isCloseToHoney(player) ||
-                    isInWeb(player) ||
-                    isInPowderSnow(player) ||
+                    isInLiquid(state) ||
+                    isOnIce(state) ||
+                    isOnSlime(state) ||
+                    isOnStairs(state) ||
+                    isOnSlab(state) ||
+                    isCloseToClimbable(state) ||
+                    isCloseToHoney(state) ||
+                    isInWeb(state) ||
+                    isInPowderSnow(state) ||
                     (isFalling && fallingTicks >= FALLING_EXEMPT_TICKS); // Exempt if falling for too long
 
             if (exempt) {
@@ -404,9 +400,8 @@ public class SpeedA extends Check {
         double trimmedHorizontalSpeed = getTrimmedHorizontalSpeed();
 
         // Check if speed potion or jump boost might be affecting movement
-        Player player = playerData.getPlayer();
-        int speedAmplifier = getEffectAmplifier(player, PotionEffectType.SPEED);
-        int jumpAmplifier = getEffectAmplifier(player, PotionEffectType.JUMP_BOOST);
+        int speedAmplifier = getEffectAmplifier(PotionEffectType.SPEED);
+        int jumpAmplifier = getEffectAmplifier(PotionEffectType.JUMP_BOOST);
 
         // Adjust thresholds based on potion effects
         double adjustedHorizontalThreshold = MAX_HORIZONTAL_SPEED * (1 + (speedAmplifier * 0.2));
@@ -425,19 +420,9 @@ public class SpeedA extends Check {
     /**
      * Get amplifier level of a potion effect
      */
-    private int getEffectAmplifier(Player player, PotionEffectType type) {
-        if (player.hasPotionEffect(type)) {
-            return player.getPotionEffect(type).getAmplifier() + 1;
-        }
-        return 0;
-    }
-
-    /**
-     * Check if packet contains position data
-     */
-    private boolean isPositionPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-                type == PacketType.Play.Client.POSITION_LOOK;
+    private int getEffectAmplifier(PotionEffectType type) {
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        return state != null ? state.getEffectLevel(type) : 0;
     }
 
     /**
@@ -508,60 +493,61 @@ public class SpeedA extends Check {
     /**
      * Check if player is exempt from checks
      */
-    private boolean isExempt(Player player) {
-        return player.isFlying() ||
-                player.getAllowFlight() ||
-                player.getGameMode() == GameMode.CREATIVE ||
-                player.getGameMode() == GameMode.SPECTATOR ||
-                player.getVehicle() != null ||
-                player.isGliding() || // Has elytra deployed
-                player.isRiptiding() || // Using trident with riptide
-                player.hasPotionEffect(PotionEffectType.JUMP_BOOST) && player.getVelocity().getY() > 0 || // Jumping with jump boost
+    private boolean isExempt(PlayerStateSnapshot state) {
+        return state.isFlying() ||
+                state.getAllowFlight() ||
+                state.isCreativeOrSpectator() ||
+                state.isInsideVehicle() ||
+                state.isGliding() || // Has elytra deployed
+                state.isRiptiding() || // Using trident with riptide
+                state.hasPotionEffect(PotionEffectType.JUMP_BOOST) && state.getVelocityY() > 0 || // Jumping with jump boost
                 playerData.isExempt();
     }
 
     /**
      * Additional environment checks to reduce false positives
      */
-    private boolean isCloseToClimbable(Player player) {
-        return CheckUtil.isCloseToClimbable(player);
+    private boolean isCloseToClimbable(PlayerStateSnapshot state) {
+        return CheckUtil.isCloseToClimbable(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isCloseToHoney(Player player) {
-        return CheckUtil.isCloseToBlock(player, Material.HONEY_BLOCK);
+    private boolean isCloseToHoney(PlayerStateSnapshot state) {
+        return CheckUtil.isCloseToBlock(plugin.getBlockStateCache(), state.getLocation(), Material.HONEY_BLOCK);
     }
 
-    private boolean isInWeb(Player player) {
-        return CheckUtil.isInMaterial(player, Material.COBWEB);
+    private boolean isInWeb(PlayerStateSnapshot state) {
+        return CheckUtil.isInMaterial(plugin.getBlockStateCache(), state.getLocation(), Material.COBWEB);
     }
 
-    private boolean isInPowderSnow(Player player) {
-        return CheckUtil.isInMaterial(player, Material.POWDER_SNOW);
+    private boolean isInPowderSnow(PlayerStateSnapshot state) {
+        return CheckUtil.isInMaterial(plugin.getBlockStateCache(), state.getLocation(), Material.POWDER_SNOW);
     }
 
     /**
      * Environment checks - using utilities
      */
-    private boolean isInLiquid(Player player) {
-        return CheckUtil.isInLiquid(player);
+    private boolean isInLiquid(PlayerStateSnapshot state) {
+        return CheckUtil.isInLiquid(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isOnIce(Player player) {
-        return CheckUtil.isOnIce(player) ||
-                CheckUtil.isOnPackedIce(player) ||
-                CheckUtil.isOnBlueIce(player);
+    private boolean isOnIce(PlayerStateSnapshot state) {
+        Location location = state.getLocation();
+        BlockStateCache blocks = plugin.getBlockStateCache();
+        return CheckUtil.isOnIce(blocks, location) ||
+                CheckUtil.isOnPackedIce(blocks, location) ||
+                CheckUtil.isOnBlueIce(blocks, location);
     }
 
-    private boolean isOnSlime(Player player) {
-        return CheckUtil.isOnSlime(player);
+    private boolean isOnSlime(PlayerStateSnapshot state) {
+        return CheckUtil.isOnSlime(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isOnStairs(Player player) {
-        return CheckUtil.isOnStairs(player);
+    private boolean isOnStairs(PlayerStateSnapshot state) {
+        return CheckUtil.isOnStairs(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isOnSlab(Player player) {
-        return CheckUtil.isOnSlab(player);
+    private boolean isOnSlab(PlayerStateSnapshot state) {
+        return CheckUtil.isOnSlab(plugin.getBlockStateCache(), state.getLocation());
     }
 
     /**
@@ -1,14 +1,14 @@
 package fi.tj88888.quantumAC.check.movement;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketContainer;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.BlockStateCache;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import fi.tj88888.quantumAC.util.ChatUtil;
 import fi.tj88888.quantumAC.util.CheckUtil;
-import org.bukkit.GameMode;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
@@ -94,12 +94,10 @@ public class SpeedB extends Check {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (!isPositionPacket(event.getPacketType())) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (state == null) return;
 
         // Check if player has debug permission
         debugMode = player.hasPermission("quantumac.debug.speedb");
@@ -108,26 +106,25 @@ public class SpeedB extends Check {
         decayViolations();
 
         // Skip if the player is exempt from checks
-        if (isExempt(player)) {
+        if (isExempt(state)) {
             return;
         }
 
         // Check for world change
-        if (!player.getWorld().getName().equals(lastWorldName)) {
-            lastWorldName = player.getWorld().getName();
+        if (!state.getWorldName().equals(lastWorldName)) {
+            lastWorldName = state.getWorldName();
             lastWorldChangeTime = System.currentTimeMillis();
             return;
         }
 
-        // Get packet data
-        PacketContainer packet = event.getPacket();
-        double x = packet.getDoubles().read(0);
-        double y = packet.getDoubles().read(1);
-        double z = packet.getDoubles().read(2);
-        float yaw = player.getLocation().getYaw(); // Get current yaw for direction analysis
+        // Get decoded packet data
+        double x = packet.getX();
+        double y = packet.getY();
+        double z = packet.getZ();
+        float yaw = state.getYaw(); // Get current yaw for direction analysis
 
         // Track packet timing for burst detection (client-side prediction can cause bursts)
-        long now = System.currentTimeMillis();
+        long now = packet.getTimestamp();
         long packetTimeDelta = now - lastPacketTime;
         lastPacketTime = now;
 
@@ -153,21 +150,21 @@ public class SpeedB extends Check {
                 isRecentlyJoined() ||
                 isRecentlyWorldChanged() ||
                 isRecentlyJumped() ||  // Added jump exemption
-                isInLiquid(player) ||
-                isOnIce(player) ||
-                isOnSlime(player) ||
-                isCloseToClimbable(player) ||
-                isCloseToHoney(player) ||
-                isInWeb(player) ||
-                isInPowderSnow(player) ||
-                isNearStairs(player) ||  // Added stairs exemption
-                isNearSlab(player)) {    // Added slab exemption
+                isInLiquid(state) ||
+                isOnIce(state) ||
+                isOnSlime(state) ||
+                isCloseToClimbable(state) ||
+                isCloseToHoney(state) ||
+                isInWeb(state) ||
+                isInPowderSnow(state) ||
+                isNearStairs(state) ||  // Added stairs exemption
+                isNearSlab(state)) {    // Added slab exemption
             resetTrackingData();
             return;
         }
 
         // Check if the player is on ground
-        boolean onGround = player.isOnGround();
+        boolean onGround = state.isOnGround();
 
         // IMPORTANT NEW JUMP DETECTION
         // This helps distinguish between actual jumps and other air movement
@@ -280,8 +277,8 @@ public class SpeedB extends Check {
         }
 
         // Get horizontal speed amplifier if player has speed potion
-        int speedAmplifier = getEffectAmplifier(player, PotionEffectType.SPEED);
-        int jumpAmplifier = getEffectAmplifier(player, PotionEffectType.JUMP_BOOST);
+        int speedAmplifier = getEffectAmplifier(PotionEffectType.SPEED);
+        int jumpAmplifier = getEffectAmplifier(PotionEffectType.JUMP_BOOST);
 
         // Adjust thresholds based on potion effects
         double adjustedAccelerationThreshold = SUSPICIOUS_AIR_ACCELERATION * (1 + (speedAmplifier * 0.3) + (jumpAmplifier * 0.2));
@@ -437,19 +434,9 @@ public class SpeedB extends Check {
     /**
      * Get amplifier level of a potion effect
      */
-    private int getEffectAmplifier(Player player, PotionEffectType type) {
-        if (player.hasPotionEffect(type)) {
-            return player.getPotionEffect(type).getAmplifier() + 1;
-        }
-        return 0;
-    }
-
-    /**
-     * Check if packet contains position data
-     */
-    private boolean isPositionPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-                type == PacketType.Play.Client.POSITION_LOOK;
+    private int getEffectAmplifier(PotionEffectType type) {
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        return state != null ? state.getEffectLevel(type) : 0;
     }
 
     // NEW EXEMPTION METHODS
@@ -464,32 +451,36 @@ public class SpeedB extends Check {
     /**
      * Check if player is near stairs
      */
-    private boolean isNearStairs(Player player) {
-        return CheckUtil.isCloseToBlock(player, Material.OAK_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.STONE_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.BIRCH_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.SPRUCE_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.JUNGLE_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.ACACIA_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.DARK_OAK_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.CRIMSON_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.WARPED_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.NETHER_BRICK_STAIRS) ||
-                CheckUtil.isCloseToBlock(player, Material.SANDSTONE_STAIRS);
+    private boolean isNearStairs(PlayerStateSnapshot state) {
+        Location location = state.getLocation();
+        BlockStateCache blocks = plugin.getBlockStateCache();
+        return CheckUtil.isCloseToBlock(blocks, location, Material.OAK_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.STONE_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.BIRCH_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.SPRUCE_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.JUNGLE_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.ACACIA_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.DARK_OAK_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.CRIMSON_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.WARPED_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.NETHER_BRICK_STAIRS) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.SANDSTONE_STAIRS);
     }
 
     /**
      * Check if player is near slabs
      */
-    private boolean isNearSlab(Player player) {
-        return CheckUtil.isCloseToBlock(player, Material.STONE_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.SANDSTONE_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.OAK_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.SPRUCE_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.BIRCH_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.JUNGLE_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.ACACIA_SLAB) ||
-                CheckUtil.isCloseToBlock(player, Material.DARK_OAK_SLAB);
+    private boolean isNearSlab(PlayerStateSnapshot state) {
+        Location location = state.getLocation();
+        BlockStateCache blocks = plugin.getBlockStateCache();
+        return CheckUtil.isCloseToBlock(blocks, location, Material.STONE_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.SANDSTONE_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.OAK_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.SPRUCE_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.BIRCH_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.JUNGLE_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.ACACIA_SLAB) ||
+                CheckUtil.isCloseToBlock(blocks, location, Material.DARK_OAK_SLAB);
     }
 
     /**
@@ -555,51 +546,52 @@ public class SpeedB extends Check {
     /**
      * Check if player is exempt from checks
      */
-    private boolean isExempt(Player player) {
-        return player.isFlying() ||
-                player.getAllowFlight() ||
-                player.getGameMode() == GameMode.CREATIVE ||
-                player.getGameMode() == GameMode.SPECTATOR ||
-                player.getVehicle() != null ||
-                player.isGliding() || // Has elytra deployed
-                player.isRiptiding() || // Using trident with riptide
+    private boolean isExempt(PlayerStateSnapshot state) {
+        return state.isFlying() ||
+                state.getAllowFlight() ||
+                state.isCreativeOrSpectator() ||
+                state.isInsideVehicle() ||
+                state.isGliding() || // Has elytra deployed
+                state.isRiptiding() || // Using trident with riptide
                 playerData.isExempt();
     }
 
     /**
      * Additional environment checks to reduce false positives
      */
-    private boolean isCloseToClimbable(Player player) {
-        return CheckUtil.isCloseToClimbable(player);
+    private boolean isCloseToClimbable(PlayerStateSnapshot state) {
+        return CheckUtil.isCloseToClimbable(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isCloseToHoney(Player player) {
-        return CheckUtil.isCloseToBlock(player, Material.HONEY_BLOCK);
+    private boolean isCloseToHoney(PlayerStateSnapshot state) {
+        return CheckUtil.isCloseToBlock(plugin.getBlockStateCache(), state.getLocation(), Material.HONEY_BLOCK);
     }
 
-    private boolean isInWeb(Player player) {
-        return CheckUtil.isInMaterial(player, Material.COBWEB);
+    private boolean isInWeb(PlayerStateSnapshot state) {
+        return CheckUtil.isInMaterial(plugin.getBlockStateCache(), state.getLocation(), Material.COBWEB);
     }
 
-    private boolean isInPowderSnow(Player player) {
-        return CheckUtil.isInMaterial(player, Material.POWDER_SNOW);
+    private boolean isInPowderSnow(PlayerStateSnapshot state) {
+        return CheckUtil.isInMaterial(plugin.getBlockStateCache(), state.getLocation(), Material.POWDER_SNOW);
     }
 
     /**
      * Environment checks - using utilities
      */
-    private boolean isInLiquid(Player player) {
-        return CheckUtil.isInLiquid(player);
+    private boolean isInLiquid(PlayerStateSnapshot state) {
+        return CheckUtil.isInLiquid(plugin.getBlockStateCache(), state.getLocation());
     }
 
-    private boolean isOnIce(Player player) {
-        return CheckUtil.isOnIce(player) ||
-                CheckUtil.isOnPackedIce(player) ||
-                CheckUtil.isOnBlueIce(player);
+    private boolean isOnIce(PlayerStateSnapshot state) {
+        Location location = state.getLocation();
+        BlockStateCache blocks = plugin.getBlockStateCache();
+        return CheckUtil.isOnIce(blocks, location) ||
+                CheckUtil.isOnPackedIce(blocks, location) ||
+                CheckUtil.isOnBlueIce(blocks, location);
     }
 
-    private boolean isOnSlime(Player player) {
-        return CheckUtil.isOnSlime(player);
+    private boolean isOnSlime(PlayerStateSnapshot state) {
+        return CheckUtil.isOnSlime(plugin.getBlockStateCache(), state.getLocation());
     }
 
     /**
@@ -1,16 +1,16 @@
 package fi.tj88888.quantumAC.check.movement.fly;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.movement.fly.components.GravityCheck;
 import fi.tj88888.quantumAC.check.movement.fly.components.MotionInconsistencyCheck;
 import fi.tj88888.quantumAC.check.movement.fly.components.TerminalVelocityCheck;
 import fi.tj88888.quantumAC.check.movement.fly.components.VerticalAccelerationCheck;
+import fi.tj88888.quantumAC.data.MovementFrames;
 import fi.tj88888.quantumAC.data.PlayerData;
-import fi.tj88888.quantumAC.util.MovementData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import fi.tj88888.quantumAC.util.MovementFrame;
 import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 /**
@@ -45,27 +45,16 @@ public class FlyA extends FlyCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (!isMovementPacket(event.getPacketType())) {
-            return;
-        }
+    public void processPacket(PacketSnapshot packet) {
+        // Only registered for position-carrying packets
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (player == null || state == null) return;
 
-        // Skip if not a position packet
-        if (event.getPacketType() != PacketType.Play.Client.POSITION && 
-            event.getPacketType() != PacketType.Play.Client.POSITION_LOOK) {
-            return;
-        }
-
-        Player player = playerData.getPlayer();
-        if (player == null) return;
-
-        // Get movement data
-        MovementData movementData = playerData.getMovementData();
-        MovementData previousMovementData = playerData.getPreviousMovementData();
-        
-        if (movementData == null || previousMovementData == null) {
-            return;
-        }
+        // Get the latest movement frame and the one before it as a matching pair
+        MovementFrames frames = playerData.getMovementFrames();
+        MovementFrame movementData = frames.getCurrent();
+        MovementFrame previousMovementData = frames.getPrevious();
 
         // Calculate vertical movement
         double currentY = movementData.getY();
@@ -81,14 +70,14 @@ public class FlyA extends FlyCheck {
         lastY = currentY;
 
         // Check if player is exempt from checks
-        boolean exempt = isExempt(player);
+        boolean exempt = isExempt(state);
         
         // Get player effects
-        boolean hasSlowFalling = player.hasPotionEffect(PotionEffectType.SLOW_FALLING);
-        int jumpBoostLevel = getJumpBoostLevel(player);
+        boolean hasSlowFalling = state.hasPotionEffect(PotionEffectType.SLOW_FALLING);
+        int jumpBoostLevel = state.getEffectLevel(PotionEffectType.JUMP_BOOST);
         
         // Calculate tolerance based on conditions
-        double tolerance = calculateTolerance(player);
+        double tolerance = calculateTolerance(state);
 
         // Run component checks
         String gravityViolation = gravityCheck.checkGravityViolation(player, dy, onGround, exempt, tolerance);
@@ -119,22 +108,6 @@ public class FlyA extends FlyCheck {
         }
     }
     
-    /**
-     * Gets the jump boost level of a player
-     * 
-     * @param player The player to check
-     * @return The jump boost level (0 if none)
-     */
-    private int getJumpBoostLevel(Player player) {
-        if (player.hasPotionEffect(PotionEffectType.JUMP_BOOST)) {
-            PotionEffect effect = player.getPotionEffect(PotionEffectType.JUMP_BOOST);
-            if (effect != null) {
-                return effect.getAmplifier() + 1;
-            }
-        }
-        return 0;
-    }
-    
     /**
      * Reset the state of this check
      */
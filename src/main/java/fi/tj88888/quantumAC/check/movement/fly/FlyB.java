@@ -1,14 +1,15 @@
 package fi.tj88888.quantumAC.check.movement.fly;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.ViolationData;
 import fi.tj88888.quantumAC.check.movement.fly.components.GroundSpoofingComponent;
 import fi.tj88888.quantumAC.check.movement.fly.components.GlideDetectionComponent;
 import fi.tj88888.quantumAC.check.movement.fly.components.HoverDetectionComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
@@ -62,22 +63,20 @@ public class FlyB extends FlyCheck {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (!isMovementPacket(event.getPacketType())) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (state == null) return;
 
         // Skip if player is exempt from checks
-        if (isExempt(player)) {
+        if (isExempt(state)) {
             resetDetectionState();
             return;
         }
 
         // Get locations for movement calculation
         Location from = playerData.getLastLocation();
-        Location to = player.getLocation();
+        Location to = state.getLocation();
 
         if (from == null || !from.getWorld().equals(to.getWorld())) {
             playerData.setLastLocation(to);
@@ -92,17 +91,17 @@ public class FlyB extends FlyCheck {
         lastHorizontalSpeed = horizontalDistance;
 
         // Analyze environment
-        boolean clientOnGround = player.isOnGround(); // What the client reports
-        boolean serverOnGround = isActuallyOnGround(player); // What the server verifies
-
-        boolean inLiquid = isInLiquid(player);
-        boolean onClimbable = isOnClimbable(player);
-        boolean inVehicle = player.getVehicle() != null;
-        boolean hasLevitation = player.hasPotionEffect(PotionEffectType.LEVITATION);
-        boolean hasSlowFalling = player.hasPotionEffect(PotionEffectType.SLOW_FALLING);
-        boolean nearGround = isNearGround(player);
-        boolean nearCeiling = isNearCeiling(player);
-        boolean inWeb = isInWeb(player);
+        boolean clientOnGround = packet.isOnGround(); // What the client reports
+        boolean serverOnGround = isActuallyOnGround(state); // What the server verifies
+
+        boolean inLiquid = isInLiquid(state);
+        boolean onClimbable = isOnClimbable(state);
+        boolean inVehicle = state.isInsideVehicle();
+        boolean hasLevitation = state.hasPotionEffect(PotionEffectType.LEVITATION);
+        boolean hasSlowFalling = state.hasPotionEffect(PotionEffectType.SLOW_FALLING);
+        boolean nearGround = isNearGround(state);
+        boolean nearCeiling = isNearCeiling(state);
+        boolean inWeb = isInWeb(state);
 
         // Track movement sample
         addMovementSample(to, dx, dy, dz, horizontalDistance, clientOnGround, serverOnGround,
@@ -123,11 +122,11 @@ public class FlyB extends FlyCheck {
         }
 
         // Calculate tolerance based on ping and conditions
-        double tolerance = calculateTolerance(player);
+        double tolerance = calculateTolerance(state);
         
         // Check for ground state spoofing using component
         ViolationData groundSpoofData = groundSpoofingComponent.checkGroundSpoofing(
-            player, clientOnGround, serverOnGround, isNearGroundBlock(player), to.getY(), tolerance
+            player, clientOnGround, serverOnGround, isNearGroundBlock(state), to.getY(), tolerance
         );
         
         if (groundSpoofData != null) {
@@ -160,7 +159,7 @@ public class FlyB extends FlyCheck {
         }
 
         // Server-verified glide detection - independent of client ground claim
-        if (!serverOnGround && !nearGround && !hasSlowFalling && !player.isGliding() && serverVerifiedAirTicks > 8) {
+        if (!serverOnGround && !nearGround && !hasSlowFalling && !state.isGliding() && serverVerifiedAirTicks > 8) {
             ViolationData glideData = glideDetectionComponent.checkGliding(
                 player, horizontalDistance, dy, tolerance
             );
@@ -171,7 +170,7 @@ public class FlyB extends FlyCheck {
         }
 
         // "Boat fly" and creative fly detection
-        if (!serverOnGround && (wasInVehicle || isRecentlyInVehicle()) && !player.isGliding() && serverVerifiedAirTicks > 10) {
+        if (!serverOnGround && (wasInVehicle || isRecentlyInVehicle()) && !state.isGliding() && serverVerifiedAirTicks > 10) {
             detectCreativeFlyHacks(player, to.getY(), dy);
         } else {
             boatFlyBuffer = Math.max(0, boatFlyBuffer - BUFFER_DECREMENT);
@@ -179,7 +178,7 @@ public class FlyB extends FlyCheck {
 
         // Detect sustained flight without justification - powerful detection method
         if (serverVerifiedAirTicks > MAX_AIR_TICKS && !hasLevitation && !hasSlowFalling
-                && !player.isGliding() && !inLiquid && !onClimbable && !inWeb) {
+                && !state.isGliding() && !inLiquid && !onClimbable && !inWeb) {
             detectSustainedFlight(player, to.getY(), serverVerifiedAirTicks);
         }
 
@@ -227,38 +226,26 @@ public class FlyB extends FlyCheck {
     /**
      * Server-verified ground detection
      */
-    private boolean isActuallyOnGround(Player player) {
-        Location loc = player.getLocation();
-        
-        // Check a small distance below the player
-        for (double offset = 0; offset <= 0.1; offset += 0.01) {
-            if (!isPassable(loc.clone().subtract(0, offset, 0))) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
-    
-    /**
-     * Check if a location contains a passable block
-     */
-    private boolean isPassable(Location location) {
-        return location.getBlock().isPassable();
+    private boolean isActuallyOnGround(PlayerStateSnapshot state) {
+        World world = state.getWorld();
+
+        // Check a small distance below the player; the 0.1 blocks below the feet span at most two blocks
+        return !isPassable(world, state.getX(), state.getY(), state.getZ())
+                || !isPassable(world, state.getX(), state.getY() - 0.1, state.getZ());
     }
 
     /**
      * Check if player is near any ground-like blocks
      */
-    private boolean isNearGroundBlock(Player player) {
-        Location loc = player.getLocation();
+    private boolean isNearGroundBlock(PlayerStateSnapshot state) {
+        World world = state.getWorld();
         double playerWidth = 0.3; // Approximate player width/2
-        
+        double y = state.getY() - 0.1;
+
         // Check in a box below the player for any blocks
         for (double x = -playerWidth; x <= playerWidth; x += playerWidth) {
             for (double z = -playerWidth; z <= playerWidth; z += playerWidth) {
-                Location checkLoc = loc.clone().add(x, -0.1, z);
-                if (!isPassable(checkLoc)) {
+                if (!isPassable(world, state.getX() + x, y, state.getZ() + z)) {
                     return true;
                 }
             }
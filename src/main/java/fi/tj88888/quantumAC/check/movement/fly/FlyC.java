@@ -1,12 +1,13 @@
 package fi.tj88888.quantumAC.check.movement.fly;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.check.CheckCost;
 import fi.tj88888.quantumAC.check.ViolationData;
 import fi.tj88888.quantumAC.check.movement.fly.components.AlgorithmicPatternComponent;
 import fi.tj88888.quantumAC.check.movement.fly.components.PhaseDetectionComponent;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
@@ -30,6 +31,7 @@ public class FlyC extends FlyCheck {
     // Detection constants
     private static final int ARC_BUFFER_THRESHOLD = 8;
     private static final int BUFFER_DECREMENT = 1;
+    private static final int PATTERN_WINDOW = 80; // Movement packets analysed for patterns, ~4 seconds
     
     // Arc trajectory detection
     private int arcTrajectoryBuffer = 0;
@@ -41,27 +43,25 @@ public class FlyC extends FlyCheck {
 
     public FlyC(QuantumAC plugin, PlayerData playerData) {
         super(plugin, playerData, "FlyC");
-        this.algorithmicPatternComponent = new AlgorithmicPatternComponent();
-        this.phaseDetectionComponent = new PhaseDetectionComponent();
+        this.algorithmicPatternComponent = new AlgorithmicPatternComponent(PATTERN_WINDOW);
+        this.phaseDetectionComponent = new PhaseDetectionComponent(plugin.getBlockStateCache());
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        if (!isMovementPacket(event.getPacketType())) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
+        if (state == null) return;
 
         // Skip if player is exempt from checks
-        if (isExempt(player)) {
+        if (isExempt(state)) {
             resetDetectionState();
             return;
         }
 
         // Get locations for movement calculation
         Location from = playerData.getLastLocation();
-        Location to = player.getLocation();
+        Location to = state.getLocation();
 
         if (from == null || !from.getWorld().equals(to.getWorld())) {
             playerData.setLastLocation(to);
@@ -76,14 +76,14 @@ public class FlyC extends FlyCheck {
         double distance3D = Math.sqrt(dx * dx + dy * dy + dz * dz);
 
         // Analyze environment
-        boolean onGround = player.isOnGround();
-        boolean inLiquid = isInLiquid(player);
-        boolean onClimbable = isOnClimbable(player);
-        boolean inWeb = isInWeb(player);
-        boolean hasLevitation = player.hasPotionEffect(PotionEffectType.LEVITATION);
-        boolean hasSlowFalling = player.hasPotionEffect(PotionEffectType.SLOW_FALLING);
-        boolean nearGround = isNearGround(player);
-        boolean nearCeiling = isNearCeiling(player);
+        boolean onGround = state.isOnGround();
+        boolean inLiquid = isInLiquid(state);
+        boolean onClimbable = isOnClimbable(state);
+        boolean inWeb = isInWeb(state);
+        boolean hasLevitation = state.hasPotionEffect(PotionEffectType.LEVITATION);
+        boolean hasSlowFalling = state.hasPotionEffect(PotionEffectType.SLOW_FALLING);
+        boolean nearGround = isNearGround(state);
+        boolean nearCeiling = isNearCeiling(state);
 
         // Update air time tracking
         if (onGround) {
@@ -107,30 +107,37 @@ public class FlyC extends FlyCheck {
         }
 
         // Calculate tolerance based on ping and conditions
-        double tolerance = calculateTolerance(player);
+        double tolerance = calculateTolerance(state);
         
         // Only run pattern analysis with enough trajectory points and when in air
         if (!onGround && airTicks > 5) {
-            // Analyze movement patterns using component
-            ViolationData patternData = algorithmicPatternComponent.checkAlgorithmicPattern(
-                player, to, dx, dy, dz, horizontalDistance, distance3D, airTicks, tolerance
-            );
-            
-            if (patternData != null) {
-                flag((double) patternData.getViolationLevel(), patternData.getDetails());
+            // Pattern fitting is the most expensive part of this check; under load only the trajectory is kept
+            if (canAfford(CheckCost.EXPENSIVE)) {
+                // Analyze movement patterns using component
+                ViolationData patternData = algorithmicPatternComponent.checkAlgorithmicPattern(
+                    player, to, dx, dy, dz, horizontalDistance, distance3D, airTicks, tolerance
+                );
+
+                if (patternData != null) {
+                    flag((double) patternData.getViolationLevel(), patternData.getDetails());
+                }
+            } else {
+                algorithmicPatternComponent.trackMovement(to, dx, dy, dz, horizontalDistance, distance3D);
             }
 
             // Detect arc trajectory violations
             detectArcTrajectoryViolations(player, dy);
         }
 
-        // Phase detection (moving through blocks) using component
-        ViolationData phaseData = phaseDetectionComponent.checkPhasing(
-            player, from, to, distance3D, tolerance
-        );
-        
-        if (phaseData != null) {
-            flag((double) phaseData.getViolationLevel(), phaseData.getDetails());
+        // Phase detection (moving through blocks) walks the blocks along the path, so it is shed under load too
+        if (canAfford(CheckCost.EXPENSIVE)) {
+            ViolationData phaseData = phaseDetectionComponent.checkPhasing(
+                player, from, to, distance3D, tolerance
+            );
+
+            if (phaseData != null) {
+                flag((double) phaseData.getViolationLevel(), phaseData.getDetails());
+            }
         }
 
         // Update state for next check
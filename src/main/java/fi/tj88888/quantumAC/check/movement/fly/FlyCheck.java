@@ -1,15 +1,13 @@
 package fi.tj88888.quantumAC.check.movement.fly;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
-import org.bukkit.GameMode;
-import org.bukkit.Location;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
-import org.bukkit.entity.Player;
+import org.bukkit.World;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.util.Vector;
 
@@ -67,15 +65,15 @@ public abstract class FlyCheck extends Check {
     /**
      * Common method to process fly-related packet checks
      */
-    protected void processFlyPacket(PacketEvent event) {
-        if (!isMovementPacket(event.getPacketType())) {
+    protected void processFlyPacket(PacketSnapshot packet) {
+        if (!isMovementPacket(packet.getKind())) {
             return;
         }
 
-        Player player = event.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
 
         // Skip if player is exempt from checks
-        if (isExempt(player)) {
+        if (state == null || isExempt(state)) {
             return;
         }
     }
@@ -83,60 +81,53 @@ public abstract class FlyCheck extends Check {
     /**
      * Check if player is in an exempt state
      */
-    protected boolean isExempt(Player player) {
-        return player.isFlying() ||
-               player.isInsideVehicle() ||
-               player.isDead() ||
-               player.getGameMode() == GameMode.CREATIVE ||
-               player.getGameMode() == GameMode.SPECTATOR;
+    protected boolean isExempt(PlayerStateSnapshot state) {
+        return state.isFlying() ||
+               state.isInsideVehicle() ||
+               state.isDead() ||
+               state.isCreativeOrSpectator();
     }
 
     /**
      * Check if a packet is a movement packet
      */
-    protected boolean isMovementPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-               type == PacketType.Play.Client.POSITION_LOOK ||
-               type == PacketType.Play.Client.LOOK ||
-               type == PacketType.Play.Client.FLYING;
+    protected boolean isMovementPacket(PacketKind kind) {
+        return kind.isMovement();
     }
 
     /**
      * Check if the player is in a liquid
      */
-    protected boolean isInLiquid(Player player) {
-        Block block = player.getLocation().getBlock();
-        return LIQUID_MATERIALS.contains(block.getType());
+    protected boolean isInLiquid(PlayerStateSnapshot state) {
+        return LIQUID_MATERIALS.contains(getBlockType(state.getWorld(), state.getX(), state.getY(), state.getZ()));
     }
 
     /**
      * Check if the player is on a climbable block
      */
-    protected boolean isOnClimbable(Player player) {
-        Block block = player.getLocation().getBlock();
-        return CLIMBABLE_MATERIALS.contains(block.getType());
+    protected boolean isOnClimbable(PlayerStateSnapshot state) {
+        return CLIMBABLE_MATERIALS.contains(getBlockType(state.getWorld(), state.getX(), state.getY(), state.getZ()));
     }
 
     /**
      * Check if the player is in or on a web
      */
-    protected boolean isInWeb(Player player) {
-        Location loc = player.getLocation();
-        return loc.getBlock().getType() == Material.COBWEB ||
-               loc.clone().add(0, 0.1, 0).getBlock().getType() == Material.COBWEB;
+    protected boolean isInWeb(PlayerStateSnapshot state) {
+        World world = state.getWorld();
+        return getBlockType(world, state.getX(), state.getY(), state.getZ()) == Material.COBWEB ||
+               getBlockType(world, state.getX(), state.getY() + 0.1, state.getZ()) == Material.COBWEB;
     }
 
     /**
      * Check if the player is near ground
      */
-    protected boolean isNearGround(Player player) {
-        Location loc = player.getLocation();
-        double y = loc.getY();
+    protected boolean isNearGround(PlayerStateSnapshot state) {
+        World world = state.getWorld();
+        double y = state.getY();
         
         // Check block at feet and slightly below
         for (double offset = 0; offset <= 0.5; offset += 0.1) {
-            Block block = loc.clone().subtract(0, offset, 0).getBlock();
-            if (!NON_SOLID_MATERIALS.contains(block.getType())) {
+            if (!NON_SOLID_MATERIALS.contains(getBlockType(world, state.getX(), y - offset, state.getZ()))) {
                 return true;
             }
         }
@@ -147,13 +138,12 @@ public abstract class FlyCheck extends Check {
     /**
      * Check if the player is near a ceiling
      */
-    protected boolean isNearCeiling(Player player) {
-        Location loc = player.getLocation();
+    protected boolean isNearCeiling(PlayerStateSnapshot state) {
+        World world = state.getWorld();
         
         // Check block above head and slightly above
         for (double offset = 0; offset <= 0.5; offset += 0.1) {
-            Block block = loc.clone().add(0, 1.8 + offset, 0).getBlock();
-            if (!NON_SOLID_MATERIALS.contains(block.getType())) {
+            if (!NON_SOLID_MATERIALS.contains(getBlockType(world, state.getX(), state.getY() + 1.8 + offset, state.getZ()))) {
                 return true;
             }
         }
@@ -220,7 +210,7 @@ public abstract class FlyCheck extends Check {
     /**
      * Calculate a tolerance value based on player's ping and other conditions
      */
-    protected double calculateTolerance(Player player) {
+    protected double calculateTolerance(PlayerStateSnapshot state) {
         double tolerance = 0.01; // Base tolerance
         
         // Add tolerance based on ping
@@ -230,11 +220,11 @@ public abstract class FlyCheck extends Check {
         }
         
         // Add tolerance for special conditions
-        if (player.hasPotionEffect(PotionEffectType.SLOW_FALLING)) {
+        if (state.hasPotionEffect(PotionEffectType.SLOW_FALLING)) {
             tolerance += 0.05;
         }
         
-        if (player.hasPotionEffect(PotionEffectType.LEVITATION)) {
+        if (state.hasPotionEffect(PotionEffectType.LEVITATION)) {
             tolerance += 0.05;
         }
         
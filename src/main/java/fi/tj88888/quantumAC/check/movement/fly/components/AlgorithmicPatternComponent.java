@@ -4,13 +4,15 @@ import fi.tj88888.quantumAC.check.ViolationData;
 import org.bukkit.entity.Player;
 import org.bukkit.Location;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Component to detect algorithmic flying patterns like step functions or sine waves.
  * This detects when a player's movement follows mathematical patterns that aren't possible
  * in legitimate gameplay.
+ *
+ * The trajectory is kept in primitive columns with running sums and a sliding DFT of the heights,
+ * so adding a point and scoring it take constant time regardless of the window length.
  */
 public class AlgorithmicPatternComponent {
 
@@ -18,9 +20,10 @@ public class AlgorithmicPatternComponent {
     private static final int PATTERN_BUFFER_THRESHOLD = 10;
     private static final int BUFFER_DECREMENT = 1;
     private static final int MIN_TRAJECTORY_POINTS = 10;
-    private static final int MAX_TRAJECTORY_POINTS = 40;
+    private static final int DEFAULT_TRAJECTORY_POINTS = 40;
+    private static final int SINE_BINS = 4; // Frequencies tried, in whole cycles per window
     private static final double STEP_PATTERN_THRESHOLD = 0.002; // Max variance for step pattern
-    private static final double SINE_PATTERN_THRESHOLD = 0.05; // Max variance from sine curve
+    private static final double SINE_PATTERN_THRESHOLD = 0.05; // Max share of height variance outside the sine
     private static final double REGULARITY_THRESHOLD = 0.98; // Regularity score threshold (0-1)
 
     // State tracking
@@ -28,12 +31,67 @@ public class AlgorithmicPatternComponent {
     private int patternVL = 0;
     private int consecutiveDetections = 0;
     private long lastFlag = 0;
-    
-    // Pattern tracking
-    private final List<TrajectoryPoint> trajectoryPoints = new ArrayList<>();
+
+    // Trajectory window, one column per value; the oldest point is at head
+    private final int capacity;
+    private final double[] ys;
+    private final double[] dxs;
+    private final double[] dys;
+    private final double[] dzs;
+    private final double[] horizontals;
+    private final long[] timestamps;
+    private int head;
+    private int size;
+
+    // Running sums over the window, rebuilt from the columns once per window of evictions
+    private double ySum, ySquares;
+    private double stepSum;
+    private double dxSum, dxSquares;
+    private double dySum, dySquares;
+    private double dzSum, dzSquares;
+    private double horizontalSum, horizontalSquares;
+    private double intervalSum, intervalSquares;
+    private int updatesSinceRebuild;
+
+    // Sliding DFT of the heights for the low frequency bins
+    private final double[] cosines;
+    private final double[] sines;
+    private final double[] binReal = new double[SINE_BINS + 1];
+    private final double[] binImaginary = new double[SINE_BINS + 1];
+    private double evictedY;
+
     private double lastPatternMatchScore = 0.0;
     private long lastPatternDetectionTime = 0;
     private int consecutivePatternMatches = 0;
+
+    public AlgorithmicPatternComponent() {
+        this(DEFAULT_TRAJECTORY_POINTS);
+    }
+
+    /**
+     * @param maxTrajectoryPoints Length of the analysed window. Scoring a packet costs the same for any
+     *                            length, but sine patterns are only scored once the window is full.
+     */
+    public AlgorithmicPatternComponent(int maxTrajectoryPoints) {
+        if (maxTrajectoryPoints < MIN_TRAJECTORY_POINTS) {
+            throw new IllegalArgumentException("Window must hold at least " + MIN_TRAJECTORY_POINTS + " points");
+        }
+        this.capacity = maxTrajectoryPoints;
+        this.ys = new double[capacity];
+        this.dxs = new double[capacity];
+        this.dys = new double[capacity];
+        this.dzs = new double[capacity];
+        this.horizontals = new double[capacity];
+        this.timestamps = new long[capacity];
+
+        this.cosines = new double[capacity];
+        this.sines = new double[capacity];
+        for (int i = 0; i < capacity; i++) {
+            double angle = 2 * Math.PI * i / capacity;
+            cosines[i] = Math.cos(angle);
+            sines[i] = Math.sin(angle);
+        }
+    }
     
     /**
      * Checks for algorithmic pattern violations
@@ -57,7 +115,7 @@ public class AlgorithmicPatternComponent {
         addTrajectoryPoint(location, dx, dy, dz, horizontalDistance, distance3D);
         
         // Skip if not enough points
-        if (trajectoryPoints.size() < MIN_TRAJECTORY_POINTS || airTicks <= 5) {
+        if (size < MIN_TRAJECTORY_POINTS || airTicks <= 5) {
             return null;
         }
         
@@ -126,223 +184,238 @@ public class AlgorithmicPatternComponent {
     }
     
     /**
-     * Add a trajectory point to the history
+     * Records a trajectory point without running the pattern analysis,
+     * so the history stays continuous while the analysis itself is being shed
      */
-    private void addTrajectoryPoint(Location location, double dx, double dy, double dz, 
+    public void trackMovement(Location location, double dx, double dy, double dz,
+                              double horizontalDistance, double distance3D) {
+        addTrajectoryPoint(location, dx, dy, dz, horizontalDistance, distance3D);
+    }
+
+    /**
+     * Add a trajectory point to the history, evicting the oldest one once the window is full
+     */
+    private void addTrajectoryPoint(Location location, double dx, double dy, double dz,
                                    double horizontalDistance, double distance3D) {
-        TrajectoryPoint point = new TrajectoryPoint(
-            location.getX(), location.getY(), location.getZ(),
-            dx, dy, dz, horizontalDistance, distance3D,
-            System.currentTimeMillis()
-        );
-        
-        trajectoryPoints.add(point);
-        
-        // Maintain maximum size
-        if (trajectoryPoints.size() > MAX_TRAJECTORY_POINTS) {
-            trajectoryPoints.remove(0);
+        long now = System.currentTimeMillis();
+        double y = location.getY();
+
+        boolean evicted = size == capacity;
+        if (evicted) {
+            evictOldest();
+        }
+
+        int index = (head + size) % capacity;
+        if (size > 0) {
+            // Every point but the oldest contributes its deltas and the interval since the previous point
+            int previous = (index + capacity - 1) % capacity;
+            addDeltas(dx, dy, dz, horizontalDistance, now - timestamps[previous], 1);
+            stepSum += Math.abs(y - ys[previous]);
+        }
+
+        ys[index] = y;
+        dxs[index] = dx;
+        dys[index] = dy;
+        dzs[index] = dz;
+        horizontals[index] = horizontalDistance;
+        timestamps[index] = now;
+        ySum += y;
+        ySquares += y * y;
+
+        if (!evicted) {
+            // Still filling: add the sample at its position in the window
+            for (int bin = 1; bin <= SINE_BINS; bin++) {
+                int angle = (bin * size) % capacity;
+                binReal[bin] += y * cosines[angle];
+                binImaginary[bin] -= y * sines[angle];
+            }
+        } else {
+            // Sliding DFT: replace the evicted sample and rotate so the new oldest is at position 0
+            for (int bin = 1; bin <= SINE_BINS; bin++) {
+                double real = binReal[bin] - evictedY + y;
+                double imaginary = binImaginary[bin];
+                binReal[bin] = real * cosines[bin] - imaginary * sines[bin];
+                binImaginary[bin] = real * sines[bin] + imaginary * cosines[bin];
+            }
+        }
+        size++;
+
+        if (updatesSinceRebuild >= capacity) {
+            rebuild();
         }
     }
-    
+
+    private void evictOldest() {
+        int oldest = head;
+        int next = (head + 1) % capacity;
+
+        // The next point becomes the oldest, so its deltas and interval leave the statistics
+        addDeltas(dxs[next], dys[next], dzs[next], horizontals[next], timestamps[next] - timestamps[oldest], -1);
+        stepSum -= Math.abs(ys[next] - ys[oldest]);
+        ySum -= ys[oldest];
+        ySquares -= ys[oldest] * ys[oldest];
+        evictedY = ys[oldest];
+
+        head = next;
+        size--;
+        updatesSinceRebuild++;
+    }
+
+    private void addDeltas(double dx, double dy, double dz, double horizontalDistance, long interval, int sign) {
+        dxSum += sign * dx;
+        dxSquares += sign * dx * dx;
+        dySum += sign * dy;
+        dySquares += sign * dy * dy;
+        dzSum += sign * dz;
+        dzSquares += sign * dz * dz;
+        horizontalSum += sign * horizontalDistance;
+        horizontalSquares += sign * horizontalDistance * horizontalDistance;
+        intervalSum += sign * interval;
+        intervalSquares += sign * (double) interval * interval;
+    }
+
+    /**
+     * Recomputes the running sums and DFT bins from the columns, undoing accumulated rounding error
+     */
+    private void rebuild() {
+        clearSums();
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % capacity;
+            double y = ys[index];
+            ySum += y;
+            ySquares += y * y;
+            for (int bin = 1; bin <= SINE_BINS; bin++) {
+                int angle = (bin * i) % capacity;
+                binReal[bin] += y * cosines[angle];
+                binImaginary[bin] -= y * sines[angle];
+            }
+
+            if (i > 0) {
+                int previous = (index + capacity - 1) % capacity;
+                addDeltas(dxs[index], dys[index], dzs[index], horizontals[index],
+                        timestamps[index] - timestamps[previous], 1);
+                stepSum += Math.abs(y - ys[previous]);
+            }
+        }
+        updatesSinceRebuild = 0;
+    }
+
+    private void clearSums() {
+        ySum = 0;
+        ySquares = 0;
+        stepSum = 0;
+        dxSum = dxSquares = 0;
+        dySum = dySquares = 0;
+        dzSum = dzSquares = 0;
+        horizontalSum = horizontalSquares = 0;
+        intervalSum = intervalSquares = 0;
+        Arrays.fill(binReal, 0);
+        Arrays.fill(binImaginary, 0);
+    }
+
     /**
      * Detect step function pattern in vertical movement
      */
     private double detectStepPattern() {
-        if (trajectoryPoints.size() < MIN_TRAJECTORY_POINTS) {
+        if (size < MIN_TRAJECTORY_POINTS) {
             return 0.0;
         }
-        
-        List<Double> yValues = new ArrayList<>();
-        for (TrajectoryPoint point : trajectoryPoints) {
-            yValues.add(point.y);
-        }
-        
-        double totalVariance = 0.0;
-        int segments = 0;
-        
-        for (int i = 1; i < yValues.size() - 1; i++) {
-            // Calculate local variance around this point
-            double prevDiff = Math.abs(yValues.get(i) - yValues.get(i-1));
-            double nextDiff = Math.abs(yValues.get(i) - yValues.get(i+1));
-            double localVariance = (prevDiff + nextDiff) / 2.0;
-            
-            totalVariance += localVariance;
-            segments++;
-        }
-        
-        if (segments == 0) return 0.0;
-        
-        double avgVariance = totalVariance / segments;
-        
+
+        // Each interior point averages its steps to both neighbours, so every step counts twice
+        // except the first and the last
+        double firstStep = Math.abs(ys[(head + 1) % capacity] - ys[head]);
+        int newest = (head + size - 1) % capacity;
+        double lastStep = Math.abs(ys[newest] - ys[(newest + capacity - 1) % capacity]);
+        double avgVariance = (2 * stepSum - firstStep - lastStep) / 2.0 / (size - 2);
+
         // Lower variance indicates more step-like pattern
         return avgVariance < STEP_PATTERN_THRESHOLD ? 1.0 - (avgVariance / STEP_PATTERN_THRESHOLD) : 0.0;
     }
-    
+
     /**
-     * Detect sine wave pattern in vertical movement
+     * Detect sine wave pattern in vertical movement: how much of the height variation over a full window
+     * is explained by a single low frequency
      */
     private double detectSinePattern() {
-        if (trajectoryPoints.size() < MIN_TRAJECTORY_POINTS) {
+        if (size < capacity) {
             return 0.0;
         }
-        
-        List<Double> yValues = new ArrayList<>();
-        for (TrajectoryPoint point : trajectoryPoints) {
-            yValues.add(point.y);
-        }
-        
-        // Try different frequencies
-        double bestScore = 0.0;
-        for (double freq = 0.1; freq <= 2.0; freq += 0.1) {
-            double score = calculateSineMatchScore(yValues, freq);
-            if (score > bestScore) {
-                bestScore = score;
-            }
-        }
-        
-        return bestScore;
-    }
-    
-    /**
-     * Calculate how well a set of Y values matches a sine wave
-     */
-    private double calculateSineMatchScore(List<Double> values, double frequency) {
-        if (values.size() < 8) return 0.0;
-        
-        // Normalize the values
-        double min = Double.MAX_VALUE;
-        double max = Double.MIN_VALUE;
-        for (double val : values) {
-            min = Math.min(min, val);
-            max = Math.max(max, val);
-        }
-        
-        double range = max - min;
-        if (range < 0.1) return 0.0; // Too small range to analyze
-        
-        // Calculate theoretical sine wave
-        double[] expectedValues = new double[values.size()];
-        for (int i = 0; i < values.size(); i++) {
-            double x = (double)i / values.size() * 2 * Math.PI * frequency;
-            expectedValues[i] = min + range * 0.5 * (1 + Math.sin(x));
-        }
-        
-        // Calculate total deviation from sine wave
-        double totalDev = 0.0;
-        for (int i = 0; i < values.size(); i++) {
-            double normVal = (values.get(i) - min) / range;
-            double normExpected = (expectedValues[i] - min) / range;
-            totalDev += Math.abs(normVal - normExpected);
+
+        double mean = ySum / size;
+        double energy = ySquares - size * mean * mean;
+        if (energy <= 0) return 0.0;
+
+        double bestPower = 0.0;
+        for (int bin = 1; bin <= SINE_BINS; bin++) {
+            double power = binReal[bin] * binReal[bin] + binImaginary[bin] * binImaginary[bin];
+            bestPower = Math.max(bestPower, power);
         }
-        
-        double avgDev = totalDev / values.size();
-        
+
+        // Peak to peak height of the best fitting sine
+        double amplitude = 2 * Math.sqrt(bestPower) / size;
+        if (2 * amplitude < 0.1) return 0.0; // Too small range to analyze
+
+        // A real sine puts its energy in two mirrored bins
+        double explained = Math.min(1.0, 2 * bestPower / (size * energy));
+        double residual = 1.0 - explained;
+
         // Convert to score (1.0 = perfect match)
-        return avgDev < SINE_PATTERN_THRESHOLD ? 1.0 - (avgDev / SINE_PATTERN_THRESHOLD) : 0.0;
+        return residual < SINE_PATTERN_THRESHOLD ? 1.0 - (residual / SINE_PATTERN_THRESHOLD) : 0.0;
     }
-    
+
     /**
      * Calculate regularity score of movement
      */
     private double calculateRegularityScore() {
-        if (trajectoryPoints.size() < MIN_TRAJECTORY_POINTS) {
+        if (size < MIN_TRAJECTORY_POINTS) {
             return 0.0;
         }
-        
-        // Extract values to analyze
-        List<Double> dxValues = new ArrayList<>();
-        List<Double> dyValues = new ArrayList<>();
-        List<Double> dzValues = new ArrayList<>();
-        List<Double> horizDistValues = new ArrayList<>();
-        List<Long> timeDeltas = new ArrayList<>();
-        
-        for (int i = 1; i < trajectoryPoints.size(); i++) {
-            TrajectoryPoint current = trajectoryPoints.get(i);
-            TrajectoryPoint prev = trajectoryPoints.get(i-1);
-            
-            dxValues.add(current.dx);
-            dyValues.add(current.dy);
-            dzValues.add(current.dz);
-            horizDistValues.add(current.horizontalDistance);
-            timeDeltas.add(current.timestamp - prev.timestamp);
-        }
-        
+
         // Calculate coefficient of variation (lower = more regular)
-        double dxCV = calculateDoubleCV(dxValues);
-        double dyCV = calculateDoubleCV(dyValues);
-        double dzCV = calculateDoubleCV(dzValues);
-        double horizDistCV = calculateDoubleCV(horizDistValues);
-        double timeCV = calculateLongCV(timeDeltas);
-        
+        int count = size - 1;
+        double dxCV = calculateCV(dxSum, dxSquares, count);
+        double dyCV = calculateCV(dySum, dySquares, count);
+        double dzCV = calculateCV(dzSum, dzSquares, count);
+        double horizDistCV = calculateCV(horizontalSum, horizontalSquares, count);
+        double timeCV = calculateCV(intervalSum, intervalSquares, count);
+
         // Calculate combined regularity score
         double avgCV = (dxCV + dyCV + dzCV + horizDistCV + timeCV) / 5.0;
-        
+
         // Convert to score (1.0 = extremely regular)
-        double regularityScore = Math.max(0.0, 1.0 - avgCV);
-        
-        return regularityScore;
-    }
-    
-    /**
-     * Calculate coefficient of variation for double values
-     */
-    private double calculateDoubleCV(List<Double> values) {
-        if (values.size() < 2) return 1.0;
-        
-        double sum = 0.0;
-        for (double val : values) {
-            sum += val;
-        }
-        double mean = sum / values.size();
-        
-        // Prevent division by zero
-        if (Math.abs(mean) < 0.000001) return 1.0;
-        
-        double varSum = 0.0;
-        for (double val : values) {
-            varSum += Math.pow(val - mean, 2);
-        }
-        double stdDev = Math.sqrt(varSum / values.size());
-        
-        return stdDev / Math.abs(mean);
+        return Math.max(0.0, 1.0 - avgCV);
     }
-    
+
     /**
-     * Calculate coefficient of variation for long values
+     * Calculate coefficient of variation from a running sum and sum of squares
      */
-    private double calculateLongCV(List<Long> values) {
-        if (values.size() < 2) return 1.0;
-        
-        long sum = 0;
-        for (long val : values) {
-            sum += val;
-        }
-        double mean = (double)sum / values.size();
-        
+    private static double calculateCV(double sum, double squares, int count) {
+        if (count < 2) return 1.0;
+
+        double mean = sum / count;
+
         // Prevent division by zero
         if (Math.abs(mean) < 0.000001) return 1.0;
-        
-        double varSum = 0.0;
-        for (long val : values) {
-            varSum += Math.pow(val - mean, 2);
-        }
-        double stdDev = Math.sqrt(varSum / values.size());
-        
-        return stdDev / mean;
+
+        double variance = Math.max(0.0, squares / count - mean * mean);
+        return Math.sqrt(variance) / Math.abs(mean);
     }
-    
+
     /**
      * Clear all trajectory points
      */
     public void clearTrajectory() {
-        trajectoryPoints.clear();
+        head = 0;
+        size = 0;
+        updatesSinceRebuild = 0;
+        clearSums();
     }
     
     /**
      * Get the number of trajectory points
      */
     public int getTrajectorySize() {
-        return trajectoryPoints.size();
+        return size;
     }
     
     /**
@@ -353,35 +426,9 @@ public class AlgorithmicPatternComponent {
         patternVL = 0;
         consecutiveDetections = 0;
         lastFlag = 0;
-        trajectoryPoints.clear();
+        clearTrajectory();
         lastPatternMatchScore = 0.0;
         lastPatternDetectionTime = 0;
         consecutivePatternMatches = 0;
     }
-    
-    /**
-     * Class to store trajectory point data
-     */
-    private static class TrajectoryPoint {
-        public final double x, y, z;
-        public final double dx, dy, dz;
-        public final double horizontalDistance;
-        public final double distance3D;
-        public final long timestamp;
-        
-        public TrajectoryPoint(double x, double y, double z, 
-                               double dx, double dy, double dz, 
-                               double horizontalDistance, double distance3D, 
-                               long timestamp) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.dx = dx;
-            this.dy = dy;
-            this.dz = dz;
-            this.horizontalDistance = horizontalDistance;
-            this.distance3D = distance3D;
-            this.timestamp = timestamp;
-        }
-    }
-}
\ No newline at end of file
+}
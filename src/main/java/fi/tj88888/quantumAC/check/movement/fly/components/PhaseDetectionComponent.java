@@ -1,20 +1,15 @@
 package fi.tj88888.quantumAC.check.movement.fly.components;
 
 import fi.tj88888.quantumAC.check.ViolationData;
+import fi.tj88888.quantumAC.data.BlockStateCache;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 /**
  * Component to detect player phasing/noclipping through blocks.
- * This checks if a player's movement path intersects with solid blocks.
+ * This checks if a player's movement path intersects with solid blocks,
+ * reading block types from the {@link BlockStateCache} rather than the world.
  */
 public class PhaseDetectionComponent {
 
@@ -23,23 +18,17 @@ public class PhaseDetectionComponent {
     private static final int PHASE_BUFFER_THRESHOLD = 7;
     private static final int BUFFER_DECREMENT = 1;
     
-    // Material sets for block checking
-    private static final Set<Material> NON_SOLID_MATERIALS = new HashSet<>();
-    
-    static {
-        NON_SOLID_MATERIALS.add(Material.AIR);
-        NON_SOLID_MATERIALS.add(Material.CAVE_AIR);
-        NON_SOLID_MATERIALS.add(Material.VOID_AIR);
-        NON_SOLID_MATERIALS.add(Material.WATER);
-        NON_SOLID_MATERIALS.add(Material.LAVA);
-        // Add other non-solid materials as needed
-    }
+    private final BlockStateCache blocks;
 
     // State tracking
     private int phaseBuffer = 0;
     private int phaseVL = 0;
     private int consecutiveDetections = 0;
     private long lastFlag = 0;
+
+    public PhaseDetectionComponent(BlockStateCache blocks) {
+        this.blocks = blocks;
+    }
     
     /**
      * Checks for phase/noclip violations
@@ -60,16 +49,8 @@ public class PhaseDetectionComponent {
             return null;
         }
         
-        // Get blocks between the two locations
-        List<Block> blocksBetween = getBlocksBetween(from, to);
-        
         // Count solid blocks in path
-        int solidBlocksInPath = 0;
-        for (Block block : blocksBetween) {
-            if (!NON_SOLID_MATERIALS.contains(block.getType()) && !block.isPassable()) {
-                solidBlocksInPath++;
-            }
-        }
+        int solidBlocksInPath = countSolidBlocksBetween(from, to);
         
         // Check if the player moved through solid blocks
         if (solidBlocksInPath > 0) {
@@ -103,14 +84,12 @@ public class PhaseDetectionComponent {
     }
     
     /**
-     * Get blocks between two locations
+     * Count the solid blocks between two locations
      */
-    private List<Block> getBlocksBetween(Location from, Location to) {
-        List<Block> blocks = new ArrayList<>();
-        
+    private int countSolidBlocksBetween(Location from, Location to) {
         // Validate locations are in same world
         if (from.getWorld() != to.getWorld()) {
-            return blocks;
+            return 0;
         }
         
         World world = from.getWorld();
@@ -125,7 +104,7 @@ public class PhaseDetectionComponent {
         
         // Prevent division by zero
         if (distance < 0.01) {
-            return blocks;
+            return 0;
         }
         
         // Calculate direction vector
@@ -136,7 +115,10 @@ public class PhaseDetectionComponent {
         // Sample points along path
         double increment = 0.2; // Sample every 0.2 blocks
         int samples = (int) Math.ceil(distance / increment);
-        
+
+        // A straight path passes through each block once, so comparing with the previous sample skips repeats
+        int solid = 0;
+        int lastX = Integer.MIN_VALUE, lastY = Integer.MIN_VALUE, lastZ = Integer.MIN_VALUE;
         for (int i = 0; i < samples; i++) {
             double progress = i * increment;
             if (progress > distance) {
@@ -144,20 +126,22 @@ public class PhaseDetectionComponent {
             }
             
             // Calculate point along path
-            double x = from.getX() + dirX * progress;
-            double y = from.getY() + dirY * progress;
-            double z = from.getZ() + dirZ * progress;
-            
-            // Get block at point
-            Block block = world.getBlockAt((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
-            
-            // Add if not already in list
-            if (!blocks.contains(block)) {
-                blocks.add(block);
+            int x = (int) Math.floor(from.getX() + dirX * progress);
+            int y = (int) Math.floor(from.getY() + dirY * progress);
+            int z = (int) Math.floor(from.getZ() + dirZ * progress);
+            if (x == lastX && y == lastY && z == lastZ) {
+                continue;
+            }
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+
+            if (blocks.getType(world, x, y, z).isSolid()) {
+                solid++;
             }
         }
         
-        return blocks;
+        return solid;
     }
     
     /**
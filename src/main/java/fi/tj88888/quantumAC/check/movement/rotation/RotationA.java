@@ -1,12 +1,12 @@
 package fi.tj88888.quantumAC.check.movement.rotation;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import fi.tj88888.quantumAC.util.ChatUtil;
-import fi.tj88888.quantumAC.util.MovementData;
+import fi.tj88888.quantumAC.util.MovementFrame;
 import org.bukkit.entity.Player;
 
 /**
@@ -51,21 +51,13 @@ public class RotationA extends Check {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        // Check packet type
-        PacketType packetType = event.getPacketType();
-
-        boolean isRotationPacket = PacketType.Play.Client.LOOK == packetType ||
-                PacketType.Play.Client.POSITION_LOOK == packetType;
-
-        if (!isRotationPacket) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        // Only registered for rotation packets (LOOK and POSITION_LOOK)
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
 
         // Skip exempted players
-        if (player.isInsideVehicle() || player.isFlying() || playerData.isExempt()) {
+        if (state == null || state.isInsideVehicle() || state.isFlying() || playerData.isExempt()) {
             return;
         }
 
@@ -81,11 +73,8 @@ public class RotationA extends Check {
             consecutiveSuspicious = 0;
         }
 
-        // Get movement data
-        MovementData data = playerData.getMovementData();
-        if (data == null) {
-            return;
-        }
+        // Get the latest movement frame
+        MovementFrame data = playerData.getMovementFrame();
 
         // Skip initial or slow movements
         float deltaYaw = data.getDeltaYaw();
@@ -112,6 +101,8 @@ public class RotationA extends Check {
             ChatUtil.sendDebug(player, String.format("  Yaw Delta: %.2f", deltaYaw));
             ChatUtil.sendDebug(player, String.format("  Speed: %.3f → %.3f (diff: %.4f, drop: %.2f%%)",
                     previousSpeed, currentSpeed, speedDiff, speedDropRatio * 100));
+            ChatUtil.sendDebug(player, String.format("  Aim: sensitivity=%.0f%%, gcd-consistency=%.2f, entropy=%.2f, snaps=%.2f",
+                    data.getSensitivity(), data.getGcdConsistency(), data.getDeltaEntropy(), data.getSnapRate()));
         }
 
         // Detect zero/negative drops only during significant turns
@@ -1,14 +1,14 @@
 package fi.tj88888.quantumAC.check.packet;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.events.PacketEvent;
 import fi.tj88888.quantumAC.QuantumAC;
 import fi.tj88888.quantumAC.check.Check;
 import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerStateSnapshot;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.concurrent.TimeUnit;
 
 public class TimerA extends Check {
@@ -30,8 +30,18 @@ public class TimerA extends Check {
     private static final long TELEPORT_EXEMPT_DURATION = 3000; // Exempt period after teleport (ms)
     private static final long WORLD_CHANGE_EXEMPT_DURATION = 5000; // Exempt after world change (ms)
 
+    // Violation details, rendered only when an alert or log needs them
+    private static final String DETAILS = "packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, "
+            + "lowest-tps=%.2f, highest-tps=%.2f, buffer=%.0f";
+    private static final String FAST_DETAILS = "fast-timer: packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, streak=%.0f";
+    private static final String SLOW_DETAILS = "slow-timer: packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, streak=%.0f";
+
     // Packet timing tracking
-    private final Deque<Long> packetTimestamps = new ArrayDeque<>();
+    private static final int MAX_TRACKED_PACKETS = 256;      // Room for a 3 second window at ~85 packets/sec
+    private final LongRingBuffer packetTimestamps = new LongRingBuffer(MAX_TRACKED_PACKETS);
+    // Intervals between packets in the window, skipping hiccups; each remembers the packet it started from
+    private final SlidingWindowStats packetIntervals = new SlidingWindowStats(MAX_TRACKED_PACKETS);
+    private final LongRingBuffer intervalStarts = new LongRingBuffer(MAX_TRACKED_PACKETS);
     private long lastPacketTime = 0;
     private long joinTime = 0;
     private long lastTeleportTime = 0;
@@ -48,7 +58,6 @@ public class TimerA extends Check {
     private double currentTps = 20.0;
     private double lowestTps = 20.0;
     private double highestTps = 20.0;
-    private double avgTimeDiff = 50.0;
 
     public TimerA(QuantumAC plugin, PlayerData playerData) {
         super(plugin, playerData, "TimerA", "Packet");
@@ -56,20 +65,18 @@ public class TimerA extends Check {
     }
 
     @Override
-    public void processPacket(PacketEvent event) {
-        // Only analyze flying packets (movement-related)
-        if (!isMovementPacket(event.getPacketType())) {
-            return;
-        }
-
-        Player player = event.getPlayer();
+    public void processPacket(PacketSnapshot packet) {
+        // Only receives flying packets (movement-related)
+        Player player = packet.getPlayer();
+        PlayerStateSnapshot state = playerData.getStateSnapshot();
 
         // Skip if player is exempt
-        if (isExempt(player)) {
+        if (state == null || isExempt(state)) {
             return;
         }
 
-        long currentTime = System.currentTimeMillis();
+        // Use the receive time, not the time the check happens to run
+        long currentTime = packet.getTimestamp();
 
         // First packet handling
         if (lastPacketTime == 0) {
@@ -87,16 +94,24 @@ public class TimerA extends Check {
         }
 
         // Record packet timing
-        packetTimestamps.add(currentTime);
+        if (!packetTimestamps.isEmpty()) {
+            long previous = packetTimestamps.getLast();
+            long diff = currentTime - previous;
 
-        // Keep only recent packets for analysis
-        while (!packetTimestamps.isEmpty()) {
-            Long peek = packetTimestamps.peek();
-            // Break if peek returned null or if time condition not met
-            if (peek == null || currentTime - peek <= SAMPLE_SIZE_MS) {
-                break;
+            // Filter out unusually large values (likely server hiccups)
+            if (diff > 0 && diff < MAX_TIME_DIFF) {
+                packetIntervals.add(diff);
+                intervalStarts.add(previous);
             }
-            packetTimestamps.poll();
+        }
+        packetTimestamps.add(currentTime);
+
+        // Keep only recent packets for analysis, along with the intervals between them
+        packetTimestamps.evictOlderThan(currentTime - SAMPLE_SIZE_MS);
+        long oldestPacket = packetTimestamps.getFirst();
+        while (!intervalStarts.isEmpty() && intervalStarts.getFirst() < oldestPacket) {
+            intervalStarts.removeFirst();
+            packetIntervals.removeOldest();
         }
 
         // Only analyze when we have enough data
@@ -117,7 +132,6 @@ public class TimerA extends Check {
 
         // Calculate average time between packets
         double averageTimeDiff = calculateAverageTimeDiff();
-        avgTimeDiff = averageTimeDiff;
 
         // Calculate TPS (client-side)
         double calculatedTps = 1000.0 / averageTimeDiff;
@@ -140,8 +154,8 @@ public class TimerA extends Check {
 
             // Flag more severe violations directly
             if (fastPacketStreak >= 3 && packetsPerSecond > MAX_PACKETS_PER_SECOND + 5) {
-                String details = formatFastDetails(packetsPerSecond, calculatedTps, averageTimeDiff);
-                flag(Math.min(3.0, (packetsPerSecond - MAX_PACKETS_PER_SECOND) / 3.0), details);
+                flag(Math.min(3.0, (packetsPerSecond - MAX_PACKETS_PER_SECOND) / 3.0), FAST_DETAILS,
+                        packetsPerSecond, calculatedTps, averageTimeDiff, fastPacketStreak);
 
                 // Reset after flagging
                 buffer = Math.max(0, buffer - 3);
@@ -155,8 +169,7 @@ public class TimerA extends Check {
 
             // Only flag for consistent slow patterns to avoid false positives
             if (slowPacketStreak >= 5) {
-                String details = formatSlowDetails(packetsPerSecond, calculatedTps, averageTimeDiff);
-                flag(1.0, details);
+                flag(1.0, SLOW_DETAILS, packetsPerSecond, calculatedTps, averageTimeDiff, slowPacketStreak);
                 slowPacketStreak = 0;
             }
         }
@@ -172,8 +185,7 @@ public class TimerA extends Check {
 
         // Flag based on buffer threshold
         if (buffer >= BUFFER_THRESHOLD) {
-            String details = formatDetails(packetsPerSecond, calculatedTps, averageTimeDiff);
-            flag(1.0, details);
+            flag(1.0, DETAILS, packetsPerSecond, calculatedTps, averageTimeDiff, lowestTps, highestTps, buffer);
             buffer = Math.max(0, buffer - 3);
         }
     }
@@ -187,22 +199,9 @@ public class TimerA extends Check {
             return;
         }
 
-        // Convert queue to array for easier analysis
-        Long[] packetTimes = packetTimestamps.toArray(new Long[0]);
-        int diffCount = 0;
-        double totalVariance = 0;
-
-        // Calculate variance in packet timing
-        for (int i = 1; i < packetTimes.length; i++) {
-            long diff = packetTimes[i] - packetTimes[i-1];
-            if (diff > 0 && diff < MAX_TIME_DIFF) {
-                totalVariance += Math.abs(diff - avgTimeDiff);
-                diffCount++;
-            }
-        }
-
-        // Average deviation from the mean
-        double averageVariance = diffCount > 0 ? totalVariance / diffCount : 0;
+        // Deviation of packet timing from the mean
+        int diffCount = packetIntervals.size();
+        double averageVariance = packetIntervals.getStdDev();
 
         // Suspiciously consistent timing is a strong indicator of a timer hack
         // Human players will have natural variance, hacks often have machine-like precision
@@ -210,11 +209,8 @@ public class TimerA extends Check {
             ratioBuffer += 2;
 
             if (ratioBuffer >= RATIO_VIOLATION_BUFFER) {
-                String details = String.format(
-                        "timer-consistency: variance=%.3f, tps=%.2f, diffs=%d",
-                        averageVariance, currentTps, diffCount
-                );
-                flag(2.0, details);
+                flag(2.0, "timer-consistency: variance=%.3f, tps=%.2f, diffs=%.0f",
+                        averageVariance, currentTps, diffCount);
                 ratioBuffer = 0;
             }
         } else {
@@ -228,18 +224,11 @@ public class TimerA extends Check {
     private double calculatePacketsPerSecond() {
         long currentTime = System.currentTimeMillis();
         
-        // Add null check
         if (packetTimestamps.isEmpty()) {
             return 20.0; // Return default value if no data
         }
         
-        Long oldestPacketTime = packetTimestamps.peek();
-        
-        // Add null check
-        if (oldestPacketTime == null) {
-            return 20.0; // Return default value if peek returned null
-        }
-        
+        long oldestPacketTime = packetTimestamps.getFirst();
         double timeRange = (currentTime - oldestPacketTime) / 1000.0;
 
         // Avoid division by zero
@@ -252,64 +241,16 @@ public class TimerA extends Check {
      * Calculate average time between packets
      */
     private double calculateAverageTimeDiff() {
-        Long[] times = packetTimestamps.toArray(new Long[0]);
-        if (times.length < 2) return 50.0;
-
-        double totalDiff = 0;
-        int count = 0;
-
-        for (int i = 1; i < times.length; i++) {
-            long diff = times[i] - times[i-1];
-
-            // Filter out unusually large values (likely server hiccups)
-            if (diff > 0 && diff < MAX_TIME_DIFF) {
-                totalDiff += diff;
-                count++;
-            }
-        }
-
-        return count > 0 ? totalDiff / count : 50.0;
-    }
-
-    /**
-     * Format violation details
-     */
-    private String formatDetails(double packetsPerSecond, double calculatedTps, double averageTimeDiff) {
-        return String.format(
-                "packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, " +
-                        "lowest-tps=%.2f, highest-tps=%.2f, buffer=%d",
-                packetsPerSecond, calculatedTps, averageTimeDiff,
-                lowestTps, highestTps, buffer
-        );
-    }
-
-    /**
-     * Format fast timer violation details
-     */
-    private String formatFastDetails(double packetsPerSecond, double calculatedTps, double averageTimeDiff) {
-        return String.format(
-                "fast-timer: packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, streak=%d",
-                packetsPerSecond, calculatedTps, averageTimeDiff, fastPacketStreak
-        );
-    }
-
-    /**
-     * Format slow timer violation details
-     */
-    private String formatSlowDetails(double packetsPerSecond, double calculatedTps, double averageTimeDiff) {
-        return String.format(
-                "slow-timer: packets/s=%.2f, tps=%.2f, avg-diff=%.2fms, streak=%d",
-                packetsPerSecond, calculatedTps, averageTimeDiff, slowPacketStreak
-        );
+        return packetIntervals.isEmpty() ? 50.0 : packetIntervals.getMean();
     }
 
     /**
      * Check if player is exempt from checks
      */
-    private boolean isExempt(Player player) {
+    private boolean isExempt(PlayerStateSnapshot state) {
         // Basic exemptions
-        if (player.isFlying() ||
-                player.getAllowFlight() ||
+        if (state.isFlying() ||
+                state.getAllowFlight() ||
                 playerData.isExempt()) {
             return true;
         }
@@ -333,7 +274,7 @@ public class TimerA extends Check {
         }
 
         // Check world change
-        String currentWorld = player.getWorld().getName();
+        String currentWorld = state.getWorldName();
         if (!currentWorld.equals(lastWorld)) {
             lastWorld = currentWorld;
             lastWorldChangeTime = currentTime;
@@ -352,16 +293,6 @@ public class TimerA extends Check {
         return serverTps < 19.0; // If server TPS is below 19, consider it lagging
     }
 
-    /**
-     * Check if packet is a movement packet
-     */
-    private boolean isMovementPacket(PacketType type) {
-        return type == PacketType.Play.Client.POSITION ||
-                type == PacketType.Play.Client.POSITION_LOOK ||
-                type == PacketType.Play.Client.LOOK ||
-                type == PacketType.Play.Client.FLYING;
-    }
-
     /**
      * Called when player teleports (to prevent false positives)
      */
@@ -369,6 +300,8 @@ public class TimerA extends Check {
         lastTeleportTime = System.currentTimeMillis();
         // Clear packet history after teleport
         packetTimestamps.clear();
+        packetIntervals.clear();
+        intervalStarts.clear();
         lastPacketTime = 0;
     }
 
@@ -379,6 +312,8 @@ public class TimerA extends Check {
         lastWorldChangeTime = System.currentTimeMillis();
         // Clear packet history after world change
         packetTimestamps.clear();
+        packetIntervals.clear();
+        intervalStarts.clear();
         lastPacketTime = 0;
     }
 
@@ -389,6 +324,8 @@ public class TimerA extends Check {
         joinTime = System.currentTimeMillis();
         // Clear packet history on join
         packetTimestamps.clear();
+        packetIntervals.clear();
+        intervalStarts.clear();
         lastPacketTime = 0;
         buffer = 0;
         fastPacketStreak = 0;
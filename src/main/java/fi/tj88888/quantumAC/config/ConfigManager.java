@@ -22,9 +22,9 @@ public class ConfigManager {
     private FileConfiguration messagesConfig;
     private File messagesConfigFile;
 
-    // TPS monitoring
-    private double currentTPS = 20.0;
-    private final double[] recentTPS = new double[3];
+    // TPS monitoring (read from packet threads); measured over the last TPS_SAMPLE_TICKS ticks
+    private static final int TPS_SAMPLE_TICKS = 20;
+    private volatile double currentTPS = 20.0;
 
     public ConfigManager(QuantumAC plugin) {
         this.plugin = plugin;
@@ -82,6 +82,15 @@ public class ConfigManager {
         }
     }
 
+    // Storage settings
+    public String getStorageType() {
+        return config.getString("database.type", "AUTO");
+    }
+
+    public String getLocalStorageDirectory() {
+        return config.getString("database.local.directory", "storage");
+    }
+
     // MongoDB settings
     public String getMongoUri() {
         return config.getString("database.mongodb.uri", "");
@@ -91,6 +100,92 @@ public class ConfigManager {
         return config.getString("database.mongodb.database", "quantumac");
     }
 
+    public int getViolationQueueSize() {
+        return Math.max(1, config.getInt("database.violation-writer.queue-size", 8192));
+    }
+
+    public int getViolationBatchSize() {
+        return Math.max(1, config.getInt("database.violation-writer.batch-size", 100));
+    }
+
+    public long getViolationFlushInterval() {
+        return Math.max(1, config.getLong("database.violation-writer.flush-interval-ms", 1000));
+    }
+
+    public int getViolationMaxRetries() {
+        return Math.max(1, config.getInt("database.violation-writer.max-retries", 5));
+    }
+
+    public int getViolationRetentionDays() {
+        return config.getInt("database.violations.retention-days", 0);
+    }
+
+    public boolean isViolationJournalEnabled() {
+        return config.getBoolean("database.journal.enabled", true);
+    }
+
+    public String getViolationJournalDirectory() {
+        return config.getString("database.journal.directory", "journal");
+    }
+
+    public long getViolationJournalMaxRecords() {
+        return Math.max(1, config.getLong("database.journal.max-records", 524288));
+    }
+
+    // Performance settings
+    public int getMaxThreads() {
+        return Math.max(1, config.getInt("performance.max-threads", 4));
+    }
+
+    public int getMaxQueueSize() {
+        return Math.max(1, config.getInt("performance.max-queue-size", 1000));
+    }
+
+    public double getMinTPS() {
+        return config.getDouble("performance.min-tps", 17.5);
+    }
+
+    public String getOverflowPolicy() {
+        return config.getString("performance.overflow-policy", "COALESCE");
+    }
+
+    public String getExecutionMode() {
+        return config.getString("performance.execution-mode", "PLATFORM");
+    }
+
+    public boolean isLoadSheddingEnabled() {
+        return config.getBoolean("performance.load-shedding.enabled", true);
+    }
+
+    public double getSampleBelowTPS() {
+        return config.getDouble("performance.load-shedding.sample-below-tps", 19.0);
+    }
+
+    public double getCriticalOnlyBelowTPS() {
+        return config.getDouble("performance.load-shedding.critical-only-below-tps", 15.0);
+    }
+
+    public int getShedSampleRate() {
+        return Math.max(1, config.getInt("performance.load-shedding.sample-rate", 4));
+    }
+
+    public boolean isProfilingEnabled() {
+        return config.getBoolean("performance.profiling.enabled", true);
+    }
+
+    public int getProfilingSampleRate() {
+        return Math.max(1, config.getInt("performance.profiling.sample-rate", 16));
+    }
+
+    // Violation settings
+    public boolean isLogToFileEnabled() {
+        return config.getBoolean("violations.log-to-file", false);
+    }
+
+    public long getLogFileMaxSize() {
+        return Math.max(1, config.getLong("violations.log-file-max-mb", 64)) * 1024 * 1024;
+    }
+
     // Alert settings
     public boolean isAlertsEnabled() {
         return config.getBoolean("alerts.enabled", true);
@@ -133,27 +228,25 @@ public class ConfigManager {
     // TPS monitoring
     private void startTPSMonitor() {
         Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
-            private long lastPoll = System.nanoTime();
+            // Start time of each of the last TPS_SAMPLE_TICKS ticks, in nanoseconds
+            private final long[] tickTimes = new long[TPS_SAMPLE_TICKS];
+            private long ticks;
 
             @Override
             public void run() {
-                final long startTime = System.nanoTime();
-                long timeSpent = (startTime - lastPoll) / 1000;
-
-                if (timeSpent == 0) {
-                    timeSpent = 1;
-                }
-
-                if (recentTPS[0] > 20.0) {
-                    recentTPS[0] = 20.0;
+                final long now = System.nanoTime();
+                int slot = (int) (ticks % TPS_SAMPLE_TICKS);
+
+                // Until the window is full, measure over the ticks seen so far
+                long samples = Math.min(ticks, TPS_SAMPLE_TICKS);
+                if (samples > 0) {
+                    long oldest = tickTimes[ticks >= TPS_SAMPLE_TICKS ? slot : 0];
+                    long elapsed = Math.max(1, now - oldest);
+                    currentTPS = Math.min(20.0, samples * 1_000_000_000.0 / elapsed);
                 }
 
-                currentTPS = (double) Math.min(1000000000L / timeSpent, 20) * 0.8 + recentTPS[0] * 0.2;
-
-                System.arraycopy(recentTPS, 0, recentTPS, 1, recentTPS.length - 1);
-                recentTPS[0] = currentTPS;
-
-                lastPoll = startTime;
+                tickTimes[slot] = now;
+                ticks++;
             }
         }, 1L, 1L);
     }
@@ -0,0 +1,227 @@
+package fi.tj88888.quantumAC.data;
+
+import fi.tj88888.quantumAC.util.LongIntHashMap;
+import fi.tj88888.quantumAC.util.LongObjectHashMap;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world cache of block types around players, read by the packet workers.
+ *
+ * Blocks are keyed by their packed coordinates and grouped by chunk, so a chunk unload drops
+ * all of its entries at once. Entries never expire on their own; they are removed when a block
+ * event touches the position (see {@link fi.tj88888.quantumAC.listener.BlockCacheListener}).
+ * Because most block events fire before the world changes, every invalidation is repeated on
+ * the next tick, which bounds a stale entry to a single tick.
+ */
+public class BlockStateCache {
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final int MISSING = -1;
+
+    private final Map<UUID, WorldBlocks> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Block type at the given position, loading it from the world on a miss.
+     * Positions in unloaded chunks are reported as air and not cached.
+     *
+     * @param world The world
+     * @param x Block x
+     * @param y Block y
+     * @param z Block z
+     * @return The block type
+     */
+    public Material getType(World world, int x, int y, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long chunkKey = chunkKey(chunkX, chunkZ);
+        long blockKey = blockKey(x, y, z);
+        WorldBlocks blocks = getWorld(world);
+
+        ChunkBlocks chunk;
+        int version;
+        synchronized (blocks) {
+            chunk = blocks.chunks.get(chunkKey);
+            if (chunk != null) {
+                int cached = chunk.types.get(blockKey);
+                if (cached != MISSING) {
+                    return MATERIALS[cached];
+                }
+            }
+        }
+
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return Material.AIR;
+        }
+
+        synchronized (blocks) {
+            chunk = blocks.chunks.get(chunkKey);
+            if (chunk == null) {
+                chunk = new ChunkBlocks();
+                blocks.chunks.put(chunkKey, chunk);
+            }
+            version = chunk.version;
+        }
+
+        Material type = world.getBlockAt(x, y, z).getType();
+
+        synchronized (blocks) {
+            // Only cache if nothing touched this chunk while the world was being read
+            if (blocks.chunks.get(chunkKey) == chunk && chunk.version == version) {
+                chunk.types.put(blockKey, type.ordinal());
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Block type at the block containing the given coordinates
+     */
+    public Material getType(World world, double x, double y, double z) {
+        return getType(world, floor(x), floor(y), floor(z));
+    }
+
+    /**
+     * Drops a block from the cache now and again on the next tick
+     */
+    public void invalidate(Block block) {
+        invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public void invalidate(World world, int x, int y, int z) {
+        WorldBlocks blocks = worlds.get(world.getUID());
+        if (blocks == null) return;
+
+        long chunkKey = chunkKey(x >> 4, z >> 4);
+        long blockKey = blockKey(x, y, z);
+        synchronized (blocks) {
+            removeBlock(blocks, chunkKey, blockKey);
+            blocks.defer(chunkKey, blockKey);
+        }
+    }
+
+    /**
+     * Drops every cached block of an unloaded chunk
+     */
+    public void invalidateChunk(World world, int chunkX, int chunkZ) {
+        WorldBlocks blocks = worlds.get(world.getUID());
+        if (blocks == null) return;
+
+        synchronized (blocks) {
+            ChunkBlocks chunk = blocks.chunks.remove(chunkKey(chunkX, chunkZ));
+            if (chunk != null) {
+                chunk.version++;
+            }
+        }
+    }
+
+    public void invalidateWorld(World world) {
+        worlds.remove(world.getUID());
+    }
+
+    /**
+     * Repeats the invalidations queued since the last tick, after the block changes behind them
+     * have been applied. Must be called on the main thread once per tick.
+     */
+    public void flushDeferred() {
+        for (WorldBlocks blocks : worlds.values()) {
+            synchronized (blocks) {
+                for (int i = 0; i < blocks.deferredCount; i++) {
+                    removeBlock(blocks, blocks.deferredChunks[i], blocks.deferredBlocks[i]);
+                }
+                blocks.deferredCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Number of cached block positions across all worlds
+     */
+    public int size() {
+        int total = 0;
+        for (WorldBlocks blocks : worlds.values()) {
+            synchronized (blocks) {
+                int[] count = {0};
+                blocks.chunks.forEachValue(chunk -> count[0] += chunk.types.size());
+                total += count[0];
+            }
+        }
+        return total;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    private WorldBlocks getWorld(World world) {
+        UUID id = world.getUID();
+        WorldBlocks blocks = worlds.get(id);
+        if (blocks == null) {
+            blocks = worlds.computeIfAbsent(id, key -> new WorldBlocks());
+        }
+        return blocks;
+    }
+
+    private static void removeBlock(WorldBlocks blocks, long chunkKey, long blockKey) {
+        ChunkBlocks chunk = blocks.chunks.get(chunkKey);
+        if (chunk == null) return;
+
+        chunk.types.remove(blockKey);
+        chunk.version++;
+        if (chunk.types.isEmpty()) {
+            blocks.chunks.remove(chunkKey);
+        }
+    }
+
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs block coordinates into a long: 26 bits of x, 26 bits of z and 12 bits of y
+     */
+    private static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    /**
+     * Cached chunks of one world; guarded by its own monitor
+     */
+    private static class WorldBlocks {
+        final LongObjectHashMap<ChunkBlocks> chunks = new LongObjectHashMap<>(64);
+
+        long[] deferredChunks = new long[64];
+        long[] deferredBlocks = new long[64];
+        int deferredCount;
+
+        void defer(long chunkKey, long blockKey) {
+            if (deferredCount == deferredChunks.length) {
+                deferredChunks = Arrays.copyOf(deferredChunks, deferredCount << 1);
+                deferredBlocks = Arrays.copyOf(deferredBlocks, deferredCount << 1);
+            }
+            deferredChunks[deferredCount] = chunkKey;
+            deferredBlocks[deferredCount] = blockKey;
+            deferredCount++;
+        }
+    }
+
+    /**
+     * Cached block types of one chunk, stored as material ordinals.
+     * The version changes on every invalidation so in-flight loads can tell they are stale.
+     */
+    private static class ChunkBlocks {
+        final LongIntHashMap types = new LongIntHashMap(32, MISSING);
+        int version;
+    }
+}
@@ -0,0 +1,242 @@
+package fi.tj88888.quantumAC.data;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Frequently updated numbers of all online players, stored column by column.
+ *
+ * Each player gets a slot; slots are grouped into pages of 64 so a page's columns are dense primitive
+ * arrays and server-wide sweeps such as violation decay scan memory linearly instead of chasing
+ * PlayerData objects. Pages never move once created, so a PlayerData can keep a direct reference to
+ * its page. A released slot is only reused after a grace period, since asynchronous work on the old
+ * player may still be reading its row.
+ */
+public class HotPlayerState {
+
+    static final int PAGE_BITS = 6;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final long SLOT_REUSE_DELAY = 60000; // ms
+
+    private volatile Page[] pages = new Page[0];
+    private final ArrayDeque<ReleasedSlot> releasedSlots = new ArrayDeque<>();
+    private int nextSlot;
+    private int activeSlots;
+
+    /**
+     * Claims a cleared slot, reusing one released long enough ago if possible
+     */
+    public synchronized int allocate() {
+        int slot;
+        ReleasedSlot released = releasedSlots.peekFirst();
+        if (released != null && System.currentTimeMillis() - released.releasedAt >= SLOT_REUSE_DELAY) {
+            releasedSlots.pollFirst();
+            slot = released.slot;
+        } else {
+            slot = nextSlot++;
+            int pageIndex = slot >> PAGE_BITS;
+            if (pageIndex >= pages.length) {
+                Page[] grown = Arrays.copyOf(pages, pageIndex + 1);
+                grown[pageIndex] = new Page(PAGE_SIZE);
+                pages = grown;
+            }
+        }
+
+        page(slot).clearRow(row(slot));
+        activeSlots++;
+        return slot;
+    }
+
+    public synchronized void release(int slot) {
+        releasedSlots.addLast(new ReleasedSlot(slot, System.currentTimeMillis()));
+        activeSlots--;
+    }
+
+    Page page(int slot) {
+        return pages[slot >> PAGE_BITS];
+    }
+
+    static int row(int slot) {
+        return slot & PAGE_MASK;
+    }
+
+    /**
+     * Lowers every positive violation level of every player by the given amount, marking the
+     * players whose levels changed as needing a save
+     */
+    public void decayViolationLevels(double amount) {
+        for (Page page : pages) {
+            page.decayViolationLevels(amount);
+        }
+    }
+
+    public synchronized int getActiveSlots() {
+        return activeSlots;
+    }
+
+    /**
+     * Number of slots backed by memory, including released ones
+     */
+    public int getCapacity() {
+        return pages.length * PAGE_SIZE;
+    }
+
+    private static class ReleasedSlot {
+        final int slot;
+        final long releasedAt;
+
+        ReleasedSlot(int slot, long releasedAt) {
+            this.slot = slot;
+            this.releasedAt = releasedAt;
+        }
+    }
+
+    /**
+     * Columns for a block of player rows. Plain columns have the same memory semantics as the
+     * PlayerData fields they replace and are each written by one thread, the row's packet lane or the
+     * main thread. Columns written from several threads are only accessed atomically through
+     * {@link #INTS} or {@link #LEVELS}: the violation levels, {@code totalViolations} (packet lanes and
+     * the I/O thread that loads saved data) and {@code dataVersion} (packet lanes when flagging and the
+     * main thread when decaying levels), where a lost increment would let a save mark unsaved changes as
+     * saved.
+     */
+    static final class Page {
+
+        static final int VL_CHUNK_BITS = 4;
+        static final int VL_CHUNK_SIZE = 1 << VL_CHUNK_BITS;
+        static final int VL_CHUNK_MASK = VL_CHUNK_SIZE - 1;
+        static final VarHandle LEVELS = MethodHandles.arrayElementVarHandle(double[].class);
+        static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+        final int rows;
+
+        // Packet timestamps
+        final long[] lastFlying;
+        final long[] lastPosition;
+        final long[] lastPositionLook;
+        final long[] lastLook;
+        final long[] lastArmAnimation;
+        final long[] lastAttack;
+
+        // Counters
+        final int[] flyingCount;
+        final int[] positionCount;
+        final int[] positionLookCount;
+        final int[] lookCount;
+        final int[] armAnimationCount;
+        final int[] attackCount;
+        final int[] totalViolations; // atomic, see INTS
+
+        // Connection and surroundings
+        final int[] averagePing;
+        final int[] nearbyEntityCount;
+
+        // Bumped on every change that needs saving; compared against the version last saved. Atomic, see INTS
+        final int[] dataVersion;
+
+        /*
+         * Violation levels in chunks of 16 check ids: chunk c holds ids [16c, 16c + 16) for every row,
+         * row-major. Only the directory is copied when a larger id appears; chunks never move, so a
+         * compare-and-set racing with growth cannot land in a stale copy.
+         */
+        private volatile double[][] violationChunks = new double[1][];
+
+        Page(int rows) {
+            this.rows = rows;
+            this.lastFlying = new long[rows];
+            this.lastPosition = new long[rows];
+            this.lastPositionLook = new long[rows];
+            this.lastLook = new long[rows];
+            this.lastArmAnimation = new long[rows];
+            this.lastAttack = new long[rows];
+            this.flyingCount = new int[rows];
+            this.positionCount = new int[rows];
+            this.positionLookCount = new int[rows];
+            this.lookCount = new int[rows];
+            this.armAnimationCount = new int[rows];
+            this.attackCount = new int[rows];
+            this.totalViolations = new int[rows];
+            this.averagePing = new int[rows];
+            this.nearbyEntityCount = new int[rows];
+            this.dataVersion = new int[rows];
+        }
+
+        void clearRow(int row) {
+            lastFlying[row] = 0;
+            lastPosition[row] = 0;
+            lastPositionLook[row] = 0;
+            lastLook[row] = 0;
+            lastArmAnimation[row] = 0;
+            lastAttack[row] = 0;
+            flyingCount[row] = 0;
+            positionCount[row] = 0;
+            positionLookCount[row] = 0;
+            lookCount[row] = 0;
+            armAnimationCount[row] = 0;
+            attackCount[row] = 0;
+            totalViolations[row] = 0;
+            averagePing[row] = 0;
+            nearbyEntityCount[row] = 0;
+            dataVersion[row] = 0;
+
+            for (double[] chunk : violationChunks) {
+                if (chunk == null) continue;
+                for (int slot = row << VL_CHUNK_BITS, end = slot + VL_CHUNK_SIZE; slot < end; slot++) {
+                    LEVELS.setVolatile(chunk, slot, 0.0);
+                }
+            }
+        }
+
+        /**
+         * Chunk holding the given check id, or null if no level in that range was ever written
+         */
+        double[] findViolationChunk(int checkId) {
+            double[][] current = violationChunks;
+            int index = checkId >> VL_CHUNK_BITS;
+            return index < current.length ? current[index] : null;
+        }
+
+        int violationChunkCount() {
+            return violationChunks.length;
+        }
+
+        double[] violationChunk(int checkId) {
+            double[] chunk = findViolationChunk(checkId);
+            return chunk != null ? chunk : allocateViolationChunk(checkId >> VL_CHUNK_BITS);
+        }
+
+        private synchronized double[] allocateViolationChunk(int index) {
+            double[][] current = violationChunks;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+
+            // Directory entries are only published through the volatile write below
+            double[][] published = Arrays.copyOf(current, Math.max(index + 1, current.length));
+            published[index] = new double[rows << VL_CHUNK_BITS];
+            violationChunks = published;
+            return published[index];
+        }
+
+        void decayViolationLevels(double amount) {
+            for (double[] chunk : violationChunks) {
+                if (chunk == null) continue;
+
+                for (int slot = 0; slot < chunk.length; slot++) {
+                    double current;
+                    do {
+                        current = (double) LEVELS.getVolatile(chunk, slot);
+                        if (current <= 0) break;
+                    } while (!LEVELS.compareAndSet(chunk, slot, current, Math.max(0, current - amount)));
+
+                    if (current > 0) {
+                        INTS.getAndAdd(dataVersion, slot >> VL_CHUNK_BITS, 1);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package fi.tj88888.quantumAC.data;
+
+import fi.tj88888.quantumAC.util.MovementFrame;
+
+/**
+ * The latest movement frame of a player together with the one it replaced.
+ * Both are published through a single volatile reference, so a reader always gets a matching pair.
+ */
+public final class MovementFrames {
+
+    private final MovementFrame current;
+    private final MovementFrame previous;
+
+    MovementFrames(MovementFrame current, MovementFrame previous) {
+        this.current = current;
+        this.previous = previous;
+    }
+
+    public MovementFrame getCurrent() {
+        return current;
+    }
+
+    public MovementFrame getPrevious() {
+        return previous;
+    }
+}
@@ -0,0 +1,168 @@
+package fi.tj88888.quantumAC.data;
+
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-size capture of a player's recent packets for the packet debugger.
+ *
+ * Entries are stored as primitive columns and overwritten in place, so recording a packet does no
+ * allocation, string building or history scan; the previous packet of the same kind is found through a
+ * per-kind last-timestamp index. Exactly one thread, the player's packet lane, records. The main thread
+ * reads entries by sequence and must confirm with {@link #isValid(long)} after reading that the writer
+ * has not lapped the slot meanwhile. The per-kind totals are read without synchronization and may be a
+ * packet behind, which is fine for display.
+ */
+public class PacketDebugRing {
+
+    public static final long NO_PREVIOUS = -1;
+
+    private final int mask;
+    private final long startTime;
+
+    private final byte[] kinds;
+    private final boolean[] grounds;
+    private final int[] actions;
+    private final long[] timestamps;
+    private final long[] sincePrevious;
+
+    // Indexed by PacketKind ordinal
+    private final long[] lastTimestamps;
+    private final long[] counts;
+    private final long[] intervalSums;
+    private final long[] intervalCounts;
+
+    // Sequence of the next entry; written only by the recording thread
+    private volatile long written;
+
+    // Next sequence the main thread has not rendered yet
+    private long rendered;
+
+    /**
+     * @param capacity Number of entries kept, rounded up to a power of two
+     * @param startTime When capture started, in milliseconds
+     */
+    public PacketDebugRing(int capacity, long startTime) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.startTime = startTime;
+
+        this.kinds = new byte[size];
+        this.grounds = new boolean[size];
+        this.actions = new int[size];
+        this.timestamps = new long[size];
+        this.sincePrevious = new long[size];
+
+        int kindCount = PacketKind.count();
+        this.lastTimestamps = new long[kindCount];
+        this.counts = new long[kindCount];
+        this.intervalSums = new long[kindCount];
+        this.intervalCounts = new long[kindCount];
+    }
+
+    /**
+     * Records one packet. Must only be called from the player's packet lane.
+     */
+    public void record(PacketKind kind, boolean onGround, int action, long timestamp) {
+        long sequence = written;
+        int index = (int) sequence & mask;
+        int ordinal = kind.ordinal();
+
+        long previous = lastTimestamps[ordinal];
+        long interval = previous > 0 && previous <= timestamp ? timestamp - previous : NO_PREVIOUS;
+        if (interval != NO_PREVIOUS) {
+            intervalSums[ordinal] += interval;
+            intervalCounts[ordinal]++;
+        }
+        lastTimestamps[ordinal] = timestamp;
+        counts[ordinal]++;
+
+        kinds[index] = (byte) ordinal;
+        grounds[index] = onGround;
+        actions[index] = action;
+        timestamps[index] = timestamp;
+        sincePrevious[index] = interval;
+
+        // Volatile write publishes the entry to the main thread
+        written = sequence + 1;
+    }
+
+    /**
+     * @return Sequence of the next entry to be written; entries exist for {@link #oldest()} up to this
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * @return Sequence of the oldest entry still held
+     */
+    public long oldest() {
+        return Math.max(0, written - capacity());
+    }
+
+    /**
+     * Whether an entry read at this sequence is still intact. Call after reading its fields.
+     */
+    public boolean isValid(long sequence) {
+        // Keep the plain field reads before this from moving past the re-read of written
+        VarHandle.acquireFence();
+        long current = written;
+        // At exactly capacity behind, the slot is the one the writer fills before bumping written
+        return sequence < current && current - sequence < capacity();
+    }
+
+    public PacketKind kindAt(long sequence) {
+        return PacketKind.byOrdinal(kinds[(int) sequence & mask]);
+    }
+
+    public long timestampAt(long sequence) {
+        return timestamps[(int) sequence & mask];
+    }
+
+    /**
+     * @return Milliseconds since the previous packet of the same kind, or {@link #NO_PREVIOUS}
+     */
+    public long sincePreviousAt(long sequence) {
+        return sincePrevious[(int) sequence & mask];
+    }
+
+    public String describeAt(long sequence) {
+        int index = (int) sequence & mask;
+        return PacketSnapshot.describe(PacketKind.byOrdinal(kinds[index]), grounds[index], actions[index]);
+    }
+
+    /**
+     * Moves the render cursor to the given end of the capture. Main thread only.
+     *
+     * @param to The {@link #written()} value rendering goes up to
+     * @return The sequence rendering should continue from
+     */
+    long advanceRendered(long to) {
+        long from = rendered;
+        rendered = to;
+        return from;
+    }
+
+    public long getCount(PacketKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * @return Average milliseconds between packets of this kind, or -1 before two were seen
+     */
+    public double getAverageInterval(PacketKind kind) {
+        long samples = intervalCounts[kind.ordinal()];
+        return samples == 0 ? -1 : (double) intervalSums[kind.ordinal()] / samples;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -1,58 +1,55 @@
 package fi.tj88888.quantumAC.data;
 
 import fi.tj88888.quantumAC.QuantumAC;
-import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
 import fi.tj88888.quantumAC.util.ChatUtil;
+import fi.tj88888.quantumAC.util.LongRingBuffer;
 import fi.tj88888.quantumAC.util.MovementData;
+import fi.tj88888.quantumAC.util.MovementFrame;
+import fi.tj88888.quantumAC.util.SlidingWindowStats;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class PlayerData {
 
-    // Packet Debugging
-    private boolean packetDebugEnabled = false;
-    private final List<PacketDebugEntry> packetDebugHistory = new ArrayList<>();
-    private static final int MAX_PACKET_DEBUG_HISTORY = 200; // Store up to 200 packets
-    private final Map<String, Integer> packetTypeCounts = new HashMap<>();
-    private long firstPacketTimestamp = 0;
-    private long lastTickCalculation = 0;
-    private final Map<String, Double> averageTicksBetweenPackets = new HashMap<>();
+    // Packet Debugging; the capture is null while debugging is off
+    private static final int PACKET_DEBUG_CAPACITY = 256;
+    private static final int MAX_PACKET_DEBUG_LINES = 10; // Real-time lines sent per tick
+    private static final int BURST_SCAN_MARGIN = 32; // Oldest entries skipped, the lane may be overwriting them
+    private static final DateTimeFormatter PACKET_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private volatile PacketDebugRing packetDebug;
 
     private final UUID uuid;
     private final String playerName;
     private long joinTime;
-    private int averagePing;
-    private int totalViolations;
 
-    // Movement data with thread safety
-    private final ReentrantReadWriteLock movementLock = new ReentrantReadWriteLock();
-    private Location lastLocation;
-    private Location lastSafeLocation;
+    // Row of this player in the hot state columns; slot is -1 for data not owned by the PlayerDataManager
+    private final HotPlayerState.Page hot;
+    private final int row;
+    private final int slot;
+
+    // Movement state; only the packet lane writes movementData, everyone else reads the published frames
+    private volatile Location lastLocation;
+    private volatile Location lastSafeLocation;
     private final MovementData movementData;
-    private final MovementData previousMovementData; // Keep a backup of previous movement state
+    private volatile MovementFrames movementFrames;
 
-    // Check VL tracking
-    private final Map<Class<? extends Check>, Double> violationLevels;
+    // Bukkit state published by the main thread every tick; checks read this instead of the Player
+    private volatile PlayerStateSnapshot stateSnapshot;
 
-    // Basic packet tracking
-    private long lastFlying;
-    private long lastPosition;
-    private long lastPositionLook;
-    private long lastLook;
-    private int flyingCount;
-    private int positionCount;
-    private int positionLookCount;
-    private int lookCount;
+    // Check VL tracking, indexed by check id
+    private final ViolationLevels violationLevels;
 
     // Enhanced packet tracking
-    private long lastArmAnimation;
     private long lastInventoryAction;
     private long lastInventoryClose;
     private long lastBlockDig;
@@ -63,23 +60,21 @@ public class PlayerData {
     private long lastKeepAlive;
     private long lastEntityAction;
     // Count tracking for enhanced packets
-    private int armAnimationCount;
     private int inventoryActionCount;
     private int blockDigCount;
     private int blockPlaceCount;
 
     // Recent action timing tracking for analysis
-    private final Deque<Long> recentArmAnimations = new ArrayDeque<>();
-    private final Deque<Long> recentInventoryActions = new ArrayDeque<>();
+    private final LongRingBuffer recentArmAnimations = new LongRingBuffer(30);
+    private final SlidingWindowStats clickIntervals = new SlidingWindowStats(29);
+    private final LongRingBuffer recentInventoryActions = new LongRingBuffer(20);
 
     // Ping tracking
     private final int[] pingHistory;
     private int pingIndex;
 
     // Combat tracking
-    private long lastAttack;
     private Integer lastAttackedEntity;
-    private int attackCount;
 
     // Enhanced combat tracking
     private long lastInteract;
@@ -92,34 +87,48 @@ public class PlayerData {
 
     // Performance optimization fields
     private double serverTPS = 20.0;
-    private int cachedNearbyEntityCount = 0;
     private long lastEntityCountUpdate = 0;
     private static final long ENTITY_COUNT_UPDATE_INTERVAL = 5000; // 5 seconds
 
-    // Buffer to reduce database writes
-    private boolean dataChanged = false;
-    private long lastDataSave = 0;
-    private static final long DATA_SAVE_INTERVAL = 60000; // 1 minute
+    // Change version of the hot state row last written to the database
+    private volatile int savedVersion;
+
+    // Amount every violation level drops per cached data update
+    static final double VIOLATION_DECAY = 0.1;
 
+    /**
+     * Creates standalone player data, e.g. for a database load, with its own single-row hot state
+     */
     public PlayerData(UUID uuid, String playerName) {
+        this(uuid, playerName, new HotPlayerState.Page(1), 0, -1);
+    }
+
+    /**
+     * Creates player data backed by a slot of the manager's hot state
+     */
+    PlayerData(UUID uuid, String playerName, HotPlayerState hotState, int slot) {
+        this(uuid, playerName, hotState.page(slot), HotPlayerState.row(slot), slot);
+    }
+
+    private PlayerData(UUID uuid, String playerName, HotPlayerState.Page hot, int row, int slot) {
         this.uuid = uuid;
         this.playerName = playerName;
         this.joinTime = System.currentTimeMillis();
-        this.averagePing = 0;
-        this.totalViolations = 0;
+        this.hot = hot;
+        this.row = row;
+        this.slot = slot;
 
         // Always initialize MovementData
         this.movementData = new MovementData();
-        this.previousMovementData = new MovementData(); // Initialize backup
-        this.violationLevels = new ConcurrentHashMap<>();
+        MovementFrame initialFrame = movementData.toFrame();
+        this.movementFrames = new MovementFrames(initialFrame, initialFrame);
+        this.violationLevels = new ViolationLevels(hot, row);
 
         this.pingHistory = new int[20];
         this.pingIndex = 0;
 
         this.exemptionTimers = new HashMap<>();
         this.exempt = false;
-
-        this.lastDataSave = System.currentTimeMillis();
     }
 
     // Basic getters and setters
@@ -137,11 +146,18 @@ public class PlayerData {
 
     public void setJoinTime(long joinTime) {
         this.joinTime = joinTime;
-        this.dataChanged = true;
+        markChanged();
+    }
+
+    /**
+     * Slot of this player in the hot state, or -1 if the data is standalone
+     */
+    int getSlot() {
+        return slot;
     }
 
     public int getAveragePing() {
-        return averagePing;
+        return hot.averagePing[row];
     }
 
     /**
@@ -151,249 +167,226 @@ public class PlayerData {
      * @return The player's current ping in milliseconds
      */
     public int getPing() {
-        return averagePing;
+        return hot.averagePing[row];
     }
 
     public void setAveragePing(int averagePing) {
-        this.averagePing = averagePing;
+        hot.averagePing[row] = averagePing;
     }
 
     public int getTotalViolations() {
-        return totalViolations;
+        return (int) HotPlayerState.Page.INTS.getVolatile(hot.totalViolations, row);
     }
 
     public void setTotalViolations(int totalViolations) {
-        this.totalViolations = totalViolations;
-        this.dataChanged = true;
+        HotPlayerState.Page.INTS.setVolatile(hot.totalViolations, row, totalViolations);
+        markChanged();
     }
 
     public void incrementTotalViolations() {
-        this.totalViolations++;
-        this.dataChanged = true;
+        HotPlayerState.Page.INTS.getAndAdd(hot.totalViolations, row, 1);
+        markChanged();
     }
 
     /**
-     * Displays packet information in real-time to the player
-     * @param packetType The type of packet
-     * @param timestamp The time the packet was received
+     * Sends the packets captured since the last call to the debugging player, at most
+     * {@link #MAX_PACKET_DEBUG_LINES} per call so a packet flood cannot flood the chat or the main thread.
+     * Must be called from the main server thread.
      */
-    public void displayRealtimePacketInfo(String packetType, long timestamp) {
-        if (!packetDebugEnabled || getPlayer() == null) return;
+    public void flushPacketDebug() {
+        PacketDebugRing ring = packetDebug;
+        if (ring == null) return;
+
+        long to = ring.written();
+        long from = ring.advanceRendered(to);
+        if (from == to) return;
 
         Player player = getPlayer();
+        if (player == null) return;
 
-        // Get previous packet of same type for tick calculation
-        double ticksSinceLast = -1;
-        for (int i = packetDebugHistory.size() - 1; i >= 0; i--) {
-            PacketDebugEntry entry = packetDebugHistory.get(i);
-            if (entry.packetType.equals(packetType) && entry.timestamp < timestamp) {
-                ticksSinceLast = (timestamp - entry.timestamp) / 50.0; // 50ms per tick
-                break;
-            }
+        long first = Math.max(Math.max(from, ring.oldest()), to - MAX_PACKET_DEBUG_LINES);
+        long skipped = first - from;
+
+        List<String> lines = new ArrayList<>((int) (to - first) + 1);
+        if (skipped > 0) {
+            lines.add(ChatUtil.colorize("&8[&bPacket&8] &7" + skipped + " packets not shown"));
         }
 
-        // Format time
-        String timeStr = new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(timestamp));
+        StringBuilder message = new StringBuilder(64);
+        for (long sequence = first; sequence < to; sequence++) {
+            long timestamp = ring.timestampAt(sequence);
+            long sincePrevious = ring.sincePreviousAt(sequence);
+            String description = ring.describeAt(sequence);
+            if (!ring.isValid(sequence)) continue;
 
-        // Format message
-        StringBuilder message = new StringBuilder();
-        message.append("&8[&bPacket&8] &7");
-        message.append(timeStr);
-        message.append(" &b");
-        message.append(packetType);
+            message.setLength(0);
+            message.append("&8[&bPacket&8] &7");
+            message.append(PACKET_TIME_FORMAT.format(Instant.ofEpochMilli(timestamp)));
+            message.append(" &b");
+            message.append(description);
 
-        if (ticksSinceLast >= 0) {
-            message.append(" &8(");
-            message.append(String.format("%.2f", ticksSinceLast));
-            message.append(" ticks after prev)");
+            if (sincePrevious != PacketDebugRing.NO_PREVIOUS) {
+                message.append(" &8(");
+                message.append(String.format("%.2f", sincePrevious / 50.0)); // 50ms per tick
+                message.append(" ticks after prev)");
+            }
+
+            lines.add(ChatUtil.colorize(message.toString()));
         }
 
-        // Send to player
-        player.sendMessage(ChatUtil.colorize(message.toString()));
+        player.sendMessage(lines.toArray(new String[0]));
     }
 
-    // Violation level methods
-    public double getViolationLevel(Class<? extends Check> checkClass) {
-        return violationLevels.getOrDefault(checkClass, 0.0);
+    // Violation level methods; check ids come from CheckManager registration
+    public double getViolationLevel(int checkId) {
+        return violationLevels.get(checkId);
     }
 
-    public void setViolationLevel(Class<? extends Check> checkClass, double vl) {
-        violationLevels.put(checkClass, vl);
-        this.dataChanged = true;
+    public void setViolationLevel(int checkId, double vl) {
+        violationLevels.set(checkId, vl);
+        markChanged();
     }
 
-    public void incrementViolationLevel(Class<? extends Check> checkClass, double amount) {
-        double currentVL = getViolationLevel(checkClass);
-        violationLevels.put(checkClass, currentVL + amount);
+    /**
+     * Atomically raises a check's violation level
+     *
+     * @return the violation level after the increase
+     */
+    public double incrementViolationLevel(int checkId, double amount) {
+        double vl = violationLevels.add(checkId, amount);
         incrementTotalViolations();
-        this.dataChanged = true;
+        markChanged();
+        return vl;
     }
 
     public void decreaseViolationLevels() {
         // Decrease all violation levels over time
-        boolean changed = false;
-        for (Map.Entry<Class<? extends Check>, Double> entry : violationLevels.entrySet()) {
-            if (entry.getValue() > 0) {
-                violationLevels.put(entry.getKey(), Math.max(0, entry.getValue() - 0.1));
-                changed = true;
-            }
-        }
-        if (changed) {
-            this.dataChanged = true;
+        if (violationLevels.decay(VIOLATION_DECAY)) {
+            markChanged();
         }
     }
 
-    // Location methods with thread safety
+    // Locations are replaced, never modified in place, so handing out clones is enough
     public Location getLastLocation() {
-        movementLock.readLock().lock();
-        try {
-            return lastLocation != null ? lastLocation.clone() : null;
-        } finally {
-            movementLock.readLock().unlock();
-        }
+        Location location = lastLocation;
+        return location != null ? location.clone() : null;
     }
 
     public void setLastLocation(Location lastLocation) {
-        movementLock.writeLock().lock();
-        try {
-            this.lastLocation = lastLocation;
-        } finally {
-            movementLock.writeLock().unlock();
-        }
+        this.lastLocation = lastLocation;
     }
 
     public Location getLastSafeLocation() {
-        movementLock.readLock().lock();
-        try {
-            return lastSafeLocation != null ? lastSafeLocation.clone() : null;
-        } finally {
-            movementLock.readLock().unlock();
-        }
+        Location location = lastSafeLocation;
+        return location != null ? location.clone() : null;
     }
 
     public void setLastSafeLocation(Location lastSafeLocation) {
-        movementLock.writeLock().lock();
-        try {
-            this.lastSafeLocation = lastSafeLocation;
-        } finally {
-            movementLock.writeLock().unlock();
-        }
+        this.lastSafeLocation = lastSafeLocation;
     }
 
-    public MovementData getMovementData() {
-        movementLock.readLock().lock();
-        try {
-            return movementData;
-        } finally {
-            movementLock.readLock().unlock();
-        }
+    /**
+     * Latest movement frame; never null
+     */
+    public MovementFrame getMovementFrame() {
+        return movementFrames.getCurrent();
     }
 
     /**
-     * Updates both current and previous movement data
-     * Call this before making any changes to movement data
+     * Movement frame before the latest one; never null
      */
-    public void prepareMovementDataUpdate() {
-        movementLock.writeLock().lock();
-        try {
-            // Backup current movement data to previous
-            copyMovementData(movementData, previousMovementData);
-        } finally {
-            movementLock.writeLock().unlock();
-        }
+    public MovementFrame getPreviousMovementFrame() {
+        return movementFrames.getPrevious();
     }
 
     /**
-     * Gets the previous movement data state
-     * Useful for detecting rapid changes or rollbacks
+     * Latest and previous movement frames as a consistent pair.
+     * Use this instead of the two getters above when both frames are compared.
      */
-    public MovementData getPreviousMovementData() {
-        movementLock.readLock().lock();
-        try {
-            return previousMovementData;
-        } finally {
-            movementLock.readLock().unlock();
-        }
+    public MovementFrames getMovementFrames() {
+        return movementFrames;
+    }
+
+    /**
+     * Applies a movement packet and publishes the resulting frame.
+     * Must only be called from the player's packet lane.
+     */
+    void updateMovement(double x, double y, double z, float yaw, float pitch, boolean onGround) {
+        movementData.updatePosition(x, y, z);
+        movementData.updateRotation(yaw, pitch);
+        movementData.updateGroundState(onGround);
+        movementFrames = new MovementFrames(movementData.toFrame(), movementFrames.getCurrent());
     }
 
     /**
-     * Copy all movement data from one object to another
+     * Applies the block state around the latest position. The latest frame is replaced rather than
+     * pushed back, since this completes the same movement update.
+     * Must only be called from the player's packet lane.
      */
-    private void copyMovementData(MovementData source, MovementData target) {
-        // This method would copy all relevant fields
-        // Implementation depends on MovementData structure
-        // Example (implement all fields as needed):
-        target.updatePosition(source.getX(), source.getY(), source.getZ());
-        target.updateRotation(source.getYaw(), source.getPitch());
-        target.updateGroundState(source.isOnGround());
-        target.updateBlockState(
-                source.isInsideBlock(),
-                source.isOnIce(),
-                source.isOnSlime(),
-                source.isInLiquid(),
-                source.isOnStairs(),
-                source.isOnSlab()
-        );
+    void updateBlockState(boolean insideBlock, boolean onIce, boolean onSlime,
+                          boolean inLiquid, boolean onStairs, boolean onSlab) {
+        movementData.updateBlockState(insideBlock, onIce, onSlime, inLiquid, onStairs, onSlab);
+        movementFrames = new MovementFrames(movementData.toFrame(), movementFrames.getPrevious());
     }
 
     // Basic packet timing methods
     public long getLastFlying() {
-        return lastFlying;
+        return hot.lastFlying[row];
     }
 
     public void setLastFlying(long lastFlying) {
-        this.lastFlying = lastFlying;
-        this.flyingCount++;
+        hot.lastFlying[row] = lastFlying;
+        hot.flyingCount[row]++;
     }
 
     public long getLastPosition() {
-        return lastPosition;
+        return hot.lastPosition[row];
     }
 
     public void setLastPosition(long lastPosition) {
-        this.lastPosition = lastPosition;
-        this.positionCount++;
+        hot.lastPosition[row] = lastPosition;
+        hot.positionCount[row]++;
     }
 
     public long getLastPositionLook() {
-        return lastPositionLook;
+        return hot.lastPositionLook[row];
     }
 
     public void setLastPositionLook(long lastPositionLook) {
-        this.lastPositionLook = lastPositionLook;
-        this.positionLookCount++;
+        hot.lastPositionLook[row] = lastPositionLook;
+        hot.positionLookCount[row]++;
     }
 
     public long getLastLook() {
-        return lastLook;
+        return hot.lastLook[row];
     }
 
     public void setLastLook(long lastLook) {
-        this.lastLook = lastLook;
-        this.lookCount++;
+        hot.lastLook[row] = lastLook;
+        hot.lookCount[row]++;
     }
 
     public int getFlyingCount() {
-        return flyingCount;
+        return hot.flyingCount[row];
     }
 
     public int getPositionCount() {
-        return positionCount;
+        return hot.positionCount[row];
     }
 
     public int getPositionLookCount() {
-        return positionLookCount;
+        return hot.positionLookCount[row];
     }
 
     public int getLookCount() {
-        return lookCount;
+        return hot.lookCount[row];
     }
 
     // Enhanced packet tracking methods
 
     // Arm animation
     public long getLastArmAnimation() {
-        return lastArmAnimation;
+        return hot.lastArmAnimation[row];
     }
 
     /**
@@ -403,42 +396,37 @@ public class PlayerData {
      */
     public void setLastArmAnimation(long time) {
         // Skip duplicate timestamps that are too close together
-        if (!recentArmAnimations.isEmpty() && recentArmAnimations.peekLast() != null) {
-            long lastTime = recentArmAnimations.peekLast();
+        if (!recentArmAnimations.isEmpty()) {
+            long lastTime = recentArmAnimations.getLast();
             // If timestamps are identical or unrealistically close (< 10ms), ignore
             if (time - lastTime < 10) {
                 return;
             }
         }
 
-        this.lastArmAnimation = time;
-        this.armAnimationCount++;
+        hot.lastArmAnimation[row] = time;
+        hot.armAnimationCount[row]++;
 
-        // Store for click pattern analysis
-        recentArmAnimations.add(time);
-
-        // Maintain max size of queue
-        while (recentArmAnimations.size() > 30) {
-            recentArmAnimations.pollFirst();
+        // Store for click pattern analysis; the buffer keeps the last 30 clicks
+        if (!recentArmAnimations.isEmpty()) {
+            clickIntervals.add(time - recentArmAnimations.getLast());
         }
+        recentArmAnimations.add(time);
 
         // Remove clicks older than 3 seconds to focus on recent activity
-        long now = System.currentTimeMillis();
-        while (!recentArmAnimations.isEmpty() && recentArmAnimations.peekFirst() != null) {
-            long oldest = recentArmAnimations.peekFirst();
-            if (now - oldest > 3000) {
-                recentArmAnimations.pollFirst();
-            } else {
-                break;
-            }
+        recentArmAnimations.evictOlderThan(System.currentTimeMillis() - 3000);
+
+        // Keep one interval per pair of neighbouring clicks still in the window
+        while (clickIntervals.size() > Math.max(0, recentArmAnimations.size() - 1)) {
+            clickIntervals.removeOldest();
         }
     }
 
     public int getArmAnimationCount() {
-        return armAnimationCount;
+        return hot.armAnimationCount[row];
     }
 
-    public Deque<Long> getRecentArmAnimations() {
+    public LongRingBuffer getRecentArmAnimations() {
         return recentArmAnimations;
     }
 
@@ -453,16 +441,13 @@ public class PlayerData {
 
         // Store for inventory action pattern analysis
         recentInventoryActions.add(time);
-        while (recentInventoryActions.size() > 20) {
-            recentInventoryActions.pollFirst();
-        }
     }
 
     public int getInventoryActionCount() {
         return inventoryActionCount;
     }
 
-    public Deque<Long> getRecentInventoryActions() {
+    public LongRingBuffer getRecentInventoryActions() {
         return recentInventoryActions;
     }
 
@@ -551,17 +536,17 @@ public class PlayerData {
                 count++;
             }
         }
-        this.averagePing = count > 0 ? sum / count : 0;
+        hot.averagePing[row] = count > 0 ? sum / count : 0;
     }
 
     // Basic combat methods
     public long getLastAttack() {
-        return lastAttack;
+        return hot.lastAttack[row];
     }
 
     public void setLastAttack(long lastAttack) {
-        this.lastAttack = lastAttack;
-        this.attackCount++;
+        hot.lastAttack[row] = lastAttack;
+        hot.attackCount[row]++;
     }
 
     public Integer getLastAttackedEntity() {
@@ -573,7 +558,7 @@ public class PlayerData {
     }
 
     public int getAttackCount() {
-        return attackCount;
+        return hot.attackCount[row];
     }
 
     // Enhanced combat methods
@@ -624,6 +609,19 @@ public class PlayerData {
         return Bukkit.getPlayer(this.uuid); // Retrieve the Player object by UUID
     }
 
+    /**
+     * Latest main-thread snapshot of the player's Bukkit state
+     *
+     * @return The snapshot, or null before the first tick after joining
+     */
+    public PlayerStateSnapshot getStateSnapshot() {
+        return stateSnapshot;
+    }
+
+    public void setStateSnapshot(PlayerStateSnapshot stateSnapshot) {
+        this.stateSnapshot = stateSnapshot;
+    }
+
     /**
      * Calculates the clicks per second based on recent arm animations
      * Uses a sliding window approach for more accurate CPS measurement
@@ -636,35 +634,9 @@ public class PlayerData {
             return 0;
         }
 
-        // Filter out null values and sort timestamps
-        List<Long> validClicks = new ArrayList<>();
-        for (Long click : recentArmAnimations) {
-            if (click != null) {
-                validClicks.add(click);
-            }
-        }
-
-        // Not enough valid clicks
-        if (validClicks.size() < 2) {
-            return 0;
-        }
-
-        // Sort to ensure chronological order
-        Collections.sort(validClicks);
-
-        // Current time
-        long now = System.currentTimeMillis();
-
         // Calculate CPS using a 1-second window
-        // Count how many clicks happened in the last second
-        int recentClicks = 0;
-        for (int i = validClicks.size() - 1; i >= 0; i--) {
-            if (now - validClicks.get(i) <= 1000) {
-                recentClicks++;
-            } else {
-                break; // No need to check older clicks
-            }
-        }
+        // Clicks are stored in chronological order, so this only walks the last second
+        int recentClicks = recentArmAnimations.countSince(System.currentTimeMillis() - 1000);
 
         // If we have recent clicks, return the count (which is already clicks per second)
         if (recentClicks > 0) {
@@ -672,9 +644,7 @@ public class PlayerData {
         }
 
         // Fallback to traditional calculation if no clicks in the last second
-        long newest = validClicks.get(validClicks.size() - 1);
-        long oldest = validClicks.get(0);
-        long timeSpan = newest - oldest;
+        long timeSpan = recentArmAnimations.getLast() - recentArmAnimations.getFirst();
 
         // Prevent division by zero
         if (timeSpan <= 0) {
@@ -682,7 +652,7 @@ public class PlayerData {
         }
 
         // Calculate CPS
-        return (validClicks.size() - 1) * 1000.0 / timeSpan;
+        return (recentArmAnimations.size() - 1) * 1000.0 / timeSpan;
     }
 
     /**
@@ -696,41 +666,9 @@ public class PlayerData {
             return false;
         }
 
-        // Filter out null values and sort timestamps
-        List<Long> validClicks = new ArrayList<>();
-        for (Long click : recentArmAnimations) {
-            if (click != null) {
-                validClicks.add(click);
-            }
-        }
-
-        // Not enough valid clicks
-        if (validClicks.size() < 5) {
-            return false;
-        }
-
-        // Sort to ensure chronological order
-        Collections.sort(validClicks);
-
-        // Calculate intervals between clicks
-        List<Double> intervals = new ArrayList<>();
-        for (int i = 1; i < validClicks.size(); i++) {
-            intervals.add((double)(validClicks.get(i) - validClicks.get(i-1)));
-        }
-
-        // Calculate average interval
-        double sum = 0;
-        for (double interval : intervals) {
-            sum += interval;
-        }
-        double avgInterval = sum / intervals.size();
-
-        // Calculate standard deviation
-        double sumSquaredDiff = 0;
-        for (double interval : intervals) {
-            sumSquaredDiff += Math.pow(interval - avgInterval, 2);
-        }
-        double stdDev = Math.sqrt(sumSquaredDiff / intervals.size());
+        // Interval statistics are maintained as clicks come and go
+        double avgInterval = clickIntervals.getMean();
+        double stdDev = clickIntervals.getStdDev();
 
         // Calculate coefficient of variation (CV)
         double cv = (avgInterval > 0) ? stdDev / avgInterval : 0;
@@ -773,7 +711,7 @@ public class PlayerData {
         if (player != null && player.isOnline()) {
             try {
                 // This must run on the main thread
-                this.cachedNearbyEntityCount = player.getNearbyEntities(16.0, 16.0, 16.0).size();
+                hot.nearbyEntityCount[row] = player.getNearbyEntities(16.0, 16.0, 16.0).size();
                 this.lastEntityCountUpdate = now;
             } catch (Exception e) {
                 // Fail silently - will keep using the last valid count
@@ -790,7 +728,7 @@ public class PlayerData {
     public int getNearbyEntityCount() {
         // Just return the cached value
         // This is safe to call from async threads
-        return this.cachedNearbyEntityCount;
+        return hot.nearbyEntityCount[row];
     }
 
     /**
@@ -803,40 +741,52 @@ public class PlayerData {
         this.serverTPS = Math.min(Math.max(tps, 0.0), 20.0); // Clamp between 0-20
     }
 
+    private void markChanged() {
+        HotPlayerState.Page.INTS.getAndAdd(hot.dataVersion, row, 1);
+    }
+
     /**
-     * Check if data should be saved based on changes and time interval
+     * Check if data changed since it was last saved
      *
      * @return true if data should be saved
      */
-    public boolean shouldSaveData() {
-        long now = System.currentTimeMillis();
-        return dataChanged && (now - lastDataSave > DATA_SAVE_INTERVAL);
+    public boolean isDirty() {
+        return (int) HotPlayerState.Page.INTS.getVolatile(hot.dataVersion, row) != savedVersion;
     }
 
     /**
-     * Mark data as saved to reset flags
+     * Copies the persisted fields for a save. The version is read first, so a change made while
+     * copying keeps the data dirty after the record is saved.
+     *
+     * @return The record to save
+     */
+    public PlayerRecord toRecord() {
+        int version = (int) HotPlayerState.Page.INTS.getVolatile(hot.dataVersion, row);
+        return new PlayerRecord(uuid, playerName, getAveragePing(), joinTime, getTotalViolations(),
+                System.currentTimeMillis(), version);
+    }
+
+    /**
+     * Marks the data as saved up to the version of a written record
+     *
+     * @param version {@link PlayerRecord#getVersion()} of the record that was written
      */
-    public void markDataSaved() {
-        this.dataChanged = false;
-        this.lastDataSave = System.currentTimeMillis();
+    public void markSaved(int version) {
+        this.savedVersion = version;
     }
 
     /**
-     * Toggles packet debugging
+     * Toggles packet debugging. Enabling starts a fresh capture.
      * @return New debug state
      */
     public boolean togglePacketDebug() {
-        this.packetDebugEnabled = !this.packetDebugEnabled;
-
-        // Clear history when enabling
-        if (this.packetDebugEnabled) {
-            this.packetDebugHistory.clear();
-            this.packetTypeCounts.clear();
-            this.averageTicksBetweenPackets.clear();
-            this.firstPacketTimestamp = System.currentTimeMillis();
+        if (packetDebug == null) {
+            packetDebug = new PacketDebugRing(PACKET_DEBUG_CAPACITY, System.currentTimeMillis());
+            return true;
         }
 
-        return this.packetDebugEnabled;
+        packetDebug = null;
+        return false;
     }
 
     /**
@@ -862,63 +812,18 @@ public class PlayerData {
      * @return whether packet debugging is enabled
      */
     public boolean isPacketDebugEnabled() {
-        return this.packetDebugEnabled;
+        return packetDebug != null;
     }
 
     /**
-     * Records a packet for debugging
-     * @param packetType The type of packet
-     * @param timestamp The time the packet was received
+     * Records a packet for debugging. Must be called from the player's packet lane.
+     * @param packet The decoded packet
      */
-    public void recordPacketDebug(String packetType, long timestamp) {
-        if (!packetDebugEnabled) return;
+    public void recordPacketDebug(PacketSnapshot packet) {
+        PacketDebugRing ring = packetDebug;
+        if (ring == null) return;
 
-        // Store the packet
-        packetDebugHistory.add(new PacketDebugEntry(packetType, timestamp));
-
-        // Update packet count
-        packetTypeCounts.put(packetType, packetTypeCounts.getOrDefault(packetType, 0) + 1);
-
-        // Set first packet timestamp if not set
-        if (firstPacketTimestamp == 0) {
-            firstPacketTimestamp = timestamp;
-        }
-
-        // Update average tick intervals
-        updateAverageTickIntervals(packetType, timestamp);
-
-        // Limit the history size
-        while (packetDebugHistory.size() > MAX_PACKET_DEBUG_HISTORY) {
-            packetDebugHistory.remove(0);
-        }
-    }
-
-    /**
-     * Updates the average tick intervals for a specific packet type
-     */
-    private void updateAverageTickIntervals(String packetType, long timestamp) {
-        // Find previous packet of same type
-        long prevTimestamp = 0;
-        for (int i = packetDebugHistory.size() - 1; i >= 0; i--) {
-            PacketDebugEntry entry = packetDebugHistory.get(i);
-            if (entry.packetType.equals(packetType) && entry.timestamp < timestamp) {
-                prevTimestamp = entry.timestamp;
-                break;
-            }
-        }
-
-        // If found, calculate tick interval (50ms per tick)
-        if (prevTimestamp > 0) {
-            double ticks = (timestamp - prevTimestamp) / 50.0;
-
-            // Update running average
-            Double currentAvg = averageTicksBetweenPackets.getOrDefault(packetType, 0.0);
-            int count = packetTypeCounts.getOrDefault(packetType, 1);
-
-            // Weighted average to give more importance to recent values
-            double newAvg = (currentAvg * (count - 1) + ticks) / count;
-            averageTicksBetweenPackets.put(packetType, newAvg);
-        }
+        ring.record(packet.getKind(), packet.isOnGround(), packet.getAction(), packet.getTimestamp());
     }
 
     /**
@@ -926,41 +831,49 @@ public class PlayerData {
      * @param sender CommandSender to display info to
      */
     public void displayPacketDebug(CommandSender sender) {
-        if (packetDebugHistory.isEmpty()) {
+        PacketDebugRing ring = packetDebug;
+        if (ring == null || ring.written() == 0) {
             sender.sendMessage(ChatUtil.colorize("&cNo packet data available. Make sure packet debug is enabled."));
             return;
         }
 
         long now = System.currentTimeMillis();
-        double secondsRunning = (now - firstPacketTimestamp) / 1000.0;
+        double secondsRunning = Math.max(0.001, (now - ring.getStartTime()) / 1000.0);
+        long total = ring.written();
 
         sender.sendMessage(ChatUtil.colorize("&7=== &bPacket Debug Information &7==="));
         sender.sendMessage(ChatUtil.colorize("&bData collection time: &7" +
                 String.format("%.2f", secondsRunning) + " seconds"));
-        sender.sendMessage(ChatUtil.colorize("&bTotal packets tracked: &7" + packetDebugHistory.size()));
+        sender.sendMessage(ChatUtil.colorize("&bTotal packets tracked: &7" + total +
+                " &8(last " + (total - ring.oldest()) + " kept)"));
 
         // Show packet type summary
         sender.sendMessage(ChatUtil.colorize("&7--- &bPacket Type Summary &7---"));
 
         // Sort packet types by count
-        List<Map.Entry<String, Integer>> sortedCounts = new ArrayList<>(packetTypeCounts.entrySet());
-        sortedCounts.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        List<PacketKind> kinds = new ArrayList<>();
+        for (PacketKind kind : PacketKind.values()) {
+            if (ring.getCount(kind) > 0) {
+                kinds.add(kind);
+            }
+        }
+        kinds.sort(Comparator.comparingLong(ring::getCount).reversed());
 
-        for (Map.Entry<String, Integer> entry : sortedCounts) {
-            String packetType = entry.getKey();
-            int count = entry.getValue();
-            double percentage = (count * 100.0) / packetDebugHistory.size();
+        for (PacketKind kind : kinds) {
+            long count = ring.getCount(kind);
+            double percentage = (count * 100.0) / total;
             double rate = count / secondsRunning;
 
             // Only display significant packet types
             if (percentage >= 1.0 || count >= 5) {
                 String avgTicks = "";
-                if (averageTicksBetweenPackets.containsKey(packetType)) {
-                    avgTicks = String.format(" | Avg %.2f ticks between", averageTicksBetweenPackets.get(packetType));
+                double averageInterval = ring.getAverageInterval(kind);
+                if (averageInterval >= 0) {
+                    avgTicks = String.format(" | Avg %.2f ticks between", averageInterval / 50.0);
                 }
 
                 sender.sendMessage(ChatUtil.colorize(
-                        "&b" + packetType + ": &7" + count +
+                        "&b" + kind.name() + ": &7" + count +
                                 " (" + String.format("%.1f", percentage) + "%, " +
                                 String.format("%.1f", rate) + "/sec" + avgTicks + ")"
                 ));
@@ -969,78 +882,67 @@ public class PlayerData {
 
         // Show detailed recent packet history
         sender.sendMessage(ChatUtil.colorize("&7--- &bRecent Packet History &7---"));
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
 
+        long end = ring.written();
+        long start = Math.max(ring.oldest(), end - 20);
         long lastTimestamp = 0;
-        int displayCount = Math.min(20, packetDebugHistory.size());
-        for (int i = 0; i < displayCount; i++) {
-            PacketDebugEntry entry = packetDebugHistory.get(packetDebugHistory.size() - 1 - i);
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            long timestamp = ring.timestampAt(sequence);
+            String description = ring.describeAt(sequence);
+            if (!ring.isValid(sequence)) break;
 
             // Calculate time difference in ticks
             String tickDiff = "N/A";
             if (lastTimestamp > 0) {
-                double ticks = (lastTimestamp - entry.timestamp) / 50.0;
+                double ticks = (lastTimestamp - timestamp) / 50.0;
                 tickDiff = String.format("%.2f", ticks);
             }
-            lastTimestamp = entry.timestamp;
-
-            // Format time
-            String time = timeFormat.format(new Date(entry.timestamp));
+            lastTimestamp = timestamp;
 
             sender.sendMessage(ChatUtil.colorize(
-                    "&7" + time + " &b" + entry.packetType +
+                    "&7" + PACKET_TIME_FORMAT.format(Instant.ofEpochMilli(timestamp)) + " &b" + description +
                             " &7(Δt: " + tickDiff + " ticks)"
             ));
         }
 
         // Show packet bursts (rapid sequences of packets)
-        analyzePacketBursts(sender);
+        analyzePacketBursts(sender, ring);
     }
 
     /**
      * Analyzes and displays information about packet bursts
      */
-    private void analyzePacketBursts(CommandSender sender) {
-        if (packetDebugHistory.size() < 5) return;
+    private void analyzePacketBursts(CommandSender sender, PacketDebugRing ring) {
+        long end = ring.written();
+        long start = ring.oldest() + BURST_SCAN_MARGIN;
+        if (end - start < 5) return;
 
         sender.sendMessage(ChatUtil.colorize("&7--- &bPacket Burst Analysis &7---"));
 
-        // Find bursts (multiple packets in short time)
-        List<List<PacketDebugEntry>> bursts = new ArrayList<>();
-        List<PacketDebugEntry> currentBurst = null;
+        // Bursts as [first, last] sequence pairs
+        List<long[]> bursts = new ArrayList<>();
 
         // Consider packets less than 10ms apart to be in a burst
         long burstThreshold = 10;
 
         // Analyze from oldest to newest for chronological display
-        for (int i = 0; i < packetDebugHistory.size(); i++) {
-            PacketDebugEntry entry = packetDebugHistory.get(i);
-
-            if (currentBurst == null) {
-                // Start a new burst
-                currentBurst = new ArrayList<>();
-                currentBurst.add(entry);
-            } else {
-                // Check if this packet is part of current burst
-                PacketDebugEntry lastEntry = currentBurst.get(currentBurst.size() - 1);
-                if (entry.timestamp - lastEntry.timestamp <= burstThreshold) {
-                    // Add to current burst
-                    currentBurst.add(entry);
-                } else {
-                    // Only save bursts with multiple packets
-                    if (currentBurst.size() > 1) {
-                        bursts.add(currentBurst);
-                    }
-                    // Start new burst
-                    currentBurst = new ArrayList<>();
-                    currentBurst.add(entry);
+        long burstStart = start;
+        long lastTimestamp = ring.timestampAt(start);
+        for (long sequence = start + 1; sequence < end; sequence++) {
+            long timestamp = ring.timestampAt(sequence);
+            if (timestamp - lastTimestamp > burstThreshold) {
+                // Only save bursts with multiple packets
+                if (sequence - 1 > burstStart) {
+                    bursts.add(new long[]{burstStart, sequence - 1});
                 }
+                burstStart = sequence;
             }
+            lastTimestamp = timestamp;
         }
 
         // Add final burst if valid
-        if (currentBurst != null && currentBurst.size() > 1) {
-            bursts.add(currentBurst);
+        if (end - 1 > burstStart) {
+            bursts.add(new long[]{burstStart, end - 1});
         }
 
         // Display burst information
@@ -1053,20 +955,18 @@ public class PlayerData {
                     " packet bursts. Showing " + burstLimit + " most recent:"));
 
             for (int i = 0; i < burstLimit; i++) {
-                List<PacketDebugEntry> burst = bursts.get(bursts.size() - 1 - i);
+                long[] burst = bursts.get(bursts.size() - 1 - i);
+                if (!ring.isValid(burst[0])) break;
 
                 // Calculate burst duration
-                long start = burst.get(0).timestamp;
-                long end = burst.get(burst.size() - 1).timestamp;
-                double durationMs = end - start;
-
-                // Format time for display
-                String time = new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(start));
+                long first = ring.timestampAt(burst[0]);
+                long last = ring.timestampAt(burst[1]);
+                double durationMs = last - first;
 
                 // Summarize packet types in burst
-                Map<String, Integer> burstTypes = new HashMap<>();
-                for (PacketDebugEntry entry : burst) {
-                    burstTypes.put(entry.packetType, burstTypes.getOrDefault(entry.packetType, 0) + 1);
+                Map<String, Integer> burstTypes = new LinkedHashMap<>();
+                for (long sequence = burst[0]; sequence <= burst[1]; sequence++) {
+                    burstTypes.merge(ring.describeAt(sequence), 1, Integer::sum);
                 }
 
                 StringBuilder typesSummary = new StringBuilder();
@@ -1078,23 +978,11 @@ public class PlayerData {
                 }
 
                 sender.sendMessage(ChatUtil.colorize(
-                        "&7" + time + " - " + burst.size() + " packets in " +
+                        "&7" + PACKET_TIME_FORMAT.format(Instant.ofEpochMilli(first)) + " - " +
+                                (burst[1] - burst[0] + 1) + " packets in " +
                                 String.format("%.1f", durationMs) + "ms: &b" + typesSummary
                 ));
             }
         }
     }
-
-    /**
-     * Inner class for storing packet debug info
-     */
-    private static class PacketDebugEntry {
-        final String packetType;
-        final long timestamp;
-
-        PacketDebugEntry(String packetType, long timestamp) {
-            this.packetType = packetType;
-            this.timestamp = timestamp;
-        }
-    }
-}
\ No newline at end of file
+}
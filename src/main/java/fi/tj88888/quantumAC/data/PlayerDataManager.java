@@ -1,7 +1,6 @@
 package fi.tj88888.quantumAC.data;
 
 import fi.tj88888.quantumAC.QuantumAC;
-import fi.tj88888.quantumAC.util.MovementData;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -9,26 +8,30 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 public class PlayerDataManager {
 
     private final QuantumAC plugin;
     private final Map<UUID, PlayerData> playerDataMap;
+    private final HotPlayerState hotState;
 
     // Performance optimization
     private long lastDataCleanup = 0;
     private static final long DATA_CLEANUP_INTERVAL = 300000; // 5 minutes
-    private static final long PERIODIC_SAVE_INTERVAL = 900000; // 15 minutes
+    private static final long FINAL_FLUSH_TIMEOUT = 5000; // ms
 
     public PlayerDataManager(QuantumAC plugin) {
         this.plugin = plugin;
         this.playerDataMap = new ConcurrentHashMap<>();
+        this.hotState = new HotPlayerState();
 
         // Schedule periodic data saves to prevent loss on crashes
         Bukkit.getScheduler().runTaskTimerAsynchronously(plugin,
-                this::periodicDataSave, 20 * 60, 20 * 60); // Run every minute
+                this::periodicDataSave, 20 * 60, 20 * 60); // Flush every minute
     }
 
     /**
@@ -38,16 +41,19 @@ public class PlayerDataManager {
      */
     public void createPlayerData(Player player) {
         UUID uuid = player.getUniqueId();
-        PlayerData playerData = new PlayerData(uuid, player.getName());
+        PlayerData playerData = new PlayerData(uuid, player.getName(), hotState, hotState.allocate());
         playerData.setJoinTime(System.currentTimeMillis());
 
-        // Always ensure the movementData field is initialized
-        playerData.getMovementData(); // This should always return a valid instance
+        // Publish an initial state so checks have something to read before the first tick
+        playerData.setStateSnapshot(PlayerStateSnapshot.capture(player));
 
-        playerDataMap.put(uuid, playerData);
+        PlayerData replaced = playerDataMap.put(uuid, playerData);
+        if (replaced != null) {
+            releaseSlot(replaced);
+        }
 
         // Load previous data from MongoDB if available
-        CompletableFuture<PlayerData> future = plugin.getMongoManager().loadPlayerData(uuid);
+        CompletableFuture<PlayerData> future = plugin.getStorage().loadPlayerData(uuid);
         future.thenAccept(loadedData -> {
             if (loadedData != null) {
                 playerData.setTotalViolations(loadedData.getTotalViolations());
@@ -70,9 +76,20 @@ public class PlayerDataManager {
     public void removePlayerData(UUID uuid) {
         PlayerData data = playerDataMap.get(uuid);
         if (data != null) {
-            // Save data to MongoDB before removing
-            plugin.getMongoManager().savePlayerData(data);
-            playerDataMap.remove(uuid);
+            // Stage a copy for the next flush before the slot is released
+            plugin.getStorage().savePlayerData(data);
+            if (playerDataMap.remove(uuid, data)) {
+                releaseSlot(data);
+            }
+        }
+    }
+
+    /**
+     * Returns a removed player's hot state slot once its record has been staged
+     */
+    private void releaseSlot(PlayerData data) {
+        if (data.getSlot() >= 0) {
+            hotState.release(data.getSlot());
         }
     }
 
@@ -98,12 +115,20 @@ public class PlayerDataManager {
 
     /**
      * Saves all player data to the database
-     * Should be called on server shutdown
+     * Should be called on server shutdown; waits a bounded time for the final flush
      */
     public void saveAllPlayerData() {
-        playerDataMap.forEach((uuid, data) -> {
-            plugin.getMongoManager().savePlayerData(data);
-        });
+        playerDataMap.values().forEach(data -> plugin.getStorage().savePlayerData(data));
+
+        try {
+            plugin.getStorage().flushPlayerData().get(FINAL_FLUSH_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Timed out saving player data");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            plugin.getLogger().log(Level.WARNING, "Error saving player data", e.getCause());
+        }
     }
 
     /**
@@ -125,6 +150,41 @@ public class PlayerDataManager {
         return playerDataMap.size();
     }
 
+    /**
+     * Captures and publishes a fresh state snapshot for every online player
+     * Must be called from the main server thread, once per tick
+     */
+    public void publishStateSnapshots() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            PlayerData data = playerDataMap.get(player.getUniqueId());
+            if (data == null) continue;
+
+            try {
+                data.setStateSnapshot(PlayerStateSnapshot.capture(player));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING,
+                        "Error capturing state for player: " + player.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends captured packets to every player with packet debugging enabled
+     * Must be called from the main server thread, once per tick
+     */
+    public void flushPacketDebug() {
+        for (PlayerData data : playerDataMap.values()) {
+            if (!data.isPacketDebugEnabled()) continue;
+
+            try {
+                data.flushPacketDebug();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING,
+                        "Error sending packet debug to player: " + data.getPlayerName(), e);
+            }
+        }
+    }
+
     /**
      * Updates cached data for all players
      * This should be called from the main server thread
@@ -136,15 +196,15 @@ public class PlayerDataManager {
             try {
                 // Update entity counts (important for performance-sensitive checks)
                 data.updateNearbyEntityCount();
-
-                // Decrease violation levels gradually over time
-                data.decreaseViolationLevels();
             } catch (Exception e) {
                 plugin.getLogger().log(Level.WARNING,
                         "Error updating cached data for player: " + data.getPlayerName(), e);
             }
         });
 
+        // Decrease violation levels gradually over time, for all players in one pass over the columns
+        hotState.decayViolationLevels(PlayerData.VIOLATION_DECAY);
+
         // Periodically clean up stale data
         if (now - lastDataCleanup > DATA_CLEANUP_INTERVAL) {
             cleanupStaleData();
@@ -157,20 +217,18 @@ public class PlayerDataManager {
      * Run asynchronously to avoid impacting server performance
      */
     private void periodicDataSave() {
-        long now = System.currentTimeMillis();
-
-        // Save any data that needs saving based on changes or interval
+        // Stage every changed player, then write them all with one bulk upsert
         playerDataMap.values().forEach(data -> {
-            try {
-                if (data.shouldSaveData()) {
-                    plugin.getMongoManager().savePlayerData(data);
-                    data.markDataSaved();
-                }
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING,
-                        "Error saving data for player: " + data.getPlayerName(), e);
+            if (data.isDirty()) {
+                plugin.getStorage().savePlayerData(data);
             }
         });
+
+        try {
+            plugin.getStorage().flushPlayerData().join();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error saving player data", e);
+        }
     }
 
     /**
@@ -184,7 +242,8 @@ public class PlayerDataManager {
             // If player is offline, save their data and remove from cache
             if (player == null || !player.isOnline()) {
                 PlayerData data = entry.getValue();
-                plugin.getMongoManager().savePlayerData(data);
+                plugin.getStorage().savePlayerData(data);
+                releaseSlot(data);
                 plugin.getLogger().info("Cleaned up stale data for: " + data.getPlayerName());
                 return true;
             }
@@ -210,14 +269,8 @@ public class PlayerDataManager {
         if (data == null) return;
 
         try {
-            // Back up current movement data before updating
-            data.prepareMovementDataUpdate();
-
-            // Get movement data and update it
-            MovementData movementData = data.getMovementData();
-            movementData.updatePosition(x, y, z);
-            movementData.updateRotation(yaw, pitch);
-            movementData.updateGroundState(onGround);
+            // The previous frame is kept alongside the new one
+            data.updateMovement(x, y, z, yaw, pitch, onGround);
 
             // Additional block state will be updated in a separate call
             // as it requires more expensive calculations
@@ -245,9 +298,7 @@ public class PlayerDataManager {
         if (data == null) return;
 
         try {
-            // Get movement data and update block state
-            MovementData movementData = data.getMovementData();
-            movementData.updateBlockState(insideBlock, onIce, onSlime, inLiquid, onStairs, onSlab);
+            data.updateBlockState(insideBlock, onIce, onSlime, inLiquid, onStairs, onSlab);
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING,
                     "Error updating block state for player: " + data.getPlayerName(), e);
@@ -0,0 +1,63 @@
+package fi.tj88888.quantumAC.data;
+
+import java.util.UUID;
+
+/**
+ * Immutable copy of the persisted part of a {@link PlayerData}, taken when a save is requested.
+ * Saves are written later, possibly after the player's hot state slot was reused, so they must not
+ * read the live PlayerData.
+ */
+public final class PlayerRecord {
+
+    private final UUID uuid;
+    private final String name;
+    private final int ping;
+    private final long joinTime;
+    private final int violations;
+    private final long lastSeen;
+    private final int version;
+
+    public PlayerRecord(UUID uuid, String name, int ping, long joinTime, int violations, long lastSeen, int version) {
+        this.uuid = uuid;
+        this.name = name;
+        this.ping = ping;
+        this.joinTime = joinTime;
+        this.violations = violations;
+        this.lastSeen = lastSeen;
+        this.version = version;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPing() {
+        return ping;
+    }
+
+    public long getJoinTime() {
+        return joinTime;
+    }
+
+    public int getViolations() {
+        return violations;
+    }
+
+    /**
+     * When the record was taken, in milliseconds
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * Change version of the player data the record was taken from
+     */
+    public int getVersion() {
+        return version;
+    }
+}
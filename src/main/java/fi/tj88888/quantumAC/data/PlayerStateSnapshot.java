@@ -0,0 +1,208 @@
+package fi.tj88888.quantumAC.data;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.Vector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable copy of the Bukkit player state the checks depend on.
+ * Captured on the main thread once per tick and published to {@link PlayerData},
+ * so packet workers never call into the (non thread-safe) Bukkit player.
+ */
+public final class PlayerStateSnapshot {
+
+    private final long capturedAt;
+
+    private final World world;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+
+    private final GameMode gameMode;
+    private final boolean flying;
+    private final boolean allowFlight;
+    private final boolean insideVehicle;
+    private final boolean dead;
+    private final boolean onGround;
+    private final boolean gliding;
+    private final boolean riptiding;
+    private final boolean sprinting;
+
+    private final double velocityX;
+    private final double velocityY;
+    private final double velocityZ;
+
+    private final int ping;
+    private final Map<PotionEffectType, Integer> effectLevels;
+
+    private PlayerStateSnapshot(Player player, long capturedAt) {
+        this.capturedAt = capturedAt;
+
+        Location location = player.getLocation();
+        this.world = location.getWorld();
+        this.x = location.getX();
+        this.y = location.getY();
+        this.z = location.getZ();
+        this.yaw = location.getYaw();
+        this.pitch = location.getPitch();
+
+        this.gameMode = player.getGameMode();
+        this.flying = player.isFlying();
+        this.allowFlight = player.getAllowFlight();
+        this.insideVehicle = player.isInsideVehicle();
+        this.dead = player.isDead();
+        this.onGround = player.isOnGround();
+        this.gliding = player.isGliding();
+        this.riptiding = player.isRiptiding();
+        this.sprinting = player.isSprinting();
+
+        Vector velocity = player.getVelocity();
+        this.velocityX = velocity.getX();
+        this.velocityY = velocity.getY();
+        this.velocityZ = velocity.getZ();
+
+        this.ping = player.getPing();
+
+        Map<PotionEffectType, Integer> levels = Collections.emptyMap();
+        for (PotionEffect effect : player.getActivePotionEffects()) {
+            if (levels.isEmpty()) {
+                levels = new HashMap<>();
+            }
+            levels.put(effect.getType(), effect.getAmplifier() + 1);
+        }
+        this.effectLevels = levels.isEmpty() ? levels : Collections.unmodifiableMap(levels);
+    }
+
+    /**
+     * Captures the current state of a player. Must be called on the main thread.
+     *
+     * @param player The player to capture
+     * @return A new snapshot
+     */
+    public static PlayerStateSnapshot capture(Player player) {
+        return new PlayerStateSnapshot(player, System.currentTimeMillis());
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    /**
+     * A new Location at the captured position; callers are free to modify it
+     */
+    public Location getLocation() {
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public String getWorldName() {
+        return world != null ? world.getName() : "";
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
+    public boolean isCreativeOrSpectator() {
+        return gameMode == GameMode.CREATIVE || gameMode == GameMode.SPECTATOR;
+    }
+
+    public boolean isFlying() {
+        return flying;
+    }
+
+    public boolean getAllowFlight() {
+        return allowFlight;
+    }
+
+    public boolean isInsideVehicle() {
+        return insideVehicle;
+    }
+
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * Server-side ground state, as opposed to the client's claim in the movement packet
+     */
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean isGliding() {
+        return gliding;
+    }
+
+    public boolean isRiptiding() {
+        return riptiding;
+    }
+
+    public boolean isSprinting() {
+        return sprinting;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+
+    public int getPing() {
+        return ping;
+    }
+
+    public boolean hasPotionEffect(PotionEffectType type) {
+        return effectLevels.containsKey(type);
+    }
+
+    /**
+     * Level of an active potion effect (amplifier + 1)
+     *
+     * @param type The effect type
+     * @return The effect level, or 0 if the effect is not active
+     */
+    public int getEffectLevel(PotionEffectType type) {
+        Integer level = effectLevels.get(type);
+        return level != null ? level : 0;
+    }
+}
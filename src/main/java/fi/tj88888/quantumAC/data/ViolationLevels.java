@@ -0,0 +1,87 @@
+package fi.tj88888.quantumAC.data;
+
+/**
+ * Violation levels of one player, indexed by the dense check id handed out at registration.
+ *
+ * The levels live in the player's row of a {@link HotPlayerState} page and are updated with
+ * compare-and-set, so concurrent flags from different packet lanes never lose an increment.
+ * Negative ids belong to checks that were never registered and are not tracked.
+ */
+public class ViolationLevels {
+
+    private final HotPlayerState.Page page;
+    private final int rowOffset;
+
+    ViolationLevels(HotPlayerState.Page page, int row) {
+        this.page = page;
+        this.rowOffset = row << HotPlayerState.Page.VL_CHUNK_BITS;
+    }
+
+    /**
+     * @return The violation level, or 0 if the check has not been flagged
+     */
+    public double get(int checkId) {
+        if (checkId < 0) return 0;
+
+        double[] chunk = page.findViolationChunk(checkId);
+        if (chunk == null) return 0;
+        return (double) HotPlayerState.Page.LEVELS.getVolatile(chunk, slot(checkId));
+    }
+
+    public void set(int checkId, double level) {
+        if (checkId < 0) return;
+
+        HotPlayerState.Page.LEVELS.setVolatile(page.violationChunk(checkId), slot(checkId), level);
+    }
+
+    /**
+     * Atomically adds to a violation level
+     *
+     * @return The level after the addition, or 0 for an untracked check
+     */
+    public double add(int checkId, double amount) {
+        if (checkId < 0) return 0;
+
+        double[] chunk = page.violationChunk(checkId);
+        int slot = slot(checkId);
+        double current;
+        double updated;
+        do {
+            current = (double) HotPlayerState.Page.LEVELS.getVolatile(chunk, slot);
+            updated = current + amount;
+        } while (!HotPlayerState.Page.LEVELS.compareAndSet(chunk, slot, current, updated));
+        return updated;
+    }
+
+    /**
+     * Lowers this player's positive levels by the given amount, never below zero.
+     * {@link HotPlayerState#decayViolationLevels(double)} does the same for every player in one scan.
+     *
+     * @return true if any level changed
+     */
+    public boolean decay(double amount) {
+        boolean changed = false;
+        int chunks = page.violationChunkCount();
+        for (int chunkIndex = 0; chunkIndex < chunks; chunkIndex++) {
+            double[] chunk = page.findViolationChunk(chunkIndex << HotPlayerState.Page.VL_CHUNK_BITS);
+            if (chunk == null) continue;
+
+            for (int slot = rowOffset, end = slot + HotPlayerState.Page.VL_CHUNK_SIZE; slot < end; slot++) {
+                double current;
+                do {
+                    current = (double) HotPlayerState.Page.LEVELS.getVolatile(chunk, slot);
+                    if (current <= 0) break;
+                } while (!HotPlayerState.Page.LEVELS.compareAndSet(chunk, slot, current, Math.max(0, current - amount)));
+
+                if (current > 0) {
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private int slot(int checkId) {
+        return rowOffset + (checkId & HotPlayerState.Page.VL_CHUNK_MASK);
+    }
+}
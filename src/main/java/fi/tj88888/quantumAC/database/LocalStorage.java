@@ -0,0 +1,530 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerRecord;
+import fi.tj88888.quantumAC.log.ViolationLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded file storage for servers without a database.
+ *
+ * Violations are appended to numbered segment files as length-prefixed binary records, and a new segment
+ * is started once the current one passes {@link #SEGMENT_SIZE}. Each player has a compact index of record
+ * addresses (segment and offset packed into a long), by UUID and by name, rebuilt by one scan of the
+ * segments on startup, so history lookups read only the records they return. Player records are kept in
+ * memory and rewritten to a single file on each flush.
+ *
+ * One storage thread owns every file and index, so there is no locking; violations queue up for it in a
+ * bounded queue and are dropped and counted when it is full.
+ */
+public class LocalStorage implements StorageBackend {
+
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int QUEUE_SIZE = 8192;
+    private static final String SEGMENT_PREFIX = "violations-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int PLAYERS_FORMAT = 1;
+
+    private final File directory;
+    private final Logger logger;
+    private final File playersFile;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean connected;
+
+    // Player records, readable from any thread; unsaved maps staged players to the version staged
+    private final Map<UUID, PlayerRecord> players = new ConcurrentHashMap<>();
+    private final Map<PlayerData, Integer> unsaved = new ConcurrentHashMap<>();
+
+    // Owned by the storage thread
+    private final LongList allViolations = new LongList();
+    private final Map<UUID, LongList> violationsByUuid = new HashMap<>();
+    private final Map<String, LongList> violationsByName = new HashMap<>();
+    private final Map<Integer, RandomAccessFile> segmentReaders = new HashMap<>();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+    private DataOutputStream segmentOut;
+    private int segment;
+    private long segmentLength;
+    private boolean unflushed;
+
+    public LocalStorage(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        this.playersFile = new File(directory, "players.dat");
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "QuantumAC-LocalStorage");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Queued first, so every later task sees the loaded indexes
+        executor.execute(this::open);
+        connected = true;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory.toPath());
+            loadPlayers();
+
+            List<Integer> segments = listSegments();
+            for (int number : segments) {
+                indexSegment(number, number == segments.get(segments.size() - 1));
+            }
+            segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            openSegmentForAppend();
+
+            logger.info("Local storage opened: " + players.size() + " players, "
+                    + allViolations.size() + " violations in " + Math.max(1, segments.size()) + " segments.");
+        } catch (IOException e) {
+            connected = false;
+            logger.log(Level.SEVERE, "Failed to open local storage in " + directory, e);
+        }
+    }
+
+    private List<Integer> listSegments() {
+        List<Integer> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return segments;
+
+        for (String name : names) {
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private File segmentFile(int number) {
+        return new File(directory, SEGMENT_PREFIX + String.format("%06d", number) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Adds a segment's records to the indexes. A record cut off by a crash can only be at the end of the
+     * last segment, which is truncated back to its last complete record.
+     */
+    private void indexSegment(int number, boolean last) throws IOException {
+        File file = segmentFile(number);
+        long offset = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > SEGMENT_SIZE) {
+                    break;
+                }
+
+                byte[] body = new byte[length];
+                try {
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                index(address(number, offset), decode(body));
+                offset += Integer.BYTES + length;
+            }
+        }
+
+        if (last && offset < file.length()) {
+            logger.warning("Discarding a partly written violation at the end of " + file.getName());
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(offset);
+            }
+        }
+    }
+
+    private void openSegmentForAppend() throws IOException {
+        File file = segmentFile(segment);
+        segmentLength = file.length();
+        segmentOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+
+    private void index(long address, ViolationLog log) {
+        allViolations.add(address);
+        if (log.getUuid() != null) {
+            violationsByUuid.computeIfAbsent(log.getUuid(), key -> new LongList()).add(address);
+        }
+        violationsByName.computeIfAbsent(log.getPlayerName(), key -> new LongList()).add(address);
+    }
+
+    private static long address(int segment, long offset) {
+        return ((long) segment << OFFSET_BITS) | offset;
+    }
+
+    @Override
+    public boolean logViolation(ViolationLog violationLog) {
+        if (!connected) return false;
+
+        try {
+            executor.execute(() -> append(violationLog));
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private void append(ViolationLog log) {
+        if (segmentOut == null) return;
+
+        try {
+            if (segmentLength >= SEGMENT_SIZE) {
+                segmentOut.close();
+                segment++;
+                openSegmentForAppend();
+            }
+
+            recordBuffer.reset();
+            encode(log, recordOut);
+
+            long offset = segmentLength;
+            segmentOut.writeInt(recordBuffer.size());
+            recordBuffer.writeTo(segmentOut);
+            segmentLength += Integer.BYTES + recordBuffer.size();
+            unflushed = true;
+
+            index(address(segment, offset), log);
+
+            // Hand the data to the OS whenever the queue runs dry
+            if (executor.getQueue().isEmpty()) {
+                flushSegment();
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error writing violation to local storage", e);
+        }
+    }
+
+    @Override
+    public void writeViolations(List<ViolationLog> violations) throws Exception {
+        if (!connected) {
+            throw new IllegalStateException("Local storage is not open");
+        }
+
+        executor.submit(() -> {
+            for (ViolationLog violation : violations) {
+                append(violation);
+            }
+            flushSegment();
+            return null;
+        }).get();
+    }
+
+    private void flushSegment() throws IOException {
+        if (unflushed) {
+            segmentOut.flush();
+            unflushed = false;
+        }
+    }
+
+    private static void encode(ViolationLog log, DataOutputStream out) throws IOException {
+        out.writeLong(log.getTimestamp());
+        UUID uuid = log.getUuid();
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+        out.writeUTF(nonNull(log.getPlayerName()));
+        out.writeUTF(nonNull(log.getCheckName()));
+        out.writeUTF(nonNull(log.getCheckType()));
+        out.writeDouble(log.getVl());
+        out.writeUTF(nonNull(log.getDetails()));
+        out.writeUTF(nonNull(log.getWorld()));
+        out.writeDouble(log.getX());
+        out.writeDouble(log.getY());
+        out.writeDouble(log.getZ());
+        out.writeInt(log.getPing());
+        out.writeDouble(log.getTps());
+    }
+
+    private static ViolationLog decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long timestamp = in.readLong();
+        UUID uuid = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        return new ViolationLog(in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(), in.readUTF(),
+                in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(), in.readInt(), in.readDouble(),
+                timestamp, uuid);
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private ViolationLog read(long address) throws IOException {
+        int number = (int) (address >>> OFFSET_BITS);
+        RandomAccessFile reader = segmentReaders.get(number);
+        if (reader == null) {
+            reader = new RandomAccessFile(segmentFile(number), "r");
+            segmentReaders.put(number, reader);
+        }
+
+        reader.seek(address & OFFSET_MASK);
+        byte[] body = new byte[reader.readInt()];
+        reader.readFully(body);
+        return decode(body);
+    }
+
+    @Override
+    public CompletableFuture<List<ViolationLog>> getPlayerViolations(UUID uuid, int limit) {
+        return query(() -> violationsByUuid.get(uuid), limit, "player violations");
+    }
+
+    @Override
+    public CompletableFuture<List<ViolationLog>> getPlayerViolationsByName(String playerName, int limit) {
+        return query(() -> violationsByName.get(playerName), limit, "player violations by name");
+    }
+
+    @Override
+    public CompletableFuture<List<ViolationLog>> getRecentViolations(int limit) {
+        return query(() -> allViolations, limit, "recent violations");
+    }
+
+    /**
+     * Reads the newest records of an index on the storage thread
+     */
+    private CompletableFuture<List<ViolationLog>> query(IndexLookup lookup, int limit, String description) {
+        CompletableFuture<List<ViolationLog>> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                List<ViolationLog> logs = new ArrayList<>();
+                try {
+                    LongList addresses = lookup.find();
+                    if (addresses != null && segmentOut != null) {
+                        flushSegment();
+                        for (int i = addresses.size() - 1; i >= 0 && logs.size() < limit; i--) {
+                            logs.add(read(addresses.get(i)));
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.severe("Error retrieving " + description + ": " + e.getMessage());
+                }
+                future.complete(logs);
+            });
+        } catch (RejectedExecutionException e) {
+            future.complete(new ArrayList<>());
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
+        try {
+            // On the storage thread, so a load right after startup waits for the player file
+            return CompletableFuture.supplyAsync(() -> {
+                PlayerRecord record = players.get(uuid);
+                if (record == null) return null;
+
+                PlayerData playerData = new PlayerData(uuid, record.getName());
+                playerData.setAveragePing(record.getPing());
+                playerData.setJoinTime(record.getJoinTime());
+                playerData.setTotalViolations(record.getViolations());
+                return playerData;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @Override
+    public void savePlayerData(PlayerData playerData) {
+        PlayerRecord record = playerData.toRecord();
+        players.put(record.getUuid(), record);
+        unsaved.merge(playerData, record.getVersion(), Math::max);
+    }
+
+    @Override
+    public CompletableFuture<Void> flushPlayerData() {
+        try {
+            return CompletableFuture.runAsync(this::writePlayers, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Rewrites the player file through a temporary file, so a crash leaves either the old or the new one
+     */
+    private void writePlayers() {
+        if (unsaved.isEmpty()) return;
+
+        Map<PlayerData, Integer> saving = new HashMap<>(unsaved);
+        saving.forEach(unsaved::remove);
+
+        File temp = new File(directory, playersFile.getName() + ".tmp");
+        try {
+            List<PlayerRecord> records = new ArrayList<>(players.values());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(PLAYERS_FORMAT);
+                out.writeInt(records.size());
+                for (PlayerRecord record : records) {
+                    out.writeLong(record.getUuid().getMostSignificantBits());
+                    out.writeLong(record.getUuid().getLeastSignificantBits());
+                    out.writeUTF(nonNull(record.getName()));
+                    out.writeInt(record.getPing());
+                    out.writeLong(record.getJoinTime());
+                    out.writeInt(record.getViolations());
+                    out.writeLong(record.getLastSeen());
+                }
+            }
+            Files.move(temp.toPath(), playersFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            saving.forEach(PlayerData::markSaved);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error saving players to local storage", e);
+            saving.forEach((data, version) -> unsaved.merge(data, version, Math::max));
+        }
+    }
+
+    private void loadPlayers() throws IOException {
+        if (!playersFile.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(playersFile)))) {
+            int format = in.readInt();
+            if (format != PLAYERS_FORMAT) {
+                throw new IOException("Unknown player file format " + format);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                players.put(uuid, new PlayerRecord(uuid, in.readUTF(), in.readInt(), in.readLong(),
+                        in.readInt(), in.readLong(), 0));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            executor.execute(this::writePlayers);
+            executor.execute(this::closeFiles);
+        } catch (RejectedExecutionException e) {
+            logger.warning("Local storage queue is full, the last violations may be lost");
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Timed out closing local storage");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connected = false;
+    }
+
+    private void closeFiles() {
+        try {
+            if (segmentOut != null) {
+                segmentOut.close();
+                segmentOut = null;
+            }
+            for (RandomAccessFile reader : segmentReaders.values()) {
+                reader.close();
+            }
+            segmentReaders.clear();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error closing local storage", e);
+        }
+    }
+
+    /**
+     * @return Violations dropped because the storage queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    @FunctionalInterface
+    private interface IndexLookup {
+        LongList find();
+    }
+
+    /**
+     * Growable array of record addresses
+     */
+    private static final class LongList {
+        private long[] values = new long[8];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
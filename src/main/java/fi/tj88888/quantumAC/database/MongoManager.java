@@ -1,32 +1,50 @@
 package fi.tj88888.quantumAC.database;
 
 import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.config.ConfigManager;
 import fi.tj88888.quantumAC.data.PlayerData;
 import fi.tj88888.quantumAC.log.ViolationLog;
 import org.bson.Document;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
+
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 
 /**
- * Handles MongoDB connections and operations
+ * MongoDB storage backend
  * Updated to work with new ViolationLog structure
  */
-public class MongoManager {
+public class MongoManager implements StorageBackend {
+
+    private static final String RETENTION_INDEX = "createdAt_ttl";
+
+    // Fields shown by history views
+    private static final Bson HISTORY_PROJECTION = Projections.fields(
+            Projections.include("playerName", "checkName", "checkType", "vl", "details", "timestamp", "uuid"),
+            Projections.excludeId());
 
     private final QuantumAC plugin;
     private MongoClient mongoClient;
     private MongoDatabase database;
     private MongoCollection<Document> playerCollection;
     private MongoCollection<Document> violationCollection;
+    private ViolationWriter violationWriter;
+    private PlayerDataWriter playerDataWriter;
 
     public MongoManager(QuantumAC plugin) {
         this.plugin = plugin;
@@ -53,6 +71,17 @@ public class MongoManager {
             playerCollection = database.getCollection("players");
             violationCollection = database.getCollection("violations");
 
+            playerDataWriter = new PlayerDataWriter(playerCollection, plugin.getLogger());
+
+            // Violations are written in batches from their own thread, away from the packet and I/O workers
+            ConfigManager config = plugin.getConfigManager();
+            violationWriter = new ViolationWriter(violationCollection, plugin.getLogger(),
+                    config.getViolationQueueSize(), config.getViolationBatchSize(),
+                    config.getViolationFlushInterval(), config.getViolationMaxRetries());
+
+            // Index builds can take a while on a large collection, so keep them off the main thread
+            plugin.getIoExecutor().execute(this::ensureIndexes);
+
             plugin.getLogger().info("Successfully connected to MongoDB!");
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to connect to MongoDB: " + e.getMessage());
@@ -60,10 +89,20 @@ public class MongoManager {
         }
     }
 
+    @Override
+    public String getName() {
+        return "mongodb";
+    }
+
     /**
-     * Closes the MongoDB connection
+     * Writes queued violations and closes the MongoDB connection
      */
-    public void closeConnection() {
+    @Override
+    public void close() {
+        if (violationWriter != null && !violationWriter.shutdown(5000)) {
+            plugin.getLogger().warning("Timed out writing queued violations");
+        }
+
         if (mongoClient != null) {
             mongoClient.close();
             plugin.getLogger().info("Closed MongoDB connection.");
@@ -71,34 +110,29 @@ public class MongoManager {
     }
 
     /**
-     * Saves player data to MongoDB
+     * Stages player data for the next write-behind flush
+     * Repeated saves of the same player before the flush are coalesced into one write
      *
      * @param playerData Player data to save
-     * @return CompletableFuture for async operation
      */
-    public CompletableFuture<Void> savePlayerData(PlayerData playerData) {
-        return CompletableFuture.runAsync(() -> {
-            if (mongoClient == null) return;
-
-            try {
-                UUID uuid = playerData.getUuid();
-                Document filter = new Document("uuid", uuid.toString());
-
-                Document document = new Document("uuid", uuid.toString())
-                        .append("name", playerData.getPlayerName())
-                        .append("ping", playerData.getAveragePing())
-                        .append("joinTime", playerData.getJoinTime())
-                        .append("violations", playerData.getTotalViolations())
-                        .append("lastSeen", System.currentTimeMillis());
-
-                // Additional data can be added here
+    @Override
+    public void savePlayerData(PlayerData playerData) {
+        if (playerDataWriter != null) {
+            playerDataWriter.stage(playerData);
+        }
+    }
 
-                playerCollection.replaceOne(filter, document, new com.mongodb.client.model.ReplaceOptions().upsert(true));
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error saving player data: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }, plugin.getPacketExecutor());
+    /**
+     * Writes all staged player data with one bulk upsert
+     *
+     * @return CompletableFuture for async operation
+     */
+    @Override
+    public CompletableFuture<Void> flushPlayerData() {
+        if (playerDataWriter == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(playerDataWriter::flush, plugin.getIoExecutor());
     }
 
     /**
@@ -107,6 +141,7 @@ public class MongoManager {
      * @param uuid Player UUID
      * @return CompletableFuture with PlayerData
      */
+    @Override
     public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
         return CompletableFuture.supplyAsync(() -> {
             if (mongoClient == null) return null;
@@ -131,178 +166,164 @@ public class MongoManager {
             }
 
             return null;
-        }, plugin.getPacketExecutor());
+        }, plugin.getIoExecutor());
     }
 
     /**
-     * Logs a violation to MongoDB
-     * Updated to work with new ViolationLog structure
+     * Queues a violation for the batched writer
+     * Never blocks; the violation is dropped and counted if the writer is backed up
      *
      * @param violationLog Violation log to save
-     * @return CompletableFuture for async operation
+     * @return false if the violation was dropped
      */
-    public CompletableFuture<Void> logViolation(ViolationLog violationLog) {
-        return CompletableFuture.runAsync(() -> {
-            if (mongoClient == null) return;
-
-            try {
-                // Try to find UUID from player name
-                UUID playerUuid = null;
-                Player player = Bukkit.getPlayerExact(violationLog.getPlayerName());
-                if (player != null) {
-                    playerUuid = player.getUniqueId();
-                }
-
-                Document document = new Document()
-                        .append("playerName", violationLog.getPlayerName())
-                        .append("checkName", violationLog.getCheckName())
-                        .append("checkType", violationLog.getCheckType())
-                        .append("vl", violationLog.getVl())
-                        .append("details", violationLog.getDetails())
-                        .append("timestamp", violationLog.getTimestamp())
-                        .append("world", violationLog.getWorld())
-                        .append("x", violationLog.getX())
-                        .append("y", violationLog.getY())
-                        .append("z", violationLog.getZ())
-                        .append("ping", violationLog.getPing())
-                        .append("tps", violationLog.getTps());
-
-                // Add UUID if available
-                if (playerUuid != null) {
-                    document.append("uuid", playerUuid.toString());
-                }
+    @Override
+    public boolean logViolation(ViolationLog violationLog) {
+        return violationWriter != null && violationWriter.offer(violationLog);
+    }
 
-                violationCollection.insertOne(document);
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error logging violation: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }, plugin.getPacketExecutor());
+    /**
+     * Inserts violations through the batched writer on the calling thread, for the violation journal
+     */
+    @Override
+    public void writeViolations(List<ViolationLog> violations) {
+        if (violationWriter == null) {
+            throw new IllegalStateException("Not connected to MongoDB");
+        }
+        violationWriter.writeNow(violations);
     }
 
     /**
      * Gets player violations from MongoDB
-     * Updated to work with new ViolationLog structure
+     * Only the fields history views render are fetched, so location, ping and TPS are left empty
      *
      * @param uuid Player UUID
      * @param limit Maximum number of violations to retrieve
      * @return CompletableFuture with list of ViolationLog
      */
+    @Override
     public CompletableFuture<List<ViolationLog>> getPlayerViolations(UUID uuid, int limit) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<ViolationLog> logs = new ArrayList<>();
-            if (mongoClient == null) return logs;
-
-            try {
-                Document filter = new Document("uuid", uuid.toString());
-                violationCollection.find(filter)
-                        .sort(new Document("timestamp", -1))
-                        .limit(limit)
-                        .forEach(doc -> {
-                            ViolationLog log = new ViolationLog(
-                                    doc.getString("playerName"),
-                                    doc.getString("checkName"),
-                                    doc.getString("checkType"),
-                                    doc.getDouble("vl"),
-                                    doc.getString("details"),
-                                    doc.getString("world"),
-                                    doc.getDouble("x"),
-                                    doc.getDouble("y"),
-                                    doc.getDouble("z"),
-                                    doc.getInteger("ping"),
-                                    doc.getDouble("tps")
-                            );
-                            logs.add(log);
-                        });
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error retrieving player violations: " + e.getMessage());
-                e.printStackTrace();
-            }
-
-            return logs;
-        }, plugin.getPacketExecutor());
+        return findViolations(Filters.eq("uuid", uuid.toString()), limit, "player violations");
     }
 
     /**
      * Gets all violations for a player by name
+     * Only the fields history views render are fetched, so location, ping and TPS are left empty
      *
      * @param playerName Player name
      * @param limit Maximum number of violations to retrieve
      * @return CompletableFuture with list of ViolationLog
      */
+    @Override
     public CompletableFuture<List<ViolationLog>> getPlayerViolationsByName(String playerName, int limit) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<ViolationLog> logs = new ArrayList<>();
-            if (mongoClient == null) return logs;
-
-            try {
-                Document filter = new Document("playerName", playerName);
-                violationCollection.find(filter)
-                        .sort(new Document("timestamp", -1))
-                        .limit(limit)
-                        .forEach(doc -> {
-                            ViolationLog log = new ViolationLog(
-                                    doc.getString("playerName"),
-                                    doc.getString("checkName"),
-                                    doc.getString("checkType"),
-                                    doc.getDouble("vl"),
-                                    doc.getString("details"),
-                                    doc.getString("world"),
-                                    doc.getDouble("x"),
-                                    doc.getDouble("y"),
-                                    doc.getDouble("z"),
-                                    doc.getInteger("ping"),
-                                    doc.getDouble("tps")
-                            );
-                            logs.add(log);
-                        });
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error retrieving player violations by name: " + e.getMessage());
-                e.printStackTrace();
-            }
-
-            return logs;
-        }, plugin.getPacketExecutor());
+        return findViolations(Filters.eq("playerName", playerName), limit, "player violations by name");
     }
 
     /**
      * Gets recent violations across all players
+     * Only the fields history views render are fetched, so location, ping and TPS are left empty
      *
      * @param limit Maximum number of violations to retrieve
      * @return CompletableFuture with list of ViolationLog
      */
+    @Override
     public CompletableFuture<List<ViolationLog>> getRecentViolations(int limit) {
+        return findViolations(new Document(), limit, "recent violations");
+    }
+
+    /**
+     * Newest violations matching a filter; every filter used here is covered by one of the indexes
+     * created in {@link #ensureIndexes()}, so the lookup never scans the collection
+     */
+    private CompletableFuture<List<ViolationLog>> findViolations(Bson filter, int limit, String description) {
         return CompletableFuture.supplyAsync(() -> {
             List<ViolationLog> logs = new ArrayList<>();
             if (mongoClient == null) return logs;
 
             try {
-                violationCollection.find()
-                        .sort(new Document("timestamp", -1))
+                violationCollection.find(filter)
+                        .projection(HISTORY_PROJECTION)
+                        .sort(Sorts.descending("timestamp"))
                         .limit(limit)
-                        .forEach(doc -> {
-                            ViolationLog log = new ViolationLog(
-                                    doc.getString("playerName"),
-                                    doc.getString("checkName"),
-                                    doc.getString("checkType"),
-                                    doc.getDouble("vl"),
-                                    doc.getString("details"),
-                                    doc.getString("world"),
-                                    doc.getDouble("x"),
-                                    doc.getDouble("y"),
-                                    doc.getDouble("z"),
-                                    doc.getInteger("ping"),
-                                    doc.getDouble("tps")
-                            );
-                            logs.add(log);
-                        });
+                        .forEach(doc -> logs.add(toViolationLog(doc)));
             } catch (Exception e) {
-                plugin.getLogger().severe("Error retrieving recent violations: " + e.getMessage());
+                plugin.getLogger().severe("Error retrieving " + description + ": " + e.getMessage());
                 e.printStackTrace();
             }
 
             return logs;
-        }, plugin.getPacketExecutor());
+        }, plugin.getIoExecutor());
+    }
+
+    private static ViolationLog toViolationLog(Document doc) {
+        String uuid = doc.getString("uuid");
+        return new ViolationLog(
+                doc.getString("playerName"),
+                doc.getString("checkName"),
+                doc.getString("checkType"),
+                doc.getDouble("vl"),
+                doc.getString("details"),
+                null, 0, 0, 0, 0, 0,
+                doc.getLong("timestamp"),
+                uuid != null ? UUID.fromString(uuid) : null
+        );
+    }
+
+    /**
+     * Creates the indexes the player and history lookups rely on, and applies the retention window.
+     * Index creation is idempotent, so this runs on every connect.
+     */
+    private void ensureIndexes() {
+        try {
+            violationCollection.createIndexes(Arrays.asList(
+                    new IndexModel(Indexes.compoundIndex(Indexes.ascending("uuid"), Indexes.descending("timestamp")),
+                            new IndexOptions().name("uuid_timestamp")),
+                    new IndexModel(Indexes.compoundIndex(Indexes.ascending("playerName"), Indexes.descending("timestamp")),
+                            new IndexOptions().name("playerName_timestamp")),
+                    new IndexModel(Indexes.descending("timestamp"),
+                            new IndexOptions().name("timestamp"))
+            ));
+            playerCollection.createIndex(Indexes.ascending("uuid"), new IndexOptions().name("uuid"));
+
+            applyRetention(plugin.getConfigManager().getViolationRetentionDays());
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error creating database indexes: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Lets MongoDB expire violations through a TTL index on {@code createdAt}, or removes that index when
+     * retention is off. Violations written before {@code createdAt} existed never expire.
+     *
+     * @param days Days to keep violations, 0 or less to keep them forever
+     */
+    private void applyRetention(int days) {
+        boolean exists = false;
+        for (Document index : violationCollection.listIndexes()) {
+            if (RETENTION_INDEX.equals(index.getString("name"))) {
+                exists = true;
+                break;
+            }
+        }
+
+        if (days <= 0) {
+            if (exists) {
+                violationCollection.dropIndex(RETENTION_INDEX);
+                plugin.getLogger().info("Violation retention disabled, violations are kept forever.");
+            }
+            return;
+        }
+
+        long seconds = TimeUnit.DAYS.toSeconds(days);
+        if (exists) {
+            // The TTL of an existing index can be changed in place
+            database.runCommand(new Document("collMod", violationCollection.getNamespace().getCollectionName())
+                    .append("index", new Document("name", RETENTION_INDEX).append("expireAfterSeconds", seconds)));
+        } else {
+            violationCollection.createIndex(Indexes.ascending("createdAt"),
+                    new IndexOptions().name(RETENTION_INDEX).expireAfter(seconds, TimeUnit.SECONDS));
+        }
+        plugin.getLogger().info("Violations are kept for " + days + " days.");
     }
 
     /**
@@ -310,10 +331,29 @@ public class MongoManager {
      *
      * @return true if connected
      */
+    @Override
     public boolean isConnected() {
         return mongoClient != null;
     }
 
+    /**
+     * Get the batched violation writer
+     *
+     * @return The writer, or null if not connected
+     */
+    public ViolationWriter getViolationWriter() {
+        return violationWriter;
+    }
+
+    /**
+     * Get the write-behind player data writer
+     *
+     * @return The writer, or null if not connected
+     */
+    public PlayerDataWriter getPlayerDataWriter() {
+        return playerDataWriter;
+    }
+
     /**
      * Get the MongoDB database
      *
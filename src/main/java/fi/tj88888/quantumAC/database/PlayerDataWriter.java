@@ -0,0 +1,159 @@
+package fi.tj88888.quantumAC.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.data.PlayerRecord;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind store for player records.
+ *
+ * Saving only stages a {@link PlayerRecord} copy, keyed by player, so repeated saves of the same player
+ * between flushes collapse into one write. {@link #flush()} writes everything staged with a single
+ * unordered bulk upsert and then marks each player saved up to the version of its record. If the write
+ * fails the records are staged again, unless a newer one arrived in the meantime.
+ */
+public class PlayerDataWriter {
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoCollection<Document> collection;
+    private final Logger logger;
+    private final Map<UUID, Staged> staged = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    public PlayerDataWriter(MongoCollection<Document> collection, Logger logger) {
+        this.collection = collection;
+        this.logger = logger;
+    }
+
+    /**
+     * Stages the current state of a player for the next flush. Safe to call from any thread.
+     */
+    public void stage(PlayerData data) {
+        stage(new Staged(data, data.toRecord()));
+    }
+
+    private void stage(Staged next) {
+        staged.merge(next.record.getUuid(), next, (current, candidate) -> {
+            coalesced.increment();
+            return candidate.isNewerThan(current) ? candidate : current;
+        });
+    }
+
+    /**
+     * Writes all staged records with one bulk upsert. Blocks on the database; never call from the main thread.
+     *
+     * @return Number of records written
+     */
+    public synchronized int flush() {
+        if (staged.isEmpty()) return 0;
+
+        List<Staged> batch = new ArrayList<>(staged.size());
+        for (UUID uuid : staged.keySet()) {
+            Staged entry = staged.remove(uuid);
+            if (entry != null) {
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) return 0;
+
+        List<WriteModel<Document>> models = new ArrayList<>(batch.size());
+        for (Staged entry : batch) {
+            PlayerRecord record = entry.record;
+            models.add(new ReplaceOneModel<>(Filters.eq("uuid", record.getUuid().toString()), toDocument(record), UPSERT));
+        }
+
+        try {
+            collection.bulkWrite(models, UNORDERED);
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            logger.warning("Error saving " + batch.size() + " players, retrying next flush: " + e.getMessage());
+            for (Staged entry : batch) {
+                stage(entry);
+            }
+            return 0;
+        }
+
+        for (Staged entry : batch) {
+            entry.source.markSaved(entry.record.getVersion());
+        }
+        written.addAndGet(batch.size());
+        flushes.incrementAndGet();
+        return batch.size();
+    }
+
+    private static Document toDocument(PlayerRecord record) {
+        return new Document("uuid", record.getUuid().toString())
+                .append("name", record.getName())
+                .append("ping", record.getPing())
+                .append("joinTime", record.getJoinTime())
+                .append("violations", record.getViolations())
+                .append("lastSeen", record.getLastSeen());
+    }
+
+    /**
+     * @return Number of players waiting for the next flush
+     */
+    public int getStagedCount() {
+        return staged.size();
+    }
+
+    /**
+     * @return Saves absorbed by a save of the same player that was still staged
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    private static final class Staged {
+        final PlayerData source;
+        final PlayerRecord record;
+
+        Staged(PlayerData source, PlayerRecord record) {
+            this.source = source;
+            this.record = record;
+        }
+
+        /**
+         * Versions only order records of the same PlayerData; across sessions the later copy wins
+         */
+        boolean isNewerThan(Staged other) {
+            if (source == other.source) {
+                return record.getVersion() - other.record.getVersion() >= 0;
+            }
+            return record.getLastSeen() >= other.record.getLastSeen();
+        }
+    }
+}
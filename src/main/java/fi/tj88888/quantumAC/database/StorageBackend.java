@@ -0,0 +1,97 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.log.ViolationLog;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where player records and violations are persisted.
+ * Implementations never block the caller on I/O: writes are queued or staged, and reads complete
+ * their futures from the backend's own threads.
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name shown to staff, e.g. in /quantumac info
+     */
+    String getName();
+
+    /**
+     * Whether the backend can store and query data right now
+     */
+    boolean isConnected();
+
+    /**
+     * Loads a player's stored record
+     *
+     * @param uuid Player UUID
+     * @return CompletableFuture with standalone PlayerData, or null if the player is unknown
+     */
+    CompletableFuture<PlayerData> loadPlayerData(UUID uuid);
+
+    /**
+     * Stages the current state of a player for the next {@link #flushPlayerData()}
+     * Repeated saves of the same player before the flush are coalesced
+     *
+     * @param playerData Player data to save
+     */
+    void savePlayerData(PlayerData playerData);
+
+    /**
+     * Writes all staged player data
+     *
+     * @return CompletableFuture completed once the staged records are stored
+     */
+    CompletableFuture<Void> flushPlayerData();
+
+    /**
+     * Queues a violation for storage. Never blocks.
+     *
+     * @param violationLog Violation log to save
+     * @return false if the violation was dropped
+     */
+    boolean logViolation(ViolationLog violationLog);
+
+    /**
+     * Stores violations before returning, for callers that must know they were written.
+     * Blocks on I/O; never call from the main thread or a packet worker.
+     *
+     * @param violations Violations to store
+     * @throws Exception if the violations could not be stored; none, some or all may have been written
+     */
+    void writeViolations(List<ViolationLog> violations) throws Exception;
+
+    /**
+     * Newest violations of a player, newest first
+     *
+     * @param uuid Player UUID
+     * @param limit Maximum number of violations to retrieve
+     * @return CompletableFuture with list of ViolationLog
+     */
+    CompletableFuture<List<ViolationLog>> getPlayerViolations(UUID uuid, int limit);
+
+    /**
+     * Newest violations recorded under a player name, newest first
+     *
+     * @param playerName Player name
+     * @param limit Maximum number of violations to retrieve
+     * @return CompletableFuture with list of ViolationLog
+     */
+    CompletableFuture<List<ViolationLog>> getPlayerViolationsByName(String playerName, int limit);
+
+    /**
+     * Newest violations across all players, newest first
+     *
+     * @param limit Maximum number of violations to retrieve
+     * @return CompletableFuture with list of ViolationLog
+     */
+    CompletableFuture<List<ViolationLog>> getRecentViolations(int limit);
+
+    /**
+     * Writes what is still queued, within a bounded time, and releases the backend's resources
+     */
+    void close();
+}
@@ -0,0 +1,56 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.QuantumAC;
+
+import java.io.File;
+
+/**
+ * Which {@link StorageBackend} the plugin persists to
+ */
+public enum StorageType {
+
+    /**
+     * MongoDB when a connection URI is configured, local files otherwise
+     */
+    AUTO,
+
+    /**
+     * The configured MongoDB database
+     */
+    MONGODB,
+
+    /**
+     * Files in the plugin folder; needs no external service
+     */
+    LOCAL;
+
+    /**
+     * Opens the backend of this type
+     *
+     * @param plugin Plugin whose configuration and data folder are used
+     * @return A new backend
+     */
+    public StorageBackend create(QuantumAC plugin) {
+        StorageType type = this;
+        if (type == AUTO) {
+            type = plugin.getConfigManager().getMongoUri().isEmpty() ? LOCAL : MONGODB;
+        }
+
+        if (type == LOCAL) {
+            File directory = new File(plugin.getDataFolder(), plugin.getConfigManager().getLocalStorageDirectory());
+            return new LocalStorage(directory, plugin.getLogger());
+        }
+        return new MongoManager(plugin);
+    }
+
+    public static StorageType fromString(String name, StorageType fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.log.ViolationEvent;
+import fi.tj88888.quantumAC.log.ViolationLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only local journal that every violation is written to before it reaches the storage backend.
+ *
+ * Records have a fixed width and live in memory-mapped segment files of {@link #SEGMENT_RECORDS} records,
+ * so an append is a handful of puts into the mapping followed by a CRC; no system call, no allocation
+ * beyond encoding the strings, and the record survives a crash of the server process. Strings longer than
+ * their slot are truncated. Each record is identified by a sequence number: the segment number times
+ * {@link #SEGMENT_RECORDS} plus its slot.
+ *
+ * A shipper thread tails the journal, writes batches to the backend with
+ * {@link StorageBackend#writeViolations(List)} and then persists the sequence it reached to a checkpoint
+ * file. With MongoDB that write goes through the {@link ViolationWriter}, the one place violations are
+ * inserted. A failed batch is retried with backoff until the backend takes it, so violations recorded while the
+ * database is unreachable are replayed once it is back, and whatever was not shipped at shutdown is
+ * shipped on the next start. Delivery is at least once: a crash between a write and its checkpoint ships
+ * that batch again. Fully shipped segments are deleted. When unshipped records reach
+ * {@code maxRecords} new violations are dropped and counted rather than filling the disk.
+ *
+ * Appends come from the main thread while violations are drained; the journal takes a lock anyway so that
+ * a stray caller cannot corrupt a record.
+ */
+public class ViolationJournal {
+
+    static final int RECORD_SIZE = 512;
+    static final int SEGMENT_RECORDS = 8192;
+
+    // Record layout; the CRC covers everything after it
+    private static final int CRC = 0;
+    private static final int TIMESTAMP = 4;
+    private static final int UUID_MOST = 12;
+    private static final int UUID_LEAST = 20;
+    private static final int VL = 28;
+    private static final int X = 36;
+    private static final int Y = 44;
+    private static final int Z = 52;
+    private static final int TPS = 60;
+    private static final int PING = 68;
+    private static final int FLAGS = 72;
+    private static final int PLAYER_NAME = 73;
+    private static final int CHECK_NAME = PLAYER_NAME + 1 + 32;
+    private static final int CHECK_TYPE = CHECK_NAME + 1 + 32;
+    private static final int WORLD = CHECK_TYPE + 1 + 32;
+    private static final int DETAILS = WORLD + 1 + 64;
+    private static final int DETAILS_LENGTH = 255;
+
+    private static final byte FLAG_UUID = 1;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final long MIN_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final File directory;
+    private final StorageBackend backend;
+    private final Logger logger;
+    private final long maxRecords;
+    private final int batchSize;
+    private final long pollNanos;
+
+    // Writer state, guarded by this
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CRC32C writeCrc = new CRC32C();
+    private MappedByteBuffer writeBuffer;
+    private ByteBuffer writeView;
+    private long writeSegment = -1;
+
+    // Sequence of the next record to append; published to the shipper by the volatile write
+    private volatile long written;
+    // Sequence of the next record to ship; everything before it reached the backend
+    private volatile long shipped;
+
+    // Shipper state
+    private final Map<Long, MappedByteBuffer> readBuffers = new HashMap<>();
+    private final CRC32C readCrc = new CRC32C();
+    private final Thread shipper;
+    private volatile boolean running = true;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong shippedCount = new AtomicLong();
+    private final AtomicLong corrupt = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Opens the journal, recovering the append position and checkpoint from disk, and starts shipping.
+     *
+     * @param maxRecords Unshipped records kept before new violations are dropped
+     * @param batchSize Records per backend write
+     * @param pollMillis How often the shipper looks for new records
+     */
+    public ViolationJournal(File directory, StorageBackend backend, Logger logger,
+                            long maxRecords, int batchSize, long pollMillis) throws IOException {
+        this.directory = directory;
+        this.backend = backend;
+        this.logger = logger;
+        this.maxRecords = Math.max(SEGMENT_RECORDS, maxRecords);
+        this.batchSize = Math.max(1, batchSize);
+        this.pollNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, pollMillis));
+
+        Files.createDirectories(directory.toPath());
+        recover();
+
+        this.shipper = new Thread(this::run, "QuantumAC-JournalShipper");
+        this.shipper.setDaemon(true);
+        this.shipper.start();
+    }
+
+    private void recover() throws IOException {
+        long checkpoint = readCheckpoint();
+
+        TreeSet<Long> segments = listSegments();
+        long end = checkpoint;
+        if (!segments.isEmpty()) {
+            // The append position follows the last valid record of the newest segment. Slots are never reused,
+            // so a corrupt record before it is left for the shipper to skip rather than overwritten.
+            long last = segments.last();
+            MappedByteBuffer buffer = map(last);
+            int slot = SEGMENT_RECORDS;
+            while (slot > 0 && !isValid(buffer, (slot - 1) * RECORD_SIZE, readCrc)) {
+                slot--;
+            }
+            end = Math.max(end, last * SEGMENT_RECORDS + slot);
+        }
+
+        // Segments wholly behind the checkpoint were shipped before the last shutdown
+        for (long segment : segments) {
+            if ((segment + 1) * SEGMENT_RECORDS <= checkpoint && segment != end / SEGMENT_RECORDS) {
+                Files.deleteIfExists(segmentFile(segment).toPath());
+            }
+        }
+
+        shipped = checkpoint;
+        written = end;
+        if (end > checkpoint) {
+            logger.info("Violation journal has " + (end - checkpoint) + " unshipped violations, replaying");
+        }
+    }
+
+    /**
+     * Appends a violation to the journal. Called while violations are drained, on the main thread.
+     *
+     * @return false if the journal is full or closed and the violation was dropped
+     */
+    public synchronized boolean append(ViolationEvent event) {
+        long sequence = written;
+        if (!running || sequence - shipped >= maxRecords) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        long segment = sequence / SEGMENT_RECORDS;
+        if (segment != writeSegment) {
+            try {
+                writeBuffer = map(segment);
+            } catch (IOException e) {
+                dropped.incrementAndGet();
+                logger.log(Level.SEVERE, "Error opening violation journal segment " + segment, e);
+                return false;
+            }
+            writeView = writeBuffer.duplicate();
+            writeSegment = segment;
+        }
+
+        MappedByteBuffer buffer = writeBuffer;
+        int base = (int) (sequence % SEGMENT_RECORDS) * RECORD_SIZE;
+
+        UUID uuid = event.getPlayerData().getUuid();
+        buffer.putLong(base + TIMESTAMP, event.getTimestamp());
+        buffer.putLong(base + UUID_MOST, uuid != null ? uuid.getMostSignificantBits() : 0);
+        buffer.putLong(base + UUID_LEAST, uuid != null ? uuid.getLeastSignificantBits() : 0);
+        buffer.putDouble(base + VL, event.getVl());
+        buffer.putDouble(base + X, event.getX());
+        buffer.putDouble(base + Y, event.getY());
+        buffer.putDouble(base + Z, event.getZ());
+        buffer.putDouble(base + TPS, event.getTps());
+        buffer.putInt(base + PING, event.getPing());
+        buffer.put(base + FLAGS, uuid != null ? FLAG_UUID : 0);
+        putString(base + PLAYER_NAME, 32, event.getPlayerName());
+        putString(base + CHECK_NAME, 32, event.getCheckName());
+        putString(base + CHECK_TYPE, 32, event.getCheckType());
+        putString(base + WORLD, 64, event.getWorld());
+        putString(base + DETAILS, DETAILS_LENGTH, event.getDetails());
+
+        writeCrc.reset();
+        writeView.limit(base + RECORD_SIZE).position(base + TIMESTAMP);
+        writeCrc.update(writeView);
+        buffer.putInt(base + CRC, (int) writeCrc.getValue());
+
+        // Volatile write publishes the record to the shipper
+        written = sequence + 1;
+        return true;
+    }
+
+    /**
+     * Writes a string into a length-prefixed slot, truncating it at a character boundary
+     */
+    private void putString(int offset, int maxBytes, String value) {
+        writeView.limit(offset + 1 + maxBytes).position(offset + 1);
+        if (value != null) {
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(value), writeView, true);
+        }
+        int length = writeView.position() - offset - 1;
+        writeBuffer.put(offset, (byte) length);
+    }
+
+    private void run() {
+        List<ViolationLog> batch = new ArrayList<>(batchSize);
+        long backoff = MIN_BACKOFF_MILLIS;
+        long from = 0;
+        // Sequence following the batch being shipped, or -1 when no batch is pending
+        long next = -1;
+
+        while (true) {
+            if (next < 0) {
+                from = shipped;
+                long end = written;
+                if (from >= end) {
+                    if (!running) break;
+                    LockSupport.parkNanos(this, pollNanos);
+                    continue;
+                }
+
+                try {
+                    next = read(from, end, batch);
+                } catch (IOException e) {
+                    batch.clear();
+                    logger.log(Level.SEVERE, "Error reading violation journal", e);
+                    if (!running) break;
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(MAX_BACKOFF_MILLIS));
+                    continue;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    backend.writeViolations(batch);
+                } catch (Exception e) {
+                    // The decoded batch is kept for the retry; when stopping it stays in the journal for the next start
+                    if (!running) break;
+
+                    retries.incrementAndGet();
+                    if (backoff == MIN_BACKOFF_MILLIS) {
+                        logger.warning("Error shipping violations to " + backend.getName()
+                                + ", keeping them in the journal: " + e.getMessage());
+                    }
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+                    backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+                    continue;
+                }
+                if (backoff != MIN_BACKOFF_MILLIS) {
+                    logger.info("Violation journal is shipping to " + backend.getName() + " again");
+                    backoff = MIN_BACKOFF_MILLIS;
+                }
+                shippedCount.addAndGet(batch.size());
+                batch.clear();
+            }
+
+            shipped = next;
+            try {
+                writeCheckpoint(next);
+                releaseShipped(from / SEGMENT_RECORDS, next);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Error updating violation journal checkpoint", e);
+            }
+            next = -1;
+        }
+
+        readBuffers.clear();
+    }
+
+    /**
+     * Decodes records from {@code from} up to the end of the batch, the segment or {@code end}
+     *
+     * @return Sequence following the last record read
+     */
+    private long read(long from, long end, List<ViolationLog> batch) throws IOException {
+        long segment = from / SEGMENT_RECORDS;
+        MappedByteBuffer buffer = readBuffers.get(segment);
+        if (buffer == null) {
+            buffer = map(segment);
+            readBuffers.put(segment, buffer);
+        }
+
+        long limit = Math.min(end, Math.min(from + batchSize, (segment + 1) * SEGMENT_RECORDS));
+        for (long sequence = from; sequence < limit; sequence++) {
+            int base = (int) (sequence % SEGMENT_RECORDS) * RECORD_SIZE;
+            if (!isValid(buffer, base, readCrc)) {
+                corrupt.incrementAndGet();
+                continue;
+            }
+            batch.add(decode(buffer, base));
+        }
+
+        // Make what is about to be shipped durable against a crash of the machine, not just the process
+        buffer.force();
+        return limit;
+    }
+
+    private static boolean isValid(ByteBuffer buffer, int base, CRC32C crc) {
+        if (buffer.getLong(base + TIMESTAMP) == 0) {
+            return false;
+        }
+        crc.reset();
+        crc.update(buffer.duplicate().limit(base + RECORD_SIZE).position(base + TIMESTAMP));
+        return buffer.getInt(base + CRC) == (int) crc.getValue();
+    }
+
+    private static ViolationLog decode(ByteBuffer buffer, int base) {
+        UUID uuid = (buffer.get(base + FLAGS) & FLAG_UUID) != 0
+                ? new UUID(buffer.getLong(base + UUID_MOST), buffer.getLong(base + UUID_LEAST))
+                : null;
+
+        return new ViolationLog(getString(buffer, base + PLAYER_NAME), getString(buffer, base + CHECK_NAME),
+                getString(buffer, base + CHECK_TYPE), buffer.getDouble(base + VL), getString(buffer, base + DETAILS),
+                getString(buffer, base + WORLD), buffer.getDouble(base + X), buffer.getDouble(base + Y),
+                buffer.getDouble(base + Z), buffer.getInt(base + PING), buffer.getDouble(base + TPS),
+                buffer.getLong(base + TIMESTAMP), uuid);
+    }
+
+    private static String getString(ByteBuffer buffer, int offset) {
+        int length = buffer.get(offset) & 0xFF;
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drops the mappings and files of segments the shipper has moved past
+     */
+    private void releaseShipped(long segment, long next) throws IOException {
+        if (next < (segment + 1) * SEGMENT_RECORDS) return;
+
+        readBuffers.remove(segment);
+        // The writer may still map a segment it just filled; where that blocks the delete, recovery retries it
+        Files.deleteIfExists(segmentFile(segment).toPath());
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(segment).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // A new file is extended with zeros, which read as empty slots
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) RECORD_SIZE * SEGMENT_RECORDS);
+        }
+    }
+
+    private File segmentFile(long segment) {
+        return new File(directory, SEGMENT_PREFIX + String.format("%010d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private TreeSet<Long> listSegments() {
+        TreeSet<Long> segments = new TreeSet<>();
+        String[] names = directory.list();
+        if (names == null) return segments;
+
+        for (String name : names) {
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        return segments;
+    }
+
+    private long readCheckpoint() throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        if (!file.exists()) return 0;
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length != Long.BYTES) {
+            logger.warning("Ignoring malformed violation journal checkpoint, replaying the whole journal");
+            return 0;
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        File temp = new File(directory, CHECKPOINT_FILE + ".tmp");
+        Files.write(temp.toPath(), ByteBuffer.allocate(Long.BYTES).putLong(0, sequence).array());
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stops accepting violations and gives the shipper until the timeout to ship what is left.
+     * Anything it does not get to stays in the journal for the next start.
+     *
+     * @return Whether everything was shipped
+     */
+    public boolean close(long timeoutMillis) {
+        synchronized (this) {
+            running = false;
+        }
+        LockSupport.unpark(shipper);
+        try {
+            shipper.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (writeBuffer != null) {
+                writeBuffer.force();
+                writeBuffer = null;
+                writeView = null;
+            }
+        }
+        return !shipper.isAlive() && shipped >= written;
+    }
+
+    /**
+     * @return Violations in the journal that have not reached the backend yet
+     */
+    public long getPendingCount() {
+        return Math.max(0, written - shipped);
+    }
+
+    public long getShippedCount() {
+        return shippedCount.get();
+    }
+
+    /**
+     * @return Violations dropped because the journal was full or could not be written
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Records skipped by the shipper because their CRC did not match
+     */
+    public long getCorruptCount() {
+        return corrupt.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+}
@@ -0,0 +1,260 @@
+package fi.tj88888.quantumAC.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import fi.tj88888.quantumAC.log.ViolationLog;
+import fi.tj88888.quantumAC.util.LogLinearHistogram;
+import fi.tj88888.quantumAC.util.MpscArrayQueue;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes violations to the database in batches from a dedicated thread.
+ *
+ * Callers only offer the entry to a bounded lock-free queue, which never blocks; when the queue is full the
+ * entry is dropped and counted. The writer thread collects up to {@code batchSize} documents and writes them
+ * with one unordered {@code insertMany} once the batch is full or {@code flushIntervalMillis} after its first
+ * document. A failed batch is retried with exponential backoff on the writer thread, and dropped after
+ * {@code maxRetries} attempts; meanwhile the queue keeps absorbing new violations up to its capacity.
+ *
+ * When the {@link ViolationJournal} is enabled the queue stays idle: the journal ships its batches through
+ * {@link #writeNow(List)} and does its own retrying, and the writer only inserts and keeps the statistics.
+ */
+public class ViolationWriter {
+
+    private static final long MIN_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoCollection<Document> collection;
+    private final Logger logger;
+    private final MpscArrayQueue<ViolationLog> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final LogLinearHistogram batchLatency = new LogLinearHistogram();
+
+    /**
+     * @param queueSize Violations held while the writer catches up, rounded up to a power of two
+     * @param batchSize Documents per insert
+     * @param flushIntervalMillis Longest a queued violation waits for its batch to fill
+     * @param maxRetries Attempts per batch before it is dropped
+     */
+    public ViolationWriter(MongoCollection<Document> collection, Logger logger,
+                           int queueSize, int batchSize, long flushIntervalMillis, int maxRetries) {
+        this.collection = collection;
+        this.logger = logger;
+        this.queue = new MpscArrayQueue<>(queueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.maxRetries = Math.max(1, maxRetries);
+
+        this.thread = new Thread(this::run, "QuantumAC-ViolationWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a violation for writing. Never blocks.
+     *
+     * @return false if the queue was full or the writer stopped, and the violation was dropped
+     */
+    public boolean offer(ViolationLog log) {
+        if (!running || !queue.offer(log)) {
+            dropped.increment();
+            return false;
+        }
+
+        // Wake the writer early only once a full batch is waiting
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void run() {
+        List<Document> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+
+        while (running) {
+            ViolationLog log;
+            while (batch.size() < batchSize && (log = queue.poll()) != null) {
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + flushIntervalNanos;
+                }
+                batch.add(toDocument(log));
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            } else if (batch.size() >= batchSize || System.nanoTime() - deadline >= 0) {
+                writeWithRetry(batch);
+                batch.clear();
+            } else {
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
+            }
+        }
+
+        // Final flush of whatever was queued before shutdown
+        ViolationLog log;
+        while ((log = queue.poll()) != null) {
+            batch.add(toDocument(log));
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void writeWithRetry(List<Document> batch) {
+        long backoff = MIN_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            if (write(batch)) {
+                return;
+            }
+            if (attempt >= maxRetries || !running) {
+                failed.addAndGet(batch.size());
+                logger.warning("Dropped " + batch.size() + " violations after " + attempt + " failed writes");
+                return;
+            }
+
+            retries.incrementAndGet();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    /**
+     * @return Whether the batch was written
+     */
+    private boolean write(List<Document> batch) {
+        try {
+            insert(batch);
+            return true;
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Error writing " + batch.size() + " violations: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes violations on the calling thread as one batch, bypassing the queue. The caller handles failures
+     * and retries. Blocks on the database; never call from the main thread.
+     */
+    public void writeNow(List<ViolationLog> violations) {
+        List<Document> batch = new ArrayList<>(violations.size());
+        for (ViolationLog violation : violations) {
+            batch.add(toDocument(violation));
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Document> batch) {
+        long start = System.nanoTime();
+        collection.insertMany(batch, UNORDERED);
+        batchLatency.record(System.nanoTime() - start);
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+    }
+
+    private static Document toDocument(ViolationLog violationLog) {
+        Document document = new Document()
+                .append("playerName", violationLog.getPlayerName())
+                .append("checkName", violationLog.getCheckName())
+                .append("checkType", violationLog.getCheckType())
+                .append("vl", violationLog.getVl())
+                .append("details", violationLog.getDetails())
+                .append("timestamp", violationLog.getTimestamp())
+                .append("createdAt", new Date(violationLog.getTimestamp())) // Expired by the retention TTL index
+                .append("world", violationLog.getWorld())
+                .append("x", violationLog.getX())
+                .append("y", violationLog.getY())
+                .append("z", violationLog.getZ())
+                .append("ping", violationLog.getPing())
+                .append("tps", violationLog.getTps());
+
+        // Add UUID if available
+        if (violationLog.getUuid() != null) {
+            document.append("uuid", violationLog.getUuid().toString());
+        }
+        return document;
+    }
+
+    /**
+     * Stops accepting violations and waits for the queued ones to be written
+     *
+     * @param timeoutMillis Longest to wait for the final flush
+     * @return Whether the writer finished within the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * @return Violations dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Violations dropped after their batch ran out of retries
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * Time taken by successful batch inserts, in nanoseconds
+     */
+    public LogLinearHistogram getBatchLatency() {
+        return batchLatency;
+    }
+}
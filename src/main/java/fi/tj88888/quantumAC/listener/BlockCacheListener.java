@@ -0,0 +1,107 @@
+package fi.tj88888.quantumAC.listener;
+
+import fi.tj88888.quantumAC.data.BlockStateCache;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link BlockStateCache} in sync with the world.
+ * Handlers run at MONITOR and also for cancelled events, since a cancelled place still
+ * changed the block for a moment and invalidating an unchanged block only costs a reload.
+ */
+public class BlockCacheListener implements Listener {
+
+    private final BlockStateCache blockStateCache;
+
+    public BlockCacheListener(BlockStateCache blockStateCache) {
+        this.blockStateCache = blockStateCache;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        blockStateCache.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockBreak(BlockBreakEvent event) {
+        blockStateCache.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        blockStateCache.invalidate(event.getBlock());
+        blockStateCache.invalidate(event.getSourceBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLiquidFlow(BlockFromToEvent event) {
+        blockStateCache.invalidate(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockFade(BlockFadeEvent event) {
+        // Melting ice and snow changes what players stand on
+        blockStateCache.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockForm(BlockFormEvent event) {
+        blockStateCache.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidateAll(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidateAll(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        blockStateCache.invalidateChunk(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        blockStateCache.invalidateWorld(event.getWorld());
+    }
+
+    private void invalidateAll(List<Block> blocks) {
+        for (Block block : blocks) {
+            blockStateCache.invalidate(block);
+        }
+    }
+
+    /**
+     * Invalidates the piston head and both the old and new position of every moved block
+     */
+    private void invalidateMoved(Block piston, List<Block> moved, BlockFace direction) {
+        blockStateCache.invalidate(piston.getRelative(direction));
+        for (Block block : moved) {
+            blockStateCache.invalidate(block);
+            blockStateCache.invalidate(block.getRelative(direction));
+        }
+    }
+}
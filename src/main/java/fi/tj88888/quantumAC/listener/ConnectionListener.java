@@ -52,6 +52,9 @@ public class ConnectionListener implements Listener {
 
         // Remove checks
         plugin.getCheckManager().removeChecks(uuid);
+
+        // Release the player's packet lane
+        plugin.getPacketDispatcher().removeLane(uuid);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -1,34 +1,75 @@
 package fi.tj88888.quantumAC.log;
 
 import fi.tj88888.quantumAC.QuantumAC;
-import fi.tj88888.quantumAC.log.ViolationLog;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles file logging of violations and other events
+ *
+ * The log thread keeps the current day's file open and drains the queue in batches, writing each batch
+ * with one gather write. Files are named after their day; a file that reaches the size cap continues in
+ * {@code <day>-1.log}, {@code <day>-2.log} and so on. Files closed by rotation, and those of earlier days
+ * found at startup, are gzipped in the background.
  */
 public class LogManager {
 
+    private static final int QUEUE_CAPACITY = 16384;
+    private static final int BATCH_SIZE = 256;
+    private static final long POLL_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT = 5000; // ms
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
     private final QuantumAC plugin;
     private final File logFolder;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
 
     // Async logging queue
-    private final BlockingQueue<ViolationLog> logQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ViolationLog> logQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
     private final Thread logThread;
-    private boolean running = true;
+    private volatile boolean running = true;
+    private volatile boolean enabled;
+    private volatile long maxFileSize;
+
+    // Log thread state
+    private final List<ViolationLog> batch = new ArrayList<>(BATCH_SIZE);
+    private final ByteBuffer[] buffers = new ByteBuffer[BATCH_SIZE];
+    private final StringBuilder line = new StringBuilder(256);
+    private FileChannel channel;
+    private File currentFile;
+    private LocalDate currentDate;
+    private int currentPart;
+    private long currentSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
 
     public LogManager(QuantumAC plugin) {
         this.plugin = plugin;
+        reload();
 
         // Create logs directory if it doesn't exist
         logFolder = new File(plugin.getDataFolder(), "logs");
@@ -43,26 +84,61 @@ public class LogManager {
         logThread.start();
     }
 
+    /**
+     * Re-reads the file logging settings
+     */
+    public void reload() {
+        enabled = plugin.getConfigManager().isLogToFileEnabled();
+        maxFileSize = plugin.getConfigManager().getLogFileMaxSize();
+    }
+
     /**
      * Log a violation to file if file logging is enabled
      *
      * @param log The violation to log
      */
     public void logViolation(ViolationLog log) {
+        if (!enabled || !running) {
+            return;
+        }
+
         // Add to queue for async processing
-        logQueue.add(log);
+        if (!logQueue.offer(log)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Whether violations are currently logged to file
+     */
+    public boolean isEnabled() {
+        return enabled;
     }
 
     /**
      * Process the log queue in a separate thread
      */
     private void processLogQueue() {
-        while (running) {
+        compressOldLogs();
+
+        while (running || !logQueue.isEmpty()) {
             try {
-                ViolationLog log = logQueue.take();
-                if (log != null) {
-                    writeLogToFile(log);
+                ViolationLog log = logQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (log == null) {
+                    // Close yesterday's file even when nothing is logged after midnight
+                    LocalDate today = LocalDate.now(ZONE);
+                    if (channel != null && !today.equals(currentDate)) {
+                        closeFile(true);
+                        // Late entries from yesterday now go to today's first file
+                        currentDate = today;
+                        currentPart = -1;
+                    }
+                    continue;
                 }
+
+                batch.add(log);
+                logQueue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch();
             } catch (InterruptedException e) {
                 plugin.getLogger().warning("Log thread interrupted: " + e.getMessage());
                 Thread.currentThread().interrupt();
@@ -70,51 +146,193 @@ public class LogManager {
             } catch (Exception e) {
                 plugin.getLogger().severe("Error in log thread: " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                batch.clear();
             }
         }
+
+        try {
+            closeFile(false);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Error closing log file: " + e.getMessage());
+        }
     }
 
     /**
-     * Write a violation log to the appropriate file
-     *
-     * @param log The violation to log
+     * Writes the batch with as few gather writes as possible; a batch only splits where the file rotates
      */
-    private void writeLogToFile(ViolationLog log) {
-        if (!plugin.getConfigManager().getConfig().getBoolean("violations.log-to-file", false)) {
-            return;
+    private void writeBatch() throws IOException {
+        int pending = 0;
+        long pendingBytes = 0;
+
+        for (ViolationLog log : batch) {
+            LocalDate date = Instant.ofEpochMilli(log.getTimestamp()).atZone(ZONE).toLocalDate();
+            // Workers timestamp violations, so one from before midnight can arrive after the rotation.
+            // Its day's file is closed and may be being compressed; it goes into the current file instead.
+            if (currentDate != null && date.isBefore(currentDate)) {
+                date = currentDate;
+            }
+            format(log);
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(line));
+
+            boolean rotate = channel == null || !date.equals(currentDate)
+                    || (currentSize + pendingBytes > 0 && currentSize + pendingBytes + buffer.remaining() > maxFileSize);
+            if (rotate) {
+                write(pending);
+                pending = 0;
+                pendingBytes = 0;
+                openFile(date);
+            }
+
+            buffers[pending++] = buffer;
+            pendingBytes += buffer.remaining();
+        }
+
+        write(pending);
+        written.addAndGet(batch.size());
+    }
+
+    private void write(int count) throws IOException {
+        if (count == 0) return;
+
+        long remaining = 0;
+        for (int i = 0; i < count; i++) {
+            remaining += buffers[i].remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers, 0, count);
+        }
+        currentSize = channel.position();
+
+        for (int i = 0; i < count; i++) {
+            buffers[i] = null;
+        }
+    }
+
+    /**
+     * Opens the file for a day, continuing in the next part once the current one is full
+     */
+    private void openFile(LocalDate date) throws IOException {
+        boolean sameDay = date.equals(currentDate);
+        closeFile(true);
+
+        int part = sameDay ? currentPart + 1 : 0;
+        File file = logFile(date, part);
+        while (file.length() >= maxFileSize || new File(file.getPath() + ".gz").exists()) {
+            file = logFile(date, ++part);
+        }
+
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentFile = file;
+        currentDate = date;
+        currentPart = part;
+        currentSize = channel.size();
+    }
+
+    private void closeFile(boolean compress) throws IOException {
+        if (channel == null) return;
+
+        channel.force(false);
+        channel.close();
+        channel = null;
+
+        if (compress) {
+            compressInBackground(currentFile);
+        }
+    }
+
+    private File logFile(LocalDate date, int part) {
+        String name = DATE_FORMAT.format(date) + (part == 0 ? "" : "-" + part);
+        return new File(logFolder, name + ".log");
+    }
+
+    /**
+     * Queues gzipping of log files left from earlier days, including those a previous shutdown did not get to
+     */
+    private void compressOldLogs() {
+        String today = DATE_FORMAT.format(LocalDate.now(ZONE));
+        File[] files = logFolder.listFiles((dir, name) -> name.endsWith(".log") && name.compareTo(today) < 0);
+        if (files == null) return;
+
+        for (File file : files) {
+            compressInBackground(file);
         }
+    }
 
-        String date = dateFormat.format(new Date(log.getTimestamp()));
-        File logFile = new File(logFolder, date + ".log");
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFile, true))) {
-            // Format: [Time] Player failed Check (Type) VL: x.x | Details | World (x, y, z) | Ping: x | TPS: x.x
-            StringBuilder sb = new StringBuilder();
-            sb.append("[").append(timeFormat.format(new Date(log.getTimestamp()))).append("] ");
-            sb.append(log.getPlayerName()).append(" failed ");
-            sb.append(log.getCheckName()).append(" (").append(log.getCheckType()).append(") ");
-            sb.append("VL: ").append(String.format("%.1f", log.getVl())).append(" | ");
-            sb.append("Details: ").append(log.getDetails()).append(" | ");
-            sb.append("World: ").append(log.getWorld()).append(" (");
-            sb.append(String.format("%.1f", log.getX())).append(", ");
-            sb.append(String.format("%.1f", log.getY())).append(", ");
-            sb.append(String.format("%.1f", log.getZ())).append(") | ");
-            sb.append("Ping: ").append(log.getPing()).append("ms | ");
-            sb.append("TPS: ").append(String.format("%.1f", log.getTps()));
-
-            writer.write(sb.toString());
-            writer.newLine();
+    private void compressInBackground(File file) {
+        try {
+            plugin.getIoExecutor().execute(() -> compress(file));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the file is compressed on the next start
+        }
+    }
+
+    private void compress(File file) {
+        File target = new File(file.getPath() + ".gz");
+        File temp = new File(file.getPath() + ".gz.tmp");
+        try (InputStream in = Files.newInputStream(file.toPath());
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()))) {
+            in.transferTo(out);
         } catch (IOException e) {
-            plugin.getLogger().severe("Error writing to log file: " + e.getMessage());
-            e.printStackTrace();
+            plugin.getLogger().warning("Error compressing log file " + file.getName() + ": " + e.getMessage());
+            temp.delete();
+            return;
+        }
+
+        if (temp.renameTo(target)) {
+            file.delete();
+        } else {
+            temp.delete();
         }
     }
 
     /**
-     * Shutdown the logging thread
+     * Formats a violation into the reused line buffer.
+     * Format: [Time] Player failed Check (Type) VL: x.x | Details | World (x, y, z) | Ping: x | TPS: x.x
+     */
+    private void format(ViolationLog log) {
+        StringBuilder sb = line;
+        sb.setLength(0);
+        sb.append("[");
+        TIME_FORMAT.formatTo(Instant.ofEpochMilli(log.getTimestamp()).atZone(ZONE), sb);
+        sb.append("] ");
+        sb.append(log.getPlayerName()).append(" failed ");
+        sb.append(log.getCheckName()).append(" (").append(log.getCheckType()).append(") ");
+        sb.append("VL: ").append(String.format("%.1f", log.getVl())).append(" | ");
+        sb.append("Details: ").append(log.getDetails()).append(" | ");
+        sb.append("World: ").append(log.getWorld()).append(" (");
+        sb.append(String.format("%.1f", log.getX())).append(", ");
+        sb.append(String.format("%.1f", log.getY())).append(", ");
+        sb.append(String.format("%.1f", log.getZ())).append(") | ");
+        sb.append("Ping: ").append(log.getPing()).append("ms | ");
+        sb.append("TPS: ").append(String.format("%.1f", log.getTps()));
+        sb.append(System.lineSeparator());
+    }
+
+    /**
+     * @return Violations dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Stops accepting violations and waits for the queued ones to be written and the file closed
      */
     public void shutdown() {
         running = false;
-        logThread.interrupt();
+        try {
+            logThread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (logThread.isAlive()) {
+            plugin.getLogger().warning("Timed out writing the violation log, " + logQueue.size() + " entries lost");
+        }
     }
-}
\ No newline at end of file
+}
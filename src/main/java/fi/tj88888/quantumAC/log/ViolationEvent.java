@@ -0,0 +1,118 @@
+package fi.tj88888.quantumAC.log;
+
+import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.PlayerData;
+
+/**
+ * View of one violation in a {@link ViolationRing}, valid only while it is being drained.
+ * The details string is rendered on first request and reused for the rest of the drain call.
+ */
+public final class ViolationEvent {
+
+    private final ViolationRing ring;
+    private int index;
+    private String renderedDetails;
+
+    ViolationEvent(ViolationRing ring) {
+        this.ring = ring;
+    }
+
+    void bind(int index) {
+        this.index = index;
+        this.renderedDetails = null;
+    }
+
+    public Check getCheck() {
+        return ring.checks[index];
+    }
+
+    public PlayerData getPlayerData() {
+        return ring.players[index];
+    }
+
+    public String getPlayerName() {
+        return ring.players[index].getPlayerName();
+    }
+
+    public String getCheckName() {
+        return ring.checks[index].getCheckName();
+    }
+
+    public String getCheckType() {
+        return ring.checks[index].getCheckType();
+    }
+
+    /**
+     * @return Violation level after this violation was added
+     */
+    public double getVl() {
+        return ring.levels[index];
+    }
+
+    /**
+     * @return Amount this violation added to the level
+     */
+    public double getVlDelta() {
+        return ring.deltas[index];
+    }
+
+    public long getTimestamp() {
+        return ring.timestamps[index];
+    }
+
+    public String getWorld() {
+        return ring.worlds[index];
+    }
+
+    public double getX() {
+        return ring.xs[index];
+    }
+
+    public double getY() {
+        return ring.ys[index];
+    }
+
+    public double getZ() {
+        return ring.zs[index];
+    }
+
+    public int getPing() {
+        return ring.pings[index];
+    }
+
+    public double getTps() {
+        return ring.tps[index];
+    }
+
+    /**
+     * Renders the details from the stored format and arguments
+     */
+    public String getDetails() {
+        if (renderedDetails == null) {
+            String format = ring.detailFormats[index];
+            int count = ring.detailCounts[index];
+            if (format == null) {
+                renderedDetails = "";
+            } else if (count == 0) {
+                renderedDetails = format;
+            } else {
+                Object[] args = new Object[count];
+                int base = index * ViolationRing.DETAIL_SLOTS;
+                for (int i = 0; i < count; i++) {
+                    args[i] = ring.details[base + i];
+                }
+                renderedDetails = String.format(format, args);
+            }
+        }
+        return renderedDetails;
+    }
+
+    /**
+     * Copies this event into a standalone log entry, for consumers that keep it past the drain call
+     */
+    public ViolationLog toViolationLog() {
+        return new ViolationLog(getPlayerName(), getCheckName(), getCheckType(), getVl(), getDetails(),
+                getWorld(), getX(), getY(), getZ(), getPing(), getTps(), getTimestamp(),
+                getPlayerData().getUuid());
+    }
+}
@@ -1,5 +1,7 @@
 package fi.tj88888.quantumAC.log;
 
+import java.util.UUID;
+
 /**
  * Represents a violation log entry
  */
@@ -17,9 +19,27 @@ public class ViolationLog {
     private final int ping;
     private final double tps;
     private final long timestamp;
+    private final UUID uuid;
 
     public ViolationLog(String playerName, String checkName, String checkType, double vl, String details,
                         String world, double x, double y, double z, int ping, double tps) {
+        this(playerName, checkName, checkType, vl, details, world, x, y, z, ping, tps, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a log entry for a violation that happened at the given time
+     */
+    public ViolationLog(String playerName, String checkName, String checkType, double vl, String details,
+                        String world, double x, double y, double z, int ping, double tps, long timestamp) {
+        this(playerName, checkName, checkType, vl, details, world, x, y, z, ping, tps, timestamp, null);
+    }
+
+    /**
+     * Creates a log entry for a violation of a known player that happened at the given time
+     */
+    public ViolationLog(String playerName, String checkName, String checkType, double vl, String details,
+                        String world, double x, double y, double z, int ping, double tps, long timestamp,
+                        UUID uuid) {
         this.playerName = playerName;
         this.checkName = checkName;
         this.checkType = checkType;
@@ -31,7 +51,17 @@ public class ViolationLog {
         this.z = z;
         this.ping = ping;
         this.tps = tps;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
+        this.uuid = uuid;
+    }
+
+    /**
+     * Gets the player's UUID
+     *
+     * @return UUID, or null if the entry was created without one
+     */
+    public UUID getUuid() {
+        return uuid;
     }
 
     /**
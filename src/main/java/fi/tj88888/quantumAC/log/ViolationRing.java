@@ -0,0 +1,218 @@
+package fi.tj88888.quantumAC.log;
+
+import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.PlayerData;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of violations between the packet lanes that flag and the single thread that reports them.
+ *
+ * Events are stored column by column in arrays allocated up front, so flagging writes a few primitives
+ * and references instead of building strings and log objects. Details are kept as a format string plus
+ * numeric arguments and only rendered when a consumer asks for them. Any number of threads may publish;
+ * exactly one thread may drain. When the ring is full new events are dropped and counted rather than
+ * blocking a packet lane; violation levels are updated before publishing and are never lost.
+ *
+ * Publishing is claim, set, publish. A claimed slot must always be published or discarded, since the
+ * consumer waits on it and everything behind it:
+ * <pre>
+ * long sequence = ring.claim();
+ * if (sequence >= 0) {
+ *     boolean filled = false;
+ *     try {
+ *         ring.set(sequence, ...);
+ *         filled = true;
+ *     } finally {
+ *         if (filled) ring.publish(sequence); else ring.discard(sequence);
+ *     }
+ * }
+ * </pre>
+ */
+public class ViolationRing {
+
+    public static final int DETAIL_SLOTS = 6;
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int mask;
+
+    // Sequence last published into each slot, -1 before the first lap
+    private final long[] published;
+
+    final Check[] checks;
+    final PlayerData[] players;
+    final double[] levels;
+    final double[] deltas;
+    final long[] timestamps;
+
+    final String[] worlds;
+    final double[] xs;
+    final double[] ys;
+    final double[] zs;
+    final int[] pings;
+    final double[] tps;
+
+    final String[] detailFormats;
+    final int[] detailCounts;
+    final double[] details;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final ViolationEvent event = new ViolationEvent(this);
+
+    /**
+     * @param capacity Number of events held before new ones are dropped, rounded up to a power of two
+     */
+    public ViolationRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.published = new long[size];
+        Arrays.fill(published, -1);
+
+        this.checks = new Check[size];
+        this.players = new PlayerData[size];
+        this.levels = new double[size];
+        this.deltas = new double[size];
+        this.timestamps = new long[size];
+        this.worlds = new String[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.zs = new double[size];
+        this.pings = new int[size];
+        this.tps = new double[size];
+        this.detailFormats = new String[size];
+        this.detailCounts = new int[size];
+        this.details = new double[size * DETAIL_SLOTS];
+    }
+
+    /**
+     * Reserves the next slot
+     *
+     * @return The sequence to fill and publish, or -1 if the ring is full and the event was dropped
+     */
+    public long claim() {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head > mask) {
+                dropped.increment();
+                return -1;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    public void set(long sequence, Check check, PlayerData playerData, double vl, double delta, long timestamp) {
+        int index = (int) sequence & mask;
+        checks[index] = check;
+        players[index] = playerData;
+        levels[index] = vl;
+        deltas[index] = delta;
+        timestamps[index] = timestamp;
+    }
+
+    public void setLocation(long sequence, String world, double x, double y, double z, int ping, double serverTps) {
+        int index = (int) sequence & mask;
+        worlds[index] = world;
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+        pings[index] = ping;
+        tps[index] = serverTps;
+    }
+
+    /**
+     * Stores the details as a {@link String#format} pattern and its arguments. Every argument is a double,
+     * so integral values need a pattern like {@code %.0f}. With no arguments the format is used verbatim.
+     */
+    public void setDetails(long sequence, String format, int count,
+                           double arg0, double arg1, double arg2, double arg3, double arg4, double arg5) {
+        int index = (int) sequence & mask;
+        detailFormats[index] = format;
+        detailCounts[index] = count;
+
+        int base = index * DETAIL_SLOTS;
+        details[base] = arg0;
+        details[base + 1] = arg1;
+        details[base + 2] = arg2;
+        details[base + 3] = arg3;
+        details[base + 4] = arg4;
+        details[base + 5] = arg5;
+    }
+
+    /**
+     * Makes a filled slot visible to the consumer
+     */
+    public void publish(long sequence) {
+        SEQUENCES.setRelease(published, (int) sequence & mask, sequence);
+    }
+
+    /**
+     * Releases a claimed slot without an event; the consumer skips it
+     */
+    public void discard(long sequence) {
+        checks[(int) sequence & mask] = null;
+        publish(sequence);
+    }
+
+    /**
+     * Hands published events to the consumer in order. The event passed in is reused for every slot
+     * and only valid during the call. Must only be called from one thread at a time.
+     *
+     * @param consumer Receives each event
+     * @param limit Maximum number of events to drain
+     * @return Number of events drained
+     */
+    public int drain(Consumer<ViolationEvent> consumer, int limit) {
+        long sequence = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) sequence & mask;
+            if ((long) SEQUENCES.getAcquire(published, index) != sequence) {
+                break;
+            }
+
+            try {
+                // Discarded slots have no check
+                if (checks[index] != null) {
+                    event.bind(index);
+                    consumer.accept(event);
+                }
+            } finally {
+                // Release references so a drained slot does not keep player data reachable
+                checks[index] = null;
+                players[index] = null;
+                worlds[index] = null;
+                detailFormats[index] = null;
+                head = ++sequence;
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Number of published events waiting to be drained, approximately
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Number of events dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
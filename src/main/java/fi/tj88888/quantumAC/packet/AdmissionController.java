@@ -0,0 +1,119 @@
+package fi.tj88888.quantumAC.packet;
+
+import fi.tj88888.quantumAC.config.ConfigManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of packets waiting for processing across all lanes.
+ * Limits come from the performance section of config.yml; while the server
+ * runs below min-tps the limit is halved so stale packets don't pile up.
+ */
+public class AdmissionController {
+
+    // Fraction of the limit after which low-priority packets are rejected under DROP
+    private static final double LOW_PRIORITY_THRESHOLD = 0.75;
+
+    private final ConfigManager configManager;
+    private final int maxQueueSize;
+    private final double minTPS;
+    private final OverflowPolicy policy;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder inlined = new LongAdder();
+
+    public AdmissionController(ConfigManager configManager) {
+        this.configManager = configManager;
+        this.maxQueueSize = configManager.getMaxQueueSize();
+        this.minTPS = configManager.getMinTPS();
+        this.policy = OverflowPolicy.fromString(configManager.getOverflowPolicy(), OverflowPolicy.COALESCE);
+    }
+
+    /**
+     * Reserves a queue slot for a packet
+     *
+     * @return false if the packet should be handed to the overflow policy instead
+     */
+    boolean tryAcquire(PacketKind kind) {
+        int limit = getEffectiveLimit();
+        if (policy == OverflowPolicy.DROP && !isHighPriority(kind)) {
+            limit = (int) (limit * LOW_PRIORITY_THRESHOLD);
+        }
+
+        int current;
+        do {
+            current = depth.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + 1));
+
+        admitted.increment();
+        return true;
+    }
+
+    /**
+     * Returns a slot once a queued packet has been taken off its lane
+     */
+    void release() {
+        depth.decrementAndGet();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordInlined() {
+        inlined.increment();
+    }
+
+    /**
+     * Movement and combat packets feed the fly and killaura checks and are kept longest
+     */
+    static boolean isHighPriority(PacketKind kind) {
+        return kind.isMovement() || PacketKind.COMBAT.contains(kind);
+    }
+
+    public int getEffectiveLimit() {
+        if (configManager.getCurrentTPS() < minTPS) {
+            return Math.max(1, maxQueueSize / 2);
+        }
+        return maxQueueSize;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getInlinedCount() {
+        return inlined.sum();
+    }
+}
@@ -0,0 +1,33 @@
+package fi.tj88888.quantumAC.packet;
+
+/**
+ * What the dispatcher does with a packet that does not fit in the packet queue
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Reject low-priority packets once the queue is mostly full, and every packet once it is full
+     */
+    DROP,
+
+    /**
+     * Keep only the newest pending movement packet per player; other packets are dropped
+     */
+    COALESCE,
+
+    /**
+     * Process the player's lane on the calling network thread when no worker holds it
+     */
+    CALLER_RUNS;
+
+    public static OverflowPolicy fromString(String name, OverflowPolicy fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package fi.tj88888.quantumAC.packet;
+
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.events.PacketEvent;
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import org.bukkit.entity.Player;
+
+/**
+ * Reads every field QuantumAC needs from a packet exactly once, on the network thread,
+ * while the underlying packet is still guaranteed to be intact.
+ */
+public final class PacketDecoder {
+
+    private PacketDecoder() {
+    }
+
+    /**
+     * Decodes a received packet into an immutable snapshot
+     *
+     * @param event The packet event, still on the Netty thread
+     * @param kind The already resolved packet kind
+     * @return The snapshot; fields that could not be read are left at their defaults
+     */
+    public static PacketSnapshot decode(PacketEvent event, PacketKind kind) {
+        Player player = event.getPlayer();
+        long timestamp = System.currentTimeMillis();
+        long nanoTime = System.nanoTime();
+
+        double x = 0, y = 0, z = 0;
+        float yaw = 0, pitch = 0;
+        boolean onGround = false;
+        int entityId = PacketSnapshot.NO_ENTITY;
+        int action = PacketSnapshot.NO_ACTION;
+
+        PacketContainer packet = event.getPacket();
+        try {
+            switch (kind) {
+                case POSITION:
+                case POSITION_LOOK:
+                case LOOK:
+                case FLYING:
+                    if (kind.hasPosition()) {
+                        x = packet.getDoubles().read(0);
+                        y = packet.getDoubles().read(1);
+                        z = packet.getDoubles().read(2);
+                    }
+                    if (kind.hasRotation()) {
+                        yaw = packet.getFloat().read(0);
+                        pitch = packet.getFloat().read(1);
+                    }
+                    onGround = packet.getBooleans().read(0);
+                    break;
+
+                case USE_ENTITY:
+                    if (packet.getIntegers().size() > 0) {
+                        entityId = packet.getIntegers().read(0);
+                    }
+                    if (packet.getEnumEntityUseActions().size() > 0) {
+                        EnumWrappers.EntityUseAction useAction = packet.getEnumEntityUseActions().read(0).getAction();
+                        action = useAction.ordinal();
+                    }
+                    break;
+
+                case BLOCK_DIG:
+                    action = packet.getPlayerDigTypes().read(0).ordinal();
+                    break;
+
+                case ENTITY_ACTION:
+                    action = packet.getPlayerActions().read(0).ordinal();
+                    break;
+
+                case WINDOW_CLICK:
+                    action = packet.getIntegers().read(1);
+                    break;
+
+                default:
+                    break;
+            }
+        } catch (Exception e) {
+            // Malformed packets keep whatever could be read; the checks treat missing data as absent
+        }
+
+        return new PacketSnapshot(kind, player, timestamp, nanoTime,
+                x, y, z, yaw, pitch, onGround, entityId, action);
+    }
+}
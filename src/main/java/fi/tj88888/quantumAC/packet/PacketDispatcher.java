@@ -0,0 +1,119 @@
+package fi.tj88888.quantumAC.packet;
+
+import com.comphenix.protocol.events.PacketEvent;
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.listener.PacketListener;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Routes inbound packets into per-player lanes.
+ * Players are sharded across a fixed set of worker threads; each lane is drained
+ * by one worker at a time, which keeps per-player ordering without locks.
+ * The total backlog is bounded by the {@link AdmissionController}.
+ */
+public class PacketDispatcher {
+
+    // Per-player backlog cap, roughly five seconds of traffic for a normal client
+    private static final int LANE_CAPACITY = 256;
+
+    private final QuantumAC plugin;
+    private final PacketListener packetListener;
+    private final AdmissionController admissionController;
+    private final PacketWorker[] workers;
+    private final Map<UUID, PacketLane> lanes = new ConcurrentHashMap<>();
+    private final Function<UUID, PacketLane> laneFactory = this::createLane;
+
+    public PacketDispatcher(QuantumAC plugin, PacketListener packetListener,
+                            AdmissionController admissionController, int workerCount) {
+        this.plugin = plugin;
+        this.packetListener = packetListener;
+        this.admissionController = admissionController;
+        this.workers = new PacketWorker[Math.max(1, workerCount)];
+
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new PacketWorker(i);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Decodes a packet and enqueues it on its player's lane. Called from the Netty thread.
+     */
+    public void dispatch(PacketEvent event) {
+        if (event.isCancelled() || event.isPlayerTemporary()) return;
+
+        Player player = event.getPlayer();
+        if (player == null) return;
+
+        UUID uuid = player.getUniqueId();
+        PacketLane lane = lanes.get(uuid);
+        if (lane == null) {
+            // Only open lanes for players that have been set up, so late packets after a quit don't leak lanes
+            if (plugin.getPlayerDataManager().getPlayerData(uuid) == null) return;
+            lane = lanes.computeIfAbsent(uuid, laneFactory);
+        }
+
+        // Decode while the packet is still owned by the network thread; workers only see the snapshot
+        lane.offer(PacketDecoder.decode(event, PacketKind.of(event.getPacketType())));
+    }
+
+    /**
+     * Processes a single packet on the lane's worker thread
+     */
+    void handle(PacketSnapshot packet) {
+        try {
+            packetListener.onPacketReceive(packet);
+        } catch (Throwable t) {
+            plugin.getLogger().log(Level.SEVERE, "Error processing packet", t);
+        }
+    }
+
+    /**
+     * Drops the lane of a player that left. Packets already queued are still drained.
+     */
+    public void removeLane(UUID uuid) {
+        lanes.remove(uuid);
+    }
+
+    /**
+     * Stops the workers after letting them drain their queued lanes
+     */
+    public void shutdown() {
+        for (PacketWorker worker : workers) {
+            worker.shutdown();
+        }
+        for (PacketWorker worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        lanes.clear();
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    private PacketLane createLane(UUID uuid) {
+        PacketWorker worker = workers[Math.floorMod(uuid.hashCode(), workers.length)];
+        return new PacketLane(uuid, worker, this, admissionController, LANE_CAPACITY);
+    }
+}
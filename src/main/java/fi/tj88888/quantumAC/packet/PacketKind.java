@@ -0,0 +1,110 @@
+package fi.tj88888.quantumAC.packet;
+
+import com.comphenix.protocol.PacketType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense identifiers for the client packets QuantumAC listens to.
+ * The ordinal is used to index per-packet-type tables, so lookups on the hot path
+ * don't need to compare {@link PacketType} instances one by one.
+ */
+public enum PacketKind {
+
+    POSITION(PacketType.Play.Client.POSITION),
+    POSITION_LOOK(PacketType.Play.Client.POSITION_LOOK),
+    LOOK(PacketType.Play.Client.LOOK),
+    FLYING(PacketType.Play.Client.FLYING),
+    USE_ENTITY(PacketType.Play.Client.USE_ENTITY),
+    ARM_ANIMATION(PacketType.Play.Client.ARM_ANIMATION),
+    BLOCK_DIG(PacketType.Play.Client.BLOCK_DIG),
+    BLOCK_PLACE(PacketType.Play.Client.BLOCK_PLACE),
+    ABILITIES(PacketType.Play.Client.ABILITIES),
+    ENTITY_ACTION(PacketType.Play.Client.ENTITY_ACTION),
+    TRANSACTION(PacketType.Play.Client.TRANSACTION),
+    KEEP_ALIVE(PacketType.Play.Client.KEEP_ALIVE),
+    WINDOW_CLICK(PacketType.Play.Client.WINDOW_CLICK),
+    CUSTOM_PAYLOAD(PacketType.Play.Client.CUSTOM_PAYLOAD),
+    SETTINGS(PacketType.Play.Client.SETTINGS),
+    CLOSE_WINDOW(PacketType.Play.Client.CLOSE_WINDOW),
+    UNKNOWN(null);
+
+    /**
+     * All flying packet variants
+     */
+    public static final Set<PacketKind> MOVEMENT =
+            Collections.unmodifiableSet(EnumSet.of(POSITION, POSITION_LOOK, LOOK, FLYING));
+
+    /**
+     * Flying packets that carry a position
+     */
+    public static final Set<PacketKind> POSITION_UPDATES =
+            Collections.unmodifiableSet(EnumSet.of(POSITION, POSITION_LOOK));
+
+    /**
+     * Flying packets that carry a rotation
+     */
+    public static final Set<PacketKind> ROTATION_UPDATES =
+            Collections.unmodifiableSet(EnumSet.of(LOOK, POSITION_LOOK));
+
+    /**
+     * Attack and swing packets
+     */
+    public static final Set<PacketKind> COMBAT =
+            Collections.unmodifiableSet(EnumSet.of(USE_ENTITY, ARM_ANIMATION));
+
+    private static final PacketKind[] VALUES = values();
+    private static final Map<PacketType, PacketKind> BY_TYPE = new HashMap<>();
+
+    static {
+        for (PacketKind kind : VALUES) {
+            if (kind.type != null) {
+                BY_TYPE.put(kind.type, kind);
+            }
+        }
+    }
+
+    private final PacketType type;
+
+    PacketKind(PacketType type) {
+        this.type = type;
+    }
+
+    public PacketType getType() {
+        return type;
+    }
+
+    public boolean isMovement() {
+        return this == POSITION || this == POSITION_LOOK || this == LOOK || this == FLYING;
+    }
+
+    public boolean hasPosition() {
+        return this == POSITION || this == POSITION_LOOK;
+    }
+
+    public boolean hasRotation() {
+        return this == LOOK || this == POSITION_LOOK;
+    }
+
+    /**
+     * Resolves the kind of a ProtocolLib packet type
+     *
+     * @return The matching kind, or {@link #UNKNOWN} for packets we don't track
+     */
+    public static PacketKind of(PacketType type) {
+        PacketKind kind = BY_TYPE.get(type);
+        return kind != null ? kind : UNKNOWN;
+    }
+
+    public static PacketKind byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
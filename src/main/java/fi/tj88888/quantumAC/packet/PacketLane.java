@@ -0,0 +1,176 @@
+package fi.tj88888.quantumAC.packet;
+
+import fi.tj88888.quantumAC.util.MpscArrayQueue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-consumer packet queue for one player.
+ * Producers (Netty threads) only enqueue; whoever holds the RUNNING state drains the lane,
+ * so packets of the same player are never processed concurrently or out of order.
+ */
+final class PacketLane {
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+
+    // Packets processed per turn before yielding the worker to other lanes
+    private static final int DRAIN_BATCH = 64;
+
+    private final UUID uuid;
+    private final PacketWorker worker;
+    private final PacketDispatcher dispatcher;
+    private final AdmissionController admission;
+    private final MpscArrayQueue<PacketSnapshot> queue;
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+
+    // Newest movement packet that did not fit in the queue (COALESCE policy)
+    private final AtomicReference<PendingMovement> pendingMovement = new AtomicReference<>();
+
+    PacketLane(UUID uuid, PacketWorker worker, PacketDispatcher dispatcher,
+               AdmissionController admission, int capacity) {
+        this.uuid = uuid;
+        this.worker = worker;
+        this.dispatcher = dispatcher;
+        this.admission = admission;
+        this.queue = new MpscArrayQueue<>(capacity);
+    }
+
+    /**
+     * Enqueues a packet, applying the overflow policy if there is no room for it
+     */
+    void offer(PacketSnapshot packet) {
+        PacketKind kind = packet.getKind();
+
+        if (admission.tryAcquire(kind)) {
+            if (queue.offer(packet)) {
+                schedule();
+                return;
+            }
+            admission.release();
+        }
+
+        overflow(packet, kind);
+    }
+
+    private void overflow(PacketSnapshot packet, PacketKind kind) {
+        switch (admission.getPolicy()) {
+            case COALESCE:
+                if (kind.isMovement()) {
+                    // Only the latest position matters once we're this far behind. It replaces the parked one
+                    // and takes its place in the order after everything admitted so far.
+                    PendingMovement movement = new PendingMovement(packet, queue.producedCount());
+                    if (pendingMovement.getAndSet(movement) != null) {
+                        admission.recordCoalesced();
+                    }
+                    schedule();
+                    return;
+                }
+                break;
+
+            case CALLER_RUNS:
+                if (runInline(packet)) {
+                    admission.recordInlined();
+                    return;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        admission.recordDropped();
+    }
+
+    private void schedule() {
+        if (state.compareAndSet(IDLE, SCHEDULED)) {
+            worker.submit(this);
+        }
+    }
+
+    /**
+     * Drains up to one batch of packets. Called by the owning worker.
+     */
+    void run() {
+        // The lane may have been taken over by a caller-runs thread in the meantime
+        if (!state.compareAndSet(SCHEDULED, RUNNING)) return;
+
+        drain(DRAIN_BATCH);
+        finish();
+    }
+
+    /**
+     * Processes the backlog and then the given packet on the calling thread,
+     * provided no worker is currently draining this lane.
+     */
+    private boolean runInline(PacketSnapshot packet) {
+        if (!state.compareAndSet(SCHEDULED, RUNNING) && !state.compareAndSet(IDLE, RUNNING)) {
+            return false;
+        }
+
+        // Older packets first to keep the player's order intact
+        drain(Integer.MAX_VALUE);
+        dispatcher.handle(packet);
+        finish();
+        return true;
+    }
+
+    private void drain(int limit) {
+        int processed = 0;
+        while (processed < limit) {
+            // The parked movement packet goes before anything admitted after it
+            PendingMovement movement = pendingMovement.get();
+            if (movement != null && queue.consumedCount() >= movement.position) {
+                if (pendingMovement.compareAndSet(movement, null)) {
+                    dispatcher.handle(movement.packet);
+                    processed++;
+                }
+                continue;
+            }
+
+            PacketSnapshot packet = queue.poll();
+            if (packet == null) {
+                // An empty queue is past any parked movement's position; go round once more to handle it
+                if (pendingMovement.get() == null) break;
+                continue;
+            }
+
+            admission.release();
+            dispatcher.handle(packet);
+            processed++;
+        }
+    }
+
+    private void finish() {
+        state.set(IDLE);
+
+        // Packets offered while we were draining saw the lane as busy; pick them up
+        if (!queue.isEmpty() || pendingMovement.get() != null) {
+            schedule();
+        }
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * A coalesced movement packet and the queue position it arrived at
+     */
+    private static final class PendingMovement {
+        final PacketSnapshot packet;
+        final long position;
+
+        PendingMovement(PacketSnapshot packet, long position) {
+            this.packet = packet;
+            this.position = position;
+        }
+    }
+}
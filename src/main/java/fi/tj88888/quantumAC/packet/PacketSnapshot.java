@@ -0,0 +1,165 @@
+package fi.tj88888.quantumAC.packet;
+
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import org.bukkit.entity.Player;
+
+/**
+ * Immutable, already decoded view of a client packet.
+ * Created once on the network thread by {@link PacketDecoder}; checks read these
+ * primitive fields instead of going back to the live ProtocolLib packet.
+ */
+public final class PacketSnapshot {
+
+    public static final int NO_ENTITY = -1;
+    public static final int NO_ACTION = -1;
+
+    private final PacketKind kind;
+    private final Player player;
+    private final long timestamp;
+    private final long nanoTime;
+
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+    private final boolean onGround;
+
+    private final int entityId;
+    private final int action;
+
+    PacketSnapshot(PacketKind kind, Player player, long timestamp, long nanoTime,
+                   double x, double y, double z, float yaw, float pitch, boolean onGround,
+                   int entityId, int action) {
+        this.kind = kind;
+        this.player = player;
+        this.timestamp = timestamp;
+        this.nanoTime = nanoTime;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.onGround = onGround;
+        this.entityId = entityId;
+        this.action = action;
+    }
+
+    public PacketKind getKind() {
+        return kind;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Wall-clock receive time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Monotonic receive time, for interval measurements
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Only meaningful when {@link #hasPosition()} is true
+     */
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * Only meaningful when {@link #hasRotation()} is true
+     */
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean hasPosition() {
+        return kind.hasPosition();
+    }
+
+    public boolean hasRotation() {
+        return kind.hasRotation();
+    }
+
+    /**
+     * Target entity of a USE_ENTITY packet, or {@link #NO_ENTITY}
+     */
+    public int getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Ordinal of the packet's action enum: the entity use action for USE_ENTITY,
+     * the dig type for BLOCK_DIG, the player action for ENTITY_ACTION,
+     * or the clicked slot for WINDOW_CLICK. {@link #NO_ACTION} if not present.
+     */
+    public int getAction() {
+        return action;
+    }
+
+    public boolean isAttack() {
+        return kind == PacketKind.USE_ENTITY && action == EnumWrappers.EntityUseAction.ATTACK.ordinal();
+    }
+
+    public boolean isInteract() {
+        return kind == PacketKind.USE_ENTITY && action != NO_ACTION && !isAttack();
+    }
+
+    /**
+     * Short human-readable description used by the packet debugger
+     */
+    public String describe() {
+        return describe(kind, onGround, action);
+    }
+
+    /**
+     * Describes a packet from its recorded fields, so debug captures can store primitives and render later
+     */
+    public static String describe(PacketKind kind, boolean onGround, int action) {
+        String name = kind == PacketKind.UNKNOWN ? "UNKNOWN" : kind.getType().name();
+
+        if (kind.isMovement()) {
+            return name + (onGround ? "[GROUND]" : "[AIR]");
+        }
+        if (action == NO_ACTION) {
+            return name;
+        }
+
+        switch (kind) {
+            case USE_ENTITY:
+                return name + "[" + EnumWrappers.EntityUseAction.values()[action].name() + "]";
+            case BLOCK_DIG:
+                return name + "[" + EnumWrappers.PlayerDigType.values()[action].name() + "]";
+            case ENTITY_ACTION:
+                return name + "[" + EnumWrappers.PlayerAction.values()[action].name() + "]";
+            case WINDOW_CLICK:
+                return name + "[SLOT:" + action + "]";
+            default:
+                return name;
+        }
+    }
+}
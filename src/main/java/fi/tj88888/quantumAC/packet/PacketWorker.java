@@ -0,0 +1,58 @@
+package fi.tj88888.quantumAC.packet;
+
+import fi.tj88888.quantumAC.util.MpscArrayQueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Worker thread that drains the packet lanes of the players sharded onto it.
+ * A lane is only ever queued here once at a time, so each player's packets
+ * are processed by exactly one thread in arrival order.
+ */
+final class PacketWorker extends Thread {
+
+    private static final int RUN_QUEUE_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final MpscArrayQueue<PacketLane> runQueue = new MpscArrayQueue<>(RUN_QUEUE_CAPACITY);
+    private volatile boolean running = true;
+
+    PacketWorker(int index) {
+        super("QuantumAC-Packet-" + index);
+        setDaemon(true);
+    }
+
+    /**
+     * Queues a lane that has pending packets and wakes the worker
+     */
+    void submit(PacketLane lane) {
+        while (!runQueue.offer(lane)) {
+            Thread.onSpinWait();
+        }
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            PacketLane lane = runQueue.poll();
+            if (lane == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            lane.run();
+        }
+
+        // Drain whatever was queued before shutdown so no lane is left half-processed
+        PacketLane lane;
+        while ((lane = runQueue.poll()) != null) {
+            lane.run();
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(this);
+    }
+}
@@ -1,83 +1,78 @@
 package fi.tj88888.quantumAC.util;
 
+import fi.tj88888.quantumAC.data.BlockStateCache;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.entity.Player;
 
+/**
+ * Block lookups around a player's position.
+ * Takes the location from the player's state snapshot, never from the live Player,
+ * and reads blocks through the {@link BlockStateCache} so packet workers don't touch the world.
+ */
 public class CheckUtil {
 
     /**
      * Checks if a player is in liquid (water or lava).
      */
-    public static boolean isInLiquid(Player player) {
-        Material material = player.getLocation().getBlock().getType();
+    public static boolean isInLiquid(BlockStateCache blocks, Location location) {
+        Material material = typeAt(blocks, location, 0, 0, 0);
         return material == Material.WATER || material == Material.LAVA;
     }
 
     /**
      * Checks if a player is on ice.
      */
-    public static boolean isOnIce(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        return below.getBlock().getType() == Material.ICE;
+    public static boolean isOnIce(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location) == Material.ICE;
     }
 
     /**
      * Checks if a player is on packed ice.
      */
-    public static boolean isOnPackedIce(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        return below.getBlock().getType() == Material.PACKED_ICE;
+    public static boolean isOnPackedIce(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location) == Material.PACKED_ICE;
     }
 
     /**
      * Checks if a player is on blue ice.
      */
-    public static boolean isOnBlueIce(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        return below.getBlock().getType() == Material.BLUE_ICE;
+    public static boolean isOnBlueIce(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location) == Material.BLUE_ICE;
     }
 
     /**
      * Checks if a player is on slime blocks.
      */
-    public static boolean isOnSlime(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        return below.getBlock().getType() == Material.SLIME_BLOCK;
+    public static boolean isOnSlime(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location) == Material.SLIME_BLOCK;
     }
 
     /**
      * Checks if a player is on soul sand.
      */
-    public static boolean isOnSoulSand(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        return below.getBlock().getType() == Material.SOUL_SAND;
+    public static boolean isOnSoulSand(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location) == Material.SOUL_SAND;
     }
 
     /**
      * Checks if a player is on stairs.
      */
-    public static boolean isOnStairs(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        Material material = below.getBlock().getType();
-        return material.name().contains("STAIRS");
+    public static boolean isOnStairs(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location).name().contains("STAIRS");
     }
 
     /**
      * Checks if a player is on a slab.
      */
-    public static boolean isOnSlab(Player player) {
-        Location below = player.getLocation().clone().subtract(0, 0.1, 0);
-        Material material = below.getBlock().getType();
-        return material.name().contains("SLAB");
+    public static boolean isOnSlab(BlockStateCache blocks, Location location) {
+        return typeBelow(blocks, location).name().contains("SLAB");
     }
 
-    public static boolean isCloseToClimbable(Player player) {
-        Location current = player.getLocation();
+    public static boolean isCloseToClimbable(BlockStateCache blocks, Location location) {
         for (int x = -1; x <= 1; x++) {
             for (int y = -1; y <= 1; y++) {
                 for (int z = -1; z <= 1; z++) {
-                    Material blockType = current.clone().add(x, y, z).getBlock().getType();
+                    Material blockType = typeAt(blocks, location, x, y, z);
                     if (blockType == Material.LADDER || blockType == Material.VINE) {
                         return true;
                     }
@@ -87,12 +82,11 @@ public class CheckUtil {
         return false;
     }
 
-    public static boolean isCloseToBlock(Player player, Material material) {
-        Location current = player.getLocation();
+    public static boolean isCloseToBlock(BlockStateCache blocks, Location location, Material material) {
         for (int x = -1; x <= 1; x++) {
             for (int y = -1; y <= 1; y++) {
                 for (int z = -1; z <= 1; z++) {
-                    if (current.clone().add(x, y, z).getBlock().getType() == material) {
+                    if (typeAt(blocks, location, x, y, z) == material) {
                         return true;
                     }
                 }
@@ -101,10 +95,15 @@ public class CheckUtil {
         return false;
     }
 
-    public static boolean isInMaterial(Player player, Material material) {
-        Location location = player.getLocation();
-        Material blockType = location.getBlock().getType();
-        return blockType == material;
+    public static boolean isInMaterial(BlockStateCache blocks, Location location, Material material) {
+        return typeAt(blocks, location, 0, 0, 0) == material;
     }
 
-}
\ No newline at end of file
+    private static Material typeBelow(BlockStateCache blocks, Location location) {
+        return typeAt(blocks, location, 0, -0.1, 0);
+    }
+
+    private static Material typeAt(BlockStateCache blocks, Location location, double dx, double dy, double dz) {
+        return blocks.getType(location.getWorld(), location.getX() + dx, location.getY() + dy, location.getZ() + dz);
+    }
+}
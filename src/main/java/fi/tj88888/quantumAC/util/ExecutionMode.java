@@ -0,0 +1,55 @@
+package fi.tj88888.quantumAC.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How blocking I/O work (database saves, loads and lookups) is executed.
+ * Packet checks always run on the bounded packet workers regardless of this mode.
+ */
+public enum ExecutionMode {
+
+    /**
+     * A fixed pool of platform threads, one per available processor
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per task; a slow database round-trip only parks its own virtual thread
+     */
+    VIRTUAL;
+
+    /**
+     * Creates the executor for blocking I/O in this mode
+     *
+     * @param threadName Base name for the created threads
+     * @return A new executor service
+     */
+    public ExecutorService createExecutor(String threadName) {
+        if (this == VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(threadName + "-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), factory);
+    }
+
+    public static ExecutionMode fromString(String name, ExecutionMode fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package fi.tj88888.quantumAC.util;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed-capacity FIFO of primitive longs, used for timestamp and interval histories.
+ * Adding to a full buffer overwrites the oldest value, so histories never box and never grow.
+ * Index 0 is the oldest value and {@code size() - 1} the newest.
+ * Not thread-safe; each buffer belongs to a single player's packet lane.
+ */
+public class LongRingBuffer {
+
+    private final long[] values;
+    private int head;
+    private int size;
+
+    public LongRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Appends a value, evicting the oldest one if the buffer is full
+     *
+     * @return true if a value was evicted to make room
+     */
+    public boolean add(long value) {
+        int tail = head + size;
+        if (tail >= values.length) {
+            tail -= values.length;
+        }
+        values[tail] = value;
+
+        if (size == values.length) {
+            head = head + 1 == values.length ? 0 : head + 1;
+            return true;
+        }
+        size++;
+        return false;
+    }
+
+    /**
+     * Value at the given position, 0 being the oldest
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int slot = head + index;
+        return values[slot >= values.length ? slot - values.length : slot];
+    }
+
+    public long getFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        return values[head];
+    }
+
+    public long getLast() {
+        if (size == 0) throw new NoSuchElementException();
+        return get(size - 1);
+    }
+
+    /**
+     * Difference between the value at the given position and the one before it
+     *
+     * @param index Position of the later value, at least 1
+     */
+    public long delta(int index) {
+        return get(index) - get(index - 1);
+    }
+
+    public long removeFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        long value = values[head];
+        head = head + 1 == values.length ? 0 : head + 1;
+        size--;
+        return value;
+    }
+
+    /**
+     * Drops values from the oldest end while they are below the cutoff.
+     * Meant for timestamp histories, which are added in ascending order.
+     *
+     * @param cutoff Oldest value to keep
+     * @return Number of values removed
+     */
+    public int evictOlderThan(long cutoff) {
+        int removed = 0;
+        while (size > 0 && values[head] < cutoff) {
+            head = head + 1 == values.length ? 0 : head + 1;
+            size--;
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Number of values at or above the cutoff, counted from the newest end.
+     * Like {@link #evictOlderThan(long)}, this assumes values were added in ascending order.
+     */
+    public int countSince(long cutoff) {
+        int count = 0;
+        for (int i = size - 1; i >= 0 && get(i) >= cutoff; i--) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Visits all values from oldest to newest
+     */
+    public void forEach(LongConsumer action) {
+        forEach(0, size, action);
+    }
+
+    /**
+     * Visits the values in [from, to) from oldest to newest
+     */
+    public void forEach(int from, int to, LongConsumer action) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Window [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+        for (int i = from; i < to; i++) {
+            int slot = head + i;
+            action.accept(values[slot >= values.length ? slot - values.length : slot]);
+        }
+    }
+
+    /**
+     * Copies the values, oldest first, into the given array
+     *
+     * @return Number of values copied
+     */
+    public int copyTo(long[] destination) {
+        int count = Math.min(size, destination.length);
+        int firstPart = Math.min(count, values.length - head);
+        System.arraycopy(values, head, destination, 0, firstPart);
+        System.arraycopy(values, 0, destination, firstPart, count - firstPart);
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
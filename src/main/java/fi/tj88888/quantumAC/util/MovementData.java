@@ -38,6 +38,7 @@ public class MovementData {
     // Sensitivity tracking
     private float minYawDelta = Float.MAX_VALUE;  // Minimum non-zero yaw delta
     private float maxYawDelta = 0;                // Maximum yaw delta
+    private final RotationAnalytics rotationAnalytics = new RotationAnalytics();
 
     // Ground state
     private boolean onGround;
@@ -183,6 +184,8 @@ public class MovementData {
 
         // For pitch, it's simpler
         this.deltaPitch = Math.abs(this.pitch - this.lastPitch);
+
+        rotationAnalytics.update(deltaYaw, deltaPitch, Math.abs(this.pitch) >= 90 || Math.abs(this.lastPitch) >= 90);
     }
 
     /**
@@ -236,6 +239,13 @@ public class MovementData {
         this.onSlab = onSlab;
     }
 
+    /**
+     * Immutable copy of the current state for readers outside the packet lane
+     */
+    public MovementFrame toFrame() {
+        return new MovementFrame(this);
+    }
+
     // Getters for all properties
     public double getLastX() {
         return lastX;
@@ -341,6 +351,13 @@ public class MovementData {
         return maxYawDelta;
     }
 
+    /**
+     * Sensitivity and aim statistics over the recent rotations
+     */
+    public RotationAnalytics getRotationAnalytics() {
+        return rotationAnalytics;
+    }
+
     /**
      * Get a historical yaw value
      * @param stepsBack How many rotations back (0 = current)
@@ -0,0 +1,309 @@
+package fi.tj88888.quantumAC.util;
+
+/**
+ * Immutable copy of a player's {@link MovementData} taken after a movement update.
+ * {@link MovementData} is only touched by the player's packet lane; checks and commands read frames,
+ * which can be shared with any thread without locking. The rotation history is not copied, only the
+ * aim statistics derived from it.
+ */
+public final class MovementFrame {
+
+    private final double x;
+    private final double y;
+    private final double z;
+    private final double lastX;
+    private final double lastY;
+    private final double lastZ;
+
+    private final double deltaX;
+    private final double deltaY;
+    private final double deltaZ;
+    private final double lastDeltaX;
+    private final double lastDeltaY;
+    private final double lastDeltaZ;
+    private final double acceleration;
+
+    private final float yaw;
+    private final float pitch;
+    private final float lastYaw;
+    private final float lastPitch;
+    private final float deltaYaw;
+    private final float deltaPitch;
+    private final float rawDeltaYaw;
+    private final float minYawDelta;
+    private final float maxYawDelta;
+
+    private final double yawGcd;
+    private final double pitchGcd;
+    private final double sensitivity;
+    private final double gcdConsistency;
+    private final double deltaEntropy;
+    private final double snapRate;
+
+    private final boolean onGround;
+    private final boolean wasOnGround;
+    private final long groundTime;
+    private final long airTime;
+    private final boolean jumping;
+    private final long jumpStart;
+
+    private final boolean insideBlock;
+    private final boolean onIce;
+    private final boolean onSlime;
+    private final boolean inLiquid;
+    private final boolean onStairs;
+    private final boolean onSlab;
+
+    MovementFrame(MovementData data) {
+        this.x = data.getX();
+        this.y = data.getY();
+        this.z = data.getZ();
+        this.lastX = data.getLastX();
+        this.lastY = data.getLastY();
+        this.lastZ = data.getLastZ();
+
+        this.deltaX = data.getDeltaX();
+        this.deltaY = data.getDeltaY();
+        this.deltaZ = data.getDeltaZ();
+        this.lastDeltaX = data.getLastDeltaX();
+        this.lastDeltaY = data.getLastDeltaY();
+        this.lastDeltaZ = data.getLastDeltaZ();
+        this.acceleration = data.getAcceleration();
+
+        this.yaw = data.getYaw();
+        this.pitch = data.getPitch();
+        this.lastYaw = data.getLastYaw();
+        this.lastPitch = data.getLastPitch();
+        this.deltaYaw = data.getDeltaYaw();
+        this.deltaPitch = data.getDeltaPitch();
+        this.rawDeltaYaw = data.getRawDeltaYaw();
+        this.minYawDelta = data.getMinYawDelta();
+        this.maxYawDelta = data.getMaxYawDelta();
+
+        RotationAnalytics rotation = data.getRotationAnalytics();
+        this.yawGcd = rotation.getYawGcd();
+        this.pitchGcd = rotation.getPitchGcd();
+        this.sensitivity = rotation.getSensitivity();
+        this.gcdConsistency = rotation.getGcdConsistency();
+        this.deltaEntropy = rotation.getDeltaEntropy();
+        this.snapRate = rotation.getSnapRate();
+
+        this.onGround = data.isOnGround();
+        this.wasOnGround = data.wasOnGround();
+        this.groundTime = data.getGroundTime();
+        this.airTime = data.getAirTime();
+        this.jumping = data.isJumping();
+        this.jumpStart = data.getJumpStart();
+
+        this.insideBlock = data.isInsideBlock();
+        this.onIce = data.isOnIce();
+        this.onSlime = data.isOnSlime();
+        this.inLiquid = data.isInLiquid();
+        this.onStairs = data.isOnStairs();
+        this.onSlab = data.isOnSlab();
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getLastX() {
+        return lastX;
+    }
+
+    public double getLastY() {
+        return lastY;
+    }
+
+    public double getLastZ() {
+        return lastZ;
+    }
+
+    public double getDeltaX() {
+        return deltaX;
+    }
+
+    public double getDeltaY() {
+        return deltaY;
+    }
+
+    public double getDeltaZ() {
+        return deltaZ;
+    }
+
+    public double getLastDeltaX() {
+        return lastDeltaX;
+    }
+
+    public double getLastDeltaY() {
+        return lastDeltaY;
+    }
+
+    public double getLastDeltaZ() {
+        return lastDeltaZ;
+    }
+
+    public double getDeltaXZ() {
+        return Math.sqrt(deltaX * deltaX + deltaZ * deltaZ);
+    }
+
+    public double getLastDeltaXZ() {
+        return Math.sqrt(lastDeltaX * lastDeltaX + lastDeltaZ * lastDeltaZ);
+    }
+
+    public double get3DDistance() {
+        return Math.sqrt(deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ);
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public float getLastYaw() {
+        return lastYaw;
+    }
+
+    public float getLastPitch() {
+        return lastPitch;
+    }
+
+    public float getDeltaYaw() {
+        return deltaYaw;
+    }
+
+    public float getDeltaPitch() {
+        return deltaPitch;
+    }
+
+    public float getRawDeltaYaw() {
+        return rawDeltaYaw;
+    }
+
+    public float getMinYawDelta() {
+        return minYawDelta;
+    }
+
+    public float getMaxYawDelta() {
+        return maxYawDelta;
+    }
+
+    /**
+     * @see RotationAnalytics#getYawGcd()
+     */
+    public double getYawGcd() {
+        return yawGcd;
+    }
+
+    /**
+     * @see RotationAnalytics#getPitchGcd()
+     */
+    public double getPitchGcd() {
+        return pitchGcd;
+    }
+
+    /**
+     * @see RotationAnalytics#getSensitivity()
+     */
+    public double getSensitivity() {
+        return sensitivity;
+    }
+
+    /**
+     * @see RotationAnalytics#getGcdConsistency()
+     */
+    public double getGcdConsistency() {
+        return gcdConsistency;
+    }
+
+    /**
+     * @see RotationAnalytics#getDeltaEntropy()
+     */
+    public double getDeltaEntropy() {
+        return deltaEntropy;
+    }
+
+    /**
+     * @see RotationAnalytics#getSnapRate()
+     */
+    public double getSnapRate() {
+        return snapRate;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean wasOnGround() {
+        return wasOnGround;
+    }
+
+    public long getGroundTime() {
+        return groundTime;
+    }
+
+    public long getAirTime() {
+        return airTime;
+    }
+
+    public boolean isJumping() {
+        return jumping;
+    }
+
+    public long getJumpStart() {
+        return jumpStart;
+    }
+
+    /**
+     * Time in air as of now, not as of the frame (in milliseconds)
+     */
+    public long getTimeInAir() {
+        return onGround ? 0 : System.currentTimeMillis() - airTime;
+    }
+
+    /**
+     * Time on ground as of now, not as of the frame (in milliseconds)
+     */
+    public long getTimeOnGround() {
+        return !onGround ? 0 : System.currentTimeMillis() - groundTime;
+    }
+
+    public boolean isInsideBlock() {
+        return insideBlock;
+    }
+
+    public boolean isOnIce() {
+        return onIce;
+    }
+
+    public boolean isOnSlime() {
+        return onSlime;
+    }
+
+    public boolean isInLiquid() {
+        return inLiquid;
+    }
+
+    public boolean isOnStairs() {
+        return onStairs;
+    }
+
+    public boolean isOnSlab() {
+        return onSlab;
+    }
+}
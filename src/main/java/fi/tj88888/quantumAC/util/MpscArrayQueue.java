@@ -0,0 +1,113 @@
+package fi.tj88888.quantumAC.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer queue backed by a ring array.
+ * Any number of threads may offer concurrently, but only one thread at a time may poll.
+ * Offering never allocates, which keeps it usable on the Netty threads.
+ *
+ * @param <E> element type
+ */
+public final class MpscArrayQueue<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+    private final int mask;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param requestedCapacity Minimum capacity, rounded up to the next power of two
+     */
+    public MpscArrayQueue(int requestedCapacity) {
+        int size = 1;
+        while (size < Math.max(2, requestedCapacity)) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element to the tail of the queue
+     *
+     * @param element The element to add, must not be null
+     * @return false if the queue is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= capacity) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+
+        buffer.lazySet((int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * Removes the head of the queue. Must only be called by the single consumer.
+     *
+     * @return The head element, or null if the queue is empty
+     */
+    public E poll() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+
+        E element = buffer.get(offset);
+        if (element == null) {
+            if (index == producerIndex.get()) {
+                return null;
+            }
+            // A producer has claimed the slot but not stored the element yet
+            do {
+                Thread.onSpinWait();
+                element = buffer.get(offset);
+            } while (element == null);
+        }
+
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    /**
+     * Approximate number of queued elements
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * @return Number of elements ever offered successfully; the queue position the next offer gets
+     */
+    public long producedCount() {
+        return producerIndex.get();
+    }
+
+    /**
+     * @return Number of elements ever polled; the queue position of the current head
+     */
+    public long consumedCount() {
+        return consumerIndex.get();
+    }
+
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,242 @@
+package fi.tj88888.quantumAC.util;
+
+/**
+ * Aim statistics over a player's recent rotations, updated in constant time per rotation packet.
+ *
+ * The client turns the camera in whole multiples of a step set by the mouse sensitivity, so the
+ * greatest common divisor of consecutive deltas reveals that step. Each new delta is reduced against
+ * the previous one with a float-tolerant Euclid; the window median of those pairwise divisors is the
+ * estimate, and the share of recent deltas landing on its multiples says how consistently the player
+ * sticks to it. Aim assistance that writes rotations directly tends to break the grid, repeat the same
+ * deltas (low entropy) or snap.
+ *
+ * Not thread-safe; owned by {@link MovementData}, which only the player's packet lane touches.
+ */
+public class RotationAnalytics {
+
+    private static final int WINDOW = 40;                 // Rotations the signals cover
+    private static final int MIN_SAMPLES = 10;            // Divisors needed before estimating
+    private static final double MIN_DELTA = 0.005;        // Below the smallest step (0.0096 at 0% sensitivity)
+    private static final double GCD_TOLERANCE = 1.0E-4;   // Float error of a yaw/pitch delta, in degrees
+    private static final double GCD_SCALE = 1.0E6;        // Divisors are kept in micro-degrees
+    private static final double GRID_TOLERANCE = 0.05;    // Off-grid remainder still counted, in steps
+    private static final double SNAP_THRESHOLD = 30.0;    // Yaw change within one packet counted as a snap
+    private static final int ENTROPY_BINS = 1024;
+    private static final double ENTROPY_RESOLUTION = 100; // Delta bins per degree
+
+    // Entropy contribution c * ln(c) of a bin holding c samples
+    private static final double[] COUNT_LOG_COUNT = new double[WINDOW + 1];
+
+    static {
+        for (int count = 1; count <= WINDOW; count++) {
+            COUNT_LOG_COUNT[count] = count * Math.log(count);
+        }
+    }
+
+    private final Axis yaw = new Axis();
+    private final Axis pitch = new Axis();
+
+    // Yaw deltas of moving rotations: entropy bins and snaps
+    private final int[] binCounts = new int[ENTROPY_BINS];
+    private final int[] sampleBins = new int[WINDOW];
+    private final boolean[] sampleSnaps = new boolean[WINDOW];
+    private int head;
+    private int samples;
+    private int snapCount;
+    private double countLogCountSum;
+
+    /**
+     * Adds one rotation
+     *
+     * @param deltaYaw Absolute yaw change, already corrected for wrap-around
+     * @param deltaPitch Absolute pitch change
+     * @param pitchClamped Whether either pitch sat at the +-90 limit, which cuts the delta off the grid
+     */
+    public void update(float deltaYaw, float deltaPitch, boolean pitchClamped) {
+        if (deltaYaw < MIN_DELTA && deltaPitch < MIN_DELTA) {
+            return;
+        }
+
+        yaw.add(deltaYaw);
+        if (!pitchClamped) {
+            pitch.add(deltaPitch);
+        }
+
+        addSample(deltaYaw);
+    }
+
+    /**
+     * Euclid's algorithm on floats: a remainder within the tolerance of zero or of the divisor counts as exact
+     */
+    static double gcd(double a, double b) {
+        if (a < b) {
+            double swap = a;
+            a = b;
+            b = swap;
+        }
+        while (b > GCD_TOLERANCE) {
+            double remainder = a % b;
+            if (b - remainder < GCD_TOLERANCE) {
+                remainder = 0;
+            }
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    private void addSample(double deltaYaw) {
+        if (samples == WINDOW) {
+            int oldBin = sampleBins[head];
+            countLogCountSum += COUNT_LOG_COUNT[binCounts[oldBin] - 1] - COUNT_LOG_COUNT[binCounts[oldBin]];
+            binCounts[oldBin]--;
+            if (sampleSnaps[head]) {
+                snapCount--;
+            }
+            head = (head + 1) % WINDOW;
+            samples--;
+        }
+
+        int bin = (int) (Math.round(deltaYaw * ENTROPY_RESOLUTION) & (ENTROPY_BINS - 1));
+        countLogCountSum += COUNT_LOG_COUNT[binCounts[bin] + 1] - COUNT_LOG_COUNT[binCounts[bin]];
+        binCounts[bin]++;
+
+        boolean snap = deltaYaw > SNAP_THRESHOLD;
+        if (snap) {
+            snapCount++;
+        }
+
+        int index = (head + samples) % WINDOW;
+        sampleBins[index] = bin;
+        sampleSnaps[index] = snap;
+        samples++;
+    }
+
+    /**
+     * Estimated yaw step, in degrees
+     *
+     * @return The median pairwise divisor, or 0 before enough rotations were seen
+     */
+    public double getYawGcd() {
+        return yaw.estimate();
+    }
+
+    /**
+     * Estimated pitch step, in degrees. Pitch never wraps, so this is the more reliable axis.
+     *
+     * @return The median pairwise divisor, or 0 before enough rotations were seen
+     */
+    public double getPitchGcd() {
+        return pitch.estimate();
+    }
+
+    /**
+     * In-game mouse sensitivity implied by the pitch step: step = (0.6 * s + 0.2)^3 * 1.2 degrees
+     *
+     * @return Sensitivity in percent as the options screen shows it (0-200), or -1 if unknown or off the
+     *         range any client setting produces
+     */
+    public double getSensitivity() {
+        double step = getPitchGcd();
+        if (step <= 0) return -1;
+
+        double factor = Math.cbrt(step / 1.2);
+        double sensitivity = (factor - 0.2) / 0.6 * 200.0;
+        return sensitivity < 0 || sensitivity > 200 ? -1 : sensitivity;
+    }
+
+    /**
+     * Share of recent deltas that were a whole multiple of the step estimated when they arrived,
+     * averaged over the axes with enough samples
+     *
+     * @return Consistency between 0 and 1, or 0 before enough rotations were seen
+     */
+    public double getGcdConsistency() {
+        double yawConsistency = yaw.consistency();
+        double pitchConsistency = pitch.consistency();
+        if (Double.isNaN(yawConsistency)) return Double.isNaN(pitchConsistency) ? 0 : pitchConsistency;
+        return Double.isNaN(pitchConsistency) ? yawConsistency : (yawConsistency + pitchConsistency) / 2;
+    }
+
+    /**
+     * Shannon entropy of the recent yaw deltas at 0.01 degree resolution, normalized by its maximum for
+     * the number of samples. Human aim is close to 1; replayed or generated rotations repeat values.
+     *
+     * @return Entropy between 0 and 1, or 1 with fewer than two samples
+     */
+    public double getDeltaEntropy() {
+        if (samples < 2) return 1.0;
+
+        double entropy = Math.log(samples) - countLogCountSum / samples;
+        return Math.max(0.0, Math.min(1.0, entropy / Math.log(samples)));
+    }
+
+    /**
+     * @return Share of recent moving rotations that turned more than 30 degrees at once
+     */
+    public double getSnapRate() {
+        return samples == 0 ? 0 : (double) snapCount / samples;
+    }
+
+    /**
+     * @return Number of moving rotations the entropy and snap rate cover
+     */
+    public int getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Step estimate and grid fit of one rotation axis
+     */
+    private static final class Axis {
+        // Pairwise divisors of consecutive deltas
+        private final SlidingWindowStats divisors = new SlidingWindowStats(WINDOW, true);
+        // Whether each delta fit the estimate at the time
+        private final boolean[] onGrid = new boolean[WINDOW];
+        private int gridHead;
+        private int gridSamples;
+        private int onGridCount;
+        private double lastDelta;
+
+        void add(double delta) {
+            if (delta < MIN_DELTA) {
+                return;
+            }
+
+            double step = estimate();
+            if (step > 0) {
+                double multiple = delta / step;
+                addGridSample(Math.abs(multiple - Math.rint(multiple)) <= GRID_TOLERANCE);
+            }
+
+            if (lastDelta >= MIN_DELTA) {
+                divisors.add(Math.round(gcd(delta, lastDelta) * GCD_SCALE));
+            }
+            lastDelta = delta;
+        }
+
+        private void addGridSample(boolean fits) {
+            if (gridSamples == WINDOW) {
+                if (onGrid[gridHead]) {
+                    onGridCount--;
+                }
+                gridHead = (gridHead + 1) % WINDOW;
+                gridSamples--;
+            }
+
+            onGrid[(gridHead + gridSamples) % WINDOW] = fits;
+            if (fits) {
+                onGridCount++;
+            }
+            gridSamples++;
+        }
+
+        double estimate() {
+            return divisors.size() < MIN_SAMPLES ? 0 : divisors.getPercentile(0.5) / GCD_SCALE;
+        }
+
+        double consistency() {
+            return gridSamples < MIN_SAMPLES ? Double.NaN : (double) onGridCount / gridSamples;
+        }
+    }
+}
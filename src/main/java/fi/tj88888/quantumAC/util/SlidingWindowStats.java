@@ -0,0 +1,307 @@
+package fi.tj88888.quantumAC.util;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics over the most recent samples of a stream, such as packet or click intervals.
+ *
+ * Count, mean, variance, skewness, kurtosis, min and max are all updated as samples enter and leave
+ * the window, so reading them costs O(1) no matter how large the window is. Power sums are kept
+ * relative to a shift close to the mean and rebuilt from the window once per {@code capacity}
+ * evictions, which keeps floating point drift from accumulating over a long session.
+ * Percentiles are optional because they need a sorted copy of the window.
+ * Not thread-safe; like {@link LongRingBuffer}, each instance belongs to a single packet lane.
+ */
+public class SlidingWindowStats {
+
+    private final LongRingBuffer samples;
+    private final MonotonicQueue minimums;
+    private final MonotonicQueue maximums;
+    private final long[] sorted;
+
+    private long added;
+    private long sum;
+    private long shift;
+    private double shiftedSum;
+    private double shiftedSquares;
+    private double shiftedCubes;
+    private double shiftedFourths;
+    private int evictionsSinceRebuild;
+
+    public SlidingWindowStats(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity Number of samples in the window
+     * @param trackPercentiles Whether to keep the sorted copy needed by {@link #getPercentile(double)}
+     */
+    public SlidingWindowStats(int capacity, boolean trackPercentiles) {
+        this.samples = new LongRingBuffer(capacity);
+        this.minimums = new MonotonicQueue(capacity, false);
+        this.maximums = new MonotonicQueue(capacity, true);
+        this.sorted = trackPercentiles ? new long[capacity] : null;
+    }
+
+    /**
+     * Adds a sample, evicting the oldest one if the window is full
+     */
+    public void add(long value) {
+        if (samples.isFull()) {
+            removeOldest();
+        }
+        if (samples.isEmpty()) {
+            shift = value;
+        }
+
+        samples.add(value);
+        sum += value;
+        accumulate(value - shift, 1);
+
+        long sequence = added++;
+        minimums.push(value, sequence);
+        maximums.push(value, sequence);
+
+        if (sorted != null) {
+            int size = samples.size() - 1;
+            int index = Arrays.binarySearch(sorted, 0, size, value);
+            if (index < 0) index = -index - 1;
+            System.arraycopy(sorted, index, sorted, index + 1, size - index);
+            sorted[index] = value;
+        }
+    }
+
+    /**
+     * Removes the oldest sample from the window
+     *
+     * @return The removed sample
+     */
+    public long removeOldest() {
+        long value = samples.removeFirst();
+        sum -= value;
+        accumulate(value - shift, -1);
+
+        long oldestSequence = added - samples.size();
+        minimums.evictBefore(oldestSequence);
+        maximums.evictBefore(oldestSequence);
+
+        if (sorted != null) {
+            int size = samples.size() + 1;
+            int index = Arrays.binarySearch(sorted, 0, size, value);
+            System.arraycopy(sorted, index + 1, sorted, index, size - index - 1);
+        }
+
+        if (samples.isEmpty()) {
+            resetSums();
+        } else if (++evictionsSinceRebuild >= samples.capacity()) {
+            rebuildSums();
+        }
+        return value;
+    }
+
+    public int size() {
+        return samples.size();
+    }
+
+    public int capacity() {
+        return samples.capacity();
+    }
+
+    public boolean isEmpty() {
+        return samples.isEmpty();
+    }
+
+    public boolean isFull() {
+        return samples.isFull();
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return The mean, or 0 if the window is empty
+     */
+    public double getMean() {
+        int n = samples.size();
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    /**
+     * Population variance of the window
+     *
+     * @return The variance, or 0 if there are fewer than two samples
+     */
+    public double getVariance() {
+        int n = samples.size();
+        if (n < 2) return 0;
+
+        double mean = shiftedSum / n;
+        return Math.max(0, shiftedSquares / n - mean * mean);
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Population skewness of the window; negative when the long tail is below the mean
+     *
+     * @return The skewness, or 0 if the samples do not vary
+     */
+    public double getSkewness() {
+        double variance = getVariance();
+        if (variance <= 0) return 0;
+
+        int n = samples.size();
+        double mean = shiftedSum / n;
+        double thirdMoment = shiftedCubes / n
+                - 3 * mean * shiftedSquares / n
+                + 2 * mean * mean * mean;
+        return thirdMoment / (variance * Math.sqrt(variance));
+    }
+
+    /**
+     * Excess kurtosis of the window, 0 for normally distributed samples.
+     * Machine-generated timings tend to be strongly negative (flat) or strongly positive (spiky).
+     *
+     * @return The excess kurtosis, or 0 if the samples do not vary
+     */
+    public double getKurtosis() {
+        double variance = getVariance();
+        if (variance <= 0) return 0;
+
+        int n = samples.size();
+        double mean = shiftedSum / n;
+        double meanSquared = mean * mean;
+        double fourthMoment = shiftedFourths / n
+                - 4 * mean * shiftedCubes / n
+                + 6 * meanSquared * shiftedSquares / n
+                - 3 * meanSquared * meanSquared;
+        return fourthMoment / (variance * variance) - 3;
+    }
+
+    /**
+     * @return The smallest sample in the window, or 0 if it is empty
+     */
+    public long getMin() {
+        return minimums.isEmpty() ? 0 : minimums.peek();
+    }
+
+    /**
+     * @return The largest sample in the window, or 0 if it is empty
+     */
+    public long getMax() {
+        return maximums.isEmpty() ? 0 : maximums.peek();
+    }
+
+    /**
+     * Nearest-rank percentile of the window. Only available when percentiles are tracked.
+     *
+     * @param quantile Quantile between 0 and 1, e.g. 0.5 for the median
+     * @return The sample at that rank, or 0 if the window is empty
+     */
+    public long getPercentile(double quantile) {
+        if (sorted == null) {
+            throw new IllegalStateException("Percentiles are not tracked by this window");
+        }
+        int n = samples.size();
+        if (n == 0) return 0;
+
+        int rank = (int) Math.ceil(quantile * n);
+        return sorted[Math.min(n - 1, Math.max(0, rank - 1))];
+    }
+
+    public void clear() {
+        samples.clear();
+        minimums.clear();
+        maximums.clear();
+        added = 0;
+        sum = 0;
+        resetSums();
+    }
+
+    private void accumulate(long shiftedValue, int sign) {
+        double d = shiftedValue;
+        double d2 = d * d;
+        shiftedSum += sign * d;
+        shiftedSquares += sign * d2;
+        shiftedCubes += sign * d2 * d;
+        shiftedFourths += sign * d2 * d2;
+    }
+
+    private void resetSums() {
+        shiftedSum = 0;
+        shiftedSquares = 0;
+        shiftedCubes = 0;
+        shiftedFourths = 0;
+        evictionsSinceRebuild = 0;
+    }
+
+    /**
+     * Recomputes the power sums around the current mean, undoing any accumulated rounding error
+     */
+    private void rebuildSums() {
+        resetSums();
+        shift = Math.round(getMean());
+        for (int i = 0; i < samples.size(); i++) {
+            accumulate(samples.get(i) - shift, 1);
+        }
+    }
+
+    /**
+     * Window minimum or maximum in amortized O(1): holds the samples that can still become
+     * the extreme once the older ones leave, in window order.
+     */
+    private static class MonotonicQueue {
+        private final long[] values;
+        private final long[] sequences;
+        private final boolean keepMax;
+        private int head;
+        private int size;
+
+        MonotonicQueue(int capacity, boolean keepMax) {
+            this.values = new long[capacity];
+            this.sequences = new long[capacity];
+            this.keepMax = keepMax;
+        }
+
+        void push(long value, long sequence) {
+            // Drop samples from the back that the new one outlasts and beats
+            while (size > 0) {
+                long last = values[slot(size - 1)];
+                if (keepMax ? last > value : last < value) break;
+                size--;
+            }
+            int tail = slot(size);
+            values[tail] = value;
+            sequences[tail] = sequence;
+            size++;
+        }
+
+        void evictBefore(long sequence) {
+            while (size > 0 && sequences[head] < sequence) {
+                head = head + 1 == values.length ? 0 : head + 1;
+                size--;
+            }
+        }
+
+        long peek() {
+            return values[head];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int slot(int index) {
+            int slot = head + index;
+            return slot >= values.length ? slot - values.length : slot;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package fi.tj88888.quantumAC.data;
+
+import fi.tj88888.quantumAC.packet.PacketKind;
+import fi.tj88888.quantumAC.packet.PacketSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PacketDebugRingTest {
+
+    @Test
+    void tracksIntervalsPerKind() {
+        PacketDebugRing ring = new PacketDebugRing(8, 0);
+        ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1000);
+        ring.record(PacketKind.USE_ENTITY, false, 1, 1010);
+        ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1050);
+
+        assertEquals(PacketDebugRing.NO_PREVIOUS, ring.sincePreviousAt(0));
+        assertEquals(PacketDebugRing.NO_PREVIOUS, ring.sincePreviousAt(1));
+        assertEquals(50, ring.sincePreviousAt(2));
+        assertEquals(PacketKind.USE_ENTITY, ring.kindAt(1));
+        assertEquals(2, ring.getCount(PacketKind.FLYING));
+        assertEquals(50, ring.getAverageInterval(PacketKind.FLYING));
+        assertEquals(-1, ring.getAverageInterval(PacketKind.USE_ENTITY));
+    }
+
+    @Test
+    void slotNextInLineForOverwriteIsNotValid() {
+        PacketDebugRing ring = new PacketDebugRing(4, 0);
+        for (int i = 0; i < 4; i++) {
+            ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1000 + i);
+        }
+
+        // Sequence 0 shares its slot with sequence 4, which the writer fills next
+        assertFalse(ring.isValid(0));
+        assertTrue(ring.isValid(1));
+        assertTrue(ring.isValid(3));
+        assertFalse(ring.isValid(4));
+    }
+
+    @Test
+    void renderCursorAdvancesToGivenEnd() {
+        PacketDebugRing ring = new PacketDebugRing(8, 0);
+        ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1000);
+        ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1050);
+
+        long to = ring.written();
+        assertEquals(0, ring.advanceRendered(to));
+
+        // Recorded after the end was taken, so it is left for the next flush
+        ring.record(PacketKind.FLYING, true, PacketSnapshot.NO_ACTION, 1100);
+        assertEquals(2, ring.advanceRendered(ring.written()));
+    }
+}
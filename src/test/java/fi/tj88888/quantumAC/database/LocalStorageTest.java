@@ -0,0 +1,168 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.log.ViolationLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStorageTest {
+
+    private static final UUID NOTCH = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID JEB = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+    private static final Logger LOGGER = Logger.getLogger("LocalStorageTest");
+
+    @TempDir
+    File directory;
+
+    private final List<LocalStorage> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LOGGER.setLevel(Level.OFF);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (LocalStorage storage : opened) {
+            storage.close();
+        }
+    }
+
+    private LocalStorage open() {
+        LocalStorage storage = new LocalStorage(directory, LOGGER);
+        opened.add(storage);
+        return storage;
+    }
+
+    private void close(LocalStorage storage) {
+        storage.close();
+        opened.remove(storage);
+    }
+
+    private static ViolationLog violation(UUID uuid, String name, int index) {
+        return new ViolationLog(name, "Reach", "A", index, "hit " + index, "world", index + 0.5, 64, -index,
+                42, 19.5, 1_700_000_000_000L + index, uuid);
+    }
+
+    private static List<String> details(List<ViolationLog> logs) {
+        List<String> details = new ArrayList<>();
+        for (ViolationLog log : logs) {
+            details.add(log.getDetails());
+        }
+        return details;
+    }
+
+    @Test
+    void rebuildsIndexFromSegmentsOnReopen() throws Exception {
+        LocalStorage storage = open();
+        storage.writeViolations(List.of(violation(NOTCH, "Notch", 1), violation(JEB, "jeb_", 2)));
+        storage.logViolation(violation(NOTCH, "Notch", 3));
+        close(storage);
+
+        storage = open();
+        List<ViolationLog> logs = storage.getPlayerViolations(NOTCH, 10).get();
+        assertEquals(List.of("hit 3", "hit 1"), details(logs));
+
+        ViolationLog log = logs.get(1);
+        assertEquals(NOTCH, log.getUuid());
+        assertEquals("Notch", log.getPlayerName());
+        assertEquals("Reach", log.getCheckName());
+        assertEquals("A", log.getCheckType());
+        assertEquals(1, log.getVl());
+        assertEquals("world", log.getWorld());
+        assertEquals(1.5, log.getX());
+        assertEquals(64, log.getY());
+        assertEquals(-1, log.getZ());
+        assertEquals(42, log.getPing());
+        assertEquals(19.5, log.getTps());
+        assertEquals(1_700_000_000_001L, log.getTimestamp());
+
+        assertEquals(List.of("hit 2"), details(storage.getPlayerViolationsByName("jeb_", 10).get()));
+        assertEquals(3, storage.getRecentViolations(10).get().size());
+    }
+
+    @Test
+    void truncatesTornLastRecord() throws Exception {
+        LocalStorage storage = open();
+        storage.writeViolations(List.of(violation(NOTCH, "Notch", 1), violation(NOTCH, "Notch", 2)));
+        close(storage);
+
+        File segment = new File(directory, "violations-000000.seg");
+        long complete = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            // A record header promising more bytes than made it to disk
+            raf.seek(complete);
+            raf.writeInt(100);
+            raf.write(new byte[10]);
+        }
+
+        storage = open();
+        assertEquals(List.of("hit 2", "hit 1"), details(storage.getPlayerViolations(NOTCH, 10).get()));
+        assertEquals(complete, segment.length());
+
+        // Appends continue right after the last complete record
+        storage.writeViolations(List.of(violation(NOTCH, "Notch", 3)));
+        close(storage);
+
+        storage = open();
+        assertEquals(List.of("hit 3", "hit 2", "hit 1"), details(storage.getPlayerViolations(NOTCH, 10).get()));
+    }
+
+    @Test
+    void returnsNewestViolationsUpToLimit() throws Exception {
+        LocalStorage storage = open();
+        List<ViolationLog> violations = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            violations.add(i % 3 == 0 ? violation(JEB, "jeb_", i) : violation(NOTCH, "Notch", i));
+        }
+        storage.writeViolations(violations);
+
+        assertEquals(List.of("hit 8", "hit 7", "hit 5"), details(storage.getPlayerViolations(NOTCH, 3).get()));
+        assertEquals(List.of("hit 6"), details(storage.getPlayerViolationsByName("jeb_", 1).get()));
+        assertEquals(List.of("hit 6", "hit 3"), details(storage.getPlayerViolationsByName("jeb_", 5).get()));
+        assertEquals(List.of("hit 8", "hit 7", "hit 6", "hit 5"), details(storage.getRecentViolations(4).get()));
+        assertTrue(storage.getPlayerViolations(UUID.randomUUID(), 3).get().isEmpty());
+    }
+
+    @Test
+    void savesPlayersAndMarksSavedVersions() throws Exception {
+        LocalStorage storage = open();
+        PlayerData notch = new PlayerData(NOTCH, "Notch");
+        notch.setAveragePing(42);
+        notch.setJoinTime(1_700_000_000_000L);
+        notch.setTotalViolations(7);
+        assertTrue(notch.isDirty());
+
+        storage.savePlayerData(notch);
+        storage.flushPlayerData().get();
+        assertFalse(notch.isDirty());
+
+        // Changed after it was staged, so the flush only covers the older version
+        storage.savePlayerData(notch);
+        notch.setTotalViolations(8);
+        storage.flushPlayerData().get();
+        assertTrue(notch.isDirty());
+        close(storage);
+
+        storage = open();
+        PlayerData loaded = storage.loadPlayerData(NOTCH).get();
+        assertEquals("Notch", loaded.getPlayerName());
+        assertEquals(42, loaded.getAveragePing());
+        assertEquals(1_700_000_000_000L, loaded.getJoinTime());
+        assertEquals(7, loaded.getTotalViolations());
+        assertEquals(1, storage.getPlayerCount());
+        assertNull(storage.loadPlayerData(JEB).get());
+    }
+}
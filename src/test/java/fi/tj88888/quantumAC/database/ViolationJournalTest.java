@@ -0,0 +1,229 @@
+package fi.tj88888.quantumAC.database;
+
+import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.PlayerData;
+import fi.tj88888.quantumAC.log.ViolationLog;
+import fi.tj88888.quantumAC.log.ViolationRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ViolationJournalTest {
+
+    private static final UUID PLAYER_UUID = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final Logger LOGGER = Logger.getLogger("ViolationJournalTest");
+
+    @TempDir
+    File directory;
+
+    private final ViolationRing ring = new ViolationRing(16);
+    private final Check check = mock(Check.class);
+    private final PlayerData playerData = mock(PlayerData.class);
+
+    private final List<ViolationLog> shipped = new CopyOnWriteArrayList<>();
+    // Number of writes the backend fails before accepting one
+    private final AtomicInteger failures = new AtomicInteger();
+    private final List<ViolationJournal> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LOGGER.setLevel(Level.OFF);
+        when(check.getCheckName()).thenReturn("Reach");
+        when(check.getCheckType()).thenReturn("A");
+        when(playerData.getUuid()).thenReturn(PLAYER_UUID);
+        when(playerData.getPlayerName()).thenReturn("Notch");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (ViolationJournal journal : opened) {
+            journal.close(1000);
+        }
+    }
+
+    private ViolationJournal open() throws Exception {
+        StorageBackend backend = mock(StorageBackend.class);
+        when(backend.getName()).thenReturn("Test");
+        doAnswer(invocation -> {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IOException("backend down");
+            }
+            // The journal reuses its batch list
+            shipped.addAll(invocation.<List<ViolationLog>>getArgument(0));
+            return null;
+        }).when(backend).writeViolations(any());
+
+        ViolationJournal journal = new ViolationJournal(directory, backend, LOGGER, 0, 100, 10);
+        opened.add(journal);
+        return journal;
+    }
+
+    private boolean append(ViolationJournal journal, int index, String details) {
+        long sequence = ring.claim();
+        ring.set(sequence, check, playerData, index, 1, 1_700_000_000_000L + index);
+        ring.setLocation(sequence, "world", index + 0.5, 64, -index, 42, 19.5);
+        ring.setDetails(sequence, details, 0, 0, 0, 0, 0, 0, 0);
+        ring.publish(sequence);
+
+        boolean[] appended = new boolean[1];
+        ring.drain(event -> appended[0] = journal.append(event), 1);
+        return appended[0];
+    }
+
+    private void appendAll(ViolationJournal journal, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(append(journal, i, "record " + i));
+        }
+    }
+
+    private static void awaitShipped(ViolationJournal journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.getPendingCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "journal did not ship in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Keeps the backend failing until the journal is closed, so everything stays in the journal
+     */
+    private void closeUnshipped(ViolationJournal journal) {
+        failures.set(Integer.MAX_VALUE);
+        assertFalse(journal.close(1000));
+        failures.set(0);
+    }
+
+    @Test
+    void shipsAppendedViolations() throws Exception {
+        ViolationJournal journal = open();
+        appendAll(journal, 5);
+
+        assertTrue(journal.close(5000));
+        assertEquals(5, journal.getShippedCount());
+        assertEquals(5, shipped.size());
+
+        ViolationLog log = shipped.get(3);
+        assertEquals("Notch", log.getPlayerName());
+        assertEquals(PLAYER_UUID, log.getUuid());
+        assertEquals("Reach", log.getCheckName());
+        assertEquals("A", log.getCheckType());
+        assertEquals(3, log.getVl());
+        assertEquals("record 3", log.getDetails());
+        assertEquals("world", log.getWorld());
+        assertEquals(3.5, log.getX());
+        assertEquals(-3, log.getZ());
+        assertEquals(42, log.getPing());
+        assertEquals(19.5, log.getTps());
+        assertEquals(1_700_000_000_003L, log.getTimestamp());
+    }
+
+    @Test
+    void checkpointPreventsShippingTwice() throws Exception {
+        ViolationJournal journal = open();
+        appendAll(journal, 3);
+        assertTrue(journal.close(5000));
+
+        ViolationJournal reopened = open();
+        assertEquals(0, reopened.getPendingCount());
+
+        // Appends continue after the shipped records
+        assertTrue(append(reopened, 3, "record 3"));
+        assertTrue(reopened.close(5000));
+        assertEquals(List.of("record 0", "record 1", "record 2", "record 3"),
+                shipped.stream().map(ViolationLog::getDetails).toList());
+    }
+
+    @Test
+    void replaysUnshippedViolationsAfterRestart() throws Exception {
+        failures.set(Integer.MAX_VALUE);
+        ViolationJournal journal = open();
+        appendAll(journal, 4);
+        closeUnshipped(journal);
+        assertTrue(shipped.isEmpty());
+
+        // Still down while reopening, so the replayed records are seen before they ship
+        failures.set(Integer.MAX_VALUE);
+        ViolationJournal reopened = open();
+        assertEquals(4, reopened.getPendingCount());
+        failures.set(0);
+        assertTrue(reopened.close(5000));
+        assertEquals(List.of("record 0", "record 1", "record 2", "record 3"),
+                shipped.stream().map(ViolationLog::getDetails).toList());
+    }
+
+    @Test
+    void retriesFailedBatchUntilBackendRecovers() throws Exception {
+        failures.set(2);
+        ViolationJournal journal = open();
+        appendAll(journal, 3);
+
+        awaitShipped(journal);
+        assertEquals(2, journal.getRetryCount());
+        assertEquals(3, shipped.size());
+    }
+
+    @Test
+    void skipsCorruptRecordAndCountsItOnce() throws Exception {
+        failures.set(Integer.MAX_VALUE);
+        ViolationJournal journal = open();
+        appendAll(journal, 3);
+        closeUnshipped(journal);
+
+        // Damage the details of the middle record
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "journal-0000000000.seg"), "rw")) {
+            file.seek(ViolationJournal.RECORD_SIZE + 300);
+            file.write(0x7F);
+        }
+
+        // Fail a couple of times so the batch holding the corrupt record is retried
+        failures.set(2);
+        ViolationJournal reopened = open();
+        assertEquals(3, reopened.getPendingCount());
+        awaitShipped(reopened);
+
+        assertEquals(List.of("record 0", "record 2"), shipped.stream().map(ViolationLog::getDetails).toList());
+        assertEquals(1, reopened.getCorruptCount());
+        assertEquals(2, reopened.getRetryCount());
+    }
+
+    @Test
+    void dropsViolationsOnceFull() throws Exception {
+        failures.set(Integer.MAX_VALUE);
+        ViolationJournal journal = open();
+
+        // Capacity is at least one segment
+        for (int i = 0; i < ViolationJournal.SEGMENT_RECORDS; i++) {
+            assertTrue(append(journal, i, "x"));
+        }
+        assertFalse(append(journal, 0, "x"));
+        assertEquals(1, journal.getDroppedCount());
+        assertEquals(ViolationJournal.SEGMENT_RECORDS, journal.getPendingCount());
+    }
+
+    @Test
+    void truncatesLongStringsAtCharacterBoundary() throws Exception {
+        ViolationJournal journal = open();
+        // Two bytes per character, so the 255 byte slot holds 127 of them
+        String details = "é".repeat(200);
+        assertTrue(append(journal, 0, details));
+
+        assertTrue(journal.close(5000));
+        assertEquals("é".repeat(127), shipped.get(0).getDetails());
+    }
+}
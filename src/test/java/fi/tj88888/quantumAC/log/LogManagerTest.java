@@ -0,0 +1,79 @@
+package fi.tj88888.quantumAC.log;
+
+import fi.tj88888.quantumAC.QuantumAC;
+import fi.tj88888.quantumAC.config.ConfigManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LogManagerTest {
+
+    @TempDir
+    File dataFolder;
+
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private LogManager logManager;
+
+    @BeforeEach
+    void setUp() {
+        ConfigManager config = mock(ConfigManager.class);
+        when(config.isLogToFileEnabled()).thenReturn(true);
+        when(config.getLogFileMaxSize()).thenReturn(64L * 1024 * 1024);
+
+        QuantumAC plugin = mock(QuantumAC.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getConfigManager()).thenReturn(config);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("LogManagerTest"));
+        when(plugin.getIoExecutor()).thenReturn(ioExecutor);
+
+        logManager = new LogManager(plugin);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        logManager.shutdown();
+        ioExecutor.shutdown();
+        ioExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static ViolationLog violation(String details, long timestamp) {
+        return new ViolationLog("Notch", "Reach", "A", 1, details, "world", 0, 64, 0, 50, 20, timestamp, null);
+    }
+
+    @Test
+    void writesLateEntryIntoCurrentFile() throws Exception {
+        long now = System.currentTimeMillis();
+        long yesterday = now - TimeUnit.DAYS.toMillis(1);
+
+        logManager.logViolation(violation("first", now));
+        logManager.logViolation(violation("late", yesterday));
+        logManager.logViolation(violation("last", now));
+        logManager.shutdown();
+
+        File logs = new File(dataFolder, "logs");
+        String today = LocalDate.now(ZoneId.systemDefault()).toString();
+        assertEquals(List.of(today + ".log"), Arrays.asList(logs.list()));
+
+        List<String> lines = Files.readAllLines(new File(logs, today + ".log").toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("Details: first"));
+        assertTrue(lines.get(1).contains("Details: late"));
+        assertTrue(lines.get(2).contains("Details: last"));
+    }
+}
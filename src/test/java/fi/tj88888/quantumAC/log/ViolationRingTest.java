@@ -0,0 +1,143 @@
+package fi.tj88888.quantumAC.log;
+
+import fi.tj88888.quantumAC.check.Check;
+import fi.tj88888.quantumAC.data.PlayerData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ViolationRingTest {
+
+    private final Check check = mockCheck();
+    private final PlayerData playerData = mockPlayer();
+    private final List<String> drained = new ArrayList<>();
+
+    private static Check mockCheck() {
+        Check check = mock(Check.class);
+        when(check.getCheckName()).thenReturn("Speed");
+        when(check.getCheckType()).thenReturn("A");
+        return check;
+    }
+
+    private static PlayerData mockPlayer() {
+        PlayerData playerData = mock(PlayerData.class);
+        when(playerData.getPlayerName()).thenReturn("Steve");
+        return playerData;
+    }
+
+    private long publish(ViolationRing ring, double vl) {
+        long sequence = ring.claim();
+        if (sequence >= 0) {
+            ring.set(sequence, check, playerData, vl, 1, 1000);
+            ring.publish(sequence);
+        }
+        return sequence;
+    }
+
+    private int drain(ViolationRing ring) {
+        return ring.drain(event -> drained.add(event.getCheckName() + event.getCheckType() + " " + event.getVl()),
+                Integer.MAX_VALUE);
+    }
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(4, new ViolationRing(3).capacity());
+        assertEquals(8, new ViolationRing(8).capacity());
+        assertEquals(16, new ViolationRing(9).capacity());
+    }
+
+    @Test
+    void drainsInClaimOrder() {
+        ViolationRing ring = new ViolationRing(4);
+
+        // Wrap around the ring a few times
+        for (int round = 0; round < 3; round++) {
+            drained.clear();
+            for (int i = 1; i <= 3; i++) {
+                publish(ring, round * 10 + i);
+            }
+            assertEquals(3, drain(ring));
+            assertEquals(List.of("SpeedA " + (round * 10 + 1.0), "SpeedA " + (round * 10 + 2.0),
+                    "SpeedA " + (round * 10 + 3.0)), drained);
+            assertEquals(0, ring.size());
+        }
+    }
+
+    @Test
+    void respectsDrainLimit() {
+        ViolationRing ring = new ViolationRing(8);
+        publish(ring, 1);
+        publish(ring, 2);
+        publish(ring, 3);
+
+        assertEquals(2, ring.drain(event -> drained.add("x"), 2));
+        assertEquals(1, ring.size());
+        assertEquals(1, drain(ring));
+    }
+
+    @Test
+    void dropsWhenFull() {
+        ViolationRing ring = new ViolationRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(publish(ring, i) >= 0);
+        }
+
+        assertEquals(-1, ring.claim());
+        assertEquals(1, ring.getDropped());
+
+        assertEquals(4, drain(ring));
+        assertTrue(publish(ring, 5) >= 0);
+    }
+
+    @Test
+    void unpublishedSlotHoldsBackLaterEvents() {
+        ViolationRing ring = new ViolationRing(4);
+        long first = ring.claim();
+        publish(ring, 2);
+
+        // Still being filled by another thread
+        assertEquals(0, drain(ring));
+
+        ring.set(first, check, playerData, 1, 1, 1000);
+        ring.publish(first);
+        assertEquals(2, drain(ring));
+        assertEquals(List.of("SpeedA 1.0", "SpeedA 2.0"), drained);
+    }
+
+    @Test
+    void skipsDiscardedSlot() {
+        ViolationRing ring = new ViolationRing(4);
+        publish(ring, 1);
+        long sequence = ring.claim();
+        ring.set(sequence, check, playerData, 99, 1, 1000);
+        ring.discard(sequence);
+        publish(ring, 3);
+
+        assertEquals(3, drain(ring));
+        assertEquals(List.of("SpeedA 1.0", "SpeedA 3.0"), drained);
+    }
+
+    @Test
+    void rendersDetailsOnlyWhenAsked() {
+        ViolationRing ring = new ViolationRing(4);
+        long sequence = ring.claim();
+        ring.set(sequence, check, playerData, 1, 1, 1000);
+        ring.setLocation(sequence, "world", 1.5, 64, -2.5, 80, 19.9);
+        ring.setDetails(sequence, "speed=%.2f limit=%.0f", 2, 0.456, 3, 0, 0, 0, 0);
+        ring.publish(sequence);
+
+        List<ViolationLog> logs = new ArrayList<>();
+        ring.drain(event -> logs.add(event.toViolationLog()), 1);
+
+        ViolationLog log = logs.get(0);
+        assertEquals("Steve", log.getPlayerName());
+        assertEquals("speed=0.46 limit=3", log.getDetails());
+        assertEquals("world", log.getWorld());
+        assertEquals(-2.5, log.getZ());
+        assertEquals(80, log.getPing());
+    }
+}
@@ -0,0 +1,163 @@
+package fi.tj88888.quantumAC.packet;
+
+import fi.tj88888.quantumAC.config.ConfigManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PacketLaneTest {
+
+    // Rounded up to a power of two by the queue, so 2 it stays
+    private static final int CAPACITY = 2;
+
+    private final List<PacketSnapshot> handled = new ArrayList<>();
+    private Consumer<PacketSnapshot> onHandle = packet -> {};
+
+    private AdmissionController admission;
+    private PacketLane lane;
+
+    private void createLane(String policy) {
+        ConfigManager config = mock(ConfigManager.class);
+        when(config.getMaxQueueSize()).thenReturn(1000);
+        when(config.getMinTPS()).thenReturn(0.0);
+        when(config.getOverflowPolicy()).thenReturn(policy);
+        when(config.getCurrentTPS()).thenReturn(20.0);
+        admission = new AdmissionController(config);
+
+        PacketDispatcher dispatcher = mock(PacketDispatcher.class);
+        doAnswer(invocation -> {
+            PacketSnapshot packet = invocation.getArgument(0);
+            handled.add(packet);
+            onHandle.accept(packet);
+            return null;
+        }).when(dispatcher).handle(any());
+
+        // The lane is drained by calling run() directly instead of on the worker thread
+        lane = new PacketLane(UUID.randomUUID(), mock(PacketWorker.class), dispatcher, admission, CAPACITY);
+    }
+
+    private static PacketSnapshot packet(PacketKind kind, long sequence) {
+        return new PacketSnapshot(kind, null, sequence, sequence, sequence, 64, 0, 0, 0, true,
+                PacketSnapshot.NO_ENTITY, PacketSnapshot.NO_ACTION);
+    }
+
+    /**
+     * Runs the lane the way its worker would until it stops rescheduling itself
+     */
+    private void drainLane() {
+        for (int i = 0; i < 10; i++) {
+            lane.run();
+        }
+    }
+
+    @Test
+    void handlesQueuedPacketsInOrder() {
+        createLane("COALESCE");
+        PacketSnapshot first = packet(PacketKind.POSITION, 1);
+        PacketSnapshot second = packet(PacketKind.USE_ENTITY, 2);
+
+        lane.offer(first);
+        lane.offer(second);
+        drainLane();
+
+        assertEquals(List.of(first, second), handled);
+        assertEquals(0, admission.getQueueDepth());
+    }
+
+    @Test
+    void coalescedMovementKeepsItsPlaceBeforeLaterPackets() {
+        createLane("COALESCE");
+        PacketSnapshot f1 = packet(PacketKind.FLYING, 1);
+        PacketSnapshot f2 = packet(PacketKind.FLYING, 2);
+        PacketSnapshot f3 = packet(PacketKind.POSITION, 3);
+        PacketSnapshot attack = packet(PacketKind.USE_ENTITY, 4);
+
+        lane.offer(f1);
+        lane.offer(f2);
+        // Queue full, parked
+        lane.offer(f3);
+
+        // The attack arrives once the first packet made room, so after the parked movement
+        onHandle = packet -> {
+            if (packet == f1) lane.offer(attack);
+        };
+        drainLane();
+
+        assertEquals(List.of(f1, f2, f3, attack), handled);
+        assertEquals(0, admission.getCoalescedCount());
+        assertEquals(0, admission.getDroppedCount());
+    }
+
+    @Test
+    void newerMovementReplacesParkedOne() {
+        createLane("COALESCE");
+        PacketSnapshot f1 = packet(PacketKind.FLYING, 1);
+        PacketSnapshot f2 = packet(PacketKind.FLYING, 2);
+        PacketSnapshot f3 = packet(PacketKind.POSITION, 3);
+        PacketSnapshot f4 = packet(PacketKind.POSITION, 4);
+
+        lane.offer(f1);
+        lane.offer(f2);
+        lane.offer(f3);
+        lane.offer(f4);
+        drainLane();
+
+        assertEquals(List.of(f1, f2, f4), handled);
+        assertEquals(1, admission.getCoalescedCount());
+    }
+
+    @Test
+    void coalesceDropsOverflowingNonMovementPackets() {
+        createLane("COALESCE");
+        PacketSnapshot f1 = packet(PacketKind.FLYING, 1);
+        PacketSnapshot f2 = packet(PacketKind.FLYING, 2);
+
+        lane.offer(f1);
+        lane.offer(f2);
+        lane.offer(packet(PacketKind.USE_ENTITY, 3));
+        drainLane();
+
+        assertEquals(List.of(f1, f2), handled);
+        assertEquals(1, admission.getDroppedCount());
+    }
+
+    @Test
+    void dropPolicyDropsOverflow() {
+        createLane("DROP");
+        PacketSnapshot f1 = packet(PacketKind.FLYING, 1);
+        PacketSnapshot f2 = packet(PacketKind.FLYING, 2);
+
+        lane.offer(f1);
+        lane.offer(f2);
+        lane.offer(packet(PacketKind.FLYING, 3));
+        drainLane();
+
+        assertEquals(List.of(f1, f2), handled);
+        assertEquals(1, admission.getDroppedCount());
+        assertEquals(0, admission.getQueueDepth());
+    }
+
+    @Test
+    void callerRunsHandlesBacklogBeforeOverflowingPacket() {
+        createLane("CALLER_RUNS");
+        PacketSnapshot f1 = packet(PacketKind.FLYING, 1);
+        PacketSnapshot f2 = packet(PacketKind.FLYING, 2);
+        PacketSnapshot attack = packet(PacketKind.USE_ENTITY, 3);
+
+        lane.offer(f1);
+        lane.offer(f2);
+        // Handled on this thread, the lane is not held by a worker
+        lane.offer(attack);
+
+        assertEquals(List.of(f1, f2, attack), handled);
+        assertEquals(1, admission.getInlinedCount());
+        assertEquals(0, admission.getQueueDepth());
+    }
+}
@@ -0,0 +1,91 @@
+package fi.tj88888.quantumAC.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < 8; value++) {
+            assertEquals(value, LogLinearHistogram.upperBound(LogLinearHistogram.bucketOf(value)));
+        }
+    }
+
+    @Test
+    void bucketBoundsAreWithinAnEighth() {
+        long[] values = {8, 9, 15, 16, 17, 100, 1_000, 12_345, 1_000_000, 987_654_321L, Long.MAX_VALUE / 3};
+        for (long value : values) {
+            long bound = LogLinearHistogram.upperBound(LogLinearHistogram.bucketOf(value));
+            assertTrue(bound >= value, "upper bound below " + value);
+            assertTrue(bound - value <= value / 8, "upper bound too far above " + value);
+        }
+    }
+
+    @Test
+    void bucketsAreOrdered() {
+        int last = -1;
+        for (long value = 0; value < 100_000; value += 7) {
+            int bucket = LogLinearHistogram.bucketOf(value);
+            assertTrue(bucket >= last);
+            last = bucket;
+        }
+        assertTrue(LogLinearHistogram.bucketOf(Long.MAX_VALUE) < 512);
+    }
+
+    @Test
+    void reportsPercentilesCountAndMax() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getSum());
+        assertEquals(500_500, histogram.getMean(), 1e-9);
+        assertEquals(1_000_000, histogram.getMax());
+
+        assertWithinAnEighth(500_000, histogram.getPercentile(0.5));
+        assertWithinAnEighth(990_000, histogram.getPercentile(0.99));
+        // Never above the largest recorded value
+        assertEquals(1_000_000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void recordsNegativeValuesAsZero() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(42);
+        histogram.record(4_200);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    private static void assertWithinAnEighth(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 8,
+                "expected about " + expected + " but was " + actual);
+    }
+}
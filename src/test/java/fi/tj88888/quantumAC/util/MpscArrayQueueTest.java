@@ -0,0 +1,106 @@
+package fi.tj88888.quantumAC.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscArrayQueueTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(2, new MpscArrayQueue<Integer>(0).capacity());
+        assertEquals(8, new MpscArrayQueue<Integer>(5).capacity());
+        assertEquals(256, new MpscArrayQueue<Integer>(256).capacity());
+    }
+
+    @Test
+    void pollsInOfferOrder() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertNull(queue.poll());
+
+        // Go round the ring a few times so the indexes wrap
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(round * 10 + i));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(round * 10 + i, queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void rejectsOfferWhenFull() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(4, queue.producedCount());
+
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));
+        assertEquals(1, queue.consumedCount());
+        assertEquals(5, queue.producedCount());
+    }
+
+    @Test
+    void rejectsNull() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void keepsEachProducersOrderUnderContention() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscArrayQueue<Long> queue = new MpscArrayQueue<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!queue.offer(producer << 32 | i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        for (int received = 0; received < producers * perProducer; ) {
+            Long element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) (element >>> 32);
+            assertEquals(next[producer]++, element & 0xFFFFFFFFL);
+            received++;
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+        for (long count : next) {
+            assertEquals(perProducer, count);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package fi.tj88888.quantumAC.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowStatsTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void emptyWindowReportsZero() {
+        SlidingWindowStats stats = new SlidingWindowStats(8, true);
+
+        assertTrue(stats.isEmpty());
+        assertEquals(0, stats.getMean());
+        assertEquals(0, stats.getVariance());
+        assertEquals(0, stats.getMin());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getPercentile(0.5));
+    }
+
+    @Test
+    void constantSamplesHaveNoSpread() {
+        SlidingWindowStats stats = new SlidingWindowStats(8);
+        for (int i = 0; i < 20; i++) {
+            stats.add(50);
+        }
+
+        assertTrue(stats.isFull());
+        assertEquals(50, stats.getMean());
+        assertEquals(0, stats.getVariance());
+        assertEquals(0, stats.getSkewness());
+        assertEquals(0, stats.getKurtosis());
+    }
+
+    @Test
+    void evictsOldestSample() {
+        SlidingWindowStats stats = new SlidingWindowStats(3);
+        stats.add(1);
+        stats.add(2);
+        stats.add(3);
+        stats.add(10);
+
+        assertEquals(3, stats.size());
+        assertEquals(15, stats.getSum());
+        assertEquals(2, stats.getMin());
+        assertEquals(10, stats.getMax());
+        assertEquals(2, stats.removeOldest());
+        assertEquals(3, stats.getMin());
+    }
+
+    @Test
+    void matchesRecomputedStatisticsAsWindowSlides() {
+        int capacity = 20;
+        SlidingWindowStats stats = new SlidingWindowStats(capacity, true);
+        Deque<Long> window = new ArrayDeque<>();
+        Random random = new Random(42);
+
+        // Long enough for several rebuilds of the power sums, around a large offset like nanoTime intervals
+        for (int i = 0; i < 5000; i++) {
+            long value = 50_000_000L + random.nextInt(2_000_000) + (i % 7 == 0 ? 10_000_000L : 0);
+            stats.add(value);
+            window.addLast(value);
+            if (window.size() > capacity) {
+                window.removeFirst();
+            }
+            assertMatches(window, stats);
+        }
+    }
+
+    @Test
+    void percentilesNeedTracking() {
+        SlidingWindowStats stats = new SlidingWindowStats(4);
+        stats.add(1);
+
+        assertThrows(IllegalStateException.class, () -> stats.getPercentile(0.5));
+    }
+
+    @Test
+    void clearEmptiesWindow() {
+        SlidingWindowStats stats = new SlidingWindowStats(4, true);
+        stats.add(5);
+        stats.add(9);
+        stats.clear();
+        stats.add(3);
+
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.getSum());
+        assertEquals(3, stats.getMin());
+        assertEquals(3, stats.getMax());
+        assertEquals(3, stats.getPercentile(0.9));
+    }
+
+    private static void assertMatches(Deque<Long> window, SlidingWindowStats stats) {
+        long[] values = window.stream().mapToLong(Long::longValue).toArray();
+        int n = values.length;
+
+        double mean = Arrays.stream(values).average().orElse(0);
+        double m2 = 0, m3 = 0, m4 = 0;
+        for (long value : values) {
+            double d = value - mean;
+            m2 += d * d;
+            m3 += d * d * d;
+            m4 += d * d * d * d;
+        }
+        m2 /= n;
+        m3 /= n;
+        m4 /= n;
+
+        assertEquals(n, stats.size());
+        assertEquals(Arrays.stream(values).sum(), stats.getSum());
+        assertEquals(mean, stats.getMean(), EPSILON * mean);
+        assertEquals(Arrays.stream(values).min().orElseThrow(), stats.getMin());
+        assertEquals(Arrays.stream(values).max().orElseThrow(), stats.getMax());
+        if (n < 2) return;
+
+        assertEquals(m2, stats.getVariance(), EPSILON * m2);
+        assertEquals(m3 / Math.pow(m2, 1.5), stats.getSkewness(), EPSILON);
+        assertEquals(m4 / (m2 * m2) - 3, stats.getKurtosis(), EPSILON);
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[(int) Math.ceil(0.5 * n) - 1], stats.getPercentile(0.5));
+        assertEquals(sorted[(int) Math.ceil(0.9 * n) - 1], stats.getPercentile(0.9));
+    }
+}